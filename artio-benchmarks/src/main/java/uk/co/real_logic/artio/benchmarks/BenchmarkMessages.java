@@ -0,0 +1,175 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.benchmarks;
+
+import org.agrona.MutableDirectBuffer;
+import uk.co.real_logic.artio.ExecType;
+import uk.co.real_logic.artio.OrdStatus;
+import uk.co.real_logic.artio.OrdType;
+import uk.co.real_logic.artio.Side;
+import uk.co.real_logic.artio.builder.Encoder;
+import uk.co.real_logic.artio.builder.ExecutionReportEncoder;
+import uk.co.real_logic.artio.builder.NewOrderSingleEncoder;
+import uk.co.real_logic.artio.builder.SessionHeaderEncoder;
+import uk.co.real_logic.artio.fields.DecimalFloat;
+import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+import uk.co.real_logic.artio.messages.MessageStatus;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+/**
+ * Encodes the order flow that the benchmarks use as their workload, both as raw FIX messages, as they would be read
+ * off the wire, and framed into the {@link FixMessageEncoder} records that are published and archived by the engine.
+ */
+public final class BenchmarkMessages
+{
+    public static final String SENDER_COMP_ID = "initiator";
+    public static final String TARGET_COMP_ID = "acceptor";
+    public static final long SESSION_ID = 1;
+    public static final long CONNECTION_ID = 2;
+    public static final int LIBRARY_ID = 3;
+    public static final int SEQUENCE_INDEX = 0;
+    public static final int MAX_MESSAGE_LENGTH = 1024;
+
+    private static final byte[] NO_META_DATA = new byte[0];
+
+    private final MutableAsciiBuffer messageBuffer = new MutableAsciiBuffer(new byte[MAX_MESSAGE_LENGTH]);
+    private final NewOrderSingleEncoder newOrderSingle = new NewOrderSingleEncoder();
+    private final ExecutionReportEncoder executionReport = new ExecutionReportEncoder();
+    private final UtcTimestampEncoder timestampEncoder = new UtcTimestampEncoder();
+    private final MessageHeaderEncoder messageHeader = new MessageHeaderEncoder();
+    private final FixMessageEncoder fixMessage = new FixMessageEncoder();
+
+    private int messageOffset;
+    private int messageLength;
+
+    public BenchmarkMessages()
+    {
+        newOrderSingle
+            .clOrdID("ORD-0000000001")
+            .side(Side.BUY)
+            .ordType(OrdType.LIMIT)
+            .price(new DecimalFloat(10_125, 2));
+        newOrderSingle.instrument().symbol("MSFT");
+        newOrderSingle.orderQtyData().orderQty(new DecimalFloat(500));
+
+        executionReport
+            .orderID("ORDER-0000000001")
+            .execID("EXEC-0000000001")
+            .execType(ExecType.FILL)
+            .ordStatus(OrdStatus.FILLED)
+            .side(Side.BUY);
+        executionReport.instrument().symbol("MSFT");
+    }
+
+    /**
+     * Encode a NewOrderSingle onto the {@link #messageBuffer()}.
+     *
+     * @param msgSeqNum the sequence number of the message.
+     * @return the long encoded message type of the message.
+     */
+    public long encodeNewOrderSingle(final int msgSeqNum)
+    {
+        final int transactTimeLength = timestampEncoder.encode(System.currentTimeMillis());
+        newOrderSingle.transactTime(timestampEncoder.buffer(), transactTimeLength);
+
+        return encode(newOrderSingle, msgSeqNum);
+    }
+
+    /**
+     * Encode an ExecutionReport onto the {@link #messageBuffer()}.
+     *
+     * @param msgSeqNum the sequence number of the message.
+     * @return the long encoded message type of the message.
+     */
+    public long encodeExecutionReport(final int msgSeqNum)
+    {
+        return encode(executionReport, msgSeqNum);
+    }
+
+    private long encode(final Encoder encoder, final int msgSeqNum)
+    {
+        final SessionHeaderEncoder header = encoder.header();
+        final int sendingTimeLength = timestampEncoder.encode(System.currentTimeMillis());
+        header
+            .senderCompID(SENDER_COMP_ID)
+            .targetCompID(TARGET_COMP_ID)
+            .msgSeqNum(msgSeqNum)
+            .sendingTime(timestampEncoder.buffer(), sendingTimeLength);
+
+        final long result = encoder.encode(messageBuffer, 0);
+        messageOffset = Encoder.offset(result);
+        messageLength = Encoder.length(result);
+
+        return encoder.messageType();
+    }
+
+    /**
+     * Frame the last encoded message into a {@link FixMessageEncoder} record, as the engine would publish it.
+     *
+     * @param buffer the buffer to write the record to.
+     * @param offset the offset within the buffer to write the record at.
+     * @param messageType the long encoded message type of the last encoded message.
+     * @return the length of the record, including its message header.
+     */
+    public int frameMessage(final MutableDirectBuffer buffer, final int offset, final long messageType)
+    {
+        return frameMessage(buffer, offset, messageType, SESSION_ID);
+    }
+
+    /**
+     * Frame the last encoded message into a {@link FixMessageEncoder} record, as the engine would publish it.
+     *
+     * @param buffer the buffer to write the record to.
+     * @param offset the offset within the buffer to write the record at.
+     * @param messageType the long encoded message type of the last encoded message.
+     * @param sessionId the id of the FIX session that the message belongs to.
+     * @return the length of the record, including its message header.
+     */
+    public int frameMessage(
+        final MutableDirectBuffer buffer, final int offset, final long messageType, final long sessionId)
+    {
+        fixMessage
+            .wrapAndApplyHeader(buffer, offset, messageHeader)
+            .messageType(messageType)
+            .session(sessionId)
+            .connection(CONNECTION_ID)
+            .timestamp(System.nanoTime())
+            .status(MessageStatus.OK)
+            .libraryId(LIBRARY_ID)
+            .sequenceIndex(SEQUENCE_INDEX)
+            .putMetaData(NO_META_DATA, 0, 0)
+            .putBody(messageBuffer, messageOffset, messageLength);
+
+        return MessageHeaderEncoder.ENCODED_LENGTH + fixMessage.encodedLength();
+    }
+
+    public MutableAsciiBuffer messageBuffer()
+    {
+        return messageBuffer;
+    }
+
+    public int messageOffset()
+    {
+        return messageOffset;
+    }
+
+    public int messageLength()
+    {
+        return messageLength;
+    }
+}
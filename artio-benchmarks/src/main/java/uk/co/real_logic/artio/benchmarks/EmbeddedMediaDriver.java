@@ -0,0 +1,138 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.benchmarks;
+
+import io.aeron.Aeron;
+import io.aeron.Counter;
+import io.aeron.ExclusivePublication;
+import io.aeron.Subscription;
+import io.aeron.archive.Archive;
+import io.aeron.archive.ArchiveThreadingMode;
+import io.aeron.archive.ArchivingMediaDriver;
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.archive.codecs.SourceLocation;
+import io.aeron.driver.MediaDriver;
+import org.agrona.CloseHelper;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.BusySpinIdleStrategy;
+import org.agrona.concurrent.OffsetEpochNanoClock;
+import org.agrona.concurrent.YieldingIdleStrategy;
+import uk.co.real_logic.artio.engine.logger.RecordingIdLookup;
+import uk.co.real_logic.artio.protocol.GatewayPublication;
+
+import java.io.File;
+
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.driver.ThreadingMode.SHARED;
+import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_INBOUND_MAX_CLAIM_ATTEMPTS;
+
+/**
+ * An archiving media driver that is launched within the benchmark's JVM, so that the suites can be run locally
+ * without any external infrastructure. The driver and archive directories are deleted on close.
+ */
+public final class EmbeddedMediaDriver implements AutoCloseable
+{
+    public static final int TERM_BUFFER_LENGTH = 16 * 1024 * 1024;
+
+    private static final int BENCHMARK_COUNTER_TYPE_ID = 1000;
+
+    private final File baseDir;
+    private final ArchivingMediaDriver mediaDriver;
+    private final AeronArchive aeronArchive;
+
+    public static EmbeddedMediaDriver launch()
+    {
+        return new EmbeddedMediaDriver();
+    }
+
+    private EmbeddedMediaDriver()
+    {
+        baseDir = new File(IoUtil.tmpDirName(), "artio-benchmarks-" + System.nanoTime());
+        final String aeronDirectoryName = new File(baseDir, "aeron").getAbsolutePath();
+
+        final MediaDriver.Context driverContext = new MediaDriver.Context()
+            .aeronDirectoryName(aeronDirectoryName)
+            .threadingMode(SHARED)
+            .sharedIdleStrategy(new YieldingIdleStrategy())
+            .dirDeleteOnStart(true)
+            .dirDeleteOnShutdown(true)
+            .warnIfDirectoryExists(false)
+            .publicationTermBufferLength(TERM_BUFFER_LENGTH)
+            .ipcTermBufferLength(TERM_BUFFER_LENGTH);
+
+        final Archive.Context archiveContext = new Archive.Context()
+            .aeronDirectoryName(aeronDirectoryName)
+            .archiveDir(new File(baseDir, "archive"))
+            .deleteArchiveOnStart(true)
+            .threadingMode(ArchiveThreadingMode.SHARED)
+            .segmentFileLength(TERM_BUFFER_LENGTH);
+
+        mediaDriver = ArchivingMediaDriver.launch(driverContext, archiveContext);
+        aeronArchive = AeronArchive.connect(new AeronArchive.Context().aeronDirectoryName(aeronDirectoryName));
+    }
+
+    public Aeron aeron()
+    {
+        return aeronArchive.context().aeron();
+    }
+
+    public AeronArchive archive()
+    {
+        return aeronArchive;
+    }
+
+    public RecordingIdLookup recordingIdLookup()
+    {
+        return new RecordingIdLookup(new YieldingIdleStrategy(), aeron().countersReader());
+    }
+
+    public ExclusivePublication addIpcPublication(final int streamId)
+    {
+        return aeron().addExclusivePublication(IPC_CHANNEL, streamId);
+    }
+
+    public ExclusivePublication addRecordedIpcPublication(final int streamId)
+    {
+        aeronArchive.startRecording(IPC_CHANNEL, streamId, SourceLocation.LOCAL);
+        return addIpcPublication(streamId);
+    }
+
+    public Subscription addIpcSubscription(final int streamId)
+    {
+        return aeron().addSubscription(IPC_CHANNEL, streamId);
+    }
+
+    public GatewayPublication newGatewayPublication(final int streamId)
+    {
+        return new GatewayPublication(
+            addIpcPublication(streamId),
+            newCounter("Publication fails: " + streamId),
+            new BusySpinIdleStrategy(),
+            new OffsetEpochNanoClock(),
+            DEFAULT_INBOUND_MAX_CLAIM_ATTEMPTS);
+    }
+
+    public Counter newCounter(final String label)
+    {
+        return aeron().addCounter(BENCHMARK_COUNTER_TYPE_ID, label);
+    }
+
+    public void close()
+    {
+        CloseHelper.closeAll(aeronArchive, mediaDriver);
+        IoUtil.delete(baseDir, true);
+    }
+}
@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.co.real_logic.artio.OrdType;
+import uk.co.real_logic.artio.Side;
+import uk.co.real_logic.artio.builder.Encoder;
+import uk.co.real_logic.artio.builder.NewOrderSingleEncoder;
+import uk.co.real_logic.artio.fields.DecimalFloat;
+import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+/**
+ * Compares encoding a NewOrderSingle of around 500 bytes with the generated encoder, which accumulates the checksum
+ * as it writes fields, against {@link #encodeThenRescanChecksum(Blackhole)}. That writes the same message the way the
+ * encoders used to: copying the fields without summing them, then reading the whole message back for the checksum.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class LargeMessageEncoderBenchmark
+{
+    private static final int ID_LENGTH = 200;
+
+    private static final byte[] BEGIN_STRING_AND_BODY_LENGTH_HEADER = "8=FIX.4.4\0019=".getBytes(US_ASCII);
+    private static final byte[] MSG_TYPE_FIELD = "35=D\001".getBytes(US_ASCII);
+    private static final byte[] SENDER_COMP_ID_HEADER = "49=".getBytes(US_ASCII);
+    private static final byte[] TARGET_COMP_ID_HEADER = "56=".getBytes(US_ASCII);
+    private static final byte[] MSG_SEQ_NUM_HEADER = "34=".getBytes(US_ASCII);
+    private static final byte[] SENDING_TIME_HEADER = "52=".getBytes(US_ASCII);
+    private static final byte[] CL_ORD_ID_HEADER = "11=".getBytes(US_ASCII);
+    private static final byte[] SYMBOL_HEADER = "55=".getBytes(US_ASCII);
+    private static final byte[] SIDE_HEADER = "54=".getBytes(US_ASCII);
+    private static final byte[] TRANSACT_TIME_HEADER = "60=".getBytes(US_ASCII);
+    private static final byte[] ORDER_QTY_HEADER = "38=".getBytes(US_ASCII);
+    private static final byte[] ORD_TYPE_HEADER = "40=".getBytes(US_ASCII);
+    private static final byte[] PRICE_HEADER = "44=".getBytes(US_ASCII);
+    private static final byte[] CHECK_SUM_HEADER = "10=".getBytes(US_ASCII);
+
+    private final UtcTimestampEncoder timestampEncoder = new UtcTimestampEncoder();
+    private final NewOrderSingleEncoder newOrderSingle = new NewOrderSingleEncoder();
+    private final MutableAsciiBuffer buffer = new MutableAsciiBuffer(new byte[BenchmarkMessages.MAX_MESSAGE_LENGTH]);
+    private final MutableAsciiBuffer rescanBuffer =
+        new MutableAsciiBuffer(new byte[BenchmarkMessages.MAX_MESSAGE_LENGTH]);
+
+    // deliberately not static/final
+    private final int sequenceNumber = 10;
+    private final byte[] senderCompId = BenchmarkMessages.SENDER_COMP_ID.getBytes(US_ASCII);
+    private final byte[] targetCompId = BenchmarkMessages.TARGET_COMP_ID.getBytes(US_ASCII);
+    private final byte[] clOrdId = filled('C');
+    private final byte[] symbol = filled('S');
+    private final DecimalFloat orderQty = new DecimalFloat(500);
+    private final DecimalFloat price = new DecimalFloat(10_125, 2);
+
+    @Setup
+    public void setup()
+    {
+        newOrderSingle
+            .clOrdID(clOrdId)
+            .side(Side.BUY)
+            .ordType(OrdType.LIMIT)
+            .price(price);
+        newOrderSingle.instrument().symbol(symbol);
+        newOrderSingle.orderQtyData().orderQty(orderQty);
+        newOrderSingle
+            .header()
+            .senderCompID(senderCompId)
+            .targetCompID(targetCompId);
+
+        // Both benchmarks must encode the same message for the comparison to mean anything
+        final long timeInMs = System.currentTimeMillis();
+        final long result = encodeNewOrderSingle(timeInMs);
+        final long rescanResult = encodeThenRescanChecksum(timeInMs);
+        final String message = buffer.getAscii(Encoder.offset(result), Encoder.length(result));
+        final String rescanMessage = rescanBuffer.getAscii(Encoder.offset(rescanResult), Encoder.length(rescanResult));
+        if (!message.equals(rescanMessage))
+        {
+            throw new IllegalStateException(
+                "Benchmarks encode different messages: " + message + " and " + rescanMessage);
+        }
+    }
+
+    private static byte[] filled(final char value)
+    {
+        final byte[] bytes = new byte[ID_LENGTH];
+        Arrays.fill(bytes, (byte)value);
+        return bytes;
+    }
+
+    @Benchmark
+    public void encodeNewOrderSingle(final Blackhole bh)
+    {
+        bh.consume(encodeNewOrderSingle(System.currentTimeMillis()));
+    }
+
+    @Benchmark
+    public void encodeThenRescanChecksum(final Blackhole bh)
+    {
+        bh.consume(encodeThenRescanChecksum(System.currentTimeMillis()));
+    }
+
+    private long encodeNewOrderSingle(final long timeInMs)
+    {
+        final UtcTimestampEncoder timestampEncoder = this.timestampEncoder;
+        final int timestampLength = timestampEncoder.encode(timeInMs);
+
+        newOrderSingle
+            .transactTime(timestampEncoder.buffer(), timestampLength)
+            .header()
+            .msgSeqNum(sequenceNumber)
+            .sendingTime(timestampEncoder.buffer(), timestampLength);
+
+        return newOrderSingle.encode(buffer);
+    }
+
+    // Mirrors the code that was generated before encoders accumulated the checksum, field for field.
+    private long encodeThenRescanChecksum(final long timeInMs)
+    {
+        final MutableAsciiBuffer buffer = this.rescanBuffer;
+        final UtcTimestampEncoder timestampEncoder = this.timestampEncoder;
+        final int timestampLength = timestampEncoder.encode(timeInMs);
+        final byte[] timestamp = timestampEncoder.buffer();
+
+        final int bodyStart = BEGIN_STRING_AND_BODY_LENGTH_HEADER.length + 16;
+        int position = bodyStart;
+
+        position += putField(buffer, position, MSG_TYPE_FIELD);
+        position += putField(buffer, position, SENDER_COMP_ID_HEADER);
+        position += putValue(buffer, position, senderCompId, senderCompId.length);
+        position += putField(buffer, position, TARGET_COMP_ID_HEADER);
+        position += putValue(buffer, position, targetCompId, targetCompId.length);
+        position += putField(buffer, position, MSG_SEQ_NUM_HEADER);
+        position += buffer.putIntAscii(position, sequenceNumber);
+        buffer.putSeparator(position++);
+        position += putField(buffer, position, SENDING_TIME_HEADER);
+        position += putValue(buffer, position, timestamp, timestampLength);
+
+        position += putField(buffer, position, CL_ORD_ID_HEADER);
+        position += putValue(buffer, position, clOrdId, clOrdId.length);
+        position += putField(buffer, position, SYMBOL_HEADER);
+        position += putValue(buffer, position, symbol, symbol.length);
+        position += putField(buffer, position, SIDE_HEADER);
+        position += buffer.putCharAscii(position, Side.BUY.representation());
+        buffer.putSeparator(position++);
+        position += putField(buffer, position, TRANSACT_TIME_HEADER);
+        position += putValue(buffer, position, timestamp, timestampLength);
+        position += putField(buffer, position, ORDER_QTY_HEADER);
+        position += buffer.putFloatAscii(position, orderQty);
+        buffer.putSeparator(position++);
+        position += putField(buffer, position, ORD_TYPE_HEADER);
+        position += buffer.putCharAscii(position, OrdType.LIMIT.representation());
+        buffer.putSeparator(position++);
+        position += putField(buffer, position, PRICE_HEADER);
+        position += buffer.putFloatAscii(position, price);
+        buffer.putSeparator(position++);
+
+        int messageStart = bodyStart - 1;
+        buffer.putSeparator(messageStart);
+        messageStart = buffer.putNaturalIntAsciiFromEnd(position - bodyStart, messageStart);
+        messageStart -= BEGIN_STRING_AND_BODY_LENGTH_HEADER.length;
+        buffer.putBytes(messageStart, BEGIN_STRING_AND_BODY_LENGTH_HEADER);
+
+        final int checkSum = buffer.computeChecksum(messageStart, position);
+        position += putField(buffer, position, CHECK_SUM_HEADER);
+        buffer.putNaturalPaddedIntAscii(position, 3, checkSum);
+        position += 3;
+        buffer.putSeparator(position++);
+
+        return Encoder.result(position - messageStart, messageStart);
+    }
+
+    private static int putField(final MutableAsciiBuffer buffer, final int position, final byte[] header)
+    {
+        buffer.putBytes(position, header);
+        return header.length;
+    }
+
+    private static int putValue(
+        final MutableAsciiBuffer buffer, final int position, final byte[] value, final int length)
+    {
+        buffer.putBytes(position, value, 0, length);
+        buffer.putSeparator(position + length);
+        return length + 1;
+    }
+}
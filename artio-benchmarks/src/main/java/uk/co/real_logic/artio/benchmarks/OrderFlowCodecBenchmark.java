@@ -0,0 +1,111 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.benchmarks;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+import uk.co.real_logic.artio.decoder.ExecutionReportDecoder;
+import uk.co.real_logic.artio.decoder.NewOrderSingleDecoder;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Measures the generated codecs on the order flow that a FIX gateway typically handles, rather than on session
+ * level messages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class OrderFlowCodecBenchmark
+{
+    private final BenchmarkMessages messages = new BenchmarkMessages();
+    private final NewOrderSingleDecoder newOrderSingle = new NewOrderSingleDecoder();
+    private final ExecutionReportDecoder executionReport = new ExecutionReportDecoder();
+
+    private MutableAsciiBuffer newOrderSingleBuffer;
+    private MutableAsciiBuffer executionReportBuffer;
+    private int msgSeqNum;
+
+    @Setup
+    public void setup()
+    {
+        messages.encodeNewOrderSingle(1);
+        newOrderSingleBuffer = copyOfMessage();
+
+        messages.encodeExecutionReport(1);
+        executionReportBuffer = copyOfMessage();
+    }
+
+    private MutableAsciiBuffer copyOfMessage()
+    {
+        final int length = messages.messageLength();
+        final MutableAsciiBuffer buffer = new MutableAsciiBuffer(new byte[length]);
+        buffer.putBytes(0, messages.messageBuffer(), messages.messageOffset(), length);
+        return buffer;
+    }
+
+    @Benchmark
+    public long encodeNewOrderSingle()
+    {
+        return messages.encodeNewOrderSingle(++msgSeqNum);
+    }
+
+    @Benchmark
+    public long encodeExecutionReport()
+    {
+        return messages.encodeExecutionReport(++msgSeqNum);
+    }
+
+    @Benchmark
+    public void decodeNewOrderSingle(final Blackhole bh)
+    {
+        final NewOrderSingleDecoder newOrderSingle = this.newOrderSingle;
+        final MutableAsciiBuffer buffer = this.newOrderSingleBuffer;
+
+        bh.consume(newOrderSingle.decode(buffer, 0, buffer.capacity()));
+
+        bh.consume(newOrderSingle.header().msgSeqNum());
+        bh.consume(newOrderSingle.clOrdID());
+        bh.consume(newOrderSingle.clOrdIDLength());
+        bh.consume(newOrderSingle.sideAsEnum());
+        bh.consume(newOrderSingle.ordTypeAsEnum());
+        bh.consume(newOrderSingle.price());
+        bh.consume(newOrderSingle.symbol());
+        bh.consume(newOrderSingle.symbolLength());
+    }
+
+    @Benchmark
+    public void decodeExecutionReport(final Blackhole bh)
+    {
+        final ExecutionReportDecoder executionReport = this.executionReport;
+        final MutableAsciiBuffer buffer = this.executionReportBuffer;
+
+        bh.consume(executionReport.decode(buffer, 0, buffer.capacity()));
+
+        bh.consume(executionReport.header().msgSeqNum());
+        bh.consume(executionReport.orderID());
+        bh.consume(executionReport.orderIDLength());
+        bh.consume(executionReport.execTypeAsEnum());
+        bh.consume(executionReport.ordStatusAsEnum());
+        bh.consume(executionReport.sideAsEnum());
+        bh.consume(executionReport.symbol());
+        bh.consume(executionReport.symbolLength());
+    }
+}
@@ -0,0 +1,121 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import io.aeron.ExclusivePublication;
+import io.aeron.Subscription;
+import io.aeron.logbuffer.BufferClaim;
+import io.aeron.logbuffer.ControlledFragmentHandler.Action;
+import io.aeron.logbuffer.FragmentHandler;
+import org.agrona.CloseHelper;
+import org.agrona.LangUtil;
+import org.agrona.concurrent.OffsetEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.*;
+import uk.co.real_logic.artio.LogTag;
+import uk.co.real_logic.artio.benchmarks.BenchmarkMessages;
+import uk.co.real_logic.artio.benchmarks.EmbeddedMediaDriver;
+import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+
+import java.util.concurrent.TimeUnit;
+
+import static uk.co.real_logic.artio.benchmarks.BenchmarkMessages.MAX_MESSAGE_LENGTH;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_ARCHIVE_REPLAY_STREAM;
+
+/**
+ * Measures the cost of rewriting an archived message as a possible duplicate, claiming space for it on the replay
+ * publication, as the Replayer does when it services a resend request.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class PossDupEnablerBenchmark
+{
+    private static final FragmentHandler NO_OP_HANDLER = (buffer, offset, length, header) -> {};
+    private static final int MESSAGE_FRAME_LENGTH = MessageHeaderDecoder.ENCODED_LENGTH +
+        FixMessageDecoder.BLOCK_LENGTH + FixMessageDecoder.metaDataHeaderLength() +
+        FixMessageDecoder.bodyHeaderLength();
+
+    @Param({"NewOrderSingle", "ExecutionReport"})
+    String message;
+
+    private final BufferClaim bufferClaim = new BufferClaim();
+
+    private EmbeddedMediaDriver mediaDriver;
+    private ExclusivePublication publication;
+    private Subscription subscription;
+    private PossDupEnabler possDupEnabler;
+
+    private UnsafeBuffer frameBuffer;
+    private int frameLength;
+
+    @Setup
+    public void setup()
+    {
+        mediaDriver = EmbeddedMediaDriver.launch();
+        publication = mediaDriver.addIpcPublication(DEFAULT_ARCHIVE_REPLAY_STREAM);
+        subscription = mediaDriver.addIpcSubscription(DEFAULT_ARCHIVE_REPLAY_STREAM);
+
+        possDupEnabler = new PossDupEnabler(
+            new UtcTimestampEncoder(),
+            bufferClaim,
+            this::claim,
+            (buffer, offset) -> {},
+            (error) -> LangUtil.rethrowUnchecked(new IllegalStateException(error)),
+            LangUtil::rethrowUnchecked,
+            new OffsetEpochNanoClock(),
+            publication.maxPayloadLength(),
+            LogTag.FIX_MESSAGE);
+
+        final BenchmarkMessages messages = new BenchmarkMessages();
+        final long messageType = "NewOrderSingle".equals(message) ?
+            messages.encodeNewOrderSingle(1) : messages.encodeExecutionReport(1);
+        frameBuffer = new UnsafeBuffer(new byte[MESSAGE_FRAME_LENGTH + MAX_MESSAGE_LENGTH]);
+        frameLength = messages.frameMessage(frameBuffer, 0, messageType);
+    }
+
+    private boolean claim(final int totalLength, final int messageLength)
+    {
+        return publication.tryClaim(totalLength, bufferClaim) > 0;
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        CloseHelper.closeAll(subscription, publication, mediaDriver);
+    }
+
+    @Benchmark
+    public Action enablePossDupFlag()
+    {
+        final int frameLength = this.frameLength;
+        final Action action = possDupEnabler.enablePossDupFlag(
+            frameBuffer,
+            MESSAGE_FRAME_LENGTH,
+            frameLength - MESSAGE_FRAME_LENGTH,
+            0,
+            frameLength,
+            FixMessageDecoder.metaDataHeaderLength());
+        subscription.poll(NO_OP_HANDLER, Integer.MAX_VALUE);
+
+        return action;
+    }
+}
@@ -0,0 +1,179 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import io.aeron.Subscription;
+import io.aeron.logbuffer.FragmentHandler;
+import org.agrona.CloseHelper;
+import org.agrona.ErrorHandler;
+import org.agrona.LangUtil;
+import org.agrona.concurrent.OffsetEpochNanoClock;
+import org.openjdk.jmh.annotations.*;
+import uk.co.real_logic.artio.benchmarks.BenchmarkMessages;
+import uk.co.real_logic.artio.benchmarks.EmbeddedMediaDriver;
+import uk.co.real_logic.artio.dictionary.FixDictionary;
+import uk.co.real_logic.artio.messages.ConnectionType;
+import uk.co.real_logic.artio.protocol.GatewayPublication;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.HashMap;
+import java.util.concurrent.TimeUnit;
+
+import static org.mockito.Mockito.mock;
+import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_INBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.benchmarks.BenchmarkMessages.*;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_AUTHENTICATION_TIMEOUT_IN_MS;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_RECEIVER_BUFFER_SIZE;
+import static uk.co.real_logic.artio.library.SessionConfiguration.NO_RESEND_REQUEST_CHUNK_SIZE;
+
+/**
+ * Measures the cost of framing the messages in a TCP read and publishing them onto the inbound stream for an
+ * authenticated connection. The socket read is stubbed out so that the end point is given the same batch of
+ * messages on every poll.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FixReceiverEndPointBenchmark
+{
+    private static final FragmentHandler NO_OP_HANDLER = (buffer, offset, length, header) -> {};
+
+    @Param({"1", "8", "32"})
+    int messagesPerRead;
+
+    private EmbeddedMediaDriver mediaDriver;
+    private GatewayPublication publication;
+    private Subscription subscription;
+    private ServerSocketChannel listeningChannel;
+    private SocketChannel clientChannel;
+    private SocketChannel serverChannel;
+    private FixReceiverEndPoint endPoint;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        mediaDriver = EmbeddedMediaDriver.launch();
+        publication = mediaDriver.newGatewayPublication(DEFAULT_INBOUND_LIBRARY_STREAM);
+        subscription = mediaDriver.addIpcSubscription(DEFAULT_INBOUND_LIBRARY_STREAM);
+
+        listeningChannel = ServerSocketChannel.open();
+        listeningChannel.bind(new InetSocketAddress("localhost", 0));
+        clientChannel = SocketChannel.open(listeningChannel.getLocalAddress());
+        serverChannel = listeningChannel.accept();
+
+        final ErrorHandler errorHandler = LangUtil::rethrowUnchecked;
+        final OffsetEpochNanoClock clock = new OffsetEpochNanoClock();
+        final FixDictionary fixDictionary = FixDictionary.of(FixDictionary.findDefault());
+        final SessionContexts sessionContexts = mock(SessionContexts.class);
+
+        endPoint = new FixReceiverEndPoint(
+            new ReplayingTcpChannel(serverChannel, readBatch()),
+            DEFAULT_RECEIVER_BUFFER_SIZE,
+            publication,
+            CONNECTION_ID,
+            SESSION_ID,
+            SEQUENCE_INDEX,
+            sessionContexts,
+            mediaDriver.newCounter("Messages read"),
+            mock(Framer.class),
+            errorHandler,
+            LIBRARY_ID,
+            mock(GatewaySessions.class),
+            clock,
+            new AcceptorFixDictionaryLookup(fixDictionary, new HashMap<>()),
+            new FixReceiverEndPoint.FixReceiverEndPointFormatters());
+
+        final SessionContext context = new SessionContext(
+            null, SESSION_ID, SEQUENCE_INDEX, 0, 0, sessionContexts, 0, SEQUENCE_INDEX, fixDictionary);
+
+        // Sessions owned by a library don't have a session parser in the engine, so framed messages are only
+        // published onto the inbound stream.
+        endPoint.gatewaySession(new GatewaySession(
+            CONNECTION_ID,
+            context,
+            "localhost",
+            ConnectionType.ACCEPTOR,
+            null,
+            endPoint,
+            null,
+            null,
+            false,
+            NO_RESEND_REQUEST_CHUNK_SIZE,
+            false,
+            false,
+            fixDictionary,
+            DEFAULT_AUTHENTICATION_TIMEOUT_IN_MS));
+    }
+
+    private byte[] readBatch()
+    {
+        final BenchmarkMessages messages = new BenchmarkMessages();
+        final ByteBuffer batch = ByteBuffer.allocate(messagesPerRead * MAX_MESSAGE_LENGTH);
+        for (int i = 1; i <= messagesPerRead; i++)
+        {
+            messages.encodeNewOrderSingle(i);
+            final int length = messages.messageLength();
+            final byte[] message = new byte[length];
+            messages.messageBuffer().getBytes(messages.messageOffset(), message);
+            batch.put(message);
+        }
+
+        final byte[] bytes = new byte[batch.position()];
+        batch.flip();
+        batch.get(bytes);
+        return bytes;
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        CloseHelper.closeAll(clientChannel, serverChannel, listeningChannel, subscription, publication, mediaDriver);
+    }
+
+    @Benchmark
+    public int frameMessages()
+    {
+        final int bytesRead = endPoint.poll();
+        subscription.poll(NO_OP_HANDLER, Integer.MAX_VALUE);
+        return bytesRead;
+    }
+
+    static final class ReplayingTcpChannel extends TcpChannel
+    {
+        private final byte[] batch;
+
+        ReplayingTcpChannel(final SocketChannel socketChannel, final byte[] batch) throws IOException
+        {
+            super(socketChannel);
+            this.batch = batch;
+        }
+
+        public int read(final ByteBuffer dst)
+        {
+            final byte[] batch = this.batch;
+            final int length = Math.min(batch.length, dst.remaining());
+            dst.put(batch, 0, length);
+            return length;
+        }
+    }
+}
@@ -0,0 +1,133 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.Header;
+import io.aeron.protocol.DataHeaderFlyweight;
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.benchmarks.BenchmarkMessages;
+
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
+import static io.aeron.logbuffer.LogBufferDescriptor.positionBitsToShift;
+import static io.aeron.protocol.DataHeaderFlyweight.BEGIN_AND_END_FLAGS;
+import static io.aeron.protocol.DataHeaderFlyweight.HDR_TYPE_DATA;
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static uk.co.real_logic.artio.benchmarks.BenchmarkMessages.MAX_MESSAGE_LENGTH;
+import static uk.co.real_logic.artio.benchmarks.EmbeddedMediaDriver.TERM_BUFFER_LENGTH;
+
+/**
+ * Framed messages, along with the Aeron header that an indexer would be given for them when reading the archived
+ * stream. The stream position is advanced on every call to {@link #next()} so that the indexes see an ever
+ * increasing position, as they would when following the archive.
+ */
+final class ArchivedFragments
+{
+    static final int FRAGMENT_COUNT = 1024;
+
+    private static final int INITIAL_TERM_ID = 0;
+
+    private final UnsafeBuffer fragmentBuffer = new UnsafeBuffer(new byte[FRAGMENT_COUNT * MAX_MESSAGE_LENGTH]);
+    private final int[] offsets = new int[FRAGMENT_COUNT];
+    private final int[] lengths = new int[FRAGMENT_COUNT];
+
+    private final UnsafeBuffer headerBuffer = new UnsafeBuffer(new byte[HEADER_LENGTH]);
+    private final DataHeaderFlyweight dataHeader = new DataHeaderFlyweight(headerBuffer);
+    private final Header header = new Header(INITIAL_TERM_ID, positionBitsToShift(TERM_BUFFER_LENGTH));
+
+    private int index = FRAGMENT_COUNT - 1;
+    private int termId = INITIAL_TERM_ID;
+    private int termOffset;
+
+    /**
+     * Frame messages round robin across a number of FIX sessions with in-sequence sequence numbers for each session.
+     *
+     * @param aeronSessionId the session id of the recorded publication that the fragments are read from.
+     * @param streamId the stream id of the recorded publication that the fragments are read from.
+     * @param fixSessions the number of FIX sessions that the messages belong to.
+     */
+    ArchivedFragments(final int aeronSessionId, final int streamId, final int fixSessions)
+    {
+        final BenchmarkMessages messages = new BenchmarkMessages();
+        int offset = 0;
+        for (int i = 0; i < FRAGMENT_COUNT; i++)
+        {
+            final long fixSessionId = 1 + (i % fixSessions);
+            final int msgSeqNum = 1 + (i / fixSessions);
+            final long messageType = messages.encodeExecutionReport(msgSeqNum);
+            final int length = messages.frameMessage(fragmentBuffer, offset, messageType, fixSessionId);
+
+            offsets[i] = offset;
+            lengths[i] = length;
+            offset += BitUtil.align(length, FRAME_ALIGNMENT);
+        }
+
+        dataHeader.headerType(HDR_TYPE_DATA);
+        dataHeader.flags(BEGIN_AND_END_FLAGS);
+        dataHeader.sessionId(aeronSessionId);
+        dataHeader.streamId(streamId);
+        header.buffer(headerBuffer);
+        header.offset(0);
+    }
+
+    /**
+     * Move onto the next fragment and update the {@link #header()} to match it.
+     *
+     * @return the index of the fragment.
+     */
+    int next()
+    {
+        final int previous = index;
+        final int index = (previous + 1) % FRAGMENT_COUNT;
+        this.index = index;
+
+        final int alignedFrameLength = BitUtil.align(HEADER_LENGTH + lengths[previous], FRAME_ALIGNMENT);
+        int termOffset = this.termOffset + alignedFrameLength;
+        if (termOffset + HEADER_LENGTH + MAX_MESSAGE_LENGTH > TERM_BUFFER_LENGTH)
+        {
+            termId++;
+            termOffset = 0;
+        }
+        this.termOffset = termOffset;
+
+        dataHeader.termId(termId);
+        dataHeader.termOffset(termOffset);
+        dataHeader.frameLength(HEADER_LENGTH + lengths[index]);
+
+        return index;
+    }
+
+    DirectBuffer buffer()
+    {
+        return fragmentBuffer;
+    }
+
+    int offset(final int index)
+    {
+        return offsets[index];
+    }
+
+    int length(final int index)
+    {
+        return lengths[index];
+    }
+
+    Header header()
+    {
+        return header;
+    }
+}
@@ -0,0 +1,102 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.ExclusivePublication;
+import org.agrona.CloseHelper;
+import org.agrona.IoUtil;
+import org.agrona.LangUtil;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.*;
+import uk.co.real_logic.artio.benchmarks.EmbeddedMediaDriver;
+import uk.co.real_logic.artio.session.Session;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_OUTBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.*;
+
+/**
+ * Measures the cost of indexing an archived message for replay. Once there are more FIX sessions than fit in the
+ * index's cache this includes the cost of mapping in the index files of the evicted sessions.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class ReplayIndexBenchmark
+{
+    @Param({"1", "16", "256"})
+    int fixSessions;
+
+    private EmbeddedMediaDriver mediaDriver;
+    private ExclusivePublication publication;
+    private File logFileDir;
+    private ReplayIndex replayIndex;
+    private ArchivedFragments fragments;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        mediaDriver = EmbeddedMediaDriver.launch();
+        publication = mediaDriver.addRecordedIpcPublication(DEFAULT_OUTBOUND_LIBRARY_STREAM);
+
+        final RecordingIdLookup recordingIdLookup = mediaDriver.recordingIdLookup();
+        // Wait for the recording to start so that the lookup is served from its cache whilst measuring.
+        recordingIdLookup.getRecordingId(publication.sessionId());
+
+        logFileDir = Files.createTempDirectory("artio-replay-index").toFile();
+        final String logFileDirPath = logFileDir.getAbsolutePath();
+        replayIndex = new ReplayIndex(
+            logFileDirPath,
+            DEFAULT_OUTBOUND_LIBRARY_STREAM,
+            DEFAULT_REPLAY_INDEX_FILE_SIZE,
+            DEFAULT_LOGGER_CACHE_NUM_SETS,
+            DEFAULT_LOGGER_CACHE_SET_SIZE,
+            LoggerUtil::map,
+            new UnsafeBuffer(new byte[DEFAULT_REPLAY_POSITION_BUFFER_SIZE]),
+            LangUtil::rethrowUnchecked,
+            recordingIdLookup,
+            new Long2LongHashMap(Session.UNKNOWN),
+            DEFAULT_REPLAY_INDEX_LAYOUT,
+            DEFAULT_REPLAY_INDEX_SEGMENT_SESSIONS);
+
+        fragments = new ArchivedFragments(publication.sessionId(), DEFAULT_OUTBOUND_LIBRARY_STREAM, fixSessions);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        CloseHelper.closeAll(replayIndex, publication, mediaDriver);
+        IoUtil.delete(logFileDir, true);
+    }
+
+    @Benchmark
+    public void onFragment()
+    {
+        final ArchivedFragments fragments = this.fragments;
+        final int index = fragments.next();
+
+        replayIndex.onFragment(
+            fragments.buffer(), fragments.offset(index), fragments.length(index), fragments.header());
+    }
+}
@@ -0,0 +1,105 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.ExclusivePublication;
+import org.agrona.CloseHelper;
+import org.agrona.IoUtil;
+import org.agrona.LangUtil;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.concurrent.SystemEpochClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.*;
+import uk.co.real_logic.artio.benchmarks.EmbeddedMediaDriver;
+import uk.co.real_logic.artio.engine.MappedFile;
+import uk.co.real_logic.artio.session.Session;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.concurrent.TimeUnit;
+
+import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_INBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.*;
+
+/**
+ * Measures the cost of updating the last known sequence number of a FIX session from an archived message, including
+ * the periodic flushes of the index to its file.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SequenceNumberIndexWriterBenchmark
+{
+    @Param({"1", "16", "256"})
+    int fixSessions;
+
+    private EmbeddedMediaDriver mediaDriver;
+    private ExclusivePublication publication;
+    private File indexDir;
+    private SequenceNumberIndexWriter writer;
+    private ArchivedFragments fragments;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        mediaDriver = EmbeddedMediaDriver.launch();
+        publication = mediaDriver.addRecordedIpcPublication(DEFAULT_INBOUND_LIBRARY_STREAM);
+
+        final RecordingIdLookup recordingIdLookup = mediaDriver.recordingIdLookup();
+        // Wait for the recording to start so that the lookup is served from its cache whilst measuring.
+        recordingIdLookup.getRecordingId(publication.sessionId());
+
+        indexDir = Files.createTempDirectory("artio-sequence-numbers").toFile();
+        final MappedFile indexFile = MappedFile.map(
+            new File(indexDir, DEFAULT_SEQUENCE_NUMBERS_RECEIVED_FILE), DEFAULT_SEQUENCE_NUMBER_INDEX_SIZE);
+        writer = new SequenceNumberIndexWriter(
+            new UnsafeBuffer(new byte[DEFAULT_SEQUENCE_NUMBER_INDEX_SIZE]),
+            indexFile,
+            LangUtil::rethrowUnchecked,
+            DEFAULT_INBOUND_LIBRARY_STREAM,
+            recordingIdLookup,
+            DEFAULT_INDEX_FILE_STATE_FLUSH_TIMEOUT_IN_MS,
+            new SystemEpochClock(),
+            null,
+            new Long2LongHashMap(Session.UNKNOWN),
+            DEFAULT_FILE_SYNC_POLICY);
+
+        fragments = new ArchivedFragments(publication.sessionId(), DEFAULT_INBOUND_LIBRARY_STREAM, fixSessions);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        CloseHelper.closeAll(writer, publication, mediaDriver);
+        IoUtil.delete(indexDir, true);
+    }
+
+    @Benchmark
+    public int onFragment()
+    {
+        final ArchivedFragments fragments = this.fragments;
+        final int index = fragments.next();
+
+        writer.onFragment(
+            fragments.buffer(), fragments.offset(index), fragments.length(index), fragments.header());
+
+        return writer.doWork();
+    }
+}
@@ -0,0 +1,75 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.fields;
+
+import org.openjdk.jmh.annotations.*;
+import org.openjdk.jmh.infra.Blackhole;
+
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class UtcTimestampDecoderBenchmark
+{
+    private final byte[] secondsTimestamp = "20200123-12:34:56".getBytes(US_ASCII);
+    private final byte[] millisTimestamp = "20200123-12:34:56.789".getBytes(US_ASCII);
+    private final byte[] microsTimestamp = "20200123-12:34:56.789012".getBytes(US_ASCII);
+    private final byte[] nanosTimestamp = "20200123-12:34:56.789012345".getBytes(US_ASCII);
+
+    private final UtcTimestampDecoder strictDecoder = new UtcTimestampDecoder(true);
+    private final UtcTimestampDecoder lenientDecoder = new UtcTimestampDecoder(false);
+
+    @Benchmark
+    public long decodeSeconds()
+    {
+        return strictDecoder.decode(secondsTimestamp);
+    }
+
+    @Benchmark
+    public long decodeMillis()
+    {
+        return strictDecoder.decode(millisTimestamp);
+    }
+
+    @Benchmark
+    public long decodeMicros()
+    {
+        return strictDecoder.decodeMicros(microsTimestamp);
+    }
+
+    @Benchmark
+    public long decodeNanos()
+    {
+        return strictDecoder.decodeNanos(nanosTimestamp);
+    }
+
+    @Benchmark
+    public void decodeLenientMillisFromAllPrecisions(final Blackhole bh)
+    {
+        final UtcTimestampDecoder lenientDecoder = this.lenientDecoder;
+
+        bh.consume(lenientDecoder.decode(secondsTimestamp));
+        bh.consume(lenientDecoder.decode(millisTimestamp));
+        bh.consume(lenientDecoder.decode(microsTimestamp));
+        bh.consume(lenientDecoder.decode(nanosTimestamp));
+    }
+}
@@ -0,0 +1,149 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import io.aeron.logbuffer.ControlledFragmentHandler.Action;
+import org.agrona.CloseHelper;
+import org.agrona.ErrorHandler;
+import org.agrona.LangUtil;
+import org.agrona.concurrent.OffsetEpochNanoClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.openjdk.jmh.annotations.*;
+import uk.co.real_logic.artio.benchmarks.BenchmarkMessages;
+import uk.co.real_logic.artio.benchmarks.EmbeddedMediaDriver;
+import uk.co.real_logic.artio.dictionary.FixDictionary;
+import uk.co.real_logic.artio.fields.EpochFractionFormat;
+import uk.co.real_logic.artio.library.OnMessageInfo;
+import uk.co.real_logic.artio.messages.SessionState;
+import uk.co.real_logic.artio.protocol.GatewayPublication;
+import uk.co.real_logic.artio.util.EpochFractionClocks;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+import uk.co.real_logic.artio.validation.MessageValidationStrategy;
+
+import java.util.concurrent.TimeUnit;
+
+import static uk.co.real_logic.artio.CommonConfiguration.*;
+import static uk.co.real_logic.artio.benchmarks.BenchmarkMessages.*;
+
+/**
+ * Measures the cost of validating and applying an in-sequence message to an active session, as the engine does for
+ * the sessions that it manages.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class SessionParserBenchmark
+{
+    private static final int MSG_SEQ_NUM = 2;
+    private static final long POSITION = 1024;
+    // Wide enough that the sending time that was encoded during setup is still valid at the end of the run.
+    private static final long SENDING_TIME_WINDOW_IN_MS = TimeUnit.DAYS.toMillis(1);
+
+    @Param({"NewOrderSingle", "ExecutionReport"})
+    String message;
+
+    private EmbeddedMediaDriver mediaDriver;
+    private GatewayPublication inboundPublication;
+    private GatewayPublication outboundPublication;
+    private InternalSession session;
+    private SessionParser parser;
+
+    private UnsafeBuffer messageBuffer;
+    private int messageLength;
+    private long messageType;
+
+    @Setup
+    public void setup()
+    {
+        mediaDriver = EmbeddedMediaDriver.launch();
+        inboundPublication = mediaDriver.newGatewayPublication(DEFAULT_INBOUND_LIBRARY_STREAM);
+        outboundPublication = mediaDriver.newGatewayPublication(DEFAULT_OUTBOUND_LIBRARY_STREAM);
+
+        final ErrorHandler errorHandler = LangUtil::rethrowUnchecked;
+        final OffsetEpochNanoClock clock = new OffsetEpochNanoClock();
+        final SessionIdStrategy sessionIdStrategy = SessionIdStrategy.senderAndTarget();
+        final SessionCustomisationStrategy customisationStrategy = SessionCustomisationStrategy.none();
+        final OnMessageInfo messageInfo = new OnMessageInfo();
+
+        final DirectSessionProxy proxy = new DirectSessionProxy(
+            DEFAULT_SESSION_BUFFER_SIZE,
+            outboundPublication,
+            sessionIdStrategy,
+            customisationStrategy,
+            clock,
+            CONNECTION_ID,
+            LIBRARY_ID,
+            errorHandler,
+            EpochFractionFormat.MILLISECONDS);
+
+        session = new InternalSession(
+            DEFAULT_HEARTBEAT_INTERVAL_IN_S,
+            CONNECTION_ID,
+            clock,
+            SessionState.ACTIVE,
+            proxy,
+            inboundPublication,
+            outboundPublication,
+            sessionIdStrategy,
+            SENDING_TIME_WINDOW_IN_MS,
+            mediaDriver.newCounter("Received MsgSeqNum"),
+            mediaDriver.newCounter("Sent MsgSeqNum"),
+            LIBRARY_ID,
+            1,
+            SEQUENCE_INDEX,
+            DEFAULT_REASONABLE_TRANSMISSION_TIME_IN_MS,
+            new MutableAsciiBuffer(new byte[DEFAULT_SESSION_BUFFER_SIZE]),
+            false,
+            customisationStrategy,
+            messageInfo,
+            EpochFractionClocks.millisClock(clock));
+
+        parser = new SessionParser(
+            session,
+            MessageValidationStrategy.none(),
+            errorHandler,
+            false,
+            true,
+            messageInfo,
+            sessionIdStrategy);
+        parser.fixDictionary(FixDictionary.of(FixDictionary.findDefault()));
+
+        final BenchmarkMessages messages = new BenchmarkMessages();
+        messageType = "NewOrderSingle".equals(message) ?
+            messages.encodeNewOrderSingle(MSG_SEQ_NUM) : messages.encodeExecutionReport(MSG_SEQ_NUM);
+        messageLength = messages.messageLength();
+        messageBuffer = new UnsafeBuffer(new byte[messageLength]);
+        messageBuffer.putBytes(0, messages.messageBuffer(), messages.messageOffset(), messageLength);
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        CloseHelper.closeAll(session, inboundPublication, outboundPublication, mediaDriver);
+    }
+
+    @Benchmark
+    public Action onMessage()
+    {
+        // Rewind the session so that the same message is in sequence on every invocation.
+        session.lastReceivedMsgSeqNumOnly(MSG_SEQ_NUM - 1);
+
+        return parser.onMessage(messageBuffer, 0, messageLength, messageType, POSITION);
+    }
+}
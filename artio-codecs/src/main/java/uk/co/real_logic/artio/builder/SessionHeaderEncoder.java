@@ -38,6 +38,8 @@ public interface SessionHeaderEncoder
 
     boolean hasBeginString();
 
+    int beginStringLength();
+
     SessionHeaderEncoder senderCompID(byte[] value, int length);
 
     SessionHeaderEncoder senderCompID(byte[] value, int offset, int length);
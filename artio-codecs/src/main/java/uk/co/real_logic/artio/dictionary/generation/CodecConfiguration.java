@@ -44,13 +44,20 @@ public class CodecConfiguration
      */
     public static final String FIX_CODECS_ALLOW_DUPLICATE_FIELDS_PROPERTY = "fix.codecs.allow_duplicate_fields";
     public static final String PARENT_PACKAGE_PROPERTY = "fix.codecs.parent_package";
+    /**
+     * Boolean system property to turn on or off the generation of flyweight decoders into the decoder_flyweight
+     * package, alongside the normal decoders. Defaults to true.
+     * <p>
+     * Flyweight decoders only record the offset and length of each field when decoding a message, field values are
+     * decoded from the underlying buffer the first time that they're accessed.
+     */
     public static final String FLYWEIGHTS_ENABLED_PROPERTY = "fix.codecs.flyweight";
     public static final String REJECT_UNKNOWN_ENUM_VALUE_PROPERTY = "reject.unknown.enum.value";
 
     public static final String DEFAULT_PARENT_PACKAGE = "uk.co.real_logic.artio";
 
     private String parentPackage = System.getProperty(PARENT_PACKAGE_PROPERTY, DEFAULT_PARENT_PACKAGE);
-    private boolean flyweightsEnabled = Boolean.getBoolean(FLYWEIGHTS_ENABLED_PROPERTY);
+    private boolean flyweightsEnabled = Boolean.parseBoolean(System.getProperty(FLYWEIGHTS_ENABLED_PROPERTY, "true"));
     private boolean allowDuplicateFields = Boolean.getBoolean(FIX_CODECS_ALLOW_DUPLICATE_FIELDS_PROPERTY);
 
     private String codecRejectUnknownEnumValueEnabled;
@@ -42,6 +42,11 @@ public final class CodecUtil
     public static final int ENUM_UNKNOWN_INT = Integer.MAX_VALUE;
     public static final String ENUM_UNKNOWN_STRING = Character.toString(ENUM_UNKNOWN_CHAR);
 
+    /**
+     * Returned by the generated field index lookups of decoders for tags that aren't fields of the aggregate.
+     */
+    public static final int NO_FIELD_INDEX = -1;
+
     private static final char ZERO = '0';
     private static final char DOT = '.';
 
@@ -310,6 +315,47 @@ public final class CodecUtil
 
     }
 
+    // Hash functions shared by the generator and generated decoders' perfect hash of tags to field indices.
+    public static int fieldBucket(final int tag, final int bucketMask)
+    {
+        return ((tag * 0x85EBCA6B) >>> 16) & bucketMask;
+    }
+
+    public static int fieldSlot(final int tag, final int displacement, final int slotMask)
+    {
+        final int hash = (tag ^ displacement) * 0x9E3779B9;
+        return (hash ^ (hash >>> 16)) & slotMask;
+    }
+
+    // returns true iff the bit wasn't previously set
+    public static boolean setFieldBit(final long[] fieldBits, final int fieldIndex)
+    {
+        final int word = fieldIndex >>> 6;
+        final long bits = fieldBits[word];
+        final long mask = 1L << fieldIndex;
+        fieldBits[word] = bits | mask;
+        return (bits & mask) == 0;
+    }
+
+    public static void clearFieldBit(final long[] fieldBits, final int fieldIndex)
+    {
+        fieldBits[fieldIndex >>> 6] &= ~(1L << fieldIndex);
+    }
+
+    public static int firstFieldBit(final long[] fieldBits)
+    {
+        for (int i = 0; i < fieldBits.length; i++)
+        {
+            final long bits = fieldBits[i];
+            if (bits != 0)
+            {
+                return (i << 6) + Long.numberOfTrailingZeros(bits);
+            }
+        }
+
+        return NO_FIELD_INDEX;
+    }
+
     private static void putTrailingZero(final StringBuilder builder, final int zerosCount)
     {
         for (int ix = 0; ix < zerosCount; ix++)
@@ -242,8 +242,10 @@ class DecoderGenerator extends Generator
             interfaces.add(SessionHeaderDecoder.class.getSimpleName());
         }
 
+        final FieldIndexTable fieldIndexTable = fieldIndexTable(aggregate);
+
         out.append(classDeclaration(className, interfaces, false));
-        generateValidation(out, aggregate, type);
+        generateValidation(out, aggregate, type, fieldIndexTable);
         if (isMessage)
         {
             final Message message = (Message)aggregate;
@@ -253,7 +255,7 @@ class DecoderGenerator extends Generator
             out.append(commonCompoundImports("Decoder", true, messageFieldsSet));
 
         }
-        groupMethods(out, aggregate);
+        groupMethods(out, aggregate, fieldIndexTable);
         headerMethods(out, aggregate, type);
         generateGetters(out, className, aggregate.entries());
         out.append(decodeMethod(aggregate.entries(), aggregate, type));
@@ -390,18 +392,20 @@ class DecoderGenerator extends Generator
             "        {\n" +
             "            invalidTagId = Decoder.NO_ERROR;\n" +
             "            rejectReason = Decoder.NO_ERROR;\n" +
-            "            missingRequiredFields.clear();\n" +
+            "            Arrays.fill(missingRequiredFields, 0L);\n" +
             (isGroup ? "" :
                 "            unknownFields.clear();\n" +
-                "            alreadyVisitedFields.clear();\n") +
+                "            Arrays.fill(alreadyVisitedFields, 0L);\n") +
             "        }\n";
     }
 
-    private void generateValidation(final Writer out, final Aggregate aggregate, final AggregateType type)
+    private void generateValidation(
+        final Writer out, final Aggregate aggregate, final AggregateType type, final FieldIndexTable fieldIndexTable)
         throws IOException
     {
         final List<Field> requiredFields = requiredFields(aggregate.entries()).collect(toList());
         out.append(generateFieldDictionary(requiredFields, REQUIRED_FIELDS, true));
+        out.append(generateFieldIndexTable(aggregate, requiredFields, fieldIndexTable, type == GROUP));
 
         if (aggregate.containsGroup())
         {
@@ -452,9 +456,9 @@ class DecoderGenerator extends Generator
 
         out.append(String.format(
             (isGroup ? generateAllGroupFields(aggregate) :
-            "    private final IntHashSet alreadyVisitedFields = new IntHashSet(%5$d);\n\n" +
+            "    private final long[] alreadyVisitedFields = new long[%1$d];\n\n" +
             "    private final IntHashSet unknownFields = new IntHashSet(10);\n\n") +
-            "    private final IntHashSet missingRequiredFields = new IntHashSet(%1$d);\n\n" +
+            "    private final long[] missingRequiredFields = new long[%1$d];\n\n" +
             "    private int invalidTagId = Decoder.NO_ERROR;\n\n" +
             "    public int invalidTagId()\n" +
             "    {\n" +
@@ -472,12 +476,12 @@ class DecoderGenerator extends Generator
             "        {\n" +
             "            return false;\n" +
             "        }\n" +
-            "        final IntIterator missingFieldsIterator = missingRequiredFields.iterator();\n" +
+            "        final int missingFieldIndex = firstFieldBit(missingRequiredFields);\n" +
             (isMessage ? "        final IntIterator unknownFieldsIterator = unknownFields.iterator();\n" : "") +
             "%2$s" +
-            "        if (missingFieldsIterator.hasNext())\n" +
+            "        if (missingFieldIndex != NO_FIELD_INDEX)\n" +
             "        {\n" +
-            "            invalidTagId = missingFieldsIterator.nextValue();\n" +
+            "            invalidTagId = FIELD_TAGS[missingFieldIndex];\n" +
             "            rejectReason = " + REQUIRED_TAG_MISSING + ";\n" +
             "            return false;\n" +
             "        }\n" +
@@ -485,11 +489,82 @@ class DecoderGenerator extends Generator
             "%4$s" +
             "        return true;\n" +
             "    }\n\n",
-            sizeHashSet(requiredFields),
+            fieldIndexTable.wordCount(),
             messageValidation,
             enumValidation,
-            groupValidation,
-            2 * aggregate.allFieldsIncludingComponents().count()));
+            groupValidation));
+    }
+
+    private FieldIndexTable fieldIndexTable(final Aggregate aggregate)
+    {
+        return new FieldIndexTable(decodedFields(aggregate).stream().mapToInt(Field::number).toArray());
+    }
+
+    // The fields that have a case in the aggregate's decode method
+    private List<Field> decodedFields(final Aggregate aggregate)
+    {
+        final Stream<Field> fields = aggregate
+            .allFieldsIncludingComponents()
+            .map(entry -> (Field)entry.element());
+        final Stream<Field> groupNumberFields = aggregate
+            .allGroupsIncludingComponents()
+            .map(entry -> (Field)((Group)entry.element()).numberField().element());
+
+        return Stream.concat(fields, groupNumberFields).distinct().collect(toList());
+    }
+
+    private String generateFieldIndexTable(
+        final Aggregate aggregate,
+        final List<Field> requiredFields,
+        final FieldIndexTable fieldIndexTable,
+        final boolean isGroup)
+    {
+        // Group decoders are inner classes so can't have static members
+        final String modifiers = isGroup ? "private final " : "private static final ";
+        final List<String> fieldTags = decodedFields(aggregate)
+            .stream()
+            .map(field -> "Constants." + constantName(field.name()))
+            .collect(toList());
+        final long[] requiredFieldBits = fieldIndexTable.fieldBits(requiredFields
+            .stream()
+            .map(Field::number)
+            .collect(toList()));
+
+        return String.format(
+            "    %1$sint[] FIELD_TAGS = {%2$s};\n\n" +
+            "    %1$sint[] FIELD_DISPLACEMENTS = {%3$s};\n\n" +
+            "    %1$sint[] FIELD_INDEX_BY_SLOT = {%4$s};\n\n" +
+            "    %1$slong[] REQUIRED_FIELD_BITS = {%5$s};\n\n" +
+            "    private %6$sint fieldIndex(final int tag)\n" +
+            "    {\n" +
+            "        final int index = FIELD_INDEX_BY_SLOT[\n" +
+            "            fieldSlot(tag, FIELD_DISPLACEMENTS[fieldBucket(tag, %7$d)], %8$d)];\n" +
+            "        return index != NO_FIELD_INDEX && FIELD_TAGS[index] == tag ? index : NO_FIELD_INDEX;\n" +
+            "    }\n\n",
+            modifiers,
+            arrayInitializer(fieldTags),
+            arrayInitializer(Arrays.stream(fieldIndexTable.displacements()).mapToObj(Integer::toString)),
+            arrayInitializer(Arrays.stream(fieldIndexTable.indexBySlot()).mapToObj(Integer::toString)),
+            arrayInitializer(Arrays.stream(requiredFieldBits).mapToObj(bits -> "0x" + Long.toHexString(bits) + "L")),
+            isGroup ? "" : "static ",
+            fieldIndexTable.bucketMask(),
+            fieldIndexTable.slotMask());
+    }
+
+    private static String arrayInitializer(final Stream<String> values)
+    {
+        return arrayInitializer(values.collect(toList()));
+    }
+
+    private static String arrayInitializer(final List<String> values)
+    {
+        final StringBuilder initializer = new StringBuilder();
+        for (int i = 0; i < values.size(); i++)
+        {
+            initializer.append(i % 8 == 0 ? "\n        " : " ").append(values.get(i)).append(',');
+        }
+
+        return values.isEmpty() ? "" : initializer.append("\n    ").toString();
     }
 
     private String generateAllGroupFields(final Aggregate groupAggregate)
@@ -812,7 +887,8 @@ class DecoderGenerator extends Generator
             (component) -> componentGetter(component, out, missingOptionalFields));
     }
 
-    private void groupMethods(final Writer out, final Aggregate aggregate) throws IOException
+    private void groupMethods(final Writer out, final Aggregate aggregate, final FieldIndexTable fieldIndexTable)
+        throws IOException
     {
         if (aggregate instanceof Group)
         {
@@ -824,9 +900,9 @@ class DecoderGenerator extends Generator
                 "    {\n" +
                 "        return next;\n" +
                 "    }\n\n" +
-                "    private IntHashSet seenFields = new IntHashSet(%2$d);\n\n",
+                "    private final long[] seenFields = new long[%2$d];\n\n",
                 decoderClassName(aggregate),
-                sizeHashSet(aggregate.entries())));
+                fieldIndexTable.wordCount()));
         }
     }
 
@@ -1048,8 +1124,12 @@ class DecoderGenerator extends Generator
             optionalCheck,
             extraStringDecode) : "";
 
+        // Flyweight decoders only record where a field is on decode, its value is decoded on first access.
+        final String decodedFlag = flyweightsEnabled && type.hasOffsetField(true) ?
+            String.format("    private boolean %1$sDecoded;\n\n", fieldName) : "";
+
         final String offsetField = type.hasOffsetField(flyweightsEnabled) ?
-            String.format("    private int %1$sOffset;\n\n%2$s", fieldName, lengthBasedFields) : "";
+            String.format("    private int %1$sOffset;\n\n%2$s%3$s", fieldName, decodedFlag, lengthBasedFields) : "";
 
         final String enumValueDecoder = String.format(
             type.isStringBased() ?
@@ -1170,9 +1250,10 @@ class DecoderGenerator extends Generator
                 }
                 final String associatedFieldName = formatPropertyName(associatedLengthField.name());
                 return String.format(
-                    "        if (buffer != null && %2$s > 0)\n" +
+                    "        if (buffer != null && !%1$sDecoded && %2$s > 0)\n" +
                     "        {\n" +
                     "            %1$s = buffer.getBytes(%1$s, %1$sOffset, %2$s);\n" +
+                    "            %1$sDecoded = true;\n" +
                     "        }\n",
                     fieldName,
                     associatedFieldName);
@@ -1194,9 +1275,10 @@ class DecoderGenerator extends Generator
         }
 
         return String.format(
-            "        if (buffer != null && %1$sLength > 0)\n" +
+            "        if (buffer != null && !%1$sDecoded && %1$sLength > 0)\n" +
             "        {\n" +
             "            %1$s = %2$s;\n" +
+            "            %1$sDecoded = true;\n" +
             "        }\n",
             fieldName,
             decodeMethod);
@@ -1352,14 +1434,15 @@ class DecoderGenerator extends Generator
             "        int seenFieldCount = 0;\n" +
             "        if (" + CODEC_VALIDATION_ENABLED + ")\n" +
             "        {\n" +
-            "            missingRequiredFields.copy(" + REQUIRED_FIELDS + ");\n" +
-            (isGroup ? "" : "            alreadyVisitedFields.clear();\n") +
+            "            System.arraycopy(\n" +
+            "                REQUIRED_FIELD_BITS, 0, missingRequiredFields, 0, missingRequiredFields.length);\n" +
+            (isGroup ? "" : "            Arrays.fill(alreadyVisitedFields, 0L);\n") +
             "        }\n" +
             "        this.buffer = buffer;\n" +
             "        final int end = offset + length;\n" +
             "        int position = offset;\n" +
             (hasCommonCompounds ? "        position += header.decode(buffer, position, length);\n" : "") +
-            (isGroup ? "        seenFields.clear();\n" : "") +
+            (isGroup ? "        Arrays.fill(seenFields, 0L);\n" : "") +
             "        int tag;\n\n" +
             "        while (position < end)\n" +
             "        {\n" +
@@ -1387,14 +1470,18 @@ class DecoderGenerator extends Generator
             "                    rejectReason = " + TAG_SPECIFIED_WITHOUT_A_VALUE + ";\n" +
             "                }\n" +
             headerValidation(isHeader) +
-            (isGroup ? "" :
-            "                if (!alreadyVisitedFields.add(tag))\n" +
+            // Unknown tags end the decode if they're rejected, so only the aggregate's own fields are tracked
+            (isGroup ? "" : "                final int fieldIndex = fieldIndex(tag);\n") +
+            "                if (fieldIndex != NO_FIELD_INDEX)\n" +
             "                {\n" +
-            "                    invalidTagId = tag;\n" +
-            "                    rejectReason = " + TAG_APPEARS_MORE_THAN_ONCE + ";\n" +
-            "                }\n") +
-
-            "                missingRequiredFields.remove(tag);\n" +
+            (isGroup ? "" :
+            "                    if (!setFieldBit(alreadyVisitedFields, fieldIndex))\n" +
+            "                    {\n" +
+            "                        invalidTagId = tag;\n" +
+            "                        rejectReason = " + TAG_APPEARS_MORE_THAN_ONCE + ";\n" +
+            "                    }\n") +
+            "                    clearFieldBit(missingRequiredFields, fieldIndex);\n" +
+            "                }\n" +
             "                seenFieldCount++;\n" +
             "            }\n\n" +
             "            switch (tag)\n" +
@@ -1404,14 +1491,8 @@ class DecoderGenerator extends Generator
             .collect(joining("\n", "", "\n"));
         final String suffix =
             "            default:\n" +
-            "                if (!" + CODEC_REJECT_UNKNOWN_FIELD_ENABLED + ")\n" +
-            "                {\n" +
-            (isGroup ?
-            "                    seenFields.remove(tag);\n" :
-            "                    alreadyVisitedFields.remove(tag);\n") +
-            "                }\n" +
             (isGroup ? "" :
-            "                else\n" +
+            "                if (" + CODEC_REJECT_UNKNOWN_FIELD_ENABLED + ")\n" +
             "                {\n" +
             "                    if (!" + unknownFieldPredicate(type) + ")\n" +
             "                    {\n" +
@@ -1477,7 +1558,8 @@ class DecoderGenerator extends Generator
         if (isGroup)
         {
             endGroupCheck = String.format(
-                "            if (!seenFields.add(tag))\n" +
+                "            final int fieldIndex = fieldIndex(tag);\n" +
+                "            if (fieldIndex != NO_FIELD_INDEX && !setFieldBit(seenFields, fieldIndex))\n" +
                 "            {\n" +
                 "                if (next == null)\n" +
                 "                {\n" +
@@ -1627,9 +1709,15 @@ class DecoderGenerator extends Generator
 
     private String storeOffsetForVariableLengthFields(final Type type, final String fieldName)
     {
-        return type.hasOffsetField(flyweightsEnabled) ?
-            String.format("                %sOffset = valueOffset;\n", fieldName) :
-            "";
+        if (!type.hasOffsetField(flyweightsEnabled))
+        {
+            return "";
+        }
+
+        final String decodedReset = flyweightsEnabled ?
+            String.format("                %sDecoded = false;\n", fieldName) : "";
+
+        return String.format("                %sOffset = valueOffset;\n", fieldName) + decodedReset;
     }
 
     private String optionalAssign(final Entry entry)
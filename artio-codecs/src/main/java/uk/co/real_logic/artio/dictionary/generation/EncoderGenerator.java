@@ -45,6 +45,7 @@ import static uk.co.real_logic.artio.dictionary.generation.EnumGenerator.hasEnum
 import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.fileHeader;
 import static uk.co.real_logic.artio.dictionary.generation.GenerationUtil.importFor;
 import static uk.co.real_logic.artio.dictionary.generation.OptionalSessionFields.ENCODER_OPTIONAL_SESSION_FIELDS;
+import static uk.co.real_logic.artio.util.AsciiBuffer.SEPARATOR;
 import static uk.co.real_logic.artio.util.MutableAsciiBuffer.LONGEST_INT_LENGTH;
 import static uk.co.real_logic.sbe.generation.java.JavaUtil.formatClassName;
 import static uk.co.real_logic.sbe.generation.java.JavaUtil.formatPropertyName;
@@ -62,11 +63,12 @@ class EncoderGenerator extends Generator
 
     private static final String TRAILER_ENCODE_PREFIX =
         "    // |10=...|\n" +
-        "    long finishMessage(final MutableAsciiBuffer buffer, final int messageStart, final int offset)\n" +
+        "    long finishMessage(\n" +
+        "        final MutableAsciiBuffer buffer, final int messageStart, final int offset, final int checksum)\n" +
         "    {\n" +
         "        int position = offset;\n" +
         "\n" +
-        "        final int checkSum = buffer.computeChecksum(messageStart, position);\n" +
+        "        final int checkSum = checksum & 0xFF;\n" +
         "        buffer.putBytes(position, checkSumHeader, 0, checkSumHeaderLength);\n" +
         "        position += checkSumHeaderLength;\n" +
         "        buffer.putNaturalPaddedIntAscii(position, 3, checkSum);\n" +
@@ -82,6 +84,7 @@ class EncoderGenerator extends Generator
         "    {\n" +
         "        final int start = offset;\n" +
         "        int position = start;\n" +
+        "        int checksum = 0;\n" +
         "\n";
 
     // returns offset where message starts
@@ -108,23 +111,33 @@ class EncoderGenerator extends Generator
         "            throw new EncodingException(\"Missing Field: BeginString\");\n" +
         "        }\n" +
         "\n" +
+        "        encodedChecksum += buffer.computeChecksum(position, bodyStart);\n" +
+        "\n" +
         "        return position;\n" +
         "    }\n" +
         "\n" +
+        "    public int beginStringLength()\n" +
+        "    {\n" +
+        "        return beginStringLength;\n" +
+        "    }\n" +
+        "\n" +
         "    // 35=...| + other header fields\n" +
         "    public long startMessage(final MutableAsciiBuffer buffer, final int offset)\n" +
         "    {\n" +
         "        final int start = offset + beginStringLength + 16;\n" +
-        "        int position = start;";
+        "        int position = start;\n" +
+        "        int checksum = 0;";
 
     private static final String GROUP_ENCODE_PREFIX =
         "    public int encode(final MutableAsciiBuffer buffer, final int offset, final int remainingElements)\n" +
         "    {\n" +
         "        if (remainingElements == 0)\n" +
         "        {\n" +
+        "            encodedChecksum = 0;\n" +
         "            return 0;\n" +
         "        }\n\n" +
-        "        int position = offset;\n\n";
+        "        int position = offset;\n" +
+        "        int checksum = 0;\n\n";
 
     // returns (offset, length) as long
     private static final String MESSAGE_ENCODE_PREFIX =
@@ -133,13 +146,15 @@ class EncoderGenerator extends Generator
         "        final long startMessageResult = header.startMessage(buffer, offset);\n" +
         "        final int bodyStart = Encoder.offset(startMessageResult);\n" +
         "        int position = bodyStart + Encoder.length(startMessageResult);\n" +
+        "        int checksum = 0;\n" +
         "\n";
 
     // returns length as int
     private static final String OTHER_ENCODE_PREFIX =
         "    public int encode(final MutableAsciiBuffer buffer, final int offset)\n" +
         "    {\n" +
-        "        int position = offset;\n\n";
+        "        int position = offset;\n" +
+        "        int checksum = 0;\n\n";
 
     private static final String RESET_NEXT_GROUP =
         "        if (next != null)" +
@@ -284,6 +299,14 @@ class EncoderGenerator extends Generator
                 beginString));
         }
 
+        if (!isMessage)
+        {
+            out.append(
+                "\n" +
+                "    // Checksum of the bytes written by the last call to encode, summed by the enclosing encoder.\n" +
+                "    int encodedChecksum;\n\n");
+        }
+
         precomputedHeaders(out, aggregate.entries());
         generateSetters(out, className, aggregate.entries());
         out.append(encodeMethod(aggregate.entries(), type));
@@ -838,25 +861,29 @@ class EncoderGenerator extends Generator
                 "        position += trailer.startTrailer(buffer, position);\n" +
                 "\n" +
                 "        final int messageStart = header.finishHeader(buffer, bodyStart, position - bodyStart);\n" +
-                "        return trailer.finishMessage(buffer, messageStart, position);\n" +
+                "        checksum += header.encodedChecksum + trailer.encodedChecksum;\n" +
+                "        return trailer.finishMessage(buffer, messageStart, position, checksum);\n" +
                 "    }\n\n";
         }
         else if (aggregateType == AggregateType.HEADER)
         {
             suffix =
                 "\n" +
+                "        encodedChecksum = checksum;\n" +
                 "        return Encoder.result(position - start, start);\n" +
                 "    }\n\n";
         }
         else if (aggregateType == AggregateType.TRAILER)
         {
             suffix =
+                "        encodedChecksum = checksum;\n" +
                 "        return position - start;\n" +
                 "    }\n\n";
         }
         else
         {
             suffix =
+                "        encodedChecksum = checksum;\n" +
                 "        return position - offset;\n" +
                 "    }\n\n";
 
@@ -866,6 +893,7 @@ class EncoderGenerator extends Generator
                     "        if (next != null)\n" +
                     "        {\n" +
                     "            position += next.encode(buffer, position, remainingElements - 1);\n" +
+                    "            checksum += next.encodedChecksum;\n" +
                     "        }\n" + suffix;
             }
         }
@@ -962,7 +990,7 @@ class EncoderGenerator extends Generator
             case XMLDATA:
                 return String.format(
                     "%1$s" +
-                    "%4$s        buffer.putBytes(position, %2$s);\n" +
+                    "%4$s        checksum += buffer.putBytesWithChecksum(position, %2$s, 0, %2$s.length);\n" +
                     "%4$s        position += %2$s.length;\n" +
                     "%4$s        buffer.putSeparator(position);\n" +
                     "%4$s        position++;\n" +
@@ -997,7 +1025,7 @@ class EncoderGenerator extends Generator
     {
         return String.format(
             "%1$s" +
-            "%4$s        buffer.putBytes(position, %2$s, %2$sOffset, %2$sLength);\n" +
+            "%4$s        checksum += buffer.putBytesWithChecksum(position, %2$s, %2$sOffset, %2$sLength);\n" +
             "%4$s        position += %2$sLength;\n" +
             "%4$s        buffer.putSeparator(position);\n" +
             "%4$s        position++;\n" +
@@ -1016,6 +1044,7 @@ class EncoderGenerator extends Generator
             "        if (%2$s != null)\n" +
             "        {\n" +
             "            position += %2$s.encode(buffer, position, %3$s);\n" +
+            "            checksum += %2$s.encodedChecksum;\n" +
             "        }\n\n",
             encodeField(group.numberField()),
             formatPropertyName(group.name()),
@@ -1026,7 +1055,8 @@ class EncoderGenerator extends Generator
     {
         // TODO: make component return int, split encode prefix
         return String.format(
-            "            position += %1$s.encode(buffer, position);\n",
+            "            position += %1$s.encode(buffer, position);\n" +
+            "            checksum += %1$s.encodedChecksum;\n",
             formatPropertyName(entry.name()));
     }
 
@@ -1036,7 +1066,8 @@ class EncoderGenerator extends Generator
         return String.format(
             "%1$s" +
             "%3$s        buffer.putBytes(position, %2$sHeader, 0, %2$sHeaderLength);\n" +
-            "%3$s        position += %2$sHeaderLength;\n",
+            "%3$s        position += %2$sHeaderLength;\n" +
+            "%3$s        checksum += %2$sHeaderChecksum;\n",
             optionalPrefix,
             fieldName,
             indent);
@@ -1054,9 +1085,36 @@ class EncoderGenerator extends Generator
         final String optionalSuffix,
         final String indent)
     {
+        final String putValue;
+        switch (type)
+        {
+            case "Char":
+                putValue =
+                    "%5$s        position += buffer.put%2$sAscii(position, %3$s);\n" +
+                    "%5$s        checksum += (byte)%3$s;\n";
+                break;
+
+            case "Boolean":
+                putValue =
+                    "%5$s        position += buffer.put%2$sAscii(position, %3$s);\n" +
+                    "%5$s        checksum += %3$s ? 'Y' : 'N';\n";
+                break;
+
+            default:
+                // The length of numbers isn't known until they've been written, so only their digits are summed
+                // after the fact.
+                putValue =
+                    "%5$s        {\n" +
+                    "%5$s            final int valueStart = position;\n" +
+                    "%5$s            position += buffer.put%2$sAscii(position, %3$s);\n" +
+                    "%5$s            checksum += buffer.computeChecksum(valueStart, position);\n" +
+                    "%5$s        }\n";
+                break;
+        }
+
         return String.format(
             "%1$s" +
-            "%5$s        position += buffer.put%2$sAscii(position, %3$s);\n" +
+            putValue +
             "%5$s        buffer.putSeparator(position);\n" +
             "%5$s        position++;\n" +
             "%4$s",
@@ -1094,12 +1152,21 @@ class EncoderGenerator extends Generator
             .mapToObj(i -> String.valueOf(buffer[i]))
             .collect(joining(", ", "", ", (byte) '='"));
 
+        // The checksum of the tag includes the '=' and the separator that follows the field's value.
+        int checksum = '=' + SEPARATOR;
+        for (int i = 0; i < length; i++)
+        {
+            checksum += buffer[i];
+        }
+
         out.append(String.format(
             "    private static final int %sHeaderLength = %d;\n" +
-            "    private static final byte[] %1$sHeader = new byte[] {%s};\n\n",
+            "    private static final byte[] %1$sHeader = new byte[] {%s};\n" +
+            "    private static final int %1$sHeaderChecksum = %d;\n\n",
             fieldName,
             length + 1,
-            bytes));
+            bytes,
+            checksum));
     }
 
     protected String stringAppendTo(final String fieldName)
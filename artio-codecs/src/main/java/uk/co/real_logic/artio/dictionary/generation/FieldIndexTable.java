@@ -0,0 +1,182 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.dictionary.generation;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+import static org.agrona.BitUtil.findNextPositivePowerOfTwo;
+import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.*;
+
+/**
+ * Perfect hash of the tags of an aggregate's fields to a dense index, built when the codecs are generated. Tags are
+ * first hashed into buckets and each bucket is given a displacement that maps all of its tags to free slots, so a
+ * lookup is two array reads and a comparison. Generated decoders use the index to track fields in bitsets.
+ */
+final class FieldIndexTable
+{
+    private static final int MAX_DISPLACEMENT = 1 << 16;
+
+    private final int[] tags;
+    private int[] displacements;
+    private int[] indexBySlot;
+
+    FieldIndexTable(final int[] tags)
+    {
+        this.tags = tags;
+
+        final int fieldCount = tags.length;
+        int slotCount = findNextPositivePowerOfTwo(2 * fieldCount);
+        while (!build(findNextPositivePowerOfTwo(fieldCount / 2), slotCount))
+        {
+            slotCount <<= 1;
+        }
+    }
+
+    private boolean build(final int bucketCount, final int slotCount)
+    {
+        final int bucketMask = bucketCount - 1;
+        final int slotMask = slotCount - 1;
+
+        final List<List<Integer>> buckets = new ArrayList<>(bucketCount);
+        for (int i = 0; i < bucketCount; i++)
+        {
+            buckets.add(new ArrayList<>());
+        }
+        for (int index = 0; index < tags.length; index++)
+        {
+            buckets.get(fieldBucket(tags[index], bucketMask)).add(index);
+        }
+
+        final Integer[] bucketsBySize = new Integer[bucketCount];
+        for (int i = 0; i < bucketCount; i++)
+        {
+            bucketsBySize[i] = i;
+        }
+        Arrays.sort(bucketsBySize, (a, b) -> buckets.get(b).size() - buckets.get(a).size());
+
+        displacements = new int[bucketCount];
+        indexBySlot = new int[slotCount];
+        Arrays.fill(indexBySlot, NO_FIELD_INDEX);
+
+        final int[] slots = new int[tags.length];
+        for (final int bucket : bucketsBySize)
+        {
+            final List<Integer> indices = buckets.get(bucket);
+            if (indices.isEmpty())
+            {
+                break;
+            }
+
+            if (!displace(indices, slots, slotMask, bucket))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private boolean displace(final List<Integer> indices, final int[] slots, final int slotMask, final int bucket)
+    {
+        final int size = indices.size();
+        nextDisplacement:
+        for (int displacement = 0; displacement < MAX_DISPLACEMENT; displacement++)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                final int slot = fieldSlot(tags[indices.get(i)], displacement, slotMask);
+                if (indexBySlot[slot] != NO_FIELD_INDEX)
+                {
+                    continue nextDisplacement;
+                }
+
+                for (int j = 0; j < i; j++)
+                {
+                    if (slots[j] == slot)
+                    {
+                        continue nextDisplacement;
+                    }
+                }
+
+                slots[i] = slot;
+            }
+
+            for (int i = 0; i < size; i++)
+            {
+                indexBySlot[slots[i]] = indices.get(i);
+            }
+            displacements[bucket] = displacement;
+
+            return true;
+        }
+
+        return false;
+    }
+
+    int fieldIndex(final int tag)
+    {
+        final int index = indexBySlot[fieldSlot(tag, displacements[fieldBucket(tag, bucketMask())], slotMask())];
+        return index != NO_FIELD_INDEX && tags[index] == tag ? index : NO_FIELD_INDEX;
+    }
+
+    long[] fieldBits(final Collection<Integer> fieldTags)
+    {
+        final long[] fieldBits = new long[wordCount()];
+        for (final int tag : fieldTags)
+        {
+            final int index = fieldIndex(tag);
+            if (index != NO_FIELD_INDEX)
+            {
+                setFieldBit(fieldBits, index);
+            }
+        }
+
+        return fieldBits;
+    }
+
+    int[] tags()
+    {
+        return tags;
+    }
+
+    int[] displacements()
+    {
+        return displacements;
+    }
+
+    int[] indexBySlot()
+    {
+        return indexBySlot;
+    }
+
+    int bucketMask()
+    {
+        return displacements.length - 1;
+    }
+
+    int slotMask()
+    {
+        return indexBySlot.length - 1;
+    }
+
+    int wordCount()
+    {
+        return (tags.length + 63) >>> 6;
+    }
+}
@@ -16,6 +16,7 @@
 package uk.co.real_logic.artio.util;
 
 import org.agrona.AsciiNumberFormatException;
+import org.agrona.BufferUtil;
 import org.agrona.DirectBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import uk.co.real_logic.artio.fields.*;
@@ -24,7 +25,11 @@ import uk.co.real_logic.artio.util.float_parsing.DecimalFloatParser;
 
 import java.nio.ByteBuffer;
 
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
 import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.BufferUtil.ARRAY_BASE_OFFSET;
+import static org.agrona.UnsafeAccess.UNSAFE;
 import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.MISSING_INT;
 
 public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffer
@@ -35,6 +40,19 @@ public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffe
     private static final byte Y = (byte)'Y';
     private static final byte N = (byte)'N';
 
+    /**
+     * Property name for the flag that enables scanning for delimiters and computing checksums a word (8 bytes)
+     * at a time rather than a byte at a time.
+     */
+    public static final String SWAR_SCANNING_PROPERTY = "fix.core.swar_scanning";
+    public static final boolean SWAR_SCANNING_ENABLED = Boolean.getBoolean(SWAR_SCANNING_PROPERTY);
+
+    private static final long LOW_BITS = 0x0101010101010101L;
+    private static final long HIGH_BITS = 0x8080808080808080L;
+    private static final long LOW_SEVEN_BITS = 0x7F7F7F7F7F7F7F7FL;
+    private static final long EVEN_BYTES = 0x00FF00FF00FF00FFL;
+    private static final long SUM_SHORTS = 0x0001000100010001L;
+
     public MutableAsciiBuffer()
     {
         super(0, 0);
@@ -197,6 +215,41 @@ public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffe
     }
 
     public int scanBack(final int startInclusive, final int endExclusive, final byte terminator)
+    {
+        if (SWAR_SCANNING_ENABLED)
+        {
+            return scanBackWords(startInclusive, endExclusive, terminator);
+        }
+
+        return scanBackBytes(startInclusive, endExclusive, terminator);
+    }
+
+    public int scan(final int startInclusive, final int endExclusive, final char terminatingCharacter)
+    {
+        return scan(startInclusive, endExclusive, (byte)terminatingCharacter);
+    }
+
+    public int scan(final int startInclusive, final int endExclusive, final byte terminator)
+    {
+        if (SWAR_SCANNING_ENABLED)
+        {
+            return scanWords(startInclusive, endExclusive, terminator);
+        }
+
+        return scanBytes(startInclusive, endExclusive, terminator);
+    }
+
+    public int computeChecksum(final int startInclusive, final int endExclusive)
+    {
+        if (SWAR_SCANNING_ENABLED)
+        {
+            return computeChecksumWords(startInclusive, endExclusive);
+        }
+
+        return computeChecksumBytes(startInclusive, endExclusive);
+    }
+
+    int scanBackBytes(final int startInclusive, final int endExclusive, final byte terminator)
     {
         for (int index = startInclusive; index > endExclusive; index--)
         {
@@ -210,12 +263,7 @@ public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffe
         return UNKNOWN_INDEX;
     }
 
-    public int scan(final int startInclusive, final int endExclusive, final char terminatingCharacter)
-    {
-        return scan(startInclusive, endExclusive, (byte)terminatingCharacter);
-    }
-
-    public int scan(final int startInclusive, final int endExclusive, final byte terminator)
+    int scanBytes(final int startInclusive, final int endExclusive, final byte terminator)
     {
         int indexValue = UNKNOWN_INDEX;
         for (int i = startInclusive; i < endExclusive; i++)
@@ -231,7 +279,7 @@ public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffe
         return indexValue;
     }
 
-    public int computeChecksum(final int startInclusive, final int endExclusive)
+    int computeChecksumBytes(final int startInclusive, final int endExclusive)
     {
         int total = 0;
         for (int index = startInclusive; index < endExclusive; index++)
@@ -242,6 +290,162 @@ public final class MutableAsciiBuffer extends UnsafeBuffer implements AsciiBuffe
         return total % 256;
     }
 
+    // Word at a time variants: a long is always read as little endian so that the lowest byte of the
+    // word is the byte with the lowest index in the buffer, whatever the platform's byte order.
+
+    int scanWords(final int startInclusive, final int endExclusive, final byte terminator)
+    {
+        final long pattern = broadcast(terminator);
+        final int lastWordStart = endExclusive - SIZE_OF_LONG;
+
+        int index = startInclusive;
+        for (; index <= lastWordStart; index += SIZE_OF_LONG)
+        {
+            final long matches = zeroBytes(getLong(index, LITTLE_ENDIAN) ^ pattern);
+            if (matches != 0)
+            {
+                return index + (Long.numberOfTrailingZeros(matches) >>> 3);
+            }
+        }
+
+        return scanBytes(index, endExclusive, terminator);
+    }
+
+    int scanBackWords(final int startInclusive, final int endExclusive, final byte terminator)
+    {
+        final long pattern = broadcast(terminator);
+        final int lastWordEnd = endExclusive + SIZE_OF_LONG;
+
+        int index = startInclusive;
+        for (; index >= lastWordEnd; index -= SIZE_OF_LONG)
+        {
+            final int wordStart = index - (SIZE_OF_LONG - 1);
+            final long matches = zeroBytes(getLong(wordStart, LITTLE_ENDIAN) ^ pattern);
+            if (matches != 0)
+            {
+                return wordStart + ((Long.SIZE - 1 - Long.numberOfLeadingZeros(matches)) >>> 3);
+            }
+        }
+
+        return scanBackBytes(index, endExclusive, terminator);
+    }
+
+    int computeChecksumWords(final int startInclusive, final int endExclusive)
+    {
+        final int lastWordStart = endExclusive - SIZE_OF_LONG;
+
+        // Bytes are summed unsigned a word at a time, then corrected so that the result is identical to
+        // summing signed bytes.
+        int total = 0;
+        int index = startInclusive;
+        for (; index <= lastWordStart; index += SIZE_OF_LONG)
+        {
+            final long word = getLong(index, LITTLE_ENDIAN);
+            final long pairs = (word & EVEN_BYTES) + ((word >>> 8) & EVEN_BYTES);
+            total += (int)((pairs * SUM_SHORTS) >>> 48);
+            total -= Long.bitCount(word & HIGH_BITS) << 8;
+        }
+
+        for (; index < endExclusive; index++)
+        {
+            total += getByte(index);
+        }
+
+        return total % 256;
+    }
+
+    /**
+     * Copies bytes into this buffer and sums them in the same pass, so that encoders can accumulate a message's
+     * checksum as they write it rather than reading the message back afterwards.
+     *
+     * @param index  the index in this buffer to copy the bytes to.
+     * @param src    the buffer to copy the bytes from.
+     * @param offset the offset within src to start copying from.
+     * @param length the number of bytes to copy.
+     * @return the sum of the copied bytes, which is equal to their checksum modulo 256.
+     */
+    public int putBytesWithChecksum(final int index, final DirectBuffer src, final int offset, final int length)
+    {
+        final int lastWordStart = length - SIZE_OF_LONG;
+
+        int total = 0;
+        int i = 0;
+        for (; i <= lastWordStart; i += SIZE_OF_LONG)
+        {
+            final long word = src.getLong(offset + i);
+            putLong(index + i, word);
+            total += sumOfBytes(word);
+        }
+
+        for (; i < length; i++)
+        {
+            final byte value = src.getByte(offset + i);
+            putByte(index + i, value);
+            total += value & 0xFF;
+        }
+
+        return total;
+    }
+
+    /**
+     * Copies bytes into this buffer and sums them in the same pass.
+     *
+     * @param index  the index in this buffer to copy the bytes to.
+     * @param src    the array to copy the bytes from.
+     * @param offset the offset within src to start copying from.
+     * @param length the number of bytes to copy.
+     * @return the sum of the copied bytes, which is equal to their checksum modulo 256.
+     * @see #putBytesWithChecksum(int, DirectBuffer, int, int)
+     */
+    public int putBytesWithChecksum(final int index, final byte[] src, final int offset, final int length)
+    {
+        BufferUtil.boundsCheck(src, offset, length);
+
+        final int lastWordStart = length - SIZE_OF_LONG;
+
+        int total = 0;
+        int i = 0;
+        for (; i <= lastWordStart; i += SIZE_OF_LONG)
+        {
+            final long word = UNSAFE.getLong(src, ARRAY_BASE_OFFSET + offset + i);
+            putLong(index + i, word);
+            total += sumOfBytes(word);
+        }
+
+        for (; i < length; i++)
+        {
+            final byte value = src[offset + i];
+            putByte(index + i, value);
+            total += value & 0xFF;
+        }
+
+        return total;
+    }
+
+    // Sums the bytes of a word as unsigned values, whatever their order within the word.
+    private static int sumOfBytes(final long word)
+    {
+        final long pairs = (word & EVEN_BYTES) + ((word >>> 8) & EVEN_BYTES);
+        return (int)((pairs * SUM_SHORTS) >>> 48);
+    }
+
+    private static long broadcast(final byte value)
+    {
+        return (value & 0xFFL) * LOW_BITS;
+    }
+
+    /**
+     * Finds zero bytes within a word without any false positives, so the result can be used to find both the
+     * first and the last match.
+     *
+     * @param word the word to search.
+     * @return a word with the high bit of each byte set if and only if that byte of the input was zero.
+     */
+    private static long zeroBytes(final long word)
+    {
+        return ~(((word & LOW_SEVEN_BITS) + LOW_SEVEN_BITS) | word | LOW_SEVEN_BITS);
+    }
+
     public int putAscii(final int index, final String string)
     {
         final byte[] bytes = string.getBytes(US_ASCII);
@@ -194,6 +194,29 @@ public abstract class AbstractDecoderGeneratorTest
         assertEquals(Integer.MIN_VALUE, getMethod(decoder, INT_RF));
     }
 
+    @Test
+    public void shouldNotDecodeValuesAgainAfterFirstAccess() throws Throwable
+    {
+        final Decoder decoder = createRequiredFieldMessageDecoder();
+        decode(RF_ALL_FIELDS, decoder);
+        assertEquals(10, getMethod(decoder, INT_RF));
+        assertEquals("one", new String((char[])getMethod(decoder, STRING_RF), 0, 3));
+
+        // Only the first access decodes the value, so changes to the underlying buffer are no longer seen.
+        final int intValueOffset = 1 + RF_ALL_FIELDS.indexOf("\001701=") + "\001701=".length();
+        buffer.putAscii(intValueOffset, "99");
+        final int stringValueOffset = 1 + RF_ALL_FIELDS.indexOf("\001700=") + "\001700=".length();
+        buffer.putAscii(stringValueOffset, "two");
+
+        assertEquals(10, getMethod(decoder, INT_RF));
+        assertEquals("one", new String((char[])getMethod(decoder, STRING_RF), 0, 3));
+
+        decoder.reset();
+        decode(RF_ALL_FIELDS, decoder);
+        assertEquals(10, getMethod(decoder, INT_RF));
+        assertEquals("one", new String((char[])getMethod(decoder, STRING_RF), 0, 3));
+    }
+
     @Test
     public void shouldNotRetainCharFromPreviousMessagesForRequiredFieldsWhenReset() throws Throwable
     {
@@ -0,0 +1,106 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.dictionary.generation;
+
+import org.junit.Test;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashSet;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.NO_FIELD_INDEX;
+import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.firstFieldBit;
+
+public class FieldIndexTableTest
+{
+    private static final int MAX_TAG = 20_000;
+
+    @Test
+    public void shouldIndexTagsInOrder()
+    {
+        final int[] tags = { 8, 9, 35, 49, 56, 34, 52 };
+        final FieldIndexTable table = new FieldIndexTable(tags);
+
+        for (int i = 0; i < tags.length; i++)
+        {
+            assertEquals(i, table.fieldIndex(tags[i]));
+        }
+    }
+
+    @Test
+    public void shouldNotIndexOtherTags()
+    {
+        final int[] tags = { 8, 9, 35, 49, 56, 34, 52 };
+        final FieldIndexTable table = new FieldIndexTable(tags);
+
+        assertEquals(NO_FIELD_INDEX, table.fieldIndex(0));
+        assertEquals(NO_FIELD_INDEX, table.fieldIndex(-8));
+        assertEquals(NO_FIELD_INDEX, table.fieldIndex(10));
+        assertEquals(NO_FIELD_INDEX, table.fieldIndex(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void shouldSupportAggregatesWithoutFields()
+    {
+        final FieldIndexTable table = new FieldIndexTable(new int[0]);
+
+        assertEquals(NO_FIELD_INDEX, table.fieldIndex(8));
+        assertEquals(0, table.wordCount());
+    }
+
+    @Test
+    public void shouldPerfectlyHashLargeAggregates()
+    {
+        final Random random = new Random(1);
+        final Set<Integer> tagSet = new LinkedHashSet<>();
+        while (tagSet.size() < 300)
+        {
+            tagSet.add(1 + random.nextInt(MAX_TAG));
+        }
+        final int[] tags = tagSet.stream().mapToInt(Integer::intValue).toArray();
+        final FieldIndexTable table = new FieldIndexTable(tags);
+
+        for (int tag = 0; tag <= MAX_TAG; tag++)
+        {
+            final int index = table.fieldIndex(tag);
+            if (tagSet.contains(tag))
+            {
+                assertEquals(tag, tags[index]);
+            }
+            else
+            {
+                assertEquals(NO_FIELD_INDEX, index);
+            }
+        }
+        assertEquals(5, table.wordCount());
+    }
+
+    @Test
+    public void shouldGenerateBitsForFields()
+    {
+        final int[] tags = new int[100];
+        Arrays.setAll(tags, i -> i + 1);
+        final FieldIndexTable table = new FieldIndexTable(tags);
+
+        assertArrayEquals(new long[]{ 0, 0 }, table.fieldBits(Collections.emptyList()));
+        assertArrayEquals(new long[]{ 0b101, 1L << 35 }, table.fieldBits(Arrays.asList(1, 3, 100, 1000)));
+        assertEquals(70, firstFieldBit(table.fieldBits(Arrays.asList(100, 71))));
+    }
+}
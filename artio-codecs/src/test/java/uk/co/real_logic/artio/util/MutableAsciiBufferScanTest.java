@@ -0,0 +1,132 @@
+/*
+ * Copyright 2015-2020 Real Logic Limited.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.util;
+
+import org.junit.Test;
+
+import java.util.Random;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static uk.co.real_logic.artio.util.AsciiBuffer.UNKNOWN_INDEX;
+
+public class MutableAsciiBufferScanTest
+{
+    private static final byte SOH = '\001';
+    private static final String MESSAGE =
+        "8=FIX.4.4\0019=0049\00135=A\00134=1\00149=abc\00152=20200101-12:00:00\00156=def\00198=0\001108=10\001" +
+        "10=123\001";
+
+    private final byte[] bytes = MESSAGE.getBytes(US_ASCII);
+    private final MutableAsciiBuffer buffer = new MutableAsciiBuffer(bytes);
+
+    @Test
+    public void shouldScanForwardsTheSameAsBytes()
+    {
+        for (int start = 0; start < bytes.length; start++)
+        {
+            for (int end = start; end <= bytes.length; end++)
+            {
+                assertEquals(
+                    start + " -> " + end,
+                    buffer.scanBytes(start, end, SOH),
+                    buffer.scanWords(start, end, SOH));
+
+                assertEquals(
+                    start + " -> " + end,
+                    buffer.scanBytes(start, end, (byte)'='),
+                    buffer.scanWords(start, end, (byte)'='));
+            }
+        }
+    }
+
+    @Test
+    public void shouldScanBackwardsTheSameAsBytes()
+    {
+        for (int start = bytes.length - 1; start >= 0; start--)
+        {
+            for (int end = start; end >= -1; end--)
+            {
+                assertEquals(
+                    start + " -> " + end,
+                    buffer.scanBackBytes(start, end, SOH),
+                    buffer.scanBackWords(start, end, SOH));
+
+                assertEquals(
+                    start + " -> " + end,
+                    buffer.scanBackBytes(start, end, (byte)'='),
+                    buffer.scanBackWords(start, end, (byte)'='));
+            }
+        }
+    }
+
+    @Test
+    public void shouldNotFindMissingTerminator()
+    {
+        assertEquals(UNKNOWN_INDEX, buffer.scanWords(0, bytes.length, (byte)'|'));
+        assertEquals(UNKNOWN_INDEX, buffer.scanBackWords(bytes.length - 1, -1, (byte)'|'));
+    }
+
+    @Test
+    public void shouldComputeChecksumTheSameAsBytes()
+    {
+        final byte[] randomBytes = new byte[256];
+        new Random(1).nextBytes(randomBytes);
+        final MutableAsciiBuffer randomBuffer = new MutableAsciiBuffer(randomBytes);
+
+        for (int start = 0; start < 32; start++)
+        {
+            for (int end = start; end <= randomBytes.length; end++)
+            {
+                assertEquals(
+                    start + " -> " + end,
+                    buffer.computeChecksumBytes(start, Math.min(end, bytes.length)),
+                    buffer.computeChecksumWords(start, Math.min(end, bytes.length)));
+
+                assertEquals(
+                    start + " -> " + end,
+                    randomBuffer.computeChecksumBytes(start, end),
+                    randomBuffer.computeChecksumWords(start, end));
+            }
+        }
+    }
+
+    @Test
+    public void shouldCopyBytesWithTheSameChecksum()
+    {
+        final byte[] randomBytes = new byte[64];
+        new Random(2).nextBytes(randomBytes);
+        final MutableAsciiBuffer randomBuffer = new MutableAsciiBuffer(randomBytes);
+
+        for (int length = 0; length <= randomBytes.length; length++)
+        {
+            final MutableAsciiBuffer fromArray = new MutableAsciiBuffer(new byte[length + 3]);
+            final MutableAsciiBuffer fromBuffer = new MutableAsciiBuffer(new byte[length + 3]);
+
+            final int arrayChecksum = fromArray.putBytesWithChecksum(3, randomBytes, 0, length);
+            final int bufferChecksum = fromBuffer.putBytesWithChecksum(3, randomBuffer, 0, length);
+
+            final int expectedChecksum = randomBuffer.computeChecksumBytes(0, length) & 0xFF;
+            assertEquals("length = " + length, expectedChecksum, arrayChecksum & 0xFF);
+            assertEquals("length = " + length, expectedChecksum, bufferChecksum & 0xFF);
+            for (int i = 0; i < length; i++)
+            {
+                assertEquals(randomBytes[i], fromArray.getByte(i + 3));
+                assertEquals(randomBytes[i], fromBuffer.getByte(i + 3));
+            }
+        }
+    }
+}
@@ -27,6 +27,7 @@ import uk.co.real_logic.artio.fields.EpochFractionFormat;
 import uk.co.real_logic.artio.session.SessionCustomisationStrategy;
 import uk.co.real_logic.artio.session.SessionIdStrategy;
 import uk.co.real_logic.artio.timing.HistogramHandler;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 import uk.co.real_logic.artio.validation.MessageValidationStrategy;
 
 import java.io.File;
@@ -115,6 +116,15 @@ public class CommonConfiguration
      * Property name for character to separate debug logging of FIX messages
      */
     public static final String LOGGING_SEPARATOR_PROPERTY = "fix.core.debug.separator";
+
+    /**
+     * Property name for the flag to scan FIX messages for delimiters and compute their checksums a word at a time
+     * (SWAR) instead of a byte at a time. This speeds up framing of inbound messages in the Framer and parsing in
+     * the codecs.
+     *
+     * @see MutableAsciiBuffer#SWAR_SCANNING_ENABLED
+     */
+    public static final String SWAR_SCANNING_PROPERTY = MutableAsciiBuffer.SWAR_SCANNING_PROPERTY;
     protected ThreadFactory threadFactory;
 
     public static void validateTimeout(final long timeoutInMs)
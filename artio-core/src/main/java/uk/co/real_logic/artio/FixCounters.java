@@ -45,7 +45,11 @@ public class FixCounters implements AutoCloseable
         CURRENT_REPLAY_COUNT_TYPE_ID(10_008),
         NEGATIVE_TIMESTAMP_TYPE_ID(10_009),
         FAILED_ADMIN_TYPE_ID(10_010),
-        FAILED_ADMIN_REPLY_TYPE_ID(10_011);
+        FAILED_ADMIN_REPLY_TYPE_ID(10_011),
+        SENDER_WRITES_TYPE_ID(10_012),
+        SENDER_MESSAGES_WRITTEN_TYPE_ID(10_013),
+        FILE_DURABLE_POSITION_TYPE_ID(10_014),
+        STARTUP_TIME_TYPE_ID(10_015);
 
         final int id;
 
@@ -67,6 +71,8 @@ public class FixCounters implements AutoCloseable
     private final AtomicCounter failedAdminReplyPublications;
     private final AtomicCounter currentReplayCount;
     private final AtomicCounter negativeTimestamps;
+    private final AtomicCounter senderWrites;
+    private final AtomicCounter senderMessagesWritten;
     private final Aeron aeron;
 
     public static IntHashSet lookupCounterIds(
@@ -110,10 +116,15 @@ public class FixCounters implements AutoCloseable
         {
             currentReplayCount = newCounter(FixCountersId.CURRENT_REPLAY_COUNT_TYPE_ID.id(),
                 "Current Replay Count");
+            senderWrites = newCounter(SENDER_WRITES_TYPE_ID.id(), "Batched sender writes");
+            senderMessagesWritten = newCounter(SENDER_MESSAGES_WRITTEN_TYPE_ID.id(),
+                "Messages written by batched sender writes");
         }
         else
         {
             currentReplayCount = null;
+            senderWrites = null;
+            senderMessagesWritten = null;
         }
     }
 
@@ -147,6 +158,16 @@ public class FixCounters implements AutoCloseable
         return negativeTimestamps;
     }
 
+    public AtomicCounter senderWrites()
+    {
+        return senderWrites;
+    }
+
+    public AtomicCounter senderMessagesWritten()
+    {
+        return senderMessagesWritten;
+    }
+
     public AtomicCounter messagesRead(final long connectionId, final String address)
     {
         return newCounter(FixCountersId.MESSAGES_READ_TYPE_ID.id(),
@@ -165,6 +186,11 @@ public class FixCounters implements AutoCloseable
                 "Invalid Library Attempts for " + address + " id = " + connectionId);
     }
 
+    public AtomicCounter fileDurablePosition(final String fileName)
+    {
+        return newCounter(FILE_DURABLE_POSITION_TYPE_ID.id(), "Durable writes to " + fileName);
+    }
+
     public AtomicCounter sentMsgSeqNo(final long connectionId)
     {
         return newCounter(FixCountersId.SENT_MSG_SEQ_NO_TYPE_ID.id(), "Last Sent MsgSeqNo for " + connectionId);
@@ -175,6 +201,11 @@ public class FixCounters implements AutoCloseable
         return newCounter(FixCountersId.RECV_MSG_SEQ_NO_TYPE_ID.id(), "Last Received MsgSeqNo for " + connectionId);
     }
 
+    public AtomicCounter startupTime(final String phase)
+    {
+        return newCounter(STARTUP_TIME_TYPE_ID.id(), "Startup time in ns for " + phase);
+    }
+
     private AtomicCounter newCounter(final int typeId, final String label)
     {
         final Counter counter = aeron.addCounter(typeId, label);
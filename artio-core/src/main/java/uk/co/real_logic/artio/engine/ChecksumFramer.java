@@ -19,12 +19,19 @@ import org.agrona.ErrorHandler;
 import org.agrona.concurrent.AtomicBuffer;
 
 import java.nio.ByteBuffer;
+import java.util.Arrays;
 import java.util.zip.CRC32;
 
-// TODO: optimisation: write and checksum only needed bytes
+/**
+ * Maintains the sector checksums of a whole buffer.
+ * <p>
+ * Writers call {@link #markDirty(int)} for the offsets that they write to so that {@link #updateChecksums()} only
+ * recalculates the checksums of the sectors that have been modified since it was last called.
+ */
 public class ChecksumFramer extends SectorFramer
 {
     private final CRC32 crc32 = new CRC32();
+    private final long[] dirtySectors;
     private final AtomicBuffer buffer;
     private final ChecksumConsumer saveChecksumFunc;
     private final ErrorHandler errorHandler;
@@ -46,16 +53,37 @@ public class ChecksumFramer extends SectorFramer
         this.errorReportingOffset = errorReportingOffset;
         this.fileName = fileName;
         validateChecksumFunc = this::validateChecksum;
+        dirtySectors = new long[((capacity / SECTOR_SIZE) + Long.SIZE - 1) / Long.SIZE];
+        markAllDirty();
+    }
+
+    /**
+     * Record that data at an offset within the buffer has been written.
+     *
+     * @param offset the offset within the buffer that was written to.
+     */
+    public void markDirty(final int offset)
+    {
+        final int sector = offset / SECTOR_SIZE;
+        dirtySectors[sector >> 6] |= 1L << sector;
+    }
+
+    /**
+     * Record that the whole buffer has been written, for example when it is reset or loaded from a file.
+     */
+    public void markAllDirty()
+    {
+        Arrays.fill(dirtySectors, -1L);
     }
 
     public void validateCheckSums()
     {
-        withChecksums(validateChecksumFunc);
+        withChecksums(validateChecksumFunc, false);
     }
 
     public void updateChecksums()
     {
-        withChecksums(saveChecksumFunc);
+        withChecksums(saveChecksumFunc, true);
     }
 
     private void validateChecksum(final int checksumOffset, final int calculatedChecksum)
@@ -66,33 +94,44 @@ public class ChecksumFramer extends SectorFramer
         validateCheckSum(fileName, start, end, savedChecksum, calculatedChecksum, errorHandler);
     }
 
-    private void withChecksums(final ChecksumConsumer consumer)
+    private void withChecksums(final ChecksumConsumer consumer, final boolean onlyDirtySectors)
     {
         final byte[] inMemoryBytes = buffer.byteArray();
         final ByteBuffer inMemoryByteBuffer = buffer.byteBuffer();
         final int wrapAdjustment = buffer.wrapAdjustment();
         final int capacity = this.capacity;
+        final long[] dirtySectors = this.dirtySectors;
 
-        for (int sectorEnd = SECTOR_SIZE; sectorEnd <= capacity; sectorEnd += SECTOR_SIZE)
+        int sector = 0;
+        for (int sectorEnd = SECTOR_SIZE; sectorEnd <= capacity; sectorEnd += SECTOR_SIZE, sector++)
         {
+            if (onlyDirtySectors && (dirtySectors[sector >> 6] & (1L << sector)) == 0)
+            {
+                continue;
+            }
+
             final int sectorStart = sectorEnd - SECTOR_SIZE + wrapAdjustment;
             final int checksumOffset = sectorEnd - CHECKSUM_SIZE;
 
-            crc32.reset();
+            final int sectorChecksum;
             if (inMemoryBytes != null)
             {
+                crc32.reset();
                 crc32.update(inMemoryBytes, sectorStart, SECTOR_DATA_LENGTH);
+                sectorChecksum = (int)crc32.getValue();
             }
             else
             {
-                ByteBufferUtil.limit(inMemoryByteBuffer, sectorStart + SECTOR_DATA_LENGTH);
-                ByteBufferUtil.position(inMemoryByteBuffer, sectorStart);
-                crc32.update(inMemoryByteBuffer);
+                sectorChecksum = sectorChecksum(crc32, inMemoryByteBuffer, sectorStart);
             }
-            final int sectorChecksum = (int)crc32.getValue();
             consumer.accept(checksumOffset, sectorChecksum);
         }
 
+        if (onlyDirtySectors)
+        {
+            Arrays.fill(dirtySectors, 0L);
+        }
+
         if (inMemoryByteBuffer != null)
         {
             inMemoryByteBuffer.clear();
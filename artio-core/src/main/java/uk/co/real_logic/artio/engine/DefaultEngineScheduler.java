@@ -30,7 +30,11 @@ import static org.agrona.concurrent.AgentRunner.startOnThread;
  */
 public class DefaultEngineScheduler implements EngineScheduler
 {
+    private static final Agent[] NO_AGENTS = new Agent[0];
+
     private AgentRunner framerRunner;
+    private AgentRunner[] receiverShardRunners = new AgentRunner[0];
+    private AgentRunner[] replayerWorkerRunners = new AgentRunner[0];
     private AgentRunner archivingRunner;
     private AgentRunner monitoringRunner;
     private RecordingCoordinator recordingCoordinator;
@@ -43,6 +47,50 @@ public class DefaultEngineScheduler implements EngineScheduler
         final Agent monitoringAgent,
         final Agent conductorAgent,
         final RecordingCoordinator recordingCoordinator)
+    {
+        launch(
+            configuration,
+            errorHandler,
+            framer,
+            NO_AGENTS,
+            indexingAgent,
+            monitoringAgent,
+            conductorAgent,
+            recordingCoordinator);
+    }
+
+    public void launch(
+        final EngineConfiguration configuration,
+        final ErrorHandler errorHandler,
+        final Agent framer,
+        final Agent[] receiverShards,
+        final Agent indexingAgent,
+        final Agent monitoringAgent,
+        final Agent conductorAgent,
+        final RecordingCoordinator recordingCoordinator)
+    {
+        launch(
+            configuration,
+            errorHandler,
+            framer,
+            receiverShards,
+            indexingAgent,
+            NO_AGENTS,
+            monitoringAgent,
+            conductorAgent,
+            recordingCoordinator);
+    }
+
+    public void launch(
+        final EngineConfiguration configuration,
+        final ErrorHandler errorHandler,
+        final Agent framer,
+        final Agent[] receiverShards,
+        final Agent indexingAgent,
+        final Agent[] replayerWorkers,
+        final Agent monitoringAgent,
+        final Agent conductorAgent,
+        final RecordingCoordinator recordingCoordinator)
     {
         this.recordingCoordinator = recordingCoordinator;
         if (framerRunner != null)
@@ -59,6 +107,22 @@ public class DefaultEngineScheduler implements EngineScheduler
         startOnThread(framerRunner, threadFactory);
         startOnThread(archivingRunner, threadFactory);
 
+        receiverShardRunners = new AgentRunner[receiverShards.length];
+        for (int i = 0; i < receiverShards.length; i++)
+        {
+            receiverShardRunners[i] = new AgentRunner(
+                configuration.receiverShardIdleStrategySupplier().get(), errorHandler, null, receiverShards[i]);
+            startOnThread(receiverShardRunners[i], threadFactory);
+        }
+
+        replayerWorkerRunners = new AgentRunner[replayerWorkers.length];
+        for (int i = 0; i < replayerWorkers.length; i++)
+        {
+            replayerWorkerRunners[i] = new AgentRunner(
+                configuration.replayerWorkerIdleStrategySupplier().get(), errorHandler, null, replayerWorkers[i]);
+            startOnThread(replayerWorkerRunners[i], threadFactory);
+        }
+
         if (monitoringAgent != null)
         {
             monitoringRunner = new AgentRunner(
@@ -75,7 +139,19 @@ public class DefaultEngineScheduler implements EngineScheduler
         EngineScheduler.awaitRunnerStart(framerRunner);
         EngineScheduler.awaitRunnerStart(archivingRunner);
         EngineScheduler.awaitRunnerStart(monitoringRunner);
+        for (final AgentRunner receiverShardRunner : receiverShardRunners)
+        {
+            EngineScheduler.awaitRunnerStart(receiverShardRunner);
+        }
+        for (final AgentRunner replayerWorkerRunner : replayerWorkerRunners)
+        {
+            EngineScheduler.awaitRunnerStart(replayerWorkerRunner);
+        }
 
+        // Receiver shards are stopped before the framer, which owns and closes their end points.
+        Exceptions.closeAll(receiverShardRunners);
+        // Replayer workers are stopped before the archiving agent, which closes the replay count they share.
+        Exceptions.closeAll(replayerWorkerRunners);
         Exceptions.closeAll(framerRunner, archivingRunner, recordingCoordinator, monitoringRunner);
     }
 
@@ -17,6 +17,7 @@ package uk.co.real_logic.artio.engine;
 
 import io.aeron.Aeron;
 import io.aeron.archive.client.AeronArchive;
+import org.agrona.BitUtil;
 import org.agrona.CloseHelper;
 import org.agrona.IoUtil;
 import org.agrona.collections.IntHashSet;
@@ -24,6 +25,7 @@ import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.IdleStrategy;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.agrona.concurrent.errors.ErrorConsumer;
+import org.agrona.nio.TransportPoller;
 import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.ErrorHandlerFactory;
 import uk.co.real_logic.artio.MonitoringAgentFactory;
@@ -41,6 +43,7 @@ import java.io.File;
 import java.net.InetSocketAddress;
 import java.util.*;
 import java.util.function.Function;
+import java.util.function.Supplier;
 
 import static java.lang.Integer.getInteger;
 import static java.lang.System.getProperty;
@@ -75,6 +78,19 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
      * Property name for size of logging index files
      */
     public static final String REPLAY_INDEX_FILE_SIZE_PROP = "logging.index.size";
+    /**
+     * Property name for the {@link ReplayIndexLayout} of the replay index files, one of FILE_PER_SESSION or SEGMENTED.
+     */
+    public static final String REPLAY_INDEX_LAYOUT_PROP = "logging.index.layout";
+    /**
+     * Property name for the number of sessions whose replay indices are stored in each segment file when using the
+     * segmented replay index layout.
+     */
+    public static final String REPLAY_INDEX_SEGMENT_SESSIONS_PROP = "logging.index.segment_sessions";
+    /**
+     * Property name for the minimum time in nanoseconds between the records of the time index of each recording.
+     */
+    public static final String TIME_INDEX_GRANULARITY_IN_NS_PROP = "logging.time_index.granularity_in_ns";
 
     // Care needs to be taken when setting the fragment limits, and buffer sizes
     // The inbound bytes received and buffer sizes should always be set low enough
@@ -121,6 +137,47 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
      * Property name for the timeout before a connection that hasn't sent a logon is disconnected
      */
     public static final String NO_LOGON_DISCONNECT_TIMEOUT_PROP = "fix.core.no_logon_disconnect";
+    /**
+     * Property name for the number of receiver shard threads that read and frame authenticated TCP connections.
+     * 0 means that the Framer reads all connections itself.
+     */
+    public static final String FRAMER_RECEIVER_SHARDS_PROP = "fix.core.framer_receiver_shards";
+    /**
+     * Property name for the size in bytes of the ring buffer that each receiver shard passes framed messages
+     * to the Framer over. Must be a power of two.
+     */
+    public static final String RECEIVER_SHARD_BUFFER_SIZE_PROP = "fix.core.receiver_shard_buffer_size";
+    /**
+     * Property name for the number of replayer worker threads that replay messages in response to resend requests.
+     * 0 means that the Replayer replays messages on the archiving thread itself.
+     */
+    public static final String REPLAYER_WORKERS_PROP = "fix.core.replayer_workers";
+    /**
+     * Property name for the number of receiver end points up to which they are polled by reading each of them
+     * directly, rather than by selecting the ready connections.
+     */
+    public static final String RECEIVER_POLLING_THRESHOLD_PROP = "fix.core.receiver_polling_threshold";
+    /**
+     * Property name for the maximum number of outbound messages to a connection that are written with a single
+     * gathering write. 1 means that each message is written individually.
+     */
+    public static final String SENDER_MAX_MESSAGES_PER_WRITE_PROP = "fix.core.sender_max_messages_per_write";
+    /**
+     * Property name for the {@link FileSyncPolicy} of the session id and sequence number index files, one of
+     * PER_WRITE, GROUP_COMMIT or OS_MANAGED.
+     */
+    public static final String FILE_SYNC_POLICY_PROP = "fix.core.file_sync_policy";
+    /**
+     * Property name for the maximum time in milliseconds that a write waits to be forced to disk under the
+     * group commit file sync policy.
+     */
+    public static final String FILE_SYNC_GROUP_COMMIT_INTERVAL_IN_MS_PROP =
+        "fix.core.file_sync_group_commit_interval_in_ms";
+    /**
+     * Property name for the number of pending writes that cause a file to be forced to disk straight away under the
+     * group commit file sync policy.
+     */
+    public static final String FILE_SYNC_GROUP_COMMIT_MAX_WRITES_PROP = "fix.core.file_sync_group_commit_max_writes";
 
     // ------------------------------------------------
     //          Configuration Defaults
@@ -128,6 +185,9 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
 
     public static final String DEFAULT_LOG_FILE_DIR = "logs";
     public static final int DEFAULT_REPLAY_INDEX_FILE_SIZE = 2 * 1024 * 1024 + INITIAL_RECORD_OFFSET;
+    public static final ReplayIndexLayout DEFAULT_REPLAY_INDEX_LAYOUT = ReplayIndexLayout.FILE_PER_SESSION;
+    public static final int DEFAULT_REPLAY_INDEX_SEGMENT_SESSIONS = 128;
+    public static final long DEFAULT_TIME_INDEX_GRANULARITY_IN_NS = SECONDS.toNanos(1);
     public static final int DEFAULT_LOGGER_CACHE_NUM_SETS = 8;
     public static final int DEFAULT_LOGGER_CACHE_SET_SIZE = 4;
 
@@ -135,6 +195,15 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     public static final int DEFAULT_REPLAY_FRAGMENT_LIMIT = 5;
     public static final int DEFAULT_INBOUND_BYTES_RECEIVED_LIMIT = 8 * 1024;
     public static final int DEFAULT_RECEIVER_BUFFER_SIZE = 16 * 1024;
+    public static final int DEFAULT_FRAMER_RECEIVER_SHARDS = 0;
+    public static final int DEFAULT_RECEIVER_SHARD_BUFFER_SIZE = 1024 * 1024;
+    public static final int DEFAULT_REPLAYER_WORKERS = 0;
+    public static final int DEFAULT_RECEIVER_POLLING_THRESHOLD = TransportPoller.ITERATION_THRESHOLD;
+    public static final int DEFAULT_SENDER_MAX_MESSAGES_PER_WRITE = 1;
+    public static final FileSyncPolicy DEFAULT_FILE_SYNC_POLICY =
+        CommonConfiguration.FORCE_WRITES ? FileSyncPolicy.PER_WRITE : FileSyncPolicy.OS_MANAGED;
+    public static final long DEFAULT_FILE_SYNC_GROUP_COMMIT_INTERVAL_IN_MS = 10;
+    public static final int DEFAULT_FILE_SYNC_GROUP_COMMIT_MAX_WRITES = 1000;
     public static final int DEFAULT_RECEIVER_SOCKET_BUFFER_SIZE = 1024 * 1024;
     public static final int DEFAULT_SENDER_SOCKET_BUFFER_SIZE = 1024 * 1024;
     public static final int DEFAULT_SEQUENCE_NUMBER_INDEX_SIZE = 8 * 1024 * 1024;
@@ -184,6 +253,12 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     private String host = null;
     private int port;
     private int replayIndexFileSize = getInteger(REPLAY_INDEX_FILE_SIZE_PROP, DEFAULT_REPLAY_INDEX_FILE_SIZE);
+    private ReplayIndexLayout replayIndexLayout =
+        ReplayIndexLayout.valueOf(getProperty(REPLAY_INDEX_LAYOUT_PROP, DEFAULT_REPLAY_INDEX_LAYOUT.name()));
+    private int replayIndexSegmentSessions =
+        getInteger(REPLAY_INDEX_SEGMENT_SESSIONS_PROP, DEFAULT_REPLAY_INDEX_SEGMENT_SESSIONS);
+    private long timeIndexGranularityInNs =
+        Long.getLong(TIME_INDEX_GRANULARITY_IN_NS_PROP, DEFAULT_TIME_INDEX_GRANULARITY_IN_NS);
     private String logFileDir = getProperty(LOG_FILE_DIR_PROP, DEFAULT_LOG_FILE_DIR);
     private int loggerCacheNumSets = DEFAULT_LOGGER_CACHE_NUM_SETS;
     private int loggerCacheSetSize = DEFAULT_LOGGER_CACHE_SET_SIZE;
@@ -192,6 +267,8 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
     private boolean printStartupWarnings = true;
     private IdleStrategy framerIdleStrategy = backoffIdleStrategy();
     private IdleStrategy archiverIdleStrategy = backoffIdleStrategy();
+    private Supplier<IdleStrategy> receiverShardIdleStrategySupplier = CommonConfiguration::backoffIdleStrategy;
+    private Supplier<IdleStrategy> replayerWorkerIdleStrategySupplier = CommonConfiguration::backoffIdleStrategy;
     private AtomicBuffer sentSequenceNumberBuffer;
     private AtomicBuffer receivedSequenceNumberBuffer;
     private MappedFile sentSequenceNumberIndex;
@@ -212,6 +289,22 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         getInteger(INBOUND_BYTES_RECEIVED_LIMIT_PROP, DEFAULT_INBOUND_BYTES_RECEIVED_LIMIT);
     private int receiverBufferSize =
         getInteger(RECEIVER_BUFFER_SIZE_PROP, DEFAULT_RECEIVER_BUFFER_SIZE);
+    private int framerReceiverShards =
+        getInteger(FRAMER_RECEIVER_SHARDS_PROP, DEFAULT_FRAMER_RECEIVER_SHARDS);
+    private int receiverShardBufferSize =
+        getInteger(RECEIVER_SHARD_BUFFER_SIZE_PROP, DEFAULT_RECEIVER_SHARD_BUFFER_SIZE);
+    private int replayerWorkers =
+        getInteger(REPLAYER_WORKERS_PROP, DEFAULT_REPLAYER_WORKERS);
+    private int receiverPollingThreshold =
+        getInteger(RECEIVER_POLLING_THRESHOLD_PROP, DEFAULT_RECEIVER_POLLING_THRESHOLD);
+    private int senderMaxMessagesPerWrite =
+        getInteger(SENDER_MAX_MESSAGES_PER_WRITE_PROP, DEFAULT_SENDER_MAX_MESSAGES_PER_WRITE);
+    private FileSyncPolicy fileSyncPolicy =
+        FileSyncPolicy.valueOf(getProperty(FILE_SYNC_POLICY_PROP, DEFAULT_FILE_SYNC_POLICY.name()));
+    private long fileSyncGroupCommitIntervalInMs =
+        Long.getLong(FILE_SYNC_GROUP_COMMIT_INTERVAL_IN_MS_PROP, DEFAULT_FILE_SYNC_GROUP_COMMIT_INTERVAL_IN_MS);
+    private int fileSyncGroupCommitMaxWrites =
+        getInteger(FILE_SYNC_GROUP_COMMIT_MAX_WRITES_PROP, DEFAULT_FILE_SYNC_GROUP_COMMIT_MAX_WRITES);
     private int receiverSocketBufferSize =
         getInteger(RECEIVER_SOCKET_BUFFER_SIZE_PROP, DEFAULT_RECEIVER_SOCKET_BUFFER_SIZE);
     private int senderSocketBufferSize =
@@ -305,6 +398,73 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets the number of receiver shards. Each shard runs on its own thread when using the
+     * {@link DefaultEngineScheduler} and reads and frames the TCP connections of a subset of the authenticated
+     * sessions. The Framer still publishes every inbound message so ordering guarantees are unchanged.
+     *
+     * Defaults to 0, meaning that the Framer reads from all connections itself.
+     *
+     * @param framerReceiverShards the number of receiver shards.
+     * @return this
+     * @see EngineConfiguration#FRAMER_RECEIVER_SHARDS_PROP
+     */
+    public EngineConfiguration framerReceiverShards(final int framerReceiverShards)
+    {
+        this.framerReceiverShards = framerReceiverShards;
+        return this;
+    }
+
+    /**
+     * Sets the number of replayer workers. Each worker runs on its own thread when using the
+     * {@link DefaultEngineScheduler} and replays messages for a subset of the connections, over its own replay
+     * publication. All the resend requests of a connection are replayed by the same worker so they're still
+     * replayed in order.
+     *
+     * Defaults to 0, meaning that messages are replayed on the archiving thread.
+     *
+     * @param replayerWorkers the number of replayer workers.
+     * @return this
+     * @see EngineConfiguration#REPLAYER_WORKERS_PROP
+     */
+    public EngineConfiguration replayerWorkers(final int replayerWorkers)
+    {
+        this.replayerWorkers = replayerWorkers;
+        return this;
+    }
+
+    /**
+     * Sets the size of the ring buffer that each receiver shard passes framed messages to the Framer over.
+     * This must be a power of two and large enough to hold a message of {@link #receiverBufferSize()}.
+     *
+     * @param receiverShardBufferSize the size of the ring buffer in bytes.
+     * @return this
+     * @see EngineConfiguration#RECEIVER_SHARD_BUFFER_SIZE_PROP
+     */
+    public EngineConfiguration receiverShardBufferSize(final int receiverShardBufferSize)
+    {
+        this.receiverShardBufferSize = receiverShardBufferSize;
+        return this;
+    }
+
+    /**
+     * Sets the number of receiver end points up to which each of them is read on every duty cycle, above this
+     * threshold only the connections that a selector reports as ready are read. Reading directly avoids a
+     * <code>selectNow()</code> system call per duty cycle, but costs a <code>read()</code> call per idle connection.
+     *
+     * Set this to {@link Integer#MAX_VALUE} to always read directly, for example alongside the
+     * {@link uk.co.real_logic.artio.engine.framer.BusyPollTcpChannelSupplier}, or 0 to always use the selector.
+     *
+     * @param receiverPollingThreshold the number of receiver end points up to which they are read directly.
+     * @return this
+     * @see EngineConfiguration#RECEIVER_POLLING_THRESHOLD_PROP
+     */
+    public EngineConfiguration receiverPollingThreshold(final int receiverPollingThreshold)
+    {
+        this.receiverPollingThreshold = receiverPollingThreshold;
+        return this;
+    }
+
     /**
      * Sets the receiver socket buffer size.
      *
@@ -360,6 +520,60 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets how the replay indices of sessions are laid out on disk. With a file per session every session that is
+     * indexed or replayed from needs its own file to be created and mapped, which is cached by the logger's caches
+     * and thrashes when there are many more active sessions than cache entries. The segmented layout stores the
+     * indices as slots in shared segment files, so sessions don't cause files to be created or mapped.
+     *
+     * Switching layout doesn't migrate existing indices, so messages indexed under the previous layout can't be
+     * replayed after a switch.
+     *
+     * @param replayIndexLayout the layout of the replay index files.
+     * @return this
+     * @see EngineConfiguration#REPLAY_INDEX_LAYOUT_PROP
+     * @see EngineConfiguration#DEFAULT_REPLAY_INDEX_LAYOUT
+     */
+    public EngineConfiguration replayIndexLayout(final ReplayIndexLayout replayIndexLayout)
+    {
+        this.replayIndexLayout = replayIndexLayout;
+        return this;
+    }
+
+    /**
+     * Sets the number of sessions whose replay indices are stored in each segment file when using
+     * {@link ReplayIndexLayout#SEGMENTED}. Each segment is {@link #replayIndexFileSize(int)} times this in size,
+     * though the slots of sessions that haven't been allocated yet don't use any disk space. The number is capped so
+     * that a segment can be mapped as a single buffer.
+     *
+     * @param replayIndexSegmentSessions the number of sessions stored in each segment file.
+     * @return this
+     * @see EngineConfiguration#REPLAY_INDEX_SEGMENT_SESSIONS_PROP
+     * @see EngineConfiguration#DEFAULT_REPLAY_INDEX_SEGMENT_SESSIONS
+     */
+    public EngineConfiguration replayIndexSegmentSessions(final int replayIndexSegmentSessions)
+    {
+        this.replayIndexSegmentSessions = replayIndexSegmentSessions;
+        return this;
+    }
+
+    /**
+     * Sets the granularity of the time index, which maps the timestamps of the archived messages of each stream to
+     * their positions so that the {@link uk.co.real_logic.artio.engine.logger.FixArchiveScanner} can seek to a time
+     * range. A record is written for a recording once a message's timestamp is at least this long after its last
+     * record, so smaller values make seeks more precise at the cost of a larger index file.
+     *
+     * @param timeIndexGranularityInNs the minimum time in nanoseconds between the records of each recording.
+     * @return this
+     * @see EngineConfiguration#TIME_INDEX_GRANULARITY_IN_NS_PROP
+     * @see EngineConfiguration#DEFAULT_TIME_INDEX_GRANULARITY_IN_NS
+     */
+    public EngineConfiguration timeIndexGranularityInNs(final long timeIndexGranularityInNs)
+    {
+        this.timeIndexGranularityInNs = timeIndexGranularityInNs;
+        return this;
+    }
+
     /**
      * Sets the set size of the logger's caches.
      * <p>
@@ -459,6 +673,32 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets the supplier of idle strategies for the receiver shard threads, one is created per shard.
+     *
+     * @param receiverShardIdleStrategySupplier the supplier of idle strategies for the receiver shard threads.
+     * @return this
+     */
+    public EngineConfiguration receiverShardIdleStrategySupplier(
+        final Supplier<IdleStrategy> receiverShardIdleStrategySupplier)
+    {
+        this.receiverShardIdleStrategySupplier = receiverShardIdleStrategySupplier;
+        return this;
+    }
+
+    /**
+     * Sets the supplier of idle strategies for the replayer worker threads, one is created per worker.
+     *
+     * @param replayerWorkerIdleStrategySupplier the supplier of idle strategies for the replayer worker threads.
+     * @return this
+     */
+    public EngineConfiguration replayerWorkerIdleStrategySupplier(
+        final Supplier<IdleStrategy> replayerWorkerIdleStrategySupplier)
+    {
+        this.replayerWorkerIdleStrategySupplier = replayerWorkerIdleStrategySupplier;
+        return this;
+    }
+
     /**
      * Sets the fragment limit for the subscription to outbound messages from libraries.
      *
@@ -504,6 +744,73 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return this;
     }
 
+    /**
+     * Sets the maximum number of outbound messages to a connection that are batched up from a single poll of the
+     * libraries' outbound stream and written with a single gathering write. Batching reduces the number of write
+     * system calls when libraries send bursts of small messages. Partial writes are accounted for as slow consumers,
+     * bounded by {@link #senderMaxBytesInBuffer(int)}, just as they are for individually written messages.
+     *
+     * Defaults to 1, meaning that each message is written individually.
+     *
+     * @param senderMaxMessagesPerWrite the maximum number of messages per gathering write.
+     * @return this
+     * @see EngineConfiguration#SENDER_MAX_MESSAGES_PER_WRITE_PROP
+     */
+    public EngineConfiguration senderMaxMessagesPerWrite(final int senderMaxMessagesPerWrite)
+    {
+        this.senderMaxMessagesPerWrite = senderMaxMessagesPerWrite;
+        return this;
+    }
+
+    /**
+     * Sets when writes to the session id file and the sequence number index files are forced to disk. Forcing
+     * every write bounds what can be lost on a crash to nothing, at the cost of an fsync on the Framer thread for
+     * every new session. Group commit moves the session id file's fsyncs onto a dedicated flusher thread, bounding
+     * the loss window by {@link #fileSyncGroupCommitIntervalInMs(long)} and
+     * {@link #fileSyncGroupCommitMaxWrites(int)}. The sequence number index files are already written in batches
+     * and are forced before being renamed into place under both of these policies.
+     *
+     * Defaults to {@link FileSyncPolicy#PER_WRITE} if {@link CommonConfiguration#FORCE_WRITES} is set,
+     * {@link FileSyncPolicy#OS_MANAGED} otherwise.
+     *
+     * @param fileSyncPolicy the policy for forcing writes to disk.
+     * @return this
+     * @see EngineConfiguration#FILE_SYNC_POLICY_PROP
+     */
+    public EngineConfiguration fileSyncPolicy(final FileSyncPolicy fileSyncPolicy)
+    {
+        this.fileSyncPolicy = fileSyncPolicy;
+        return this;
+    }
+
+    /**
+     * Sets the maximum time in milliseconds that a write waits before being forced to disk when using
+     * {@link FileSyncPolicy#GROUP_COMMIT}.
+     *
+     * @param fileSyncGroupCommitIntervalInMs the maximum time in milliseconds before a write is forced.
+     * @return this
+     * @see EngineConfiguration#FILE_SYNC_GROUP_COMMIT_INTERVAL_IN_MS_PROP
+     */
+    public EngineConfiguration fileSyncGroupCommitIntervalInMs(final long fileSyncGroupCommitIntervalInMs)
+    {
+        this.fileSyncGroupCommitIntervalInMs = fileSyncGroupCommitIntervalInMs;
+        return this;
+    }
+
+    /**
+     * Sets the number of pending writes that cause a file to be forced to disk without waiting for the group
+     * commit interval when using {@link FileSyncPolicy#GROUP_COMMIT}.
+     *
+     * @param fileSyncGroupCommitMaxWrites the number of pending writes that cause the file to be forced.
+     * @return this
+     * @see EngineConfiguration#FILE_SYNC_GROUP_COMMIT_MAX_WRITES_PROP
+     */
+    public EngineConfiguration fileSyncGroupCommitMaxWrites(final int fileSyncGroupCommitMaxWrites)
+    {
+        this.fileSyncGroupCommitMaxWrites = fileSyncGroupCommitMaxWrites;
+        return this;
+    }
+
     /**
      * Set the timeout in milliseconds for TCP connections which don't send a logon message.
      *
@@ -839,6 +1146,46 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return receiverBufferSize;
     }
 
+    public int framerReceiverShards()
+    {
+        return framerReceiverShards;
+    }
+
+    public int replayerWorkers()
+    {
+        return replayerWorkers;
+    }
+
+    public int receiverShardBufferSize()
+    {
+        return receiverShardBufferSize;
+    }
+
+    public int receiverPollingThreshold()
+    {
+        return receiverPollingThreshold;
+    }
+
+    public int senderMaxMessagesPerWrite()
+    {
+        return senderMaxMessagesPerWrite;
+    }
+
+    public FileSyncPolicy fileSyncPolicy()
+    {
+        return fileSyncPolicy;
+    }
+
+    public long fileSyncGroupCommitIntervalInMs()
+    {
+        return fileSyncGroupCommitIntervalInMs;
+    }
+
+    public int fileSyncGroupCommitMaxWrites()
+    {
+        return fileSyncGroupCommitMaxWrites;
+    }
+
     public int receiverSocketBufferSize()
     {
         return receiverSocketBufferSize;
@@ -874,6 +1221,21 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return replayIndexFileSize;
     }
 
+    public ReplayIndexLayout replayIndexLayout()
+    {
+        return replayIndexLayout;
+    }
+
+    public int replayIndexSegmentSessions()
+    {
+        return replayIndexSegmentSessions;
+    }
+
+    public long timeIndexGranularityInNs()
+    {
+        return timeIndexGranularityInNs;
+    }
+
     public int loggerCacheSetSize()
     {
         return loggerCacheSetSize;
@@ -919,6 +1281,16 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
         return archiverIdleStrategy;
     }
 
+    public Supplier<IdleStrategy> receiverShardIdleStrategySupplier()
+    {
+        return receiverShardIdleStrategySupplier;
+    }
+
+    public Supplier<IdleStrategy> replayerWorkerIdleStrategySupplier()
+    {
+        return replayerWorkerIdleStrategySupplier;
+    }
+
     public int outboundLibraryFragmentLimit()
     {
         return outboundLibraryFragmentLimit;
@@ -1293,6 +1665,64 @@ public final class EngineConfiguration extends CommonConfiguration implements Au
                 sessionBufferSize()));
         }
 
+        if (senderMaxMessagesPerWrite() < 1)
+        {
+            throw new IllegalArgumentException(
+                "senderMaxMessagesPerWrite must be at least 1, but was " + senderMaxMessagesPerWrite());
+        }
+
+        if (fileSyncPolicy() == null)
+        {
+            throw new IllegalArgumentException("fileSyncPolicy must not be null");
+        }
+
+        if (replayIndexLayout() == null)
+        {
+            throw new IllegalArgumentException("replayIndexLayout must not be null");
+        }
+
+        if (replayIndexSegmentSessions() < 1)
+        {
+            throw new IllegalArgumentException(
+                "replayIndexSegmentSessions must be at least 1, but was " + replayIndexSegmentSessions());
+        }
+
+        if (timeIndexGranularityInNs() < 1)
+        {
+            throw new IllegalArgumentException(
+                "timeIndexGranularityInNs must be positive, but was " + timeIndexGranularityInNs());
+        }
+
+        if (fileSyncGroupCommitIntervalInMs() < 0)
+        {
+            throw new IllegalArgumentException(
+                "fileSyncGroupCommitIntervalInMs must not be negative, but was " + fileSyncGroupCommitIntervalInMs());
+        }
+
+        if (fileSyncGroupCommitMaxWrites() < 1)
+        {
+            throw new IllegalArgumentException(
+                "fileSyncGroupCommitMaxWrites must be at least 1, but was " + fileSyncGroupCommitMaxWrites());
+        }
+
+        if (framerReceiverShards() < 0)
+        {
+            throw new IllegalArgumentException(
+                "framerReceiverShards must not be negative, but was " + framerReceiverShards());
+        }
+
+        if (framerReceiverShards() > 0 && !BitUtil.isPowerOfTwo(receiverShardBufferSize()))
+        {
+            throw new IllegalArgumentException(
+                "receiverShardBufferSize must be a power of two, but was " + receiverShardBufferSize());
+        }
+
+        if (replayerWorkers() < 0)
+        {
+            throw new IllegalArgumentException(
+                "replayerWorkers must not be negative, but was " + replayerWorkers());
+        }
+
         if (deleteLogFileDirOnStart())
         {
             final File logFileDir = new File(logFileDir());
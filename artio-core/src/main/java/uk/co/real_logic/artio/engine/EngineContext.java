@@ -21,6 +21,7 @@ import io.aeron.Subscription;
 import io.aeron.UnavailableImageHandler;
 import io.aeron.archive.client.AeronArchive;
 import io.aeron.logbuffer.BufferClaim;
+import org.agrona.CloseHelper;
 import org.agrona.ErrorHandler;
 import org.agrona.collections.Long2LongHashMap;
 import org.agrona.concurrent.*;
@@ -38,12 +39,15 @@ import uk.co.real_logic.artio.protocol.Streams;
 import java.util.ArrayList;
 import java.util.List;
 
+import static io.aeron.CommonContext.IPC_CHANNEL;
 import static java.util.Arrays.asList;
 import static uk.co.real_logic.artio.dictionary.generation.Exceptions.suppressingClose;
 import static uk.co.real_logic.artio.engine.SessionInfo.UNK_SESSION;
 
 public class EngineContext implements AutoCloseable
 {
+    private static final Agent[] NO_AGENTS = new Agent[0];
+
 
     private final PruneOperation.Formatters pruneOperationFormatters = new PruneOperation.Formatters();
     private final CompletionPosition inboundCompletionPosition = new CompletionPosition();
@@ -59,7 +63,7 @@ public class EngineContext implements AutoCloseable
     private final SenderSequenceNumbers senderSequenceNumbers;
     private final AeronArchive aeronArchive;
     private final RecordingCoordinator recordingCoordinator;
-    private final ExclusivePublication replayPublication;
+    private final ExclusivePublication[] replayPublications;
     private final SequenceNumberIndexWriter sentSequenceNumberIndex;
     private final SequenceNumberIndexWriter receivedSequenceNumberIndex;
 
@@ -72,12 +76,14 @@ public class EngineContext implements AutoCloseable
     private Agent indexingAgent;
     private ReplayQuery pruneInboundReplayQuery;
     private ReplayQuery outboundReplayQuery;
+    private Subscription replayerWorkerSubscription;
+    private Agent[] replayerWorkers = NO_AGENTS;
     private FramerContext framerContext;
 
     EngineContext(
         final EngineConfiguration configuration,
         final ErrorHandler errorHandler,
-        final ExclusivePublication replayPublication,
+        final ExclusivePublication[] replayPublications,
         final FixCounters fixCounters,
         final Aeron aeron,
         final AeronArchive aeronArchive,
@@ -88,7 +94,7 @@ public class EngineContext implements AutoCloseable
         this.fixCounters = fixCounters;
         this.aeron = aeron;
         this.clock = configuration.epochNanoClock();
-        this.replayPublication = replayPublication;
+        this.replayPublications = replayPublications;
         this.aeronArchive = aeronArchive;
         this.recordingCoordinator = recordingCoordinator;
 
@@ -108,7 +114,8 @@ public class EngineContext implements AutoCloseable
                 configuration.indexFileStateFlushTimeoutInMs(),
                 epochClock,
                 configuration.logFileDir(),
-                connectionIdToILinkUuid);
+                connectionIdToILinkUuid,
+                configuration.fileSyncPolicy());
             receivedSequenceNumberIndex = new SequenceNumberIndexWriter(
                 configuration.receivedSequenceNumberBuffer(),
                 configuration.receivedSequenceNumberIndex(),
@@ -118,7 +125,8 @@ public class EngineContext implements AutoCloseable
                 configuration.indexFileStateFlushTimeoutInMs(),
                 epochClock,
                 null,
-                connectionIdToILinkUuid);
+                connectionIdToILinkUuid,
+                configuration.fileSyncPolicy());
 
             newStreams();
             newArchivingAgent();
@@ -176,10 +184,28 @@ public class EngineContext implements AutoCloseable
             ReplayIndexDescriptor.replayPositionBuffer(logFileDir, streamId, configuration.replayPositionBufferSize()),
             errorHandler,
             recordingIdLookup,
-            connectionIdToILinkUuid);
+            connectionIdToILinkUuid,
+            configuration.replayIndexLayout(),
+            configuration.replayIndexSegmentSessions());
+    }
+
+    private TimeIndexWriter newTimeIndex(final int streamId, final RecordingIdLookup recordingIdLookup)
+    {
+        return new TimeIndexWriter(
+            configuration.logFileDir(),
+            streamId,
+            configuration.timeIndexGranularityInNs(),
+            recordingIdLookup,
+            errorHandler);
     }
 
     private ReplayQuery newReplayQuery(final IdleStrategy idleStrategy, final int streamId)
+    {
+        return newReplayQuery(idleStrategy, streamId, null);
+    }
+
+    private ReplayQuery newReplayQuery(
+        final IdleStrategy idleStrategy, final int streamId, final Subscription sharedReplaySubscription)
     {
         final String logFileDir = configuration.logFileDir();
         final int cacheSetSize = configuration.loggerCacheSetSize();
@@ -195,34 +221,70 @@ public class EngineContext implements AutoCloseable
             idleStrategy,
             aeronArchive,
             errorHandler,
-            archiveReplayStream);
+            archiveReplayStream,
+            configuration.replayIndexLayout(),
+            sharedReplaySubscription);
     }
 
-    private Replayer newReplayer(
-        final ExclusivePublication replayPublication, final ReplayQuery replayQuery)
+    private Replayer newReplayer()
     {
         final EpochFractionFormat epochFractionFormat = configuration.sessionEpochFractionFormat();
+        final int outboundLibraryStream = configuration.outboundLibraryStream();
+        final boolean pooled = configuration.replayerWorkers() > 0;
+
+        outboundReplayQuery = newReplayQuery(configuration.archiverIdleStrategy(), outboundLibraryStream);
+        if (pooled)
+        {
+            // The workers share a subscription as an unpolled image on another worker's subscription would hold
+            // back the archive's replays.
+            replayerWorkerSubscription = aeron.addSubscription(IPC_CHANNEL, configuration.archiveReplayStream());
+            StreamInformation.print("replayerWorkerSubscription", replayerWorkerSubscription, configuration);
+        }
+
+        final ReplayerWorker[] workers = new ReplayerWorker[replayPublications.length];
+        for (int i = 0; i < workers.length; i++)
+        {
+            final IdleStrategy idleStrategy = pooled ?
+                configuration.replayerWorkerIdleStrategySupplier().get() : configuration.archiverIdleStrategy();
+            final ReplayQuery replayQuery = pooled ?
+                newReplayQuery(idleStrategy, outboundLibraryStream, replayerWorkerSubscription) : outboundReplayQuery;
+
+            workers[i] = new ReplayerWorker(
+                i,
+                replayQuery,
+                replayPublications[i],
+                new BufferClaim(),
+                idleStrategy,
+                errorHandler,
+                configuration.outboundMaxClaimAttempts(),
+                configuration.agentNamePrefix(),
+                configuration.gapfillOnReplayMessageTypes(),
+                configuration.gapfillOnRetransmitILinkTemplateIds(),
+                configuration.replayHandler(),
+                configuration.iLink3RetransmitHandler(),
+                configuration.senderMaxBytesInBuffer(),
+                epochFractionFormat,
+                fixCounters.currentReplayCount(),
+                configuration.maxConcurrentSessionReplays(),
+                configuration.epochNanoClock(),
+                pooled ? new ReplayerCommandQueue(configuration.archiverIdleStrategy()) : null);
+        }
+
+        if (pooled)
+        {
+            replayerWorkers = workers;
+        }
+
         return new Replayer(
-            replayQuery,
-            replayPublication,
-            new BufferClaim(),
-            configuration.archiverIdleStrategy(),
+            workers,
+            pooled,
             errorHandler,
-            configuration.outboundMaxClaimAttempts(),
             inboundLibraryStreams.subscription("replayer"),
             configuration.agentNamePrefix(),
-            configuration.gapfillOnReplayMessageTypes(),
-            configuration.gapfillOnRetransmitILinkTemplateIds(),
-            configuration.replayHandler(),
-            configuration.iLink3RetransmitHandler(),
             senderSequenceNumbers,
             new FixSessionCodecsFactory(epochFractionFormat),
-            configuration.senderMaxBytesInBuffer(),
             replayerCommandQueue,
-            epochFractionFormat,
-            fixCounters.currentReplayCount(),
-            configuration.maxConcurrentSessionReplays(),
-            configuration.epochNanoClock());
+            fixCounters.currentReplayCount());
     }
 
     private void newIndexers()
@@ -241,14 +303,19 @@ public class EngineContext implements AutoCloseable
             connectionIdToILinkUuid);
 
         inboundIndexer = new Indexer(
-            asList(inboundReplayIndex, receivedSequenceNumberIndex),
+            asList(
+                inboundReplayIndex,
+                receivedSequenceNumberIndex,
+                newTimeIndex(
+                    configuration.inboundLibraryStream(), recordingCoordinator.indexerInboundRecordingIdLookup())),
             inboundLibraryStreams.subscription("inboundIndexer"),
             configuration.agentNamePrefix(),
             inboundCompletionPosition,
             aeronArchive,
             errorHandler,
             configuration.archiveReplayStream(),
-            configuration.gracefulShutdown());
+            configuration.gracefulShutdown(),
+            fixCounters.startupTime("inbound index catchup"));
 
         final List<Index> outboundIndices = new ArrayList<>();
         outboundIndices.add(newReplayIndex(
@@ -259,6 +326,8 @@ public class EngineContext implements AutoCloseable
             recordingCoordinator.indexerOutboundRecordingIdLookup(),
             connectionIdToILinkUuid));
         outboundIndices.add(sentSequenceNumberIndex);
+        outboundIndices.add(newTimeIndex(
+            configuration.outboundLibraryStream(), recordingCoordinator.indexerOutboundRecordingIdLookup()));
 
         outboundIndexer = new Indexer(
             outboundIndices,
@@ -268,7 +337,8 @@ public class EngineContext implements AutoCloseable
             aeronArchive,
             errorHandler,
             configuration.archiveReplayStream(),
-            configuration.gracefulShutdown());
+            configuration.gracefulShutdown(),
+            fixCounters.startupTime("outbound index catchup"));
     }
 
     private void newArchivingAgent()
@@ -277,9 +347,7 @@ public class EngineContext implements AutoCloseable
         {
             newIndexers();
 
-            outboundReplayQuery = newReplayQuery(
-                configuration.archiverIdleStrategy(), configuration.outboundLibraryStream());
-            final Replayer replayer = newReplayer(replayPublication, outboundReplayQuery);
+            final Replayer replayer = newReplayer();
 
             final List<Agent> agents = new ArrayList<>();
             agents.add(inboundIndexer);
@@ -291,7 +359,7 @@ public class EngineContext implements AutoCloseable
         else
         {
             final GatewayPublication replayGatewayPublication = new GatewayPublication(
-                replayPublication,
+                replayPublications[0],
                 fixCounters.failedReplayPublications(),
                 configuration.archiverIdleStrategy(),
                 clock,
@@ -364,6 +432,12 @@ public class EngineContext implements AutoCloseable
         return indexingAgent;
     }
 
+    // Empty unless the replayer workers run on their own threads
+    Agent[] replayerWorkers()
+    {
+        return replayerWorkers;
+    }
+
     public SenderSequenceNumbers senderSequenceNumbers()
     {
         return senderSequenceNumbers;
@@ -411,6 +485,12 @@ public class EngineContext implements AutoCloseable
             Exceptions.closeAll(
                 sentSequenceNumberIndex, receivedSequenceNumberIndex, pruneInboundReplayQuery);
         }
+
+        if (replayerWorkerSubscription != null)
+        {
+            // Only the replay query used for pruning isn't closed by a replayer worker
+            CloseHelper.closeAll(outboundReplayQuery, replayerWorkerSubscription);
+        }
     }
 
 }
@@ -19,6 +19,7 @@ import io.aeron.Aeron;
 import org.agrona.ErrorHandler;
 import org.agrona.concurrent.Agent;
 import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.CompositeAgent;
 
 /**
  * Interface for determining how an Engine's Agents are allocated to threads.
@@ -45,6 +46,97 @@ public interface EngineScheduler extends AutoCloseable
         Agent conductorAgent,
         RecordingCoordinator recordingCoordinator);
 
+    /**
+     * Invoked by the FIX Engine to start the threads, when {@link EngineConfiguration#framerReceiverShards(int)}
+     * is configured the receiver shards are also passed in. Schedulers that don't override this method run the
+     * receiver shards on the same thread as the framer.
+     * Should only return once they are started.
+     *
+     * @param configuration the engine's configuration object.
+     * @param errorHandler the ErrorHandler used by the engine.
+     * @param framer the framer agent to schedule.
+     * @param receiverShards the receiver shard agents to schedule, empty if sharding isn't enabled.
+     * @param indexingAgent the archiver agent to schedule.
+     * @param monitoringAgent the monitoring agent to schedule.
+     * @param conductorAgent if aeron has useConductorInvoker enable it
+     * @param recordingCoordinator must be shut down after the Framer but before the conductorAgent.
+     */
+    default void launch(
+        EngineConfiguration configuration,
+        ErrorHandler errorHandler,
+        Agent framer,
+        Agent[] receiverShards,
+        Agent indexingAgent,
+        Agent monitoringAgent,
+        Agent conductorAgent,
+        RecordingCoordinator recordingCoordinator)
+    {
+        Agent framerAgent = framer;
+        if (receiverShards.length > 0)
+        {
+            final Agent[] agents = new Agent[receiverShards.length + 1];
+            agents[0] = framer;
+            System.arraycopy(receiverShards, 0, agents, 1, receiverShards.length);
+            framerAgent = new CompositeAgent(agents);
+        }
+
+        launch(
+            configuration,
+            errorHandler,
+            framerAgent,
+            indexingAgent,
+            monitoringAgent,
+            conductorAgent,
+            recordingCoordinator);
+    }
+
+    /**
+     * Invoked by the FIX Engine to start the threads, when {@link EngineConfiguration#replayerWorkers(int)}
+     * is configured the replayer workers are also passed in. Schedulers that don't override this method run the
+     * replayer workers on the same thread as the indexing agent.
+     * Should only return once they are started.
+     *
+     * @param configuration the engine's configuration object.
+     * @param errorHandler the ErrorHandler used by the engine.
+     * @param framer the framer agent to schedule.
+     * @param receiverShards the receiver shard agents to schedule, empty if sharding isn't enabled.
+     * @param indexingAgent the archiver agent to schedule.
+     * @param replayerWorkers the replayer worker agents to schedule, empty if replayer workers aren't enabled.
+     * @param monitoringAgent the monitoring agent to schedule.
+     * @param conductorAgent if aeron has useConductorInvoker enable it
+     * @param recordingCoordinator must be shut down after the Framer but before the conductorAgent.
+     */
+    default void launch(
+        EngineConfiguration configuration,
+        ErrorHandler errorHandler,
+        Agent framer,
+        Agent[] receiverShards,
+        Agent indexingAgent,
+        Agent[] replayerWorkers,
+        Agent monitoringAgent,
+        Agent conductorAgent,
+        RecordingCoordinator recordingCoordinator)
+    {
+        Agent archivingAgent = indexingAgent;
+        if (replayerWorkers.length > 0)
+        {
+            final Agent[] agents = new Agent[replayerWorkers.length + 1];
+            agents[0] = indexingAgent;
+            System.arraycopy(replayerWorkers, 0, agents, 1, replayerWorkers.length);
+            archivingAgent = new CompositeAgent(agents);
+        }
+
+        launch(
+            configuration,
+            errorHandler,
+            framer,
+            receiverShards,
+            archivingAgent,
+            monitoringAgent,
+            conductorAgent,
+            recordingCoordinator);
+    }
+
     /**
      * Invoked by the FIX Engine to stop the threads. Should only return once they are completed stopped.
      */
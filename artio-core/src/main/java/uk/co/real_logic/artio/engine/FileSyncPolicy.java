@@ -0,0 +1,44 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+/**
+ * Determines when writes to the engine's session id file and sequence number index files are forced to disk.
+ *
+ * @see EngineConfiguration#fileSyncPolicy(FileSyncPolicy)
+ */
+public enum FileSyncPolicy
+{
+    /**
+     * Force every write to disk before carrying on, nothing is lost on a crash but each write waits for an fsync.
+     */
+    PER_WRITE,
+
+    /**
+     * Writes are forced to disk in batches by a dedicated flusher thread, once either a number of writes are
+     * pending or the oldest pending write has waited for the group commit interval. The writer never waits for an
+     * fsync, the writes made since the last batch was forced can be lost on a crash.
+     *
+     * @see EngineConfiguration#fileSyncGroupCommitIntervalInMs(long)
+     * @see EngineConfiguration#fileSyncGroupCommitMaxWrites(int)
+     */
+    GROUP_COMMIT,
+
+    /**
+     * Never force writes, leaving it up to the operating system when to write them back to disk.
+     */
+    OS_MANAGED
+}
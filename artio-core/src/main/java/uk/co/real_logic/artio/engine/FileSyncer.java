@@ -0,0 +1,180 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.EpochClock;
+import org.agrona.concurrent.SleepingMillisIdleStrategy;
+import org.agrona.concurrent.status.AtomicCounter;
+
+import java.util.concurrent.ThreadFactory;
+
+import static uk.co.real_logic.artio.engine.FileSyncPolicy.GROUP_COMMIT;
+import static uk.co.real_logic.artio.engine.FileSyncPolicy.PER_WRITE;
+
+/**
+ * Applies a {@link FileSyncPolicy} to the writes made to a {@link MappedFile}.
+ * <p>
+ * Writers call {@link #onWrite()} after each write that should be made durable. Under
+ * {@link FileSyncPolicy#GROUP_COMMIT} the file is forced on a dedicated flusher thread, started by
+ * {@link #start(ThreadFactory, ErrorHandler)}, so the writer never waits for an fsync. The number of writes that are
+ * known to have been forced to disk is exposed through the durable position counter.
+ */
+public class FileSyncer implements Agent, AutoCloseable
+{
+    private static final long NO_PENDING_WRITES = -1;
+
+    private final MappedFile mappedFile;
+    private final FileSyncPolicy policy;
+    private final long groupCommitIntervalInMs;
+    private final int groupCommitMaxWrites;
+    private final AtomicCounter durablePosition;
+    private final EpochClock clock;
+
+    // Single writer, read by the flusher thread.
+    private volatile long writePosition;
+
+    // Only accessed by the flusher thread.
+    private long pendingSinceTimeInMs = NO_PENDING_WRITES;
+    private AgentRunner flusherRunner;
+
+    public FileSyncer(
+        final MappedFile mappedFile,
+        final FileSyncPolicy policy,
+        final long groupCommitIntervalInMs,
+        final int groupCommitMaxWrites,
+        final AtomicCounter durablePosition,
+        final EpochClock clock)
+    {
+        this.mappedFile = mappedFile;
+        this.policy = policy;
+        this.groupCommitIntervalInMs = groupCommitIntervalInMs;
+        this.groupCommitMaxWrites = groupCommitMaxWrites;
+        this.durablePosition = durablePosition;
+        this.clock = clock;
+    }
+
+    /**
+     * Start the flusher thread if the policy is {@link FileSyncPolicy#GROUP_COMMIT}, does nothing otherwise.
+     *
+     * @param threadFactory the factory used to create the flusher thread.
+     * @param errorHandler handles errors thrown when forcing the file.
+     */
+    public void start(final ThreadFactory threadFactory, final ErrorHandler errorHandler)
+    {
+        if (policy == GROUP_COMMIT)
+        {
+            flusherRunner = new AgentRunner(
+                new SleepingMillisIdleStrategy(Math.max(1, Math.min(groupCommitIntervalInMs, 10))),
+                errorHandler,
+                null,
+                this);
+            AgentRunner.startOnThread(flusherRunner, threadFactory);
+        }
+    }
+
+    /**
+     * Called by the writer once a write to the file has been completed.
+     */
+    public void onWrite()
+    {
+        final long writePosition = this.writePosition + 1;
+        if (policy == PER_WRITE)
+        {
+            mappedFile.sync();
+            this.writePosition = writePosition;
+            durablePosition.setOrdered(writePosition);
+        }
+        else
+        {
+            this.writePosition = writePosition;
+        }
+    }
+
+    public long writePosition()
+    {
+        return writePosition;
+    }
+
+    public FileSyncPolicy policy()
+    {
+        return policy;
+    }
+
+    public int doWork()
+    {
+        final long writePosition = this.writePosition;
+        if (writePosition == durablePosition.get())
+        {
+            pendingSinceTimeInMs = NO_PENDING_WRITES;
+            return 0;
+        }
+
+        final long timeInMs = clock.time();
+        if (pendingSinceTimeInMs == NO_PENDING_WRITES)
+        {
+            pendingSinceTimeInMs = timeInMs;
+        }
+
+        if (writePosition - durablePosition.get() >= groupCommitMaxWrites ||
+            timeInMs - pendingSinceTimeInMs >= groupCommitIntervalInMs)
+        {
+            forceUpTo(writePosition);
+            return 1;
+        }
+
+        return 0;
+    }
+
+    private void forceUpTo(final long writePosition)
+    {
+        mappedFile.sync();
+        durablePosition.setOrdered(writePosition);
+        pendingSinceTimeInMs = NO_PENDING_WRITES;
+    }
+
+    public void onClose()
+    {
+        final long writePosition = this.writePosition;
+        if (writePosition != durablePosition.get())
+        {
+            forceUpTo(writePosition);
+        }
+    }
+
+    public String roleName()
+    {
+        return "FileSyncer-" + mappedFile.file().getName();
+    }
+
+    /**
+     * Stop the flusher thread, forcing any pending writes. Must be called before the file is closed.
+     */
+    public void close()
+    {
+        if (flusherRunner != null)
+        {
+            flusherRunner.close();
+            flusherRunner = null;
+        }
+        else if (policy == GROUP_COMMIT)
+        {
+            onClose();
+        }
+    }
+}
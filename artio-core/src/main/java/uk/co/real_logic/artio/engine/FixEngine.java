@@ -245,6 +245,7 @@ public final class FixEngine extends GatewayProcess
 
     private FixEngine(final EngineConfiguration configuration)
     {
+        final long startTimeInNs = System.nanoTime();
         try
         {
             this.configuration = configuration;
@@ -269,17 +270,18 @@ public final class FixEngine extends GatewayProcess
                 configuration.archiverIdleStrategy(),
                 errorHandler);
 
-            final ExclusivePublication replayPublication = replayPublication();
+            final ExclusivePublication[] replayPublications = replayPublications();
             engineContext = new EngineContext(
                 configuration,
                 errorHandler,
-                replayPublication,
+                replayPublications,
                 fixCounters,
                 aeron,
                 aeronArchive,
                 recordingCoordinator);
-            initFramer(configuration, fixCounters, replayPublication.sessionId());
+            initFramer(configuration, fixCounters, replayPublications);
             initMonitoringAgent(timers.all(), configuration, aeronArchive, duplicateEngineChecker);
+            fixCounters.startupTime("engine").setOrdered(System.nanoTime() - startTimeInNs);
         }
         catch (final Exception e)
         {
@@ -294,24 +296,43 @@ public final class FixEngine extends GatewayProcess
         }
     }
 
-    private ExclusivePublication replayPublication()
+    // One per replayer worker, each worker replays its connections over its own publication
+    private ExclusivePublication[] replayPublications()
     {
-        final ExclusivePublication publication = aeron.addExclusivePublication(
-            IPC_CHANNEL, configuration.outboundReplayStream());
-        StreamInformation.print("replayPublication", publication, configuration);
-        return publication;
+        final int replayerWorkers = configuration.logOutboundMessages() ? configuration.replayerWorkers() : 0;
+        final ExclusivePublication[] publications = new ExclusivePublication[Math.max(1, replayerWorkers)];
+        for (int i = 0; i < publications.length; i++)
+        {
+            publications[i] = aeron.addExclusivePublication(IPC_CHANNEL, configuration.outboundReplayStream());
+            StreamInformation.print("replayPublication", publications[i], configuration);
+        }
+        return publications;
     }
 
     private void initFramer(
-        final EngineConfiguration configuration, final FixCounters fixCounters, final int replaySessionId)
+        final EngineConfiguration configuration,
+        final FixCounters fixCounters,
+        final ExclusivePublication[] replayPublications)
     {
+        final int replayPublicationCount = replayPublications.length;
+        final Image[] replayImages = new Image[replayPublicationCount];
+        final Image[] slowReplayImages = new Image[replayPublicationCount];
+        final Subscription replaySubscription = replaySubscription("replay");
+        final Subscription slowReplaySubscription = replaySubscription("slow-replay");
+        for (int i = 0; i < replayPublicationCount; i++)
+        {
+            final int replaySessionId = replayPublications[i].sessionId();
+            replayImages[i] = replayImage(replaySubscription, replaySessionId);
+            slowReplayImages[i] = replayImage(slowReplaySubscription, replaySessionId);
+        }
+
         framerContext = new FramerContext(
             configuration,
             fixCounters,
             engineContext,
             errorHandler,
-            replayImage("replay", replaySessionId),
-            replayImage("slow-replay", replaySessionId),
+            replayImages,
+            slowReplayImages,
             timers,
             aeron.conductorAgentInvoker(),
             recordingCoordinator,
@@ -320,12 +341,16 @@ public final class FixEngine extends GatewayProcess
         engineContext.framerContext(framerContext);
     }
 
-    private Image replayImage(final String name, final int replaySessionId)
+    private Subscription replaySubscription(final String name)
     {
         final Subscription subscription = aeron.addSubscription(
             IPC_CHANNEL, configuration.outboundReplayStream());
         StreamInformation.print(name, subscription, configuration);
+        return subscription;
+    }
 
+    private Image replayImage(final Subscription subscription, final int replaySessionId)
+    {
         // Await replay publication
         while (true)
         {
@@ -357,7 +382,9 @@ public final class FixEngine extends GatewayProcess
             configuration,
             errorHandler,
             framerContext.framer(),
+            framerContext.receiverShards(),
             engineContext.indexingAgent(),
+            engineContext.replayerWorkers(),
             monitoringAgent,
             conductorAgent(),
             recordingCoordinator);
@@ -89,6 +89,16 @@ public class MappedFile implements AutoCloseable
         force(fileChannel);
     }
 
+    /**
+     * Force any changes to the file to disk, regardless of the {@link CommonConfiguration#FORCE_WRITES} flag.
+     *
+     * @see FileSyncer
+     */
+    public void sync()
+    {
+        sync(fileChannel);
+    }
+
     public void transferTo(final File backupLocation)
     {
         try (FileChannel backupChannel = FileChannel.open(backupLocation.toPath(), WRITE))
@@ -130,14 +140,19 @@ public class MappedFile implements AutoCloseable
     {
         if (CommonConfiguration.FORCE_WRITES)
         {
-            try
-            {
-                fileChannel.force(true);
-            }
-            catch (final IOException ex)
-            {
-                LangUtil.rethrowUnchecked(ex);
-            }
+            sync(fileChannel);
+        }
+    }
+
+    private void sync(final FileChannel fileChannel)
+    {
+        try
+        {
+            fileChannel.force(true);
+        }
+        catch (final IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
         }
     }
 }
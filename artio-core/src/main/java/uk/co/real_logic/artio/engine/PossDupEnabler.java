@@ -24,11 +24,9 @@ import org.agrona.MutableDirectBuffer;
 import org.agrona.concurrent.EpochNanoClock;
 import uk.co.real_logic.artio.DebugLogger;
 import uk.co.real_logic.artio.LogTag;
-import uk.co.real_logic.artio.dictionary.LongDictionary;
 import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
 import uk.co.real_logic.artio.messages.FixMessageDecoder;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
-import uk.co.real_logic.artio.otf.OtfParser;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
@@ -53,12 +51,16 @@ public class PossDupEnabler
     public static final String ORIG_SENDING_TIME_PREFIX_AS_STR = "122=";
     private static final byte[] ORIG_SENDING_TIME_PREFIX = ORIG_SENDING_TIME_PREFIX_AS_STR.getBytes(US_ASCII);
 
+    private static final int POSS_DUP_FIELD_CHECKSUM = checksumOf(POSS_DUP_FIELD);
+    private static final int ORIG_SENDING_TIME_PREFIX_CHECKSUM = checksumOf(ORIG_SENDING_TIME_PREFIX);
+
+    private static final int CHECKSUM_PREFIX_LENGTH = "10=".length();
     private static final int CHECKSUM_VALUE_LENGTH = 3;
     private static final int FRAGMENTED_MESSAGE_BUFFER_OFFSET = 0;
 
     private final ExpandableArrayBuffer fragmentedMessageBuffer = new ExpandableArrayBuffer();
     private final PossDupFinder possDupFinder = new PossDupFinder();
-    private final OtfParser parser = new OtfParser(possDupFinder, new LongDictionary());
+    private final MutableAsciiBuffer srcAsciiFlyweight = new MutableAsciiBuffer();
     private final MutableAsciiBuffer mutableAsciiFlyweight = new MutableAsciiBuffer();
     private final UtcTimestampEncoder utcTimestampEncoder;
 
@@ -73,6 +75,10 @@ public class PossDupEnabler
 
     private int fragmentedMessageLength;
 
+    // Sum of the bytes added to the message minus the sum of the bytes removed from it, modulo 256 is applied
+    // when the checksum is written.
+    private int checksumDelta;
+
     public interface Claimer
     {
         boolean claim(int totalLength, int messageLength);
@@ -109,7 +115,10 @@ public class PossDupEnabler
         final int srcLength,
         final int metaDataAdjustment)
     {
-        parser.onMessage(srcBuffer, messageOffset, messageLength);
+        srcAsciiFlyweight.wrap(srcBuffer);
+        possDupFinder.scan(srcAsciiFlyweight, messageOffset, messageLength);
+        checksumDelta = 0;
+
         final int possDupSrcOffset = possDupFinder.possDupOffset();
         if (possDupSrcOffset == NO_ENTRY)
         {
@@ -144,7 +153,7 @@ public class PossDupEnabler
                     newLength,
                     metaDataAdjustment))
                 {
-                    return commit(true);
+                    return commit();
                 }
                 else
                 {
@@ -169,11 +178,14 @@ public class PossDupEnabler
             {
                 final MutableDirectBuffer writeBuffer = writeBuffer();
                 final int writeOffset = writeOffset();
-                writeBuffer.putBytes(writeOffset, srcBuffer, messageOffset, messageLength);
-                setPossDupFlag(possDupSrcOffset, messageOffset, writeOffset, writeBuffer);
-                updateSendingTime(messageOffset);
+                writeBuffer.putBytes(writeOffset, srcBuffer, srcOffset, srcLength);
+                setPossDupFlag(possDupSrcOffset, srcOffset, writeOffset, writeBuffer);
+                updateSendingTime(srcOffset);
+
+                final int messageClaimOffset = srcToClaim(messageOffset, srcOffset, writeOffset);
+                updateChecksum(messageClaimOffset, writeOffset + srcLength);
 
-                return commit(false);
+                return commit();
             }
             catch (final Exception ex)
             {
@@ -212,9 +224,9 @@ public class PossDupEnabler
         }
     }
 
-    private Action commit(final boolean hasAlteredBodyLength)
+    private Action commit()
     {
-        final int logLengthOffset = hasAlteredBodyLength ? FRAME_LENGTH + metaDataHeaderLength() : 0;
+        final int logLengthOffset = FRAME_LENGTH + metaDataHeaderLength();
         if (isProcessingFragmentedMessage())
         {
             int fragmentOffset = FRAGMENTED_MESSAGE_BUFFER_OFFSET;
@@ -332,6 +344,9 @@ public class PossDupEnabler
         final int separatorClaimOffset = origSendingTimeValueClaimOffset + sendingTimeLength;
         writeBuffer.putByte(separatorClaimOffset, SEPARATOR);
 
+        checksumDelta += POSS_DUP_FIELD_CHECKSUM + ORIG_SENDING_TIME_PREFIX_CHECKSUM +
+            checksumOf(srcBuffer, sendingTimeOffset, sendingTimeLength) + SEPARATOR;
+
         // Insert the rest of the message
         final int remainingClaimOffset = separatorClaimOffset + SEPARATOR_LENGTH;
         final int remainingLength = srcLength - lengthToPossDup;
@@ -357,7 +372,11 @@ public class PossDupEnabler
 
         final int sendingTimeClaimOffset = srcToClaim(sendingTimeOffset, srcOffset, claimOffset);
         utcTimestampEncoder.encodeFrom(clock.nanoTime(), TimeUnit.NANOSECONDS);
-        claimBuffer.putBytes(sendingTimeClaimOffset, utcTimestampEncoder.buffer(), 0, sendingTimeLength);
+        final byte[] timestampBytes = utcTimestampEncoder.buffer();
+        claimBuffer.putBytes(sendingTimeClaimOffset, timestampBytes, 0, sendingTimeLength);
+
+        checksumDelta += checksumOf(timestampBytes, sendingTimeLength) -
+            checksumOf(srcAsciiFlyweight, sendingTimeOffset, sendingTimeLength);
     }
 
     private void updateFrameBodyLength(
@@ -402,22 +421,63 @@ public class PossDupEnabler
         final int lengthOfUpdatedBodyLengthField = Math.max(lengthOfOldBodyLength, lengthOfNewBodyLength);
         mutableAsciiFlyweight.putNaturalPaddedIntAscii(
             bodyLengthClaimOffset, lengthOfUpdatedBodyLengthField, newBodyLength);
+
+        checksumDelta += checksumOf(mutableAsciiFlyweight, bodyLengthClaimOffset, lengthOfUpdatedBodyLengthField) -
+            checksumOf(srcAsciiFlyweight, possDupFinder.bodyLengthOffset(), lengthOfOldBodyLength);
         // END Update body length
 
-        final int beforeChecksum = bodyLengthClaimOffset + lengthOfUpdatedBodyLengthField + newBodyLength;
-        updateChecksum(messageClaimOffset, beforeChecksum, messageEndOffset);
+        updateChecksum(messageClaimOffset, messageEndOffset);
     }
 
-    private void updateChecksum(final int messageClaimOffset, final int beforeChecksum, final int messageEndOffset)
+    // Adjusts the original checksum by the bytes that have changed rather than summing the whole message again
+    private void updateChecksum(final int messageClaimOffset, final int messageEndOffset)
     {
-        final int lengthOfSeparator = 1;
-        final int checksumEnd = beforeChecksum + lengthOfSeparator;
-        final int checksum = mutableAsciiFlyweight.computeChecksum(messageClaimOffset, checksumEnd);
+        mutableAsciiFlyweight.wrap(writeBuffer());
+
         final int checksumValueOffset = messageEndOffset - (CHECKSUM_VALUE_LENGTH + SEPARATOR_LENGTH);
+        final int checksumSrcOffset = possDupFinder.checksumOffset();
+        final int checksum;
+        if (checksumSrcOffset == NO_ENTRY)
+        {
+            checksum = mutableAsciiFlyweight.computeChecksum(
+                messageClaimOffset, checksumValueOffset - CHECKSUM_PREFIX_LENGTH);
+        }
+        else
+        {
+            final int originalChecksum = srcAsciiFlyweight.getNatural(
+                checksumSrcOffset, checksumSrcOffset + CHECKSUM_VALUE_LENGTH);
+            checksum = (originalChecksum + checksumDelta) & 0xFF;
+        }
+
         mutableAsciiFlyweight.putNaturalPaddedIntAscii(checksumValueOffset, CHECKSUM_VALUE_LENGTH, checksum);
         mutableAsciiFlyweight.putSeparator(checksumValueOffset + CHECKSUM_VALUE_LENGTH);
     }
 
+    private static int checksumOf(final byte[] bytes)
+    {
+        return checksumOf(bytes, bytes.length);
+    }
+
+    private static int checksumOf(final byte[] bytes, final int length)
+    {
+        int checksum = 0;
+        for (int i = 0; i < length; i++)
+        {
+            checksum += bytes[i];
+        }
+        return checksum;
+    }
+
+    private static int checksumOf(final DirectBuffer buffer, final int offset, final int length)
+    {
+        int checksum = 0;
+        for (int i = offset, end = offset + length; i < end; i++)
+        {
+            checksum += buffer.getByte(i);
+        }
+        return checksum;
+    }
+
     private void setPossDupFlag(
         final int possDupSrcOffset,
         final int messageOffset,
@@ -427,6 +487,8 @@ public class PossDupEnabler
         final int possDupClaimOffset = srcToClaim(possDupSrcOffset, messageOffset, claimOffset);
         mutableAsciiFlyweight.wrap(claimBuffer);
         mutableAsciiFlyweight.putChar(possDupClaimOffset, 'Y');
+
+        checksumDelta += 'Y' - srcAsciiFlyweight.getByte(possDupSrcOffset);
     }
 
     private int srcToClaim(final int srcIndexedOffset, final int srcOffset, final int claimOffset)
@@ -26,6 +26,12 @@ public class PossDupFinder implements OtfMessageAcceptor
 {
     public static final int NO_ENTRY = -1;
 
+    // Length fields of the standard data fields, whose values can contain the separator
+    private static final int SECURE_DATA_LEN = 90;
+    private static final int RAW_DATA_LENGTH = 95;
+    private static final int XML_DATA_LEN = 212;
+    private static final int SIGNATURE_LENGTH = 93;
+
     private int possDupOffset;
     private int sendingTimeOffset;
     private int sendingTimeLength;
@@ -34,6 +40,7 @@ public class PossDupFinder implements OtfMessageAcceptor
     private int lengthOfBodyLength;
     private int origSendingTimeOffset;
     private int origSendingTimeLength;
+    private int checksumOffset;
 
     public MessageControl onNext()
     {
@@ -45,9 +52,61 @@ public class PossDupFinder implements OtfMessageAcceptor
         bodyLength = NO_ENTRY;
         bodyLengthOffset = NO_ENTRY;
         lengthOfBodyLength = NO_ENTRY;
+        checksumOffset = NO_ENTRY;
         return MessageControl.CONTINUE;
     }
 
+    /**
+     * Finds the fields in a single pass over the tag=value pairs of a message, without the validation and
+     * group handling of an {@link uk.co.real_logic.artio.otf.OtfParser}. Stops at the checksum field.
+     *
+     * @param buffer the buffer containing the message.
+     * @param offset the offset of the message within the buffer.
+     * @param length the length of the message.
+     */
+    public void scan(final AsciiBuffer buffer, final int offset, final int length)
+    {
+        onNext();
+
+        final int end = offset + length;
+        int dataLength = NO_ENTRY;
+        int tagOffset = offset;
+        while (tagOffset < end)
+        {
+            final int equalsIndex = buffer.scan(tagOffset, end, '=');
+            if (equalsIndex == AsciiBuffer.UNKNOWN_INDEX)
+            {
+                return;
+            }
+
+            final int tag = buffer.getNatural(tagOffset, equalsIndex);
+            final int valueOffset = equalsIndex + 1;
+            final int separatorIndex = dataLength == NO_ENTRY ?
+                buffer.scan(valueOffset, end, AsciiBuffer.SEPARATOR) : valueOffset + dataLength;
+            if (separatorIndex == AsciiBuffer.UNKNOWN_INDEX || separatorIndex >= end)
+            {
+                return;
+            }
+
+            final int valueLength = separatorIndex - valueOffset;
+            if (tag == SessionConstants.CHECKSUM)
+            {
+                checksumOffset = valueOffset;
+                return;
+            }
+
+            onField(tag, buffer, valueOffset, valueLength);
+
+            dataLength = isDataLengthField(tag) ? buffer.getNatural(valueOffset, separatorIndex) : NO_ENTRY;
+            tagOffset = separatorIndex + 1;
+        }
+    }
+
+    private static boolean isDataLengthField(final int tag)
+    {
+        return tag == SECURE_DATA_LEN || tag == RAW_DATA_LENGTH || tag == XML_DATA_LEN || tag == SIGNATURE_LENGTH;
+    }
+
     public MessageControl onField(final int tag, final AsciiBuffer buffer, final int offset, final int length)
     {
         switch (tag)
@@ -148,4 +207,10 @@ public class PossDupFinder implements OtfMessageAcceptor
     {
         return lengthOfBodyLength;
     }
+
+    // Only found by scan(), NO_ENTRY when parsed through an OtfParser
+    int checksumOffset()
+    {
+        return checksumOffset;
+    }
 }
@@ -0,0 +1,39 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+/**
+ * Determines how the replay index of each session is laid out on disk.
+ *
+ * @see EngineConfiguration#replayIndexLayout(ReplayIndexLayout)
+ */
+public enum ReplayIndexLayout
+{
+    /**
+     * Each session's replay index is a separate memory mapped file, a cache of which is kept open by the indexer and
+     * the replayer. Simple to inspect, but the number of files and mappings grows with the number of sessions.
+     */
+    FILE_PER_SESSION,
+
+    /**
+     * The replay indices of many sessions are stored as slots in a small number of shared segment files, each of
+     * which holds a directory of the sessions in it. The number of files and mappings stays proportional to the
+     * number of segments rather than the number of sessions.
+     *
+     * @see EngineConfiguration#replayIndexSegmentSessions(int)
+     */
+    SEGMENTED
+}
@@ -18,6 +18,9 @@ package uk.co.real_logic.artio.engine;
 import org.agrona.ErrorHandler;
 import uk.co.real_logic.artio.FileSystemCorruptionException;
 
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
 import static org.agrona.BitUtil.SIZE_OF_INT;
 
 /**
@@ -75,6 +78,24 @@ public class SectorFramer
         return ((offset / SECTOR_SIZE) * SECTOR_SIZE) + SECTOR_SIZE;
     }
 
+    /**
+     * Calculate the checksum of the data within a sector.
+     *
+     * @param crc32 the CRC32 instance used to calculate the checksum, this is reset.
+     * @param buffer the buffer holding the sector, its position and limit are modified.
+     * @param sectorStart the offset of the start of the sector within the buffer.
+     * @return the checksum of the sector's data.
+     */
+    public static int sectorChecksum(final CRC32 crc32, final ByteBuffer buffer, final int sectorStart)
+    {
+        crc32.reset();
+        buffer.clear();
+        ByteBufferUtil.position(buffer, sectorStart);
+        ByteBufferUtil.limit(buffer, sectorStart + SECTOR_DATA_LENGTH);
+        crc32.update(buffer);
+        return (int)crc32.getValue();
+    }
+
     public static void validateCheckSum(
         final String fileName,
         final int start,
@@ -0,0 +1,205 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.CloseHelper;
+import org.agrona.LangUtil;
+import org.agrona.collections.ArrayListUtil;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+
+import static uk.co.real_logic.artio.messages.InitialAcceptedSessionOwner.SOLE_LIBRARY;
+
+/**
+ * A {@link TcpChannelSupplier} that polls its non-blocking listening and connecting channels directly rather than
+ * through a {@link java.nio.channels.Selector}, so an idle duty cycle costs at most one <code>accept()</code> call
+ * and all pending connections are accepted in a single poll.
+ *
+ * This suits engines that are latency sensitive and run a small number of connections. It is selected using
+ * <code>EngineConfiguration.channelSupplierFactory(BusyPollTcpChannelSupplier::new)</code> and is normally combined
+ * with a {@link EngineConfiguration#receiverPollingThreshold(int)} that is at least the expected number of
+ * connections, so that receiver end points are also read without a selector.
+ */
+public class BusyPollTcpChannelSupplier extends TcpChannelSupplier
+{
+    private final ArrayList<OpeningChannel> openingChannels = new ArrayList<>();
+    private final EngineConfiguration configuration;
+    private final boolean hasBindAddress;
+
+    private ServerSocketChannel listeningChannel;
+
+    public BusyPollTcpChannelSupplier(final EngineConfiguration configuration)
+    {
+        hasBindAddress = configuration.hasBindAddress();
+        this.configuration = configuration;
+        try
+        {
+            if (configuration.bindAtStartup() && configuration.initialAcceptedSessionOwner() != SOLE_LIBRARY)
+            {
+                bind();
+            }
+        }
+        catch (final IOException ex)
+        {
+            LangUtil.rethrowUnchecked(ex);
+        }
+    }
+
+    public int pollSelector(final long timeInMs, final NewChannelHandler handler) throws IOException
+    {
+        return pollListeningChannel(timeInMs, handler) + pollOpeningChannels();
+    }
+
+    private int pollListeningChannel(final long timeInMs, final NewChannelHandler handler) throws IOException
+    {
+        final ServerSocketChannel listeningChannel = this.listeningChannel;
+        if (listeningChannel == null)
+        {
+            return 0;
+        }
+
+        int accepted = 0;
+        SocketChannel channel;
+        while ((channel = listeningChannel.accept()) != null)
+        {
+            DefaultTcpChannelSupplier.configure(channel, configuration);
+            channel.configureBlocking(false);
+
+            handler.onNewChannel(timeInMs, newTcpChannel(channel));
+            accepted++;
+        }
+
+        return accepted;
+    }
+
+    private int pollOpeningChannels() throws IOException
+    {
+        final ArrayList<OpeningChannel> openingChannels = this.openingChannels;
+        int completed = 0;
+        for (int i = openingChannels.size() - 1; i >= 0; i--)
+        {
+            final OpeningChannel openingChannel = openingChannels.get(i);
+            final SocketChannel channel = openingChannel.channel;
+            try
+            {
+                if (channel.finishConnect())
+                {
+                    ArrayListUtil.fastUnorderedRemove(openingChannels, i);
+                    openingChannel.channelHandler.onInitiatedChannel(newTcpChannel(channel), null);
+                    completed++;
+                }
+            }
+            catch (final IOException e)
+            {
+                ArrayListUtil.fastUnorderedRemove(openingChannels, i);
+                openingChannel.channelHandler.onInitiatedChannel(null, e);
+                completed++;
+            }
+        }
+
+        return completed;
+    }
+
+    public void unbind() throws IOException
+    {
+        if (listeningChannel != null)
+        {
+            listeningChannel.close();
+            listeningChannel = null;
+        }
+    }
+
+    public void bind() throws IOException
+    {
+        if (hasBindAddress && listeningChannel == null)
+        {
+            listeningChannel = ServerSocketChannel.open();
+            listeningChannel.bind(configuration.bindAddress()).configureBlocking(false);
+        }
+    }
+
+    public void close()
+    {
+        CloseHelper.close(listeningChannel);
+        openingChannels.forEach(openingChannel -> CloseHelper.close(openingChannel.channel));
+        openingChannels.clear();
+    }
+
+    public void open(final InetSocketAddress address, final InitiatedChannelHandler channelHandler)
+        throws IOException
+    {
+        final SocketChannel channel = SocketChannel.open();
+        channel.configureBlocking(false);
+        DefaultTcpChannelSupplier.configure(channel, configuration);
+        try
+        {
+            channel.connect(address);
+        }
+        catch (final Exception e)
+        {
+            try
+            {
+                channel.close();
+            }
+            catch (final IOException ce)
+            {
+                e.addSuppressed(ce);
+            }
+            throw e;
+        }
+        openingChannels.add(new OpeningChannel(address, channel, channelHandler));
+    }
+
+    protected TcpChannel newTcpChannel(final SocketChannel channel) throws IOException
+    {
+        return new TcpChannel(channel);
+    }
+
+    public void stopConnecting(final InetSocketAddress address) throws IOException
+    {
+        final ArrayList<OpeningChannel> openingChannels = this.openingChannels;
+        for (int i = 0, size = openingChannels.size(); i < size; i++)
+        {
+            if (openingChannels.get(i).address.equals(address))
+            {
+                openingChannels.remove(i);
+                break;
+            }
+        }
+    }
+
+    static final class OpeningChannel
+    {
+        private final InetSocketAddress address;
+        private final SocketChannel channel;
+        private final InitiatedChannelHandler channelHandler;
+
+        OpeningChannel(
+            final InetSocketAddress address,
+            final SocketChannel channel,
+            final InitiatedChannelHandler channelHandler)
+        {
+            this.address = address;
+            this.channel = channel;
+            this.channelHandler = channelHandler;
+        }
+    }
+}
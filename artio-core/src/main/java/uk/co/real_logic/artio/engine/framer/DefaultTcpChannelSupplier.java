@@ -64,7 +64,7 @@ public class DefaultTcpChannelSupplier extends TcpChannelSupplier
                         final SocketChannel channel = listeningChannel.accept();
                         if (channel != null)
                         {
-                            configure(channel);
+                            configure(channel, configuration);
                             channel.configureBlocking(false);
 
                             handler.onNewChannel(timeInMs, newTcpChannel(channel));
@@ -123,7 +123,7 @@ public class DefaultTcpChannelSupplier extends TcpChannelSupplier
         }
     }
 
-    private void configure(final SocketChannel channel) throws IOException
+    static void configure(final SocketChannel channel, final EngineConfiguration configuration) throws IOException
     {
         channel.setOption(TCP_NODELAY, true);
         if (configuration.receiverSocketBufferSize() > 0)
@@ -147,7 +147,7 @@ public class DefaultTcpChannelSupplier extends TcpChannelSupplier
     {
         final SocketChannel channel = SocketChannel.open();
         channel.configureBlocking(false);
-        configure(channel);
+        configure(channel, configuration);
         try
         {
             channel.connect(address);
@@ -0,0 +1,222 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ExpandableDirectByteBuffer;
+import org.agrona.collections.Hashing;
+
+import java.util.Arrays;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+/**
+ * Open addressing hash index from the encoded bytes of a composite key, as saved by a
+ * {@link uk.co.real_logic.artio.session.SessionIdStrategy}, to a session id.
+ * <p>
+ * Keys are copied into an off-heap buffer as length prefixed records, and the table itself is made of primitive
+ * arrays, so the index doesn't hold any heap objects per session. Entries can't be removed individually, only
+ * cleared, since session ids are never deleted.
+ */
+class EncodedKeyIndex
+{
+    static final long MISSING_VALUE = -1;
+
+    private static final int EMPTY_SLOT = -1;
+    private static final int INITIAL_CAPACITY = 64;
+    private static final int INITIAL_KEYS_CAPACITY = 4 * 1024;
+
+    private final ExpandableDirectByteBuffer keys = new ExpandableDirectByteBuffer(INITIAL_KEYS_CAPACITY);
+
+    private int[] keyOffsets;
+    private int[] keyHashes;
+    private long[] values;
+    private int mask;
+    private int size;
+    private int resizeThreshold;
+    private int keysLength;
+
+    EncodedKeyIndex()
+    {
+        allocate(INITIAL_CAPACITY);
+    }
+
+    long get(final DirectBuffer buffer, final int offset, final int length)
+    {
+        final int hash = hash(buffer, offset, length);
+        final int slot = findSlot(buffer, offset, length, hash);
+        return keyOffsets[slot] == EMPTY_SLOT ? MISSING_VALUE : values[slot];
+    }
+
+    /**
+     * Put a value into the index, replacing the value of an existing equal key.
+     *
+     * @param buffer the buffer containing the encoded key.
+     * @param offset the offset of the key within the buffer.
+     * @param length the length of the key.
+     * @param value the value to associate with the key.
+     * @return the value that was previously associated with the key or {@link #MISSING_VALUE} if there wasn't one.
+     */
+    long put(final DirectBuffer buffer, final int offset, final int length, final long value)
+    {
+        final int hash = hash(buffer, offset, length);
+        final int slot = findSlot(buffer, offset, length, hash);
+        if (keyOffsets[slot] != EMPTY_SLOT)
+        {
+            final long oldValue = values[slot];
+            values[slot] = value;
+            return oldValue;
+        }
+
+        final int keyOffset = keysLength;
+        keys.putInt(keyOffset, length);
+        keys.putBytes(keyOffset + SIZE_OF_INT, buffer, offset, length);
+        keysLength = keyOffset + SIZE_OF_INT + length;
+
+        keyOffsets[slot] = keyOffset;
+        keyHashes[slot] = hash;
+        values[slot] = value;
+
+        if (++size > resizeThreshold)
+        {
+            rehash(keyOffsets.length << 1);
+        }
+
+        return MISSING_VALUE;
+    }
+
+    int size()
+    {
+        return size;
+    }
+
+    void clear()
+    {
+        allocate(INITIAL_CAPACITY);
+        keysLength = 0;
+    }
+
+    private int findSlot(final DirectBuffer buffer, final int offset, final int length, final int hash)
+    {
+        final int[] keyOffsets = this.keyOffsets;
+        final int[] keyHashes = this.keyHashes;
+        final int mask = this.mask;
+
+        int slot = hash & mask;
+        int keyOffset;
+        while ((keyOffset = keyOffsets[slot]) != EMPTY_SLOT)
+        {
+            if (keyHashes[slot] == hash && keyEquals(keyOffset, buffer, offset, length))
+            {
+                break;
+            }
+
+            slot = (slot + 1) & mask;
+        }
+
+        return slot;
+    }
+
+    private boolean keyEquals(final int keyOffset, final DirectBuffer buffer, final int offset, final int length)
+    {
+        final ExpandableDirectByteBuffer keys = this.keys;
+        if (keys.getInt(keyOffset) != length)
+        {
+            return false;
+        }
+
+        final int keyStart = keyOffset + SIZE_OF_INT;
+        int i = 0;
+        for (final int wordLimit = length - SIZE_OF_LONG; i <= wordLimit; i += SIZE_OF_LONG)
+        {
+            if (keys.getLong(keyStart + i) != buffer.getLong(offset + i))
+            {
+                return false;
+            }
+        }
+
+        for (; i < length; i++)
+        {
+            if (keys.getByte(keyStart + i) != buffer.getByte(offset + i))
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    private void rehash(final int newCapacity)
+    {
+        final int[] oldKeyOffsets = keyOffsets;
+        final int[] oldKeyHashes = keyHashes;
+        final long[] oldValues = values;
+
+        allocate(newCapacity);
+
+        final int[] keyOffsets = this.keyOffsets;
+        final int[] keyHashes = this.keyHashes;
+        final long[] values = this.values;
+        final int mask = this.mask;
+        for (int i = 0; i < oldKeyOffsets.length; i++)
+        {
+            final int keyOffset = oldKeyOffsets[i];
+            if (keyOffset != EMPTY_SLOT)
+            {
+                final int hash = oldKeyHashes[i];
+                int slot = hash & mask;
+                while (keyOffsets[slot] != EMPTY_SLOT)
+                {
+                    slot = (slot + 1) & mask;
+                }
+
+                keyOffsets[slot] = keyOffset;
+                keyHashes[slot] = hash;
+                values[slot] = oldValues[i];
+                size++;
+            }
+        }
+    }
+
+    private void allocate(final int capacity)
+    {
+        keyOffsets = new int[capacity];
+        Arrays.fill(keyOffsets, EMPTY_SLOT);
+        keyHashes = new int[capacity];
+        values = new long[capacity];
+        mask = capacity - 1;
+        size = 0;
+        resizeThreshold = capacity >> 1;
+    }
+
+    static int hash(final DirectBuffer buffer, final int offset, final int length)
+    {
+        long hash = length;
+        int i = 0;
+        for (final int wordLimit = length - SIZE_OF_LONG; i <= wordLimit; i += SIZE_OF_LONG)
+        {
+            hash = (hash ^ buffer.getLong(offset + i)) * 0x9E3779B97F4A7C15L;
+        }
+
+        for (; i < length; i++)
+        {
+            hash = (hash ^ buffer.getByte(offset + i)) * 0x9E3779B97F4A7C15L;
+        }
+
+        return Hashing.hash(hash);
+    }
+}
@@ -21,6 +21,7 @@ import uk.co.real_logic.artio.FixCounters;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
 import uk.co.real_logic.artio.engine.MessageTimingHandler;
 import uk.co.real_logic.artio.engine.SenderSequenceNumbers;
+import uk.co.real_logic.artio.engine.logger.Replayer;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 
 class EndPointFactory
@@ -37,7 +38,7 @@ class EndPointFactory
     private final SenderSequenceNumbers senderSequenceNumbers;
     private final MessageTimingHandler messageTimingHandler;
 
-    private SlowPeeker replaySlowPeeker;
+    private SlowPeeker[] replaySlowPeekers;
 
     EndPointFactory(
         final EngineConfiguration configuration,
@@ -98,7 +99,7 @@ class EndPointFactory
             connectionId,
             libraryId,
             libraryBlockablePosition,
-            replaySlowPeeker,
+            replaySlowPeekers[Replayer.workerIndex(connectionId, replaySlowPeekers.length)],
             channel,
             bytesInBuffer,
             fixCounters.invalidLibraryAttempts(connectionId, remoteAddress),
@@ -108,11 +109,15 @@ class EndPointFactory
             configuration.slowConsumerTimeoutInMs(),
             System.currentTimeMillis(),
             senderSequenceNumbers.onNewSender(connectionId, bytesInBuffer),
-            messageTimingHandler);
+            messageTimingHandler,
+            configuration.senderMaxMessagesPerWrite(),
+            fixCounters.senderWrites(),
+            fixCounters.senderMessagesWritten());
     }
 
-    void replaySlowPeeker(final SlowPeeker replaySlowPeeker)
+    // Indexed by replayer worker, as each worker replays over its own image
+    void replaySlowPeekers(final SlowPeeker[] replaySlowPeekers)
     {
-        this.replaySlowPeeker = replaySlowPeeker;
+        this.replaySlowPeekers = replaySlowPeekers;
     }
 }
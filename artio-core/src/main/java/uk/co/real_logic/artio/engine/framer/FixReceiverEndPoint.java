@@ -27,6 +27,7 @@ import uk.co.real_logic.artio.dictionary.SessionConstants;
 import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.ByteBufferUtil;
 import uk.co.real_logic.artio.messages.DisconnectReason;
+import uk.co.real_logic.artio.messages.MessageStatus;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.util.CharFormatter;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
@@ -153,9 +154,10 @@ class FixReceiverEndPoint extends ReceiverEndPoint
     private final FixReceiverEndPointFormatters formatters;
 
     private GatewaySession gatewaySession;
+    private ReceiverShard shard;
     private long sessionId;
     private int sequenceIndex;
-    private boolean isPaused = false;
+    private volatile boolean isPaused = false;
 
     private AcceptorLogonResult pendingAcceptorLogon;
     private int pendingAcceptorLogonMsgOffset;
@@ -763,12 +765,60 @@ class FixReceiverEndPoint extends ReceiverEndPoint
         final int sequenceIndex,
         final long readTimestamp)
     {
-        DirectBuffer buffer = this.buffer;
+        final long position = publish(
+            buffer, messageOffset, messageLength, messageType, sessionId, sequenceIndex, OK, readTimestamp);
+
+        if (Pressure.isBackPressured(position))
+        {
+            moveRemainingDataToBufferStart(messageOffset);
+            return false;
+        }
+        else
+        {
+            return true;
+        }
+    }
+
+    private long publish(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final long messageType,
+        final long sessionId,
+        final int sequenceIndex,
+        final MessageStatus status,
+        final long readTimestamp)
+    {
+        final ReceiverShard shard = this.shard;
+        if (shard != null)
+        {
+            return shard.onFramedMessage(
+                connectionId, buffer, offset, length, messageType, sessionId, sequenceIndex, status, readTimestamp);
+        }
+
+        return publishFramedMessage(
+            buffer, offset, length, messageType, sessionId, sequenceIndex, status, readTimestamp);
+    }
+
+    // Always invoked on the Framer thread, either whilst framing or when the message has been framed by a
+    // receiver shard.
+    long publishFramedMessage(
+        final DirectBuffer messageBuffer,
+        final int messageOffset,
+        final int messageLength,
+        final long messageType,
+        final long sessionId,
+        final int sequenceIndex,
+        final MessageStatus status,
+        final long readTimestamp)
+    {
+        DirectBuffer buffer = messageBuffer;
         int offset = messageOffset;
         int length = messageLength;
 
+        final boolean isOk = status == OK;
         final boolean isUserRequest = messageType == USER_REQUEST_MESSAGE_TYPE;
-        if (messageType == LOGON_MESSAGE_TYPE || isUserRequest)
+        if (isOk && (messageType == LOGON_MESSAGE_TYPE || isUserRequest))
         {
             if (isUserRequest)
             {
@@ -792,20 +842,16 @@ class FixReceiverEndPoint extends ReceiverEndPoint
             sessionId,
             sequenceIndex,
             connectionId,
-            OK,
+            status,
             0,
             readTimestamp);
 
-        if (Pressure.isBackPressured(position))
-        {
-            moveRemainingDataToBufferStart(offset);
-            return false;
-        }
-        else
+        if (isOk && !Pressure.isBackPressured(position))
         {
             gatewaySession.onMessage(buffer, offset, length, messageType, position);
-            return true;
         }
+
+        return position;
     }
 
     private boolean validateBodyLength(final int startOfChecksumTag)
@@ -858,18 +904,8 @@ class FixReceiverEndPoint extends ReceiverEndPoint
 
     private boolean saveInvalidMessage(final int offset, final int length, final long readTimestamp)
     {
-        final long position = publication.saveMessage(
-            buffer,
-            offset,
-            length,
-            libraryId,
-            UNKNOWN_MESSAGE_TYPE,
-            sessionId,
-            sequenceIndex,
-            connectionId,
-            INVALID_BODYLENGTH,
-            0,
-            readTimestamp);
+        final long position = publish(
+            buffer, offset, length, UNKNOWN_MESSAGE_TYPE, sessionId, sequenceIndex, INVALID_BODYLENGTH, readTimestamp);
 
         return stashIfBackPressured(offset, position);
     }
@@ -877,17 +913,8 @@ class FixReceiverEndPoint extends ReceiverEndPoint
     // returns true if back-pressured
     private boolean saveInvalidMessage(final int offset, final long readTimestamp)
     {
-        final long position = publication.saveMessage(
-            buffer,
-            offset,
-            usedBufferData - offset,
-            libraryId,
-            INVALID_MESSAGE_TYPE,
-            sessionId,
-            sequenceIndex,
-            connectionId,
-            INVALID,
-            0,
+        final long position = publish(
+            buffer, offset, usedBufferData - offset, INVALID_MESSAGE_TYPE, sessionId, sequenceIndex, INVALID,
             readTimestamp);
 
         final boolean backPressured = stashIfBackPressured(offset, position);
@@ -916,18 +943,8 @@ class FixReceiverEndPoint extends ReceiverEndPoint
     private boolean saveInvalidChecksumMessage(
         final int offset, final long messageType, final int length, final long readTimestamp)
     {
-        final long position = publication.saveMessage(
-            buffer,
-            offset,
-            length,
-            libraryId,
-            messageType,
-            sessionId,
-            sequenceIndex,
-            connectionId,
-            INVALID_CHECKSUM,
-            0,
-            readTimestamp);
+        final long position = publish(
+            buffer, offset, length, messageType, sessionId, sequenceIndex, INVALID_CHECKSUM, readTimestamp);
 
         return stashIfBackPressured(offset, position);
     }
@@ -960,6 +977,20 @@ class FixReceiverEndPoint extends ReceiverEndPoint
         completeDisconnect(AUTHENTICATION_TIMEOUT);
     }
 
+    void onDisconnectDetected()
+    {
+        final ReceiverShard shard = this.shard;
+        if (shard != null)
+        {
+            // Disconnects are completed on the Framer thread.
+            shard.onDisconnectDetected(this);
+        }
+        else
+        {
+            super.onDisconnectDetected();
+        }
+    }
+
     void cleanupDisconnectState(final DisconnectReason reason)
     {
         sessionContexts.onDisconnect(sessionId);
@@ -986,6 +1017,32 @@ class FixReceiverEndPoint extends ReceiverEndPoint
         isPaused = false;
     }
 
+    boolean isPaused()
+    {
+        return isPaused;
+    }
+
+    void shard(final ReceiverShard shard)
+    {
+        this.shard = shard;
+    }
+
+    // Only written on the thread that is framing this end point's messages, see ReceiverShard.
+    void sequenceIndex(final int sequenceIndex)
+    {
+        this.sequenceIndex = sequenceIndex;
+    }
+
+    int sequenceIndex()
+    {
+        return sequenceIndex;
+    }
+
+    ReceiverShard shard()
+    {
+        return shard;
+    }
+
     String address()
     {
         return address;
@@ -21,6 +21,7 @@ import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
 import org.agrona.concurrent.status.AtomicCounter;
 import uk.co.real_logic.artio.DebugLogger;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.ByteBufferUtil;
 import uk.co.real_logic.artio.engine.MessageTimingHandler;
 import uk.co.real_logic.artio.engine.SenderSequenceNumber;
@@ -55,10 +56,27 @@ class FixSenderEndPoint
     private final SenderSequenceNumber senderSequenceNumber;
     private final MessageTimingHandler messageTimingHandler;
 
+    // Outbound messages that are batched up in order to be written out with a single gathering write, only used
+    // when maxMessagesPerWrite > 1. The buffers are views onto the term buffers of the outbound stream, so
+    // batches must be flushed within the same duty cycle that they were polled in. Messages that were reassembled
+    // from fragments aren't in a term buffer and are never batched.
+    private final int maxMessagesPerWrite;
+    private final AtomicCounter senderWrites;
+    private final AtomicCounter senderMessagesWritten;
+    private final ByteBuffer[] batchBuffers;
+    private final ByteBuffer[] batchSourceBuffers;
+    private final int[] batchOffsets;
+    private final int[] batchLengths;
+    private final int[] batchSequenceNumbers;
+    private final long[] batchPositions;
+    private int batchSize;
+    private long batchTimeInMs;
+
     private int libraryId;
     private long sessionId;
     private long sendingTimeoutTimeInMs;
     private boolean replayPaused;
+    private boolean closed;
 
     FixSenderEndPoint(
         final long connectionId,
@@ -74,7 +92,10 @@ class FixSenderEndPoint
         final long slowConsumerTimeoutInMs,
         final long timeInMs,
         final SenderSequenceNumber senderSequenceNumber,
-        final MessageTimingHandler messageTimingHandler)
+        final MessageTimingHandler messageTimingHandler,
+        final int maxMessagesPerWrite,
+        final AtomicCounter senderWrites,
+        final AtomicCounter senderMessagesWritten)
     {
         this.connectionId = connectionId;
         this.libraryId = libraryId;
@@ -91,6 +112,28 @@ class FixSenderEndPoint
         replayTracker = new StreamTracker(replayBlockablePosition);
         this.messageTimingHandler = messageTimingHandler;
         sendingTimeoutTimeInMs = timeInMs + slowConsumerTimeoutInMs;
+
+        this.maxMessagesPerWrite = maxMessagesPerWrite;
+        this.senderWrites = senderWrites;
+        this.senderMessagesWritten = senderMessagesWritten;
+        if (maxMessagesPerWrite > 1)
+        {
+            batchBuffers = new ByteBuffer[maxMessagesPerWrite];
+            batchSourceBuffers = new ByteBuffer[maxMessagesPerWrite];
+            batchOffsets = new int[maxMessagesPerWrite];
+            batchLengths = new int[maxMessagesPerWrite];
+            batchSequenceNumbers = new int[maxMessagesPerWrite];
+            batchPositions = new long[maxMessagesPerWrite];
+        }
+        else
+        {
+            batchBuffers = null;
+            batchSourceBuffers = null;
+            batchOffsets = null;
+            batchLengths = null;
+            batchSequenceNumbers = null;
+            batchPositions = null;
+        }
     }
 
     void onOutboundMessage(
@@ -100,7 +143,8 @@ class FixSenderEndPoint
         final int bodyLength,
         final int sequenceNumber,
         final long position,
-        final long timeInMs)
+        final long timeInMs,
+        final boolean reassembled)
     {
         if (isWrongLibraryId(libraryId))
         {
@@ -115,6 +159,24 @@ class FixSenderEndPoint
             return;
         }
 
+        if (batchBuffers != null && !isSlowConsumer())
+        {
+            if (!reassembled)
+            {
+                addToBatch(directBuffer, offset, bodyLength, sequenceNumber, position, timeInMs);
+
+                return;
+            }
+
+            // Reassembled messages are in the fragment assembler's buffer, which the next fragmented message
+            // overwrites, so they're written out straight away after the messages batched before them.
+            flushBatch();
+            if (closed)
+            {
+                return;
+            }
+        }
+
         if (attemptFramedMessage(directBuffer, offset, bodyLength, timeInMs, position, outboundTracker) &&
             messageTimingHandler != null)
         {
@@ -124,6 +186,133 @@ class FixSenderEndPoint
         senderSequenceNumber.onNewMessage(sequenceNumber);
     }
 
+    private void addToBatch(
+        final DirectBuffer directBuffer,
+        final int offset,
+        final int bodyLength,
+        final int sequenceNumber,
+        final long position,
+        final long timeInMs)
+    {
+        final int index = batchSize;
+        final ByteBuffer sourceBuffer = directBuffer.byteBuffer();
+        ByteBuffer buffer = batchBuffers[index];
+        if (batchSourceBuffers[index] != sourceBuffer)
+        {
+            // Only allocates when a slot first sees a different term buffer
+            buffer = sourceBuffer.duplicate();
+            batchBuffers[index] = buffer;
+            batchSourceBuffers[index] = sourceBuffer;
+        }
+
+        ByteBufferUtil.limit(buffer, offset + bodyLength);
+        ByteBufferUtil.position(buffer, offset);
+
+        batchOffsets[index] = offset;
+        batchLengths[index] = bodyLength;
+        batchSequenceNumbers[index] = sequenceNumber;
+        batchPositions[index] = position;
+        batchTimeInMs = timeInMs;
+        batchSize = index + 1;
+
+        if (batchSize == maxMessagesPerWrite)
+        {
+            flushBatch();
+        }
+    }
+
+    boolean hasBatchedMessages()
+    {
+        return batchSize > 0;
+    }
+
+    // Writes out the batched messages and then updates the sent position and slow consumer state exactly as though
+    // each message had been written out individually.
+    void flushBatch()
+    {
+        final int batchSize = this.batchSize;
+        if (batchSize == 0)
+        {
+            return;
+        }
+        this.batchSize = 0;
+
+        try
+        {
+            long remainingWritten = channel.write(batchBuffers, 0, batchSize);
+            updateSendingTimeoutTimeInMs(batchTimeInMs, remainingWritten);
+            senderWrites.incrementOrdered();
+
+            int messagesWritten = 0;
+            for (int i = 0; i < batchSize && !closed; i++)
+            {
+                final int bodyLength = batchLengths[i];
+                final int sequenceNumber = batchSequenceNumbers[i];
+                final long position = batchPositions[i];
+
+                if (isSlowConsumer())
+                {
+                    dropFurtherBehind(bodyLength);
+                }
+                else
+                {
+                    final int written = (int)Math.min(remainingWritten, bodyLength);
+                    remainingWritten -= written;
+                    if (written > 0)
+                    {
+                        final ByteBuffer buffer = batchBuffers[i];
+                        ByteBufferUtil.position(buffer, batchOffsets[i]);
+                        DebugLogger.log(FIX_MESSAGE_TCP, "Written  ", buffer, written);
+                    }
+
+                    if (written != bodyLength)
+                    {
+                        becomeSlowConsumer(written, bodyLength, position, outboundTracker);
+                    }
+                    else
+                    {
+                        outboundTracker.sentPosition = position;
+                        messagesWritten++;
+                        if (messageTimingHandler != null)
+                        {
+                            messageTimingHandler.onMessage(sequenceNumber, connectionId);
+                        }
+                    }
+                }
+
+                senderSequenceNumber.onNewMessage(sequenceNumber);
+            }
+
+            senderMessagesWritten.getAndAddOrdered(messagesWritten);
+        }
+        catch (final IOException ex)
+        {
+            onError(ex);
+        }
+    }
+
+    // Messages batched in the same poll as a disconnect are written out before the connection is closed, anything
+    // that can't be written is dropped along with the connection.
+    void flushBatchOnDisconnect()
+    {
+        final int batchSize = this.batchSize;
+        if (batchSize > 0)
+        {
+            this.batchSize = 0;
+            try
+            {
+                channel.write(batchBuffers, 0, batchSize);
+            }
+            catch (final IOException ex)
+            {
+                if (!Exceptions.isJustDisconnect(ex))
+                {
+                    errorHandler.onError(ex);
+                }
+            }
+        }
+    }
+
     Action onReplayMessage(
         final DirectBuffer directBuffer,
         final int offset,
@@ -131,6 +320,8 @@ class FixSenderEndPoint
         final long timeInMs,
         final long position)
     {
+        flushBatch();
+
         if (!isSlowConsumer())
         {
             replayPaused = true;
@@ -149,6 +340,8 @@ class FixSenderEndPoint
         final long position,
         final int metaDataLength)
     {
+        flushBatch();
+
         if (!outboundTracker.partiallySentMessage)
         {
             replayPaused = true;
@@ -201,7 +394,14 @@ class FixSenderEndPoint
 
     private void dropFurtherBehind(final int bodyLength)
     {
-        final long bytesInBuffer = bytesInBufferWeak() + bodyLength;
+        final long previousBytesInBuffer = bytesInBufferWeak();
+        final long bytesInBuffer = previousBytesInBuffer + bodyLength;
+        if (previousBytesInBuffer == 0)
+        {
+            // Falling behind whilst paused for a replay doesn't report a slow status, but can still time out.
+            framer.senderEndPointBehind(connectionId);
+        }
+
         if (bytesInBuffer > maxBytesInBuffer)
         {
             removeEndpoint(SLOW_CONSUMER);
@@ -237,7 +437,7 @@ class FixSenderEndPoint
         return written;
     }
 
-    private void updateSendingTimeoutTimeInMs(final long timeInMs, final int written)
+    private void updateSendingTimeoutTimeInMs(final long timeInMs, final long written)
     {
         if (written > 0)
         {
@@ -295,6 +495,7 @@ class FixSenderEndPoint
 
     public void close()
     {
+        closed = true;
         senderSequenceNumber.close();
         bytesInBuffer.close();
         invalidLibraryAttempts.close();
@@ -317,6 +518,8 @@ class FixSenderEndPoint
             return CONTINUE;
         }
 
+        flushBatch();
+
         if (replayPaused)
         {
             return blockPosition(position, length, outboundTracker);
@@ -24,6 +24,8 @@ import uk.co.real_logic.artio.engine.FixEngine;
 import uk.co.real_logic.artio.messages.FixMessageDecoder;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 
+import java.util.ArrayList;
+import java.util.List;
 import java.util.function.LongToIntFunction;
 
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
@@ -35,6 +37,9 @@ class FixSenderEndPoints implements AutoCloseable, ControlledFragmentHandler
     private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
     private final FixMessageDecoder fixMessage = new FixMessageDecoder();
     private final Long2ObjectHashMap<FixSenderEndPoint> connectionIdToSenderEndpoint = new Long2ObjectHashMap<>();
+    private final List<FixSenderEndPoint> batchingEndPoints = new ArrayList<>();
+    // Only slow consumers can time out, so these are the only end points that need checking for timeouts
+    private final List<FixSenderEndPoint> slowEndPoints = new ArrayList<>();
     private final ErrorHandler errorHandler;
     private final LongToIntFunction libraryLookup = this::libraryLookup;
 
@@ -68,6 +73,8 @@ class FixSenderEndPoints implements AutoCloseable, ControlledFragmentHandler
         final FixSenderEndPoint senderEndPoint = connectionIdToSenderEndpoint.remove(connectionId);
         if (senderEndPoint != null)
         {
+            slowEndPoints.remove(senderEndPoint);
+            senderEndPoint.flushBatchOnDisconnect();
             senderEndPoint.close();
         }
     }
@@ -79,18 +86,42 @@ class FixSenderEndPoints implements AutoCloseable, ControlledFragmentHandler
         final int offset,
         final int length,
         final int sequenceNumber,
-        final long position)
+        final long position,
+        final boolean reassembled)
     {
         final FixSenderEndPoint endPoint = connectionIdToSenderEndpoint.get(connectionId);
         if (endPoint != null)
         {
-            endPoint.onOutboundMessage(libraryId, buffer, offset, length, sequenceNumber, position, timeInMs);
+            final boolean wasBatching = endPoint.hasBatchedMessages();
+            endPoint.onOutboundMessage(
+                libraryId, buffer, offset, length, sequenceNumber, position, timeInMs, reassembled);
+            if (!wasBatching && endPoint.hasBatchedMessages())
+            {
+                batchingEndPoints.add(endPoint);
+            }
             return true;
         }
 
         return false;
     }
 
+    // Must be called after polling the outbound stream, in the same duty cycle, as batches refer to its term buffers.
+    int flushBatches()
+    {
+        final List<FixSenderEndPoint> batchingEndPoints = this.batchingEndPoints;
+        final int size = batchingEndPoints.size();
+        if (size > 0)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                batchingEndPoints.get(i).flushBatch();
+            }
+            batchingEndPoints.clear();
+        }
+
+        return size;
+    }
+
     Action onReplayMessage(
         final long connectionId, final DirectBuffer buffer, final int offset, final int length, final long position)
     {
@@ -205,12 +236,28 @@ class FixSenderEndPoints implements AutoCloseable, ControlledFragmentHandler
         this.timeInMs = timeInMs;
     }
 
+    void onBecomeSlow(final long connectionId)
+    {
+        final FixSenderEndPoint senderEndPoint = connectionIdToSenderEndpoint.get(connectionId);
+        if (senderEndPoint != null && !slowEndPoints.contains(senderEndPoint))
+        {
+            slowEndPoints.add(senderEndPoint);
+        }
+    }
+
     int checkTimeouts(final long timeInMs)
     {
+        final List<FixSenderEndPoint> slowEndPoints = this.slowEndPoints;
         int count = 0;
-        for (final FixSenderEndPoint senderEndPoint : connectionIdToSenderEndpoint.values())
+        // Iterate backwards as timing out an end point removes it
+        for (int i = slowEndPoints.size() - 1; i >= 0; i--)
         {
-            if (senderEndPoint.checkTimeouts(timeInMs))
+            final FixSenderEndPoint senderEndPoint = slowEndPoints.get(i);
+            if (!senderEndPoint.isSlowConsumer())
+            {
+                slowEndPoints.remove(i);
+            }
+            else if (senderEndPoint.checkTimeouts(timeInMs))
             {
                 count++;
             }
@@ -138,11 +138,12 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
     private final Timer sendTimer;
 
     private final ControlledFragmentHandler librarySubscriber;
-    private final ControlledFragmentHandler replaySubscriber;
+    private final ControlledFragmentHandler[] replaySubscribers;
     private final ControlledFragmentHandler replaySlowSubscriber;
     private final AdminEngineProtocolSubscription adminEngineProtocolSubscription;
     private final Subscription adminEngineSubscription;
     private final ReceiverEndPoints receiverEndPoints;
+    private final ReceiverShards receiverShards;
     private final ControlledFragmentAssembler senderEndPointAssembler;
     private final FixSenderEndPoints fixSenderEndPoints;
     private final ILink3SenderEndPoints iLink3SenderEndPoints;
@@ -152,8 +153,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
     private final EndPointFactory endPointFactory;
     private final Subscription librarySubscription;
     private final SubscriptionSlowPeeker librarySlowPeeker;
-    private final Image replayImage;
-    private final SlowPeeker replaySlowPeeker;
+    private final Image[] replayImages;
+    private final SlowPeeker[] replaySlowPeekers;
     private final BlockablePosition engineBlockablePosition;
     private final GatewayPublication inboundPublication;
     private final String agentNamePrefix;
@@ -193,6 +194,9 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
     // If we're in sole library mode and no library is connected we will be unbound.
     private boolean shouldBind;
 
+    // true if the library message being handled was reassembled from fragments
+    private boolean reassembledLibraryMessage;
+
     Framer(
         final EpochClock epochClock,
         final Timer outboundTimer,
@@ -203,8 +207,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final EndPointFactory endPointFactory,
         final Subscription librarySubscription,
         final Subscription slowSubscription,
-        final Image replayImage,
-        final Image replaySlowImage,
+        final Image[] replayImages,
+        final Image[] replaySlowImages,
         final ReplayQuery inboundMessages,
         final GatewayPublication outboundPublication,
         final GatewayPublication inboundPublication,
@@ -231,7 +235,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         this.adminReplyPublication = adminReplyPublication;
         this.endPointFactory = endPointFactory;
         this.librarySubscription = librarySubscription;
-        this.replayImage = replayImage;
+        this.replayImages = replayImages;
         this.gatewaySessions = gatewaySessions;
         this.inboundMessages = inboundMessages;
         this.errorHandler = errorHandler;
@@ -259,7 +263,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             configuration.acceptorfixDictionary(),
             configuration.acceptorFixDictionaryOverrides());
 
-        receiverEndPoints = new ReceiverEndPoints(errorHandler);
+        receiverEndPoints = new ReceiverEndPoints(errorHandler, configuration.receiverPollingThreshold());
+        receiverShards = new ReceiverShards(configuration, errorHandler);
 
         this.librarySlowPeeker = new SubscriptionSlowPeeker(slowSubscription, librarySubscription);
 
@@ -267,18 +272,31 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         this.replayFragmentLimit = configuration.replayFragmentLimit();
         this.inboundBytesReceivedLimit = configuration.inboundBytesReceivedLimit();
 
-        this.replaySlowPeeker = new SlowPeeker(replaySlowImage, replayImage);
-        endPointFactory.replaySlowPeeker(replaySlowPeeker);
+        // One replay image per replayer worker
+        final int replayImageCount = replayImages.length;
+        this.replaySlowPeekers = new SlowPeeker[replayImageCount];
+        for (int i = 0; i < replayImageCount; i++)
+        {
+            replaySlowPeekers[i] = new SlowPeeker(replaySlowImages[i], replayImages[i]);
+        }
+        endPointFactory.replaySlowPeekers(replaySlowPeekers);
 
         engineBlockablePosition = getOutboundSlowPeeker(outboundPublication);
+        final ControlledFragmentHandler libraryProtocolSubscription =
+            ProtocolSubscription.of(this, new EngineProtocolSubscription(this));
         librarySubscriber = new ControlledFragmentAssembler(
-            ProtocolSubscription.of(this, new EngineProtocolSubscription(this)),
+            (buffer, offset, length, header) ->
+            {
+                // The assembler hands over reassembled messages in its own buffer rather than the term buffer
+                reassembledLibraryMessage = buffer != header.buffer();
+                return libraryProtocolSubscription.onFragment(buffer, offset, length, header);
+            },
             0,
             true);
 
         // We lookup replayed message by session id, since the connection id may have changed
         // if it's a persistent session.
-        replaySubscriber = new ImageControlledFragmentAssembler(ProtocolSubscription.of(
+        final ControlledFragmentHandler replayProtocolSubscription = ProtocolSubscription.of(
             new ProtocolHandler()
             {
                 public Action onMessage(
@@ -318,9 +336,12 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                     return iLink3SenderEndPoints.onReplayComplete(connectionId);
                 }
                 return action;
-            })),
-            0,
-            true);
+            }));
+        replaySubscribers = new ControlledFragmentHandler[replayImageCount];
+        for (int i = 0; i < replayImageCount; i++)
+        {
+            replaySubscribers[i] = new ImageControlledFragmentAssembler(replayProtocolSubscription, 0, true);
+        }
 
         replaySlowSubscriber = new ControlledFragmentAssembler(ProtocolSubscription.of(
             new ProtocolHandler()
@@ -385,6 +406,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final long timeInMs = epochClock.time();
         fixSenderEndPoints.timeInMs(timeInMs);
         return retryManager.attemptSteps() +
+            receiverShards.poll() +
             sendOutboundMessages() +
             sendReplayMessages() +
             pollEndPoints() +
@@ -428,13 +450,21 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 
     private int sendReplayMessages()
     {
-        return replayImage.controlledPoll(replaySubscriber, replayFragmentLimit) +
-            replaySlowPeeker.peek(replaySlowSubscriber);
+        final Image[] replayImages = this.replayImages;
+        final SlowPeeker[] replaySlowPeekers = this.replaySlowPeekers;
+        int work = 0;
+        for (int i = 0; i < replayImages.length; i++)
+        {
+            work += replayImages[i].controlledPoll(replaySubscribers[i], replayFragmentLimit) +
+                replaySlowPeekers[i].peek(replaySlowSubscriber);
+        }
+        return work;
     }
 
     private int sendOutboundMessages()
     {
         return librarySubscription.controlledPoll(librarySubscriber, outboundLibraryFragmentLimit) +
+            fixSenderEndPoints.flushBatches() +
             librarySlowPeeker.peek(senderEndPointAssembler) +
             adminEngineSubscription.poll(adminEngineProtocolSubscription, outboundLibraryFragmentLimit);
     }
@@ -804,8 +834,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final LongHashSet seenSessions = this.requestAllSessionSeenSessions;
         try
         {
-            final List<SessionInfo> allSessions = sessionContexts.allSessions();
-            final int sessionsCount = allSessions.size();
+            final int sessionsCount = sessionContexts.sessionCount();
             final SessionsEncoder sessionsEncoder = adminReplyPublication.startRequestAllFixSessions(
                 correlationId,
                 sessionsCount);
@@ -817,13 +846,13 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                 replyConnectedSessions(seenSessions, sessionsEncoder, libraryInfo.gatewaySessions());
             }
 
-            for (final SessionInfo sessionInfo : allSessions)
+            for (int i = 0; i < sessionsCount; i++)
             {
-                if (!seenSessions.contains(sessionInfo.sessionId()))
+                final SessionContext context = sessionContexts.session(i);
+                if (!seenSessions.contains(context.sessionId()))
                 {
-                    final SessionContext context = (SessionContext)sessionInfo;
                     final long lastLogonTime = context.lastLogonTime();
-                    replySession(sessionsEncoder, NO_CONNECTION_ID, "", sessionInfo, lastLogonTime, false);
+                    replySession(sessionsEncoder, NO_CONNECTION_ID, "", context, lastLogonTime, false);
                 }
             }
 
@@ -1438,7 +1467,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final long now = outboundTimer.recordSince(timestamp);
 
         final boolean online = fixSenderEndPoints.onMessage(
-            libraryId, connectionId, buffer, offset, length, sequenceNumber, position);
+            libraryId, connectionId, buffer, offset, length, sequenceNumber, position, reassembledLibraryMessage);
 
         if (!online)
         {
@@ -1456,20 +1485,18 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         if (messageType == LOGON_MESSAGE_TYPE)
         {
             // Always a sequence reset
-            final Map.Entry<CompositeKey, SessionContext> entry = sessionContexts.lookupById(sessionId);
-            if (entry != null)
+            final SessionContext context = sessionContexts.lookupById(sessionId);
+            if (context != null)
             {
-                final SessionContext context = entry.getValue();
                 context.onSequenceReset(clock.nanoTime());
             }
         }
         else if (messageType == SEQUENCE_RESET_MESSAGE_TYPE)
         {
             // If it's not a gap-fill it's a sequence reset
-            final Map.Entry<CompositeKey, SessionContext> entry = sessionContexts.lookupById(sessionId);
-            if (entry != null)
+            final SessionContext context = sessionContexts.lookupById(sessionId);
+            if (context != null)
             {
-                final SessionContext context = entry.getValue();
                 final AbstractSequenceResetDecoder decoder = acceptorFixDictionaryLookup.lookupSequenceResetDecoder(
                     context.lastFixDictionary());
                 asciiBuffer.wrap(buffer);
@@ -1507,7 +1534,7 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
             context.sequenceIndex(),
             libraryId,
             this);
-        receiverEndPoints.add(receiverEndPoint);
+        addReceiverEndPoint(receiverEndPoint);
 
         final BlockablePosition libraryBlockablePosition = getLibraryBlockablePosition(libraryId);
         final FixSenderEndPoint senderEndPoint = endPointFactory.senderEndPoint(
@@ -1535,6 +1562,18 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         return gatewaySession;
     }
 
+    private void addReceiverEndPoint(final FixReceiverEndPoint receiverEndPoint)
+    {
+        if (receiverShards.isEnabled() && !receiverEndPoint.requiresAuthentication())
+        {
+            receiverShards.add(receiverEndPoint);
+        }
+        else
+        {
+            receiverEndPoints.add(receiverEndPoint);
+        }
+    }
+
     private BlockablePosition getLibraryBlockablePosition(final int libraryId)
     {
         if (libraryId == ENGINE_LIBRARY_ID)
@@ -1554,8 +1593,12 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 
     public Action onDisconnect(final int libraryId, final long connectionId, final DisconnectReason reason)
     {
-        receiverEndPoints.removeConnection(connectionId, reason);
+        // Removed before the receiver end point closes the channel so that batched messages can be written out
         fixSenderEndPoints.removeConnection(connectionId);
+        if (!receiverShards.removeConnection(connectionId, reason))
+        {
+            receiverEndPoints.removeConnection(connectionId, reason);
+        }
         gatewaySessions.releaseByConnectionId(connectionId);
 
         final LiveLibraryInfo library = idToLibrary.get(libraryId);
@@ -1927,8 +1970,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         final int replayFromSequenceIndex,
         final int replayFromSequenceNumber)
     {
-        final Map.Entry<CompositeKey, SessionContext> entry = sessionContexts.lookupById(sessionId);
-        if (entry == null)
+        final SessionContext context = sessionContexts.lookupById(sessionId);
+        if (context == null)
         {
             return false;
         }
@@ -1946,8 +1989,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                 correlationId,
                 replayFromSequenceIndex,
                 replayFromSequenceNumber,
-                entry.getKey(),
-                entry.getValue()));
+                context.sessionKey(),
+                context));
         }
 
         return true;
@@ -2665,10 +2708,12 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                 retryManager,
                 inboundMessages,
                 receiverEndPoints,
+                receiverShards,
                 fixSenderEndPoints,
                 channelSupplier,
                 sentSequenceNumberIndex,
-                receivedSequenceNumberIndex);
+                receivedSequenceNumberIndex,
+                sessionContexts);
         }
         else
         {
@@ -2676,7 +2721,8 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
                 inboundMessages,
                 channelSupplier,
                 sentSequenceNumberIndex,
-                receivedSequenceNumberIndex);
+                receivedSequenceNumberIndex,
+                sessionContexts);
         }
     }
 
@@ -2713,10 +2759,16 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
         retryManager.schedule(continuation);
     }
 
+    void senderEndPointBehind(final long connectionId)
+    {
+        fixSenderEndPoints.onBecomeSlow(connectionId);
+    }
+
     void slowStatus(final int libraryId, final long connectionId, final boolean hasBecomeSlow)
     {
         if (hasBecomeSlow)
         {
+            fixSenderEndPoints.onBecomeSlow(connectionId);
             resendNotSlowStatus.remove(connectionId);
             sendSlowStatus(libraryId, connectionId, resendSlowStatus, SlowStatus.SLOW);
         }
@@ -2743,7 +2795,23 @@ class Framer implements Agent, EngineEndPointHandler, ProtocolHandler
 
     void receiverEndPointPollingOptional(final long connectionId)
     {
-        receiverEndPoints.receiverEndPointPollingOptional(connectionId);
+        if (receiverShards.isEnabled())
+        {
+            final ReceiverEndPoint endPoint = receiverEndPoints.removeRequiredPollingEndPoint(connectionId);
+            if (endPoint != null)
+            {
+                receiverShards.add((FixReceiverEndPoint)endPoint);
+            }
+        }
+        else
+        {
+            receiverEndPoints.receiverEndPointPollingOptional(connectionId);
+        }
+    }
+
+    Agent[] receiverShards()
+    {
+        return receiverShards.agents();
     }
 
     void onBind(final BindCommand bindCommand)
@@ -28,6 +28,8 @@ import uk.co.real_logic.artio.Reply;
 import uk.co.real_logic.artio.StreamInformation;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
 import uk.co.real_logic.artio.engine.EngineContext;
+import uk.co.real_logic.artio.engine.FileSyncer;
+import uk.co.real_logic.artio.engine.MappedFile;
 import uk.co.real_logic.artio.engine.RecordingCoordinator;
 import uk.co.real_logic.artio.engine.SessionInfo;
 import uk.co.real_logic.artio.engine.logger.SequenceNumberIndexReader;
@@ -69,8 +71,8 @@ public class FramerContext
         final FixCounters fixCounters,
         final EngineContext engineContext,
         final ErrorHandler errorHandler,
-        final Image replayImage,
-        final Image slowReplayImage,
+        final Image[] replayImages,
+        final Image[] slowReplayImages,
         final EngineTimers timers,
         final AgentInvoker conductorAgentInvoker,
         final RecordingCoordinator recordingCoordinator,
@@ -83,8 +85,21 @@ public class FramerContext
         final IdleStrategy idleStrategy = configuration.framerIdleStrategy();
         final Streams outboundLibraryStreams = engineContext.outboundLibraryStreams();
 
+        final MappedFile sessionIdBuffer = configuration.sessionIdBuffer();
+        final FileSyncer sessionIdFileSyncer = new FileSyncer(
+            sessionIdBuffer,
+            configuration.fileSyncPolicy(),
+            configuration.fileSyncGroupCommitIntervalInMs(),
+            configuration.fileSyncGroupCommitMaxWrites(),
+            fixCounters.fileDurablePosition(sessionIdBuffer.file().getName()),
+            epochClock);
+        sessionIdFileSyncer.start(configuration.threadFactory(), errorHandler);
         this.sessionContexts = new SessionContexts(
-            configuration.sessionIdBuffer(), sessionIdStrategy, configuration.initialSequenceIndex(), errorHandler);
+            sessionIdBuffer,
+            sessionIdFileSyncer,
+            sessionIdStrategy,
+            configuration.initialSequenceIndex(),
+            errorHandler);
 
         this.inboundPublication = engineContext.inboundPublication();
         this.outboundPublication = outboundLibraryStreams.gatewayPublication(idleStrategy,
@@ -139,8 +154,8 @@ public class FramerContext
                 "outboundLibrarySubscription", finalImagePositions),
             engineContext.outboundLibrarySubscription(
                 "outboundSlowSubscription", null),
-            replayImage,
-            slowReplayImage,
+            replayImages,
+            slowReplayImages,
             engineContext.inboundReplayQuery(),
             outboundPublication,
             inboundPublication,
@@ -187,6 +202,11 @@ public class FramerContext
         return framer;
     }
 
+    public Agent[] receiverShards()
+    {
+        return framer.receiverShards();
+    }
+
     public Reply<List<LibraryInfo>> libraries()
     {
         final QueryLibrariesCommand reply = new QueryLibrariesCommand();
@@ -177,13 +177,7 @@ class GatewaySession implements ConnectedSessionInfo, SessionProcessHandler
         }
     }
 
-    int poll(final long timeInMs, final long timeInNs)
-    {
-        final int events = session != null ? session.poll(timeInNs) : 0;
-        return events + checkNoLogonDisconnect(timeInMs);
-    }
-
-    private int checkNoLogonDisconnect(final long timeInMs)
+    int checkNoLogonDisconnect(final long timeInMs)
     {
         if (disconnectTimeInMs == NO_TIMEOUT)
         {
@@ -90,6 +90,8 @@ class GatewaySessions
     private final EpochNanoClock clock;
     private final EpochFractionFormat epochFractionPrecision;
     private final UtcTimestampEncoder sendingTimeEncoder;
+    // Sessions managed by the engine are polled when their timeouts are due
+    private final SessionTimerWheel sessionTimerWheel;
 
     // Initialised after logon processed.
     private SessionContext sessionContext;
@@ -138,6 +140,7 @@ class GatewaySessions
             epochFractionPrecision);
 
         sendingTimeEncoder = new UtcTimestampEncoder(epochFractionPrecision);
+        sessionTimerWheel = new SessionTimerWheel(clock.nanoTime());
     }
 
     static GatewaySession removeSessionByConnectionId(final long connectionId, final List<GatewaySession> sessions)
@@ -225,6 +228,7 @@ class GatewaySessions
             sessions.add(gatewaySession);
         }
         gatewaySession.manage(sessionParser, session, engineBlockablePosition, proxy);
+        sessionTimerWheel.add(session);
 
         if (DebugLogger.isEnabled(FIX_CONNECTION))
         {
@@ -247,7 +251,9 @@ class GatewaySessions
             return null;
         }
 
-        return sessions.remove(index);
+        final GatewaySession gatewaySession = sessions.remove(index);
+        stopPolling(gatewaySession);
+        return gatewaySession;
     }
 
     GatewaySession sessionById(final long sessionId)
@@ -287,20 +293,31 @@ class GatewaySessions
         final GatewaySession session = removeSessionByConnectionId(connectionId, sessions);
         if (session != null)
         {
+            stopPolling(session);
             session.close();
         }
     }
 
+    private void stopPolling(final GatewaySession gatewaySession)
+    {
+        final InternalSession session = gatewaySession.session();
+        if (session != null)
+        {
+            sessionTimerWheel.remove(session);
+        }
+    }
+
+    // Sessions are polled when their timers expire, the list of gateway sessions is still walked as it's cheap to
+    // check the engine level no logon and authentication timeouts.
     int pollSessions(final long timeInMs)
     {
-        final long timeInNs = clock.nanoTime();
         final List<GatewaySession> sessions = this.sessions;
 
-        int eventsProcessed = 0;
+        int eventsProcessed = sessionTimerWheel.poll(clock.nanoTime());
         for (int i = 0, size = sessions.size(); i < size;)
         {
             final GatewaySession session = sessions.get(i);
-            eventsProcessed += session.poll(timeInMs, timeInNs);
+            eventsProcessed += session.checkNoLogonDisconnect(timeInMs);
             if (session.hasDisconnected())
             {
                 size--;
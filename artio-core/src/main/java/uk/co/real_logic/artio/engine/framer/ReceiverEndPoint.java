@@ -36,7 +36,7 @@ public abstract class ReceiverEndPoint
     protected final GatewayPublication publication;
     protected final TcpChannel channel;
     protected final long connectionId;
-    protected boolean hasDisconnected = false;
+    protected volatile boolean hasDisconnected = false;
     protected final MutableAsciiBuffer buffer;
     protected final ByteBuffer byteBuffer;
     protected final ErrorHandler errorHandler;
@@ -33,6 +33,7 @@ import static uk.co.real_logic.artio.messages.DisconnectReason.ENGINE_SHUTDOWN;
 class ReceiverEndPoints extends TransportPoller
 {
     private final ErrorHandler errorHandler;
+    private final int pollingThreshold;
 
     // Authentication flow requires periodic polling of the receiver end points until the authentication is
     // complete, so these endpoints are always polled, rather than using the selector.
@@ -42,9 +43,10 @@ class ReceiverEndPoints extends TransportPoller
     // the data into the Aeron stream.
     private ReceiverEndPoint backpressuredEndPoint = null;
 
-    ReceiverEndPoints(final ErrorHandler errorHandler)
+    ReceiverEndPoints(final ErrorHandler errorHandler, final int pollingThreshold)
     {
         this.errorHandler = errorHandler;
+        this.pollingThreshold = pollingThreshold;
     }
 
     void add(final ReceiverEndPoint endPoint)
@@ -91,6 +93,15 @@ class ReceiverEndPoints extends TransportPoller
     }
 
     void receiverEndPointPollingOptional(final long connectionId)
+    {
+        final ReceiverEndPoint endPoint = removeRequiredPollingEndPoint(connectionId);
+        if (endPoint != null)
+        {
+            addToNormalEndpoints(endPoint);
+        }
+    }
+
+    ReceiverEndPoint removeRequiredPollingEndPoint(final long connectionId)
     {
         final ReceiverEndPoint[] requiredPollingEndPoints = this.requiredPollingEndPoints;
         final int index = findEndPoint(connectionId, requiredPollingEndPoints);
@@ -98,13 +109,39 @@ class ReceiverEndPoints extends TransportPoller
         {
             final ReceiverEndPoint endPoint = requiredPollingEndPoints[index];
             this.requiredPollingEndPoints = ArrayUtil.remove(requiredPollingEndPoints, index);
-            addToNormalEndpoints(endPoint);
+            return endPoint;
         }
         else
         {
             errorHandler.onError(new Exception(String.format(
                 "Unable to make endpoint no longer required for polling due to it not being found, connectionId=%d",
                 connectionId)));
+            return null;
+        }
+    }
+
+    // Stops polling an end point without closing it, used by receiver shards which close their end points once
+    // they have been detached.
+    void detach(final long connectionId)
+    {
+        final ReceiverEndPoint[] endPoints = this.endPoints;
+        final int index = findEndPoint(connectionId, endPoints);
+        if (index != UNKNOWN_INDEX)
+        {
+            final ReceiverEndPoint endPoint = endPoints[index];
+            this.endPoints = ArrayUtil.remove(endPoints, index);
+            if (backpressuredEndPoint == endPoint)
+            {
+                backpressuredEndPoint = null;
+            }
+
+            final SelectionKey selectionKey = endPoint.selectionKey;
+            if (selectionKey != null)
+            {
+                selectionKey.cancel();
+            }
+
+            selectNowToForceProcessing();
         }
     }
 
@@ -187,7 +224,7 @@ class ReceiverEndPoints extends TransportPoller
         int bytesReceived = 0;
         final ReceiverEndPoint[] endPoints = this.endPoints;
         final int numEndPoints = endPoints.length;
-        final int threshold = ITERATION_THRESHOLD - numRequiredPollingEndPoints;
+        final int threshold = pollingThreshold - numRequiredPollingEndPoints;
         if (numEndPoints <= threshold)
         {
             bytesReceived = pollArray(bytesReceived, endPoints, numEndPoints);
@@ -251,6 +288,11 @@ class ReceiverEndPoints extends TransportPoller
         super.close();
     }
 
+    void closeSelector()
+    {
+        super.close();
+    }
+
     private void closeAll(final ReceiverEndPoint[] endPoints)
     {
         Stream.of(endPoints).forEach(receiverEndPoint -> receiverEndPoint.close(ENGINE_SHUTDOWN));
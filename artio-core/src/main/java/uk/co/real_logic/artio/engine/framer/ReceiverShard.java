@@ -0,0 +1,281 @@
+/*
+ * Copyright 2015-2020 Real Logic Limited, Adaptive Financial Consulting Ltd., Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.collections.ArrayListUtil;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.OneToOneConcurrentArrayQueue;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import uk.co.real_logic.artio.messages.MessageStatus;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.aeron.Publication.BACK_PRESSURED;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.concurrent.ringbuffer.RingBufferDescriptor.TRAILER_LENGTH;
+
+/**
+ * Reads and frames the TCP connections of a subset of the engine's FIX receiver end points on its own thread.
+ * <p>
+ * End points are only handed to a shard once they've authenticated, the authentication flow and all
+ * other coordination stays on the Framer. Framed messages and detected disconnects are passed back to the
+ * Framer over a ring buffer so that the Framer remains the single writer to the inbound publication, this
+ * preserves the ordering of messages and control messages such as session handovers that the libraries
+ * and the indexer rely upon.
+ * <p>
+ * Once an end point has been handed over its TCP channel and framing state, including the sequence index,
+ * are only touched on the shard's thread. The Framer updates them by sending commands over the shard's
+ * command queue rather than writing them directly.
+ */
+class ReceiverShard implements Agent
+{
+    static final int MESSAGE_MSG_TYPE_ID = 1;
+    static final int DISCONNECT_MSG_TYPE_ID = 2;
+
+    static final int CONNECTION_ID_OFFSET = 0;
+    static final int SESSION_ID_OFFSET = CONNECTION_ID_OFFSET + SIZE_OF_LONG;
+    static final int MESSAGE_TYPE_OFFSET = SESSION_ID_OFFSET + SIZE_OF_LONG;
+    static final int TIMESTAMP_OFFSET = MESSAGE_TYPE_OFFSET + SIZE_OF_LONG;
+    static final int SEQUENCE_INDEX_OFFSET = TIMESTAMP_OFFSET + SIZE_OF_LONG;
+    static final int STATUS_OFFSET = SEQUENCE_INDEX_OFFSET + SIZE_OF_INT;
+    static final int BODY_OFFSET = STATUS_OFFSET + SIZE_OF_INT;
+
+    private static final int COMMAND_CAPACITY = 1024;
+
+    private static final int ADD_COMMAND = 1;
+    private static final int CLOSE_COMMAND = 2;
+
+    private final OneToOneConcurrentArrayQueue<Command> commands =
+        new OneToOneConcurrentArrayQueue<>(COMMAND_CAPACITY);
+    private final List<FixReceiverEndPoint> detachingEndPoints = new ArrayList<>();
+    private final ArrayList<FixReceiverEndPoint> disconnectedEndPoints = new ArrayList<>();
+    private final ReceiverEndPoints receiverEndPoints;
+    private final RingBuffer toFramer;
+    private final UnsafeBuffer recordBuffer;
+    private final UnsafeBuffer disconnectBuffer = new UnsafeBuffer(new byte[SIZE_OF_LONG]);
+    private final int shardId;
+    private final int inboundBytesReceivedLimit;
+    private final String agentNamePrefix;
+
+    ReceiverShard(
+        final int shardId,
+        final int ringBufferSize,
+        final int receiverBufferSize,
+        final int inboundBytesReceivedLimit,
+        final int receiverPollingThreshold,
+        final ErrorHandler errorHandler,
+        final String agentNamePrefix)
+    {
+        this.shardId = shardId;
+        this.inboundBytesReceivedLimit = inboundBytesReceivedLimit;
+        this.agentNamePrefix = agentNamePrefix;
+
+        receiverEndPoints = new ReceiverEndPoints(errorHandler, receiverPollingThreshold);
+        toFramer = new OneToOneRingBuffer(
+            new UnsafeBuffer(ByteBuffer.allocateDirect(ringBufferSize + TRAILER_LENGTH)));
+        recordBuffer = new UnsafeBuffer(ByteBuffer.allocateDirect(BODY_OFFSET + receiverBufferSize));
+    }
+
+    // ------------------------------------------------
+    //          Called on the Framer thread
+    // ------------------------------------------------
+
+    // The sequence index is passed with the hand over as it was last updated on the Framer thread whilst the
+    // end point was authenticating.
+    boolean add(final FixReceiverEndPoint endPoint)
+    {
+        endPoint.shard(this);
+        return commands.offer(new Command(endPoint, ADD_COMMAND, endPoint.sequenceIndex()));
+    }
+
+    // The Framer has already completed the disconnect, the shard stops polling the end point and then closes its
+    // channel so that the channel is never closed whilst it is being read from.
+    boolean close(final FixReceiverEndPoint endPoint)
+    {
+        return commands.offer(new Command(endPoint, CLOSE_COMMAND, 0));
+    }
+
+    RingBuffer toFramer()
+    {
+        return toFramer;
+    }
+
+    // ------------------------------------------------
+    //          Called on the Shard's thread
+    // ------------------------------------------------
+
+    public int doWork()
+    {
+        return commands.drain(this::onCommand) +
+            pollEndPoints() +
+            sendDisconnects();
+    }
+
+    private void onCommand(final Command command)
+    {
+        final FixReceiverEndPoint endPoint = command.endPoint;
+        if (command.type == ADD_COMMAND)
+        {
+            endPoint.sequenceIndex(command.sequenceIndex);
+            if (!endPoint.hasDisconnected())
+            {
+                receiverEndPoints.add(endPoint);
+            }
+        }
+        else
+        {
+            receiverEndPoints.detach(endPoint.connectionId());
+            detachingEndPoints.remove(endPoint);
+            disconnectedEndPoints.remove(endPoint);
+            endPoint.closeResources();
+        }
+    }
+
+    private int pollEndPoints()
+    {
+        final int inboundBytesReceivedLimit = this.inboundBytesReceivedLimit;
+
+        int totalBytesReceived = 0;
+        int bytesReceived;
+        do
+        {
+            bytesReceived = receiverEndPoints.pollEndPoints();
+            totalBytesReceived += bytesReceived;
+            detachDisconnectedEndPoints();
+        }
+        while (bytesReceived > 0 && totalBytesReceived < inboundBytesReceivedLimit);
+
+        return totalBytesReceived;
+    }
+
+    // The Framer is informed of disconnects in order to clean up session state, end points are detached
+    // straight away so that they don't get polled again.
+    private void detachDisconnectedEndPoints()
+    {
+        final List<FixReceiverEndPoint> detachingEndPoints = this.detachingEndPoints;
+        final int size = detachingEndPoints.size();
+        if (size > 0)
+        {
+            for (int i = 0; i < size; i++)
+            {
+                final FixReceiverEndPoint endPoint = detachingEndPoints.get(i);
+                receiverEndPoints.detach(endPoint.connectionId());
+                disconnectedEndPoints.add(endPoint);
+            }
+            detachingEndPoints.clear();
+        }
+    }
+
+    private int sendDisconnects()
+    {
+        final ArrayList<FixReceiverEndPoint> disconnectedEndPoints = this.disconnectedEndPoints;
+        int sent = 0;
+        for (int i = disconnectedEndPoints.size() - 1; i >= 0; i--)
+        {
+            final FixReceiverEndPoint endPoint = disconnectedEndPoints.get(i);
+            disconnectBuffer.putLong(CONNECTION_ID_OFFSET, endPoint.connectionId());
+            if (toFramer.write(DISCONNECT_MSG_TYPE_ID, disconnectBuffer, 0, SIZE_OF_LONG))
+            {
+                ArrayListUtil.fastUnorderedRemove(disconnectedEndPoints, i);
+                sent++;
+            }
+        }
+
+        return sent;
+    }
+
+    void onDisconnectDetected(final FixReceiverEndPoint endPoint)
+    {
+        if (!detachingEndPoints.contains(endPoint))
+        {
+            detachingEndPoints.add(endPoint);
+        }
+    }
+
+    // returns a positive number if the message has been handed over to the framer, BACK_PRESSURED otherwise
+    long onFramedMessage(
+        final long connectionId,
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final long messageType,
+        final long sessionId,
+        final int sequenceIndex,
+        final MessageStatus status,
+        final long readTimestamp)
+    {
+        final UnsafeBuffer recordBuffer = this.recordBuffer;
+        recordBuffer.putLong(CONNECTION_ID_OFFSET, connectionId);
+        recordBuffer.putLong(SESSION_ID_OFFSET, sessionId);
+        recordBuffer.putLong(MESSAGE_TYPE_OFFSET, messageType);
+        recordBuffer.putLong(TIMESTAMP_OFFSET, readTimestamp);
+        recordBuffer.putInt(SEQUENCE_INDEX_OFFSET, sequenceIndex);
+        recordBuffer.putInt(STATUS_OFFSET, status.value());
+        recordBuffer.putBytes(BODY_OFFSET, buffer, offset, length);
+
+        return toFramer.write(MESSAGE_MSG_TYPE_ID, recordBuffer, 0, BODY_OFFSET + length) ? 1 : BACK_PRESSURED;
+    }
+
+    public void onClose()
+    {
+        // Close any end points that the Framer has already disconnected, the remaining end points are closed by
+        // the Framer once the shards have stopped.
+        Command command;
+        while ((command = commands.poll()) != null)
+        {
+            if (command.type == CLOSE_COMMAND)
+            {
+                command.endPoint.closeResources();
+            }
+        }
+
+        receiverEndPoints.closeSelector();
+    }
+
+    public String roleName()
+    {
+        return agentNamePrefix + "ReceiverShard-" + shardId;
+    }
+
+    public String toString()
+    {
+        return "ReceiverShard{" +
+            "shardId=" + shardId +
+            ", receiverEndPoints=" + receiverEndPoints +
+            '}';
+    }
+
+    static final class Command
+    {
+        private final FixReceiverEndPoint endPoint;
+        private final int type;
+        private final int sequenceIndex;
+
+        Command(final FixReceiverEndPoint endPoint, final int type, final int sequenceIndex)
+        {
+            this.endPoint = endPoint;
+            this.type = type;
+            this.sequenceIndex = sequenceIndex;
+        }
+    }
+}
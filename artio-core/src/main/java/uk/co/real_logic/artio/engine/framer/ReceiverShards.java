@@ -0,0 +1,395 @@
+/*
+ * Copyright 2015-2020 Real Logic Limited, Adaptive Financial Consulting Ltd., Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.ControlledMessageHandler;
+import uk.co.real_logic.artio.Pressure;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.messages.DisconnectReason;
+import uk.co.real_logic.artio.messages.MessageStatus;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.concurrent.ControlledMessageHandler.Action.ABORT;
+import static org.agrona.concurrent.ControlledMessageHandler.Action.CONTINUE;
+import static uk.co.real_logic.artio.engine.framer.ReceiverShard.*;
+import static uk.co.real_logic.artio.messages.DisconnectReason.ENGINE_SHUTDOWN;
+import static uk.co.real_logic.artio.messages.DisconnectReason.REMOTE_DISCONNECT;
+
+/**
+ * The Framer's side of the receiver shards: assigns authenticated end points to shards by connection id and
+ * publishes the messages that they have framed.
+ * <p>
+ * Messages for an end point that is paused, for example whilst its session is handed over between owners, are
+ * copied into a buffer for that end point and published once it has been played again. This stops a paused end
+ * point from holding up the other end points on the same shard.
+ */
+class ReceiverShards implements ControlledMessageHandler, AutoCloseable
+{
+    private static final ReceiverShard[] NO_SHARDS = new ReceiverShard[0];
+    private static final int FRAGMENT_LIMIT = 100;
+
+    private final Long2ObjectHashMap<FixReceiverEndPoint> connectionIdToEndPoint = new Long2ObjectHashMap<>();
+    private final List<FixReceiverEndPoint> pendingEndPoints = new ArrayList<>();
+    private final List<FixReceiverEndPoint> removedEndPoints = new ArrayList<>();
+    private final Long2ObjectHashMap<HeldMessages> connectionIdToHeldMessages = new Long2ObjectHashMap<>();
+    private final List<HeldMessages> freeHeldMessages = new ArrayList<>();
+    private final ReceiverShard[] shards;
+
+    ReceiverShards(final EngineConfiguration configuration, final ErrorHandler errorHandler)
+    {
+        final int shardCount = configuration.framerReceiverShards();
+        if (shardCount > 0)
+        {
+            shards = new ReceiverShard[shardCount];
+            for (int i = 0; i < shardCount; i++)
+            {
+                shards[i] = new ReceiverShard(
+                    i,
+                    configuration.receiverShardBufferSize(),
+                    configuration.receiverBufferSize(),
+                    configuration.inboundBytesReceivedLimit(),
+                    configuration.receiverPollingThreshold(),
+                    errorHandler,
+                    configuration.agentNamePrefix());
+            }
+
+            final int maxMessageLength = shards[0].toFramer().maxMsgLength();
+            if (BODY_OFFSET + configuration.receiverBufferSize() > maxMessageLength)
+            {
+                throw new IllegalArgumentException(String.format(
+                    "receiverShardBufferSize(%d) is too small for the receiverBufferSize(%d)",
+                    configuration.receiverShardBufferSize(),
+                    configuration.receiverBufferSize()));
+            }
+        }
+        else
+        {
+            shards = NO_SHARDS;
+        }
+    }
+
+    boolean isEnabled()
+    {
+        return shards.length > 0;
+    }
+
+    Agent[] agents()
+    {
+        return shards;
+    }
+
+    // Hand over is deferred until the next duty cycle as this can be called whilst the Framer is still in the
+    // process of polling the end point.
+    void add(final FixReceiverEndPoint endPoint)
+    {
+        connectionIdToEndPoint.put(endPoint.connectionId(), endPoint);
+        pendingEndPoints.add(endPoint);
+    }
+
+    // returns true iff the connection was sharded
+    boolean removeConnection(final long connectionId, final DisconnectReason reason)
+    {
+        final FixReceiverEndPoint endPoint = connectionIdToEndPoint.remove(connectionId);
+        if (endPoint == null)
+        {
+            return false;
+        }
+
+        releaseHeldMessages(connectionId);
+
+        if (pendingEndPoints.remove(endPoint))
+        {
+            // Not yet handed over, so no other thread is reading from it.
+            endPoint.close(reason);
+        }
+        else
+        {
+            // The shard may be reading from the channel, so it is closed on the shard's thread.
+            if (!endPoint.hasDisconnected())
+            {
+                endPoint.disconnectEndpoint(reason);
+            }
+            removedEndPoints.add(endPoint);
+        }
+
+        return true;
+    }
+
+    int poll()
+    {
+        if (shards.length == 0)
+        {
+            return 0;
+        }
+
+        return handOverPendingEndPoints() + publishHeldMessages() + drainShards() + removeEndPoints();
+    }
+
+    private int removeEndPoints()
+    {
+        final List<FixReceiverEndPoint> removedEndPoints = this.removedEndPoints;
+        int removed = 0;
+        // Closes are offered in removal order so that a shard never sees a later close before an earlier one.
+        while (!removedEndPoints.isEmpty())
+        {
+            final FixReceiverEndPoint endPoint = removedEndPoints.get(0);
+            if (!endPoint.shard().close(endPoint))
+            {
+                break;
+            }
+
+            removedEndPoints.remove(0);
+            removed++;
+        }
+
+        return removed;
+    }
+
+    private int publishHeldMessages()
+    {
+        if (connectionIdToHeldMessages.isEmpty())
+        {
+            return 0;
+        }
+
+        int published = 0;
+        final Long2ObjectHashMap<HeldMessages>.ValueIterator it = connectionIdToHeldMessages.values().iterator();
+        while (it.hasNext())
+        {
+            final HeldMessages heldMessages = it.next();
+            final FixReceiverEndPoint endPoint = heldMessages.endPoint;
+            if (endPoint.isPaused())
+            {
+                continue;
+            }
+
+            published += publishHeldMessages(heldMessages);
+
+            if (heldMessages.endPoint == null)
+            {
+                // Released because the connection was removed whilst publishing.
+                continue;
+            }
+
+            if (heldMessages.readOffset == heldMessages.writeOffset)
+            {
+                final boolean disconnected = heldMessages.disconnected;
+                it.remove();
+                freeHeldMessages.add(heldMessages.reset());
+
+                // Completed once the iteration no longer needs the end point's held messages, as this removes the
+                // connection.
+                if (disconnected)
+                {
+                    endPoint.completeDisconnect(REMOTE_DISCONNECT);
+                }
+            }
+        }
+
+        return published;
+    }
+
+    private int publishHeldMessages(final HeldMessages heldMessages)
+    {
+        final FixReceiverEndPoint endPoint = heldMessages.endPoint;
+        final ExpandableArrayBuffer buffer = heldMessages.buffer;
+        final int limit = heldMessages.writeOffset;
+        int offset = heldMessages.readOffset;
+        int published = 0;
+        while (offset < limit && heldMessages.endPoint == endPoint)
+        {
+            final int msgTypeId = buffer.getInt(offset);
+            final int length = buffer.getInt(offset + SIZE_OF_INT);
+            final int index = offset + HeldMessages.HEADER_LENGTH;
+            if (msgTypeId == DISCONNECT_MSG_TYPE_ID)
+            {
+                heldMessages.disconnected = true;
+            }
+            else if (Pressure.isBackPressured(publishMessage(endPoint, buffer, index, length)))
+            {
+                break;
+            }
+
+            offset = index + length;
+            published++;
+        }
+
+        if (heldMessages.endPoint == endPoint)
+        {
+            heldMessages.readOffset = offset;
+        }
+
+        return published;
+    }
+
+    private void releaseHeldMessages(final long connectionId)
+    {
+        final HeldMessages heldMessages = connectionIdToHeldMessages.remove(connectionId);
+        if (heldMessages != null)
+        {
+            freeHeldMessages.add(heldMessages.reset());
+        }
+    }
+
+    private int handOverPendingEndPoints()
+    {
+        final List<FixReceiverEndPoint> pendingEndPoints = this.pendingEndPoints;
+        final int size = pendingEndPoints.size();
+        int handedOver = 0;
+        for (int i = size - 1; i >= 0; i--)
+        {
+            final FixReceiverEndPoint endPoint = pendingEndPoints.get(i);
+            final ReceiverShard shard = shardFor(endPoint.connectionId());
+            if (shard.add(endPoint))
+            {
+                pendingEndPoints.remove(i);
+                handedOver++;
+            }
+            else
+            {
+                endPoint.shard(null);
+            }
+        }
+
+        return handedOver;
+    }
+
+    private ReceiverShard shardFor(final long connectionId)
+    {
+        final ReceiverShard[] shards = this.shards;
+        return shards[(int)((connectionId & Long.MAX_VALUE) % shards.length)];
+    }
+
+    private int drainShards()
+    {
+        int messagesRead = 0;
+        for (final ReceiverShard shard : shards)
+        {
+            messagesRead += shard.toFramer().controlledRead(this, FRAGMENT_LIMIT);
+        }
+
+        return messagesRead;
+    }
+
+    public Action onMessage(final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length)
+    {
+        final long connectionId = buffer.getLong(index + CONNECTION_ID_OFFSET);
+        final FixReceiverEndPoint endPoint = connectionIdToEndPoint.get(connectionId);
+        if (endPoint == null)
+        {
+            // Connection has already been removed by the Framer, drop any data that was in flight.
+            return CONTINUE;
+        }
+
+        // Messages framed after an end point was paused are held until it has been played again, a disconnect
+        // is held behind any messages so that it isn't published ahead of them.
+        HeldMessages heldMessages = connectionIdToHeldMessages.get(connectionId);
+        if (heldMessages == null && endPoint.isPaused())
+        {
+            heldMessages = newHeldMessages(endPoint);
+            connectionIdToHeldMessages.put(connectionId, heldMessages);
+        }
+
+        if (heldMessages != null)
+        {
+            heldMessages.hold(msgTypeId, buffer, index, length);
+            return CONTINUE;
+        }
+
+        if (msgTypeId == DISCONNECT_MSG_TYPE_ID)
+        {
+            endPoint.completeDisconnect(REMOTE_DISCONNECT);
+            return CONTINUE;
+        }
+
+        final long position = publishMessage(endPoint, buffer, index, length);
+
+        return Pressure.isBackPressured(position) ? ABORT : CONTINUE;
+    }
+
+    private long publishMessage(
+        final FixReceiverEndPoint endPoint, final DirectBuffer buffer, final int index, final int length)
+    {
+        return endPoint.publishFramedMessage(
+            buffer,
+            index + BODY_OFFSET,
+            length - BODY_OFFSET,
+            buffer.getLong(index + MESSAGE_TYPE_OFFSET),
+            buffer.getLong(index + SESSION_ID_OFFSET),
+            buffer.getInt(index + SEQUENCE_INDEX_OFFSET),
+            MessageStatus.get((short)buffer.getInt(index + STATUS_OFFSET)),
+            buffer.getLong(index + TIMESTAMP_OFFSET));
+    }
+
+    private HeldMessages newHeldMessages(final FixReceiverEndPoint endPoint)
+    {
+        final List<HeldMessages> freeHeldMessages = this.freeHeldMessages;
+        final HeldMessages heldMessages = freeHeldMessages.isEmpty() ?
+            new HeldMessages() : freeHeldMessages.remove(freeHeldMessages.size() - 1);
+        heldMessages.endPoint = endPoint;
+        return heldMessages;
+    }
+
+    // Called after the shards have stopped
+    public void close()
+    {
+        connectionIdToEndPoint.values().forEach(endPoint -> endPoint.close(ENGINE_SHUTDOWN));
+        connectionIdToEndPoint.clear();
+        pendingEndPoints.clear();
+        removedEndPoints.forEach(FixReceiverEndPoint::closeResources);
+        removedEndPoints.clear();
+        connectionIdToHeldMessages.clear();
+    }
+
+    static final class HeldMessages
+    {
+        static final int HEADER_LENGTH = SIZE_OF_INT + SIZE_OF_INT;
+
+        private final ExpandableArrayBuffer buffer = new ExpandableArrayBuffer();
+        private FixReceiverEndPoint endPoint;
+        private int readOffset;
+        private int writeOffset;
+        private boolean disconnected;
+
+        void hold(final int msgTypeId, final DirectBuffer srcBuffer, final int srcIndex, final int length)
+        {
+            final int writeOffset = this.writeOffset;
+            final ExpandableArrayBuffer buffer = this.buffer;
+            buffer.putInt(writeOffset, msgTypeId);
+            buffer.putInt(writeOffset + SIZE_OF_INT, length);
+            buffer.putBytes(writeOffset + HEADER_LENGTH, srcBuffer, srcIndex, length);
+            this.writeOffset = writeOffset + HEADER_LENGTH + length;
+        }
+
+        HeldMessages reset()
+        {
+            endPoint = null;
+            readOffset = 0;
+            writeOffset = 0;
+            disconnected = false;
+            return this;
+        }
+    }
+}
@@ -16,11 +16,12 @@
 package uk.co.real_logic.artio.engine.framer;
 
 import org.agrona.ErrorHandler;
+import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import uk.co.real_logic.artio.dictionary.FixDictionary;
-import uk.co.real_logic.artio.engine.ByteBufferUtil;
+import uk.co.real_logic.artio.engine.FileSyncer;
 import uk.co.real_logic.artio.engine.MappedFile;
 import uk.co.real_logic.artio.engine.SectorFramer;
 import uk.co.real_logic.artio.engine.SessionInfo;
@@ -35,15 +36,16 @@ import uk.co.real_logic.artio.storage.messages.SessionIdEncoder;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.HashMap;
 import java.util.List;
 import java.util.Map;
-import java.util.Map.Entry;
-import java.util.concurrent.CopyOnWriteArrayList;
 import java.util.zip.CRC32;
 
 import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_INITIAL_SEQUENCE_INDEX;
 import static uk.co.real_logic.artio.engine.SectorFramer.*;
+import static uk.co.real_logic.artio.engine.framer.EncodedKeyIndex.MISSING_VALUE;
 import static uk.co.real_logic.artio.session.SessionIdStrategy.INSUFFICIENT_SPACE;
 import static uk.co.real_logic.artio.storage.messages.SessionIdEncoder.BLOCK_LENGTH;
 
@@ -53,8 +55,11 @@ import static uk.co.real_logic.artio.storage.messages.SessionIdEncoder.BLOCK_LEN
  * The session ids table is saved into a file. Records are written out using the {@link SessionIdEncoder}
  * and aren't allowed to span sectors. Each sector has a CRC32 checksum and each checksum is updated after writing
  * each session id record.
+ * <p>
+ * Sessions are indexed by id and by the encoded bytes of their composite key, using the same encoding as the file,
+ * so lookups don't hash or compare composite key objects and the index doesn't hold heap objects per session.
  */
-public class SessionContexts
+public class SessionContexts implements AutoCloseable
 {
 
     static final SessionContext DUPLICATE_SESSION = new SessionContext(
@@ -81,6 +86,7 @@ public class SessionContexts
     static final int VERSION_WITHOUT_FIX_DICTIONARY = 2;
 
     private static final int HEADER_SIZE = MessageHeaderDecoder.ENCODED_LENGTH;
+    private static final int INITIAL_SESSIONS_CAPACITY = 64;
 
     private static final int ENCODING_BUFFER_SIZE = SECTOR_SIZE - CHECKSUM_SIZE;
     private final UnsafeBuffer compositeKeyBuffer = new UnsafeBuffer(new byte[ENCODING_BUFFER_SIZE]);
@@ -93,8 +99,14 @@ public class SessionContexts
     private final int actingVersion = sessionIdEncoder.sbeSchemaVersion();
 
     private final LongHashSet currentlyAuthenticatedSessionIds = new LongHashSet();
-    private final CopyOnWriteArrayList<SessionInfo> allSessions = new CopyOnWriteArrayList<>();
-    private final Map<CompositeKey, SessionContext> compositeToContext = new HashMap<>();
+    private final Long2ObjectHashMap<SessionContext> idToContext = new Long2ObjectHashMap<>();
+    private final EncodedKeyIndex keyToSessionId = new EncodedKeyIndex();
+    // Keys that are too large to encode can't be indexed by their bytes, saving them reports an error anyway.
+    private final Map<CompositeKey, SessionContext> unencodableKeyToContext = new HashMap<>();
+
+    // Append only array of sessions, written on the Framer thread but read by allSessions() from any thread.
+    private volatile SessionContext[] sessions = new SessionContext[INITIAL_SESSIONS_CAPACITY];
+    private volatile int sessionCount;
 
     private final CRC32 crc32 = new CRC32();
     private final SectorFramer sectorFramer;
@@ -104,6 +116,7 @@ public class SessionContexts
     private final SessionIdStrategy idStrategy;
     private final ErrorHandler errorHandler;
     private final MappedFile mappedFile;
+    private final FileSyncer fileSyncer;
     private final int initialSequenceIndex;
 
     private int filePosition;
@@ -111,11 +124,13 @@ public class SessionContexts
 
     public SessionContexts(
         final MappedFile mappedFile,
+        final FileSyncer fileSyncer,
         final SessionIdStrategy idStrategy,
         final int initialSequenceIndex,
         final ErrorHandler errorHandler)
     {
         this.mappedFile = mappedFile;
+        this.fileSyncer = fileSyncer;
         this.buffer = mappedFile.buffer();
         this.byteBuffer = this.buffer.byteBuffer();
         sectorFramer = new SectorFramer(buffer.capacity());
@@ -123,7 +138,6 @@ public class SessionContexts
         this.initialSequenceIndex = initialSequenceIndex;
         this.errorHandler = errorHandler;
         loadBuffer();
-        allSessions.addAll(compositeToContext.values());
     }
 
     private void loadBuffer()
@@ -139,7 +153,22 @@ public class SessionContexts
         if (needsUpgrading || requiresCompaction)
         {
             resetBuffer();
-            compositeToContext.values().forEach(this::allocateNewSlot);
+            final SessionContext[] sessions = this.sessions;
+            int sectorsEnd = SECTOR_SIZE;
+            for (int i = 0, sessionCount = this.sessionCount; i < sessionCount; i++)
+            {
+                if (writeNewSlot(sessions[i]))
+                {
+                    sectorsEnd = sectorFramer.sectorStart() + SECTOR_SIZE;
+                }
+            }
+
+            // Checksum each rewritten sector and sync the file once rather than once per session.
+            for (int sectorStart = 0; sectorStart < sectorsEnd; sectorStart += SECTOR_SIZE)
+            {
+                updateChecksum(sectorStart);
+            }
+            fileSyncer.onWrite();
         }
     }
 
@@ -200,7 +229,7 @@ public class SessionContexts
                     sessionId, sequenceIndex, lastLogonTime, lastSequenceResetTime, this,
                     sessionIdDecoder.initialOffset(),
                     initialSequenceIndex, thisDictionary);
-                compositeToContext.put(compositeKey, sessionContext);
+                index(sessionContext);
 
                 counter = Math.max(counter, sessionId + 1);
 
@@ -236,8 +265,8 @@ public class SessionContexts
             actingBlockLength,
             errorHandler))
         {
-            updateChecksum(0, FIRST_CHECKSUM_LOCATION);
-            mappedFile.force();
+            updateChecksum(0);
+            fileSyncer.onWrite();
         }
     }
 
@@ -247,12 +276,7 @@ public class SessionContexts
         {
             final int nextSectorEnd = sectorEnd + SECTOR_SIZE;
             final int nextChecksum = nextSectorEnd - CHECKSUM_SIZE;
-            crc32.reset();
-            byteBuffer.clear();
-            ByteBufferUtil.position(byteBuffer, sectorEnd);
-            ByteBufferUtil.limit(byteBuffer, nextChecksum);
-            crc32.update(byteBuffer);
-            final int calculatedChecksum = (int)crc32.getValue();
+            final int calculatedChecksum = sectorChecksum(crc32, byteBuffer, sectorEnd);
             final int savedChecksum = buffer.getInt(nextChecksum);
             validateCheckSum(
                 "session ids", sectorEnd, nextSectorEnd, savedChecksum, calculatedChecksum, errorHandler);
@@ -276,9 +300,12 @@ public class SessionContexts
 
     SessionContext newSessionContext(final CompositeKey compositeKey, final FixDictionary fixDictionary)
     {
-        final SessionContext context = compositeToContext.computeIfAbsent(
-            compositeKey,
-            key -> onNewLogon(key, fixDictionary));
+        SessionContext context = lookupContext(compositeKey);
+        if (context == null)
+        {
+            context = onNewLogon(compositeKey, fixDictionary);
+        }
+
         if (context.lastFixDictionary() != fixDictionary)
         {
             context.ensureFixDictionary(fixDictionary);
@@ -294,10 +321,78 @@ public class SessionContexts
             sessionId,
             SessionInfo.UNKNOWN_SEQUENCE_INDEX,
             fixDictionary);
-        allSessions.add(sessionContext);
+        index(sessionContext);
         return sessionContext;
     }
 
+    private SessionContext lookupContext(final CompositeKey compositeKey)
+    {
+        final int compositeKeyLength = idStrategy.save(compositeKey, compositeKeyBuffer, 0);
+        if (compositeKeyLength == INSUFFICIENT_SPACE)
+        {
+            return unencodableKeyToContext.get(compositeKey);
+        }
+
+        final long sessionId = keyToSessionId.get(compositeKeyBuffer, 0, compositeKeyLength);
+        return sessionId == MISSING_VALUE ? null : idToContext.get(sessionId);
+    }
+
+    private void index(final SessionContext context)
+    {
+        final CompositeKey compositeKey = context.sessionKey();
+        final long sessionId = context.sessionId();
+        final int compositeKeyLength = idStrategy.save(compositeKey, compositeKeyBuffer, 0);
+
+        final SessionContext oldContext;
+        if (compositeKeyLength == INSUFFICIENT_SPACE)
+        {
+            oldContext = unencodableKeyToContext.put(compositeKey, context);
+        }
+        else
+        {
+            final long oldSessionId = keyToSessionId.put(compositeKeyBuffer, 0, compositeKeyLength, sessionId);
+            oldContext = oldSessionId == MISSING_VALUE ? null : idToContext.remove(oldSessionId);
+        }
+
+        idToContext.put(sessionId, context);
+
+        if (oldContext == null)
+        {
+            addSession(context);
+        }
+        else
+        {
+            replaceSession(oldContext, context);
+        }
+    }
+
+    private void addSession(final SessionContext context)
+    {
+        SessionContext[] sessions = this.sessions;
+        final int sessionCount = this.sessionCount;
+        if (sessionCount == sessions.length)
+        {
+            sessions = Arrays.copyOf(sessions, sessionCount << 1);
+            this.sessions = sessions;
+        }
+
+        sessions[sessionCount] = context;
+        this.sessionCount = sessionCount + 1;
+    }
+
+    private void replaceSession(final SessionContext oldContext, final SessionContext context)
+    {
+        final SessionContext[] sessions = this.sessions;
+        for (int i = 0, sessionCount = this.sessionCount; i < sessionCount; i++)
+        {
+            if (sessions[i] == oldContext)
+            {
+                sessions[i] = context;
+                return;
+            }
+        }
+    }
+
     private SessionContext assignSessionId(
         final CompositeKey compositeKey,
         final long sessionId,
@@ -319,7 +414,20 @@ public class SessionContexts
         return context;
     }
 
-    private void allocateNewSlot(final SessionContext context)
+    private boolean allocateNewSlot(final SessionContext context)
+    {
+        if (writeNewSlot(context))
+        {
+            updateChecksum(sectorFramer.sectorStart());
+            fileSyncer.onWrite();
+            return true;
+        }
+
+        return false;
+    }
+
+    // returns true iff the slot was written, the sector's checksum is left for the caller to update
+    private boolean writeNewSlot(final SessionContext context)
     {
         final CompositeKey compositeKey = context.sessionKey();
         final long sessionId = context.sessionId();
@@ -365,14 +473,12 @@ public class SessionContexts
 
                     buffer.putBytes(filePosition, compositeKeyBuffer, 0, compositeKeyLength);
                     filePosition += compositeKeyLength;
-
-                    updateChecksum(sectorFramer.sectorStart(), sectorFramer.checksumOffset());
-                    mappedFile.force();
                 }
             }
         }
 
         context.filePosition(keyPosition);
+        return keyPosition != OUT_OF_SPACE;
     }
 
     private String nameOf(final FixDictionary fixDictionary)
@@ -382,38 +488,22 @@ public class SessionContexts
 
     void sequenceReset(final long sessionId, final long resetTime)
     {
-        final Entry<CompositeKey, SessionContext> entry = lookupById(sessionId);
-        if (entry != null)
+        final SessionContext context = lookupById(sessionId);
+        if (context != null)
         {
-            final SessionContext context = entry.getValue();
             context.onSequenceReset(resetTime);
         }
     }
 
-    Entry<CompositeKey, SessionContext> lookupById(final long sessionId)
+    SessionContext lookupById(final long sessionId)
     {
-        for (final Entry<CompositeKey, SessionContext> entry : compositeToContext.entrySet())
-        {
-            if (entry.getValue().sessionId() == sessionId)
-            {
-                return entry;
-            }
-        }
-
-        return null;
+        return idToContext.get(sessionId);
     }
 
-    // TODO: optimisation, more efficient checksumming, only checksum new data
-    private void updateChecksum(final int start, final int checksumOffset)
+    // CRC32 is an intrinsic so rehashing a whole sector is cheap, it's the file syncs that need to be minimised.
+    private void updateChecksum(final int sectorStart)
     {
-        final int endOfData = checksumOffset;
-        byteBuffer.clear();
-        ByteBufferUtil.position(byteBuffer, start);
-        ByteBufferUtil.limit(byteBuffer, endOfData);
-        crc32.reset();
-        crc32.update(byteBuffer);
-        final int checksumValue = (int)crc32.getValue();
-        buffer.putInt(checksumOffset, checksumValue);
+        buffer.putInt(sectorStart + SECTOR_DATA_LENGTH, sectorChecksum(crc32, byteBuffer, sectorStart));
     }
 
     public void onDisconnect(final long sessionId)
@@ -430,8 +520,11 @@ public class SessionContexts
         }
 
         counter = LOWEST_VALID_SESSION_ID;
-        compositeToContext.clear();
-        allSessions.clear();
+        idToContext.clear();
+        keyToSessionId.clear();
+        unencodableKeyToContext.clear();
+        sessionCount = 0;
+        sessions = new SessionContext[INITIAL_SESSIONS_CAPACITY];
 
         if (backupLocation != null)
         {
@@ -456,15 +549,13 @@ public class SessionContexts
         sessionIdEncoder.wrap(buffer, filePosition);
         if (sessionIdDecoder.lastFixDictionaryLength() != fixDictionaryName.length())
         {
-            // delete old slot
+            // delete old slot, its sector is synced along with the new slot's
             sessionIdEncoder.sessionId(Session.UNKNOWN);
+            updateChecksum(sectorStart(filePosition));
 
-            allocateNewSlot(context);
-
-            // Recalculate checksum from delete if needed
-            if (nextSectorStart(filePosition) != nextSectorStart(this.filePosition))
+            if (!allocateNewSlot(context))
             {
-                updateSectorChecksum(filePosition);
+                fileSyncer.onWrite();
             }
         }
         else
@@ -480,16 +571,19 @@ public class SessionContexts
 
     private void updateSectorChecksum(final int filePosition)
     {
-        final int start = nextSectorStart(filePosition) - SECTOR_SIZE;
-        final int checksumOffset = start + SECTOR_DATA_LENGTH;
-        updateChecksum(start, checksumOffset);
+        updateChecksum(sectorStart(filePosition));
 
-        mappedFile.force();
+        fileSyncer.onWrite();
+    }
+
+    private static int sectorStart(final int filePosition)
+    {
+        return nextSectorStart(filePosition) - SECTOR_SIZE;
     }
 
     long lookupSessionId(final CompositeKey compositeKey)
     {
-        final SessionContext sessionContext = compositeToContext.get(compositeKey);
+        final SessionContext sessionContext = lookupContext(compositeKey);
         if (sessionContext == null)
         {
             return Session.UNKNOWN;
@@ -504,16 +598,53 @@ public class SessionContexts
 
     boolean isKnownSessionId(final long sessionId)
     {
-        return lookupById(sessionId) != null;
+        return idToContext.containsKey(sessionId);
     }
 
+    /**
+     * Gets a snapshot of all the sessions, safe to call from any thread.
+     *
+     * @return a snapshot of all the sessions.
+     */
     public List<SessionInfo> allSessions()
     {
+        // Read the count before the array so that it never exceeds the published elements, a concurrent reset can
+        // swap in an empty array so the length is also checked.
+        final int sessionCount = this.sessionCount;
+        final SessionContext[] sessions = this.sessions;
+        final int size = Math.min(sessionCount, sessions.length);
+        final List<SessionInfo> allSessions = new ArrayList<>(size);
+        for (int i = 0; i < size; i++)
+        {
+            final SessionContext context = sessions[i];
+            if (context != null)
+            {
+                allSessions.add(context);
+            }
+        }
+
         return allSessions;
     }
 
+    // Allocation free iteration, only call on the Framer thread.
+    int sessionCount()
+    {
+        return sessionCount;
+    }
+
+    // Allocation free iteration, only call on the Framer thread.
+    SessionContext session(final int index)
+    {
+        return sessions[index];
+    }
+
     int filePosition()
     {
         return filePosition;
     }
+
+    public void close()
+    {
+        fileSyncer.close();
+    }
 }
@@ -50,6 +50,11 @@ public class TcpChannel implements AutoCloseable
         return socketChannel.write(src);
     }
 
+    public long write(final ByteBuffer[] srcs, final int offset, final int length) throws IOException
+    {
+        return socketChannel.write(srcs, offset, length);
+    }
+
     public int read(final ByteBuffer dst) throws IOException
     {
         return socketChannel.read(dst);
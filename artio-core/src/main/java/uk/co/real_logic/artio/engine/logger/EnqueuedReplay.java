@@ -15,32 +15,59 @@
  */
 package uk.co.real_logic.artio.engine.logger;
 
-import uk.co.real_logic.artio.util.AsciiBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import uk.co.real_logic.artio.engine.ReplayerCommand;
 
-public class EnqueuedReplay
+/**
+ * A resend request that the {@link Replayer} has resolved into everything a {@link ReplayerWorker} needs in order to
+ * replay it, so that a worker never touches state owned by the archiving thread. It is also the command that hands
+ * the replay to a pooled worker's command queue.
+ */
+public class EnqueuedReplay implements ReplayerCommand
 {
+    private final ReplayerWorker worker;
     private final long sessionId;
     private final long connectionId;
     private final long beginSeqNo;
     private final long endSeqNo;
     private final int sequenceIndex;
-    private final AsciiBuffer asciiBuffer;
+    private final String message;
+    private final GapFillEncoder gapFillEncoder;
+    private final AtomicCounter bytesInBuffer;
 
+    /**
+     * Create a replay.
+     *
+     * @param worker the worker that replays the messages of the connection.
+     * @param sessionId the id of the session to replay.
+     * @param connectionId the id of the connection that the replay is sent to.
+     * @param beginSeqNo the first sequence number to replay (inclusive).
+     * @param endSeqNo the last sequence number to replay (inclusive).
+     * @param sequenceIndex the sequence index of the replay.
+     * @param message the resend request that caused the replay, or null for an iLink3 retransmit request.
+     * @param gapFillEncoder the encoder for gap fills, or null for an iLink3 retransmit request.
+     * @param bytesInBuffer the bytes in buffer counter of the connection, or null for an iLink3 retransmit request.
+     */
     public EnqueuedReplay(
+        final ReplayerWorker worker,
         final long sessionId,
         final long connectionId,
         final long beginSeqNo,
         final long endSeqNo,
         final int sequenceIndex,
-        final AsciiBuffer asciiBuffer)
+        final String message,
+        final GapFillEncoder gapFillEncoder,
+        final AtomicCounter bytesInBuffer)
     {
-
+        this.worker = worker;
         this.sessionId = sessionId;
         this.connectionId = connectionId;
         this.beginSeqNo = beginSeqNo;
         this.endSeqNo = endSeqNo;
         this.sequenceIndex = sequenceIndex;
-        this.asciiBuffer = asciiBuffer;
+        this.message = message;
+        this.gapFillEncoder = gapFillEncoder;
+        this.bytesInBuffer = bytesInBuffer;
     }
 
     public long sessionId()
@@ -68,6 +95,31 @@ public class EnqueuedReplay
         return sequenceIndex;
     }
 
+    public String message()
+    {
+        return message;
+    }
+
+    GapFillEncoder gapFillEncoder()
+    {
+        return gapFillEncoder;
+    }
+
+    AtomicCounter bytesInBuffer()
+    {
+        return bytesInBuffer;
+    }
+
+    boolean isFix()
+    {
+        return gapFillEncoder != null;
+    }
+
+    public void execute()
+    {
+        worker.onReplay(this);
+    }
+
     public String toString()
     {
         return "EnqueuedReplay{" +
@@ -76,12 +128,7 @@ public class EnqueuedReplay
             ", beginSeqNo=" + beginSeqNo +
             ", endSeqNo=" + endSeqNo +
             ", sequenceIndex=" + sequenceIndex +
-            ", asciiBuffer=" + asciiBuffer.getAscii(0, asciiBuffer.capacity()) +
+            ", message=" + message +
             '}';
     }
-
-    public AsciiBuffer asciiBuffer()
-    {
-        return asciiBuffer;
-    }
 }
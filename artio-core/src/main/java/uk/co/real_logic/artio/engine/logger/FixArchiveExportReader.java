@@ -0,0 +1,230 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.zip.DataFormatException;
+import java.util.zip.Inflater;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+
+/**
+ * Reads the files written by {@link FixArchiveExporter}. This only depends upon the JDK and Agrona so can be used
+ * to load exported messages into other tools.
+ *
+ * Each file is a sequence of blocks, all integers being little endian:
+ *
+ * Magic number, version, row count and column count ints
+ * For each column: uncompressed length and compressed length ints, followed by the deflate compressed column data
+ *
+ * Within a column's data each row is either a fixed width long or int, or an int length followed by that many bytes
+ * of ascii text. The columns are, in order: timestamp (long), sending time (text), msg seq num (int), msg type (text),
+ * sender comp id (text), target comp id (text) and the message itself (text).
+ *
+ * Eg: java uk.co.real_logic.artio.engine.logger.FixArchiveExportReader export/session-1/1602842400000000000.fixc
+ */
+public final class FixArchiveExportReader
+{
+    static final int MAGIC = 0x43584946; // "FIXC"
+    static final int VERSION = 1;
+    static final int BLOCK_HEADER_LENGTH = 4 * SIZE_OF_INT;
+    static final int COLUMN_HEADER_LENGTH = 2 * SIZE_OF_INT;
+    static final String FILE_EXTENSION = ".fixc";
+
+    static final int TIMESTAMP_COLUMN = 0;
+    static final int SENDING_TIME_COLUMN = 1;
+    static final int MSG_SEQ_NUM_COLUMN = 2;
+    static final int MSG_TYPE_COLUMN = 3;
+    static final int SENDER_COMP_ID_COLUMN = 4;
+    static final int TARGET_COMP_ID_COLUMN = 5;
+    static final int BODY_COLUMN = 6;
+    static final int COLUMN_COUNT = 7;
+
+    public static void main(final String[] args) throws IOException
+    {
+        for (final String fileName : args)
+        {
+            read(new File(fileName), row -> System.out.println(
+                row.timestamp() + "\t" +
+                row.sendingTime() + "\t" +
+                row.msgSeqNum() + "\t" +
+                row.msgType() + "\t" +
+                row.senderCompId() + "\t" +
+                row.targetCompId() + "\t" +
+                row.body().replace('\001', '|')));
+        }
+    }
+
+    /**
+     * Reads every row of an exported file in the order that they were exported.
+     *
+     * @param file the exported file.
+     * @param handler the callback for each row, the row is reused so shouldn't be retained.
+     * @throws IOException if the file can't be read or isn't an exported file.
+     */
+    public static void read(final File file, final RowHandler handler) throws IOException
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(Files.readAllBytes(file.toPath()));
+        final UnsafeBuffer[] columns = new UnsafeBuffer[COLUMN_COUNT];
+        final Row row = new Row(columns);
+        final Inflater inflater = new Inflater();
+        try
+        {
+            int offset = 0;
+            while (offset < buffer.capacity())
+            {
+                if (buffer.getInt(offset, LITTLE_ENDIAN) != MAGIC ||
+                    buffer.getInt(offset + SIZE_OF_INT, LITTLE_ENDIAN) != VERSION ||
+                    buffer.getInt(offset + 3 * SIZE_OF_INT, LITTLE_ENDIAN) != COLUMN_COUNT)
+                {
+                    throw new IOException("Invalid block header at " + offset + " in " + file);
+                }
+                final int rowCount = buffer.getInt(offset + 2 * SIZE_OF_INT, LITTLE_ENDIAN);
+                offset += BLOCK_HEADER_LENGTH;
+
+                for (int column = 0; column < COLUMN_COUNT; column++)
+                {
+                    final int uncompressedLength = buffer.getInt(offset, LITTLE_ENDIAN);
+                    final int compressedLength = buffer.getInt(offset + SIZE_OF_INT, LITTLE_ENDIAN);
+                    offset += COLUMN_HEADER_LENGTH;
+
+                    final byte[] columnData = new byte[uncompressedLength];
+                    inflater.reset();
+                    inflater.setInput(buffer.byteArray(), offset, compressedLength);
+                    if (inflater.inflate(columnData) != uncompressedLength)
+                    {
+                        throw new IOException("Truncated column at " + offset + " in " + file);
+                    }
+                    columns[column] = new UnsafeBuffer(columnData);
+                    offset += compressedLength;
+                }
+
+                row.reset();
+                for (int i = 0; i < rowCount; i++)
+                {
+                    row.next();
+                    handler.onRow(row);
+                }
+            }
+        }
+        catch (final DataFormatException e)
+        {
+            throw new IOException("Invalid compressed column in " + file, e);
+        }
+        finally
+        {
+            inflater.end();
+        }
+    }
+
+    @FunctionalInterface
+    public interface RowHandler
+    {
+        void onRow(Row row);
+    }
+
+    /**
+     * A single exported message, only valid within {@link RowHandler#onRow(Row)}.
+     */
+    public static final class Row
+    {
+        private final int[] columnOffsets = new int[COLUMN_COUNT];
+        private final UnsafeBuffer[] columns;
+
+        private long timestamp;
+        private String sendingTime;
+        private int msgSeqNum;
+        private String msgType;
+        private String senderCompId;
+        private String targetCompId;
+        private String body;
+
+        Row(final UnsafeBuffer[] columns)
+        {
+            this.columns = columns;
+        }
+
+        void reset()
+        {
+            Arrays.fill(columnOffsets, 0);
+        }
+
+        void next()
+        {
+            timestamp = columns[TIMESTAMP_COLUMN].getLong(columnOffsets[TIMESTAMP_COLUMN], LITTLE_ENDIAN);
+            columnOffsets[TIMESTAMP_COLUMN] += SIZE_OF_LONG;
+            sendingTime = nextText(SENDING_TIME_COLUMN);
+            msgSeqNum = columns[MSG_SEQ_NUM_COLUMN].getInt(columnOffsets[MSG_SEQ_NUM_COLUMN], LITTLE_ENDIAN);
+            columnOffsets[MSG_SEQ_NUM_COLUMN] += SIZE_OF_INT;
+            msgType = nextText(MSG_TYPE_COLUMN);
+            senderCompId = nextText(SENDER_COMP_ID_COLUMN);
+            targetCompId = nextText(TARGET_COMP_ID_COLUMN);
+            body = nextText(BODY_COLUMN);
+        }
+
+        private String nextText(final int column)
+        {
+            final UnsafeBuffer buffer = columns[column];
+            final int offset = columnOffsets[column];
+            final int length = buffer.getInt(offset, LITTLE_ENDIAN);
+            columnOffsets[column] = offset + SIZE_OF_INT + length;
+            return new String(buffer.byteArray(), offset + SIZE_OF_INT, length, StandardCharsets.US_ASCII);
+        }
+
+        public long timestamp()
+        {
+            return timestamp;
+        }
+
+        public String sendingTime()
+        {
+            return sendingTime;
+        }
+
+        public int msgSeqNum()
+        {
+            return msgSeqNum;
+        }
+
+        public String msgType()
+        {
+            return msgType;
+        }
+
+        public String senderCompId()
+        {
+            return senderCompId;
+        }
+
+        public String targetCompId()
+        {
+            return targetCompId;
+        }
+
+        public String body()
+        {
+            return body;
+        }
+    }
+}
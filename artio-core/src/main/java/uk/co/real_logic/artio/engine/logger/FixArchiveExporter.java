@@ -0,0 +1,550 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.Header;
+import org.agrona.CloseHelper;
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.ExpandableArrayBuffer;
+import org.agrona.LangUtil;
+import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.AgentRunner;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.MessageHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.ringbuffer.OneToOneRingBuffer;
+import org.agrona.concurrent.ringbuffer.RingBuffer;
+import uk.co.real_logic.artio.CommonConfiguration;
+import uk.co.real_logic.artio.decoder.SessionHeaderDecoder;
+import uk.co.real_logic.artio.dictionary.FixDictionary;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.concurrent.atomic.AtomicReference;
+import java.util.zip.Deflater;
+
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.agrona.BitUtil.SIZE_OF_INT;
+import static org.agrona.BitUtil.SIZE_OF_LONG;
+import static org.agrona.concurrent.ringbuffer.RingBufferDescriptor.TRAILER_LENGTH;
+import static uk.co.real_logic.artio.engine.logger.FixArchiveExportReader.*;
+
+/**
+ * Exports archived fix messages to compressed, column oriented files that can be read back with
+ * {@link FixArchiveExportReader}, for example by passing it as the consumer of a {@link FixArchiveScanner} or
+ * {@link OfflineFixArchiveScanner}.
+ *
+ * Messages are partitioned by their session and by the time bucket of their timestamp, each partition being written
+ * to its own file at outputDirectory/session-sessionId/bucketStartTimestamp.fixc. Sessions are spread over a number of
+ * worker threads that decode the messages' headers and compress and write the partitions in parallel, a session's
+ * messages are always exported by the same worker so they're written in the order that they're consumed.
+ *
+ * A partition's file is truncated when it's first written by an exporter, so exporting into the directory of a
+ * previous export replaces the files of any partitions that are exported again. If a worker fails to export a message,
+ * for example due to an I/O error, the error is passed to the configured error handler and then rethrown from the
+ * next call to {@link #onMessage} or {@link #close()}, as the export is incomplete.
+ */
+public class FixArchiveExporter implements FixMessageConsumer, AutoCloseable
+{
+    private static final int MESSAGE_MSG_TYPE_ID = 1;
+    private static final int SESSION_ID_OFFSET = 0;
+    private static final int TIMESTAMP_OFFSET = SESSION_ID_OFFSET + SIZE_OF_LONG;
+    private static final int BODY_OFFSET = TIMESTAMP_OFFSET + SIZE_OF_LONG;
+
+    private final ExpandableArrayBuffer recordBuffer = new ExpandableArrayBuffer(1024);
+    private final AtomicReference<Throwable> workerError = new AtomicReference<>();
+    private final RingBuffer[] toWorkers;
+    private final AgentRunner[] workerRunners;
+    private final IdleStrategy idleStrategy;
+
+    public static class Configuration
+    {
+        public static final int DEFAULT_WORKER_THREADS = 4;
+        public static final long DEFAULT_PARTITION_DURATION_IN_NS = HOURS.toNanos(1);
+        public static final int DEFAULT_BLOCK_ROWS = 1024;
+        public static final int DEFAULT_WORKER_BUFFER_SIZE = 16 * 1024 * 1024;
+
+        private String outputDirectoryName;
+        private Class<? extends FixDictionary> fixDictionaryType;
+        private int workerThreads = DEFAULT_WORKER_THREADS;
+        private long partitionDurationInNs = DEFAULT_PARTITION_DURATION_IN_NS;
+        private int blockRows = DEFAULT_BLOCK_ROWS;
+        private int workerBufferSize = DEFAULT_WORKER_BUFFER_SIZE;
+        private IdleStrategy idleStrategy = CommonConfiguration.backoffIdleStrategy();
+        private ErrorHandler errorHandler = Throwable::printStackTrace;
+
+        public Configuration outputDirectoryName(final String outputDirectoryName)
+        {
+            this.outputDirectoryName = outputDirectoryName;
+            return this;
+        }
+
+        public String outputDirectoryName()
+        {
+            return outputDirectoryName;
+        }
+
+        /**
+         * Sets the fix dictionary whose header decoder is used to extract the header fields of each message. The
+         * default dictionary on the classpath is used if this isn't set.
+         *
+         * @param fixDictionaryType the fix dictionary of the exported messages.
+         * @return this
+         */
+        public Configuration fixDictionaryType(final Class<? extends FixDictionary> fixDictionaryType)
+        {
+            this.fixDictionaryType = fixDictionaryType;
+            return this;
+        }
+
+        public Class<? extends FixDictionary> fixDictionaryType()
+        {
+            return fixDictionaryType;
+        }
+
+        public Configuration workerThreads(final int workerThreads)
+        {
+            this.workerThreads = workerThreads;
+            return this;
+        }
+
+        public int workerThreads()
+        {
+            return workerThreads;
+        }
+
+        /**
+         * Sets the duration of the time buckets that each session's messages are partitioned into, in the precision
+         * of the messages' timestamps.
+         *
+         * @param partitionDurationInNs the duration of each partition.
+         * @return this
+         */
+        public Configuration partitionDurationInNs(final long partitionDurationInNs)
+        {
+            this.partitionDurationInNs = partitionDurationInNs;
+            return this;
+        }
+
+        public long partitionDurationInNs()
+        {
+            return partitionDurationInNs;
+        }
+
+        /**
+         * Sets the number of messages that a partition buffers before compressing them into a block of its file.
+         * Larger blocks compress better, but each worker buffers a block for every session that it exports.
+         *
+         * @param blockRows the maximum number of messages in each block.
+         * @return this
+         */
+        public Configuration blockRows(final int blockRows)
+        {
+            this.blockRows = blockRows;
+            return this;
+        }
+
+        public int blockRows()
+        {
+            return blockRows;
+        }
+
+        /**
+         * Sets the size of the buffer that messages are queued in for each worker, the largest message that can be
+         * exported is an eighth of this.
+         *
+         * @param workerBufferSize the size of each worker's buffer, must be a power of two.
+         * @return this
+         */
+        public Configuration workerBufferSize(final int workerBufferSize)
+        {
+            this.workerBufferSize = workerBufferSize;
+            return this;
+        }
+
+        public int workerBufferSize()
+        {
+            return workerBufferSize;
+        }
+
+        public Configuration idleStrategy(final IdleStrategy idleStrategy)
+        {
+            this.idleStrategy = idleStrategy;
+            return this;
+        }
+
+        public IdleStrategy idleStrategy()
+        {
+            return idleStrategy;
+        }
+
+        public Configuration errorHandler(final ErrorHandler errorHandler)
+        {
+            this.errorHandler = errorHandler;
+            return this;
+        }
+
+        public ErrorHandler errorHandler()
+        {
+            return errorHandler;
+        }
+    }
+
+    public FixArchiveExporter(final Configuration configuration)
+    {
+        idleStrategy = configuration.idleStrategy();
+
+        final File outputDirectory = new File(configuration.outputDirectoryName());
+        final Class<? extends FixDictionary> fixDictionaryType = configuration.fixDictionaryType();
+        final FixDictionary fixDictionary = FixDictionary.of(
+            fixDictionaryType == null ? FixDictionary.findDefault() : fixDictionaryType);
+        final ErrorHandler errorHandler = configuration.errorHandler();
+        final ErrorHandler workerErrorHandler = (throwable) ->
+        {
+            workerError.compareAndSet(null, throwable);
+            errorHandler.onError(throwable);
+        };
+        final int workerThreads = configuration.workerThreads();
+        toWorkers = new RingBuffer[workerThreads];
+        workerRunners = new AgentRunner[workerThreads];
+        for (int i = 0; i < workerThreads; i++)
+        {
+            toWorkers[i] = new OneToOneRingBuffer(
+                new UnsafeBuffer(ByteBuffer.allocateDirect(configuration.workerBufferSize() + TRAILER_LENGTH)));
+
+            final ExportWorker worker = new ExportWorker(
+                i,
+                toWorkers[i],
+                fixDictionary.makeHeaderDecoder(),
+                outputDirectory,
+                configuration.partitionDurationInNs(),
+                configuration.blockRows());
+            workerRunners[i] = new AgentRunner(
+                CommonConfiguration.backoffIdleStrategy(), workerErrorHandler, null, worker);
+            AgentRunner.startOnThread(workerRunners[i]);
+        }
+    }
+
+    public void onMessage(
+        final FixMessageDecoder message,
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final Header header)
+    {
+        checkWorkerError();
+
+        final long sessionId = message.session();
+        final int bodyLength = message.bodyLength();
+        final ExpandableArrayBuffer recordBuffer = this.recordBuffer;
+        recordBuffer.checkLimit(BODY_OFFSET + bodyLength);
+        recordBuffer.putLong(SESSION_ID_OFFSET, sessionId);
+        recordBuffer.putLong(TIMESTAMP_OFFSET, message.timestamp());
+        message.getBody(recordBuffer, BODY_OFFSET, bodyLength);
+
+        final RingBuffer toWorker = toWorkers[Math.floorMod(Long.hashCode(sessionId), toWorkers.length)];
+        while (!toWorker.write(MESSAGE_MSG_TYPE_ID, recordBuffer, 0, BODY_OFFSET + bodyLength))
+        {
+            idleStrategy.idle();
+        }
+        idleStrategy.reset();
+    }
+
+    /**
+     * Waits for the workers to export every message that has been consumed and then writes out the remaining
+     * partially filled blocks.
+     *
+     * @throws IllegalStateException if a worker failed to export any of the messages.
+     */
+    public void close()
+    {
+        for (final RingBuffer toWorker : toWorkers)
+        {
+            while (toWorker.size() > 0)
+            {
+                idleStrategy.idle();
+            }
+            idleStrategy.reset();
+        }
+
+        // Closing a runner writes out its worker's partitions on the worker thread.
+        CloseHelper.closeAll(workerRunners);
+
+        checkWorkerError();
+    }
+
+    private void checkWorkerError()
+    {
+        final Throwable error = workerError.get();
+        if (error != null)
+        {
+            throw new IllegalStateException("Failed to export messages, the export is incomplete", error);
+        }
+    }
+
+    static final class ExportWorker implements Agent
+    {
+        private static final int READ_LIMIT = 100;
+
+        private final Long2ObjectHashMap<Partition> sessionIdToPartition = new Long2ObjectHashMap<>();
+        private final MutableAsciiBuffer asciiBuffer = new MutableAsciiBuffer();
+        private final ExpandableArrayBuffer blockBuffer = new ExpandableArrayBuffer(64 * 1024);
+        private final Deflater deflater = new Deflater();
+        private final byte[] deflateOutput = new byte[64 * 1024];
+        private final MessageHandler messageHandler = this::onMessage;
+
+        private final String roleName;
+        private final RingBuffer fromExporter;
+        private final SessionHeaderDecoder headerDecoder;
+        private final File outputDirectory;
+        private final long partitionDurationInNs;
+        private final int blockRows;
+
+        ExportWorker(
+            final int workerId,
+            final RingBuffer fromExporter,
+            final SessionHeaderDecoder headerDecoder,
+            final File outputDirectory,
+            final long partitionDurationInNs,
+            final int blockRows)
+        {
+            this.roleName = "fix-archive-exporter-" + workerId;
+            this.fromExporter = fromExporter;
+            this.headerDecoder = headerDecoder;
+            this.outputDirectory = outputDirectory;
+            this.partitionDurationInNs = partitionDurationInNs;
+            this.blockRows = blockRows;
+        }
+
+        public int doWork()
+        {
+            return fromExporter.read(messageHandler, READ_LIMIT);
+        }
+
+        private void onMessage(
+            final int msgTypeId, final MutableDirectBuffer buffer, final int index, final int length)
+        {
+            final long sessionId = buffer.getLong(index + SESSION_ID_OFFSET);
+            final long timestamp = buffer.getLong(index + TIMESTAMP_OFFSET);
+            final int bodyOffset = index + BODY_OFFSET;
+            final int bodyLength = length - BODY_OFFSET;
+
+            final SessionHeaderDecoder headerDecoder = this.headerDecoder;
+            asciiBuffer.wrap(buffer, bodyOffset, bodyLength);
+            headerDecoder.reset();
+            headerDecoder.decode(asciiBuffer, 0, bodyLength);
+
+            final long bucketStartTimestamp = Math.floorDiv(timestamp, partitionDurationInNs) * partitionDurationInNs;
+            Partition partition = sessionIdToPartition.get(sessionId);
+            if (partition == null)
+            {
+                partition = new Partition(sessionId);
+                sessionIdToPartition.put(sessionId, partition);
+            }
+            else if (partition.bucketStartTimestamp != bucketStartTimestamp)
+            {
+                writeBlock(partition);
+            }
+            partition.bucketStartTimestamp = bucketStartTimestamp;
+
+            partition.putLong(TIMESTAMP_COLUMN, timestamp);
+            partition.putBytes(SENDING_TIME_COLUMN, headerDecoder.sendingTime(), headerDecoder.sendingTimeLength());
+            partition.putInt(MSG_SEQ_NUM_COLUMN, headerDecoder.msgSeqNum());
+            partition.putChars(MSG_TYPE_COLUMN, headerDecoder.msgType(), headerDecoder.msgTypeLength());
+            partition.putChars(
+                SENDER_COMP_ID_COLUMN, headerDecoder.senderCompID(), headerDecoder.senderCompIDLength());
+            partition.putChars(
+                TARGET_COMP_ID_COLUMN, headerDecoder.targetCompID(), headerDecoder.targetCompIDLength());
+            partition.putBytes(BODY_COLUMN, buffer, bodyOffset, bodyLength);
+            partition.rowCount++;
+
+            if (partition.rowCount >= blockRows)
+            {
+                writeBlock(partition);
+            }
+        }
+
+        private void writeBlock(final Partition partition)
+        {
+            if (partition.rowCount == 0)
+            {
+                return;
+            }
+
+            final ExpandableArrayBuffer blockBuffer = this.blockBuffer;
+            blockBuffer.putInt(0, MAGIC, LITTLE_ENDIAN);
+            blockBuffer.putInt(SIZE_OF_INT, VERSION, LITTLE_ENDIAN);
+            blockBuffer.putInt(2 * SIZE_OF_INT, partition.rowCount, LITTLE_ENDIAN);
+            blockBuffer.putInt(3 * SIZE_OF_INT, COLUMN_COUNT, LITTLE_ENDIAN);
+            int blockLength = BLOCK_HEADER_LENGTH;
+
+            for (int column = 0; column < COLUMN_COUNT; column++)
+            {
+                final int uncompressedLength = partition.columnLengths[column];
+                final int lengthsOffset = blockLength;
+                blockLength += COLUMN_HEADER_LENGTH;
+
+                deflater.reset();
+                deflater.setInput(partition.columns[column].byteArray(), 0, uncompressedLength);
+                deflater.finish();
+                while (!deflater.finished())
+                {
+                    final int compressedLength = deflater.deflate(deflateOutput);
+                    blockBuffer.putBytes(blockLength, deflateOutput, 0, compressedLength);
+                    blockLength += compressedLength;
+                }
+
+                blockBuffer.putInt(lengthsOffset, uncompressedLength, LITTLE_ENDIAN);
+                blockBuffer.putInt(
+                    lengthsOffset + SIZE_OF_INT, blockLength - lengthsOffset - COLUMN_HEADER_LENGTH, LITTLE_ENDIAN);
+            }
+
+            final File sessionDirectory = new File(outputDirectory, "session-" + partition.sessionId);
+            sessionDirectory.mkdirs();
+            final File file = new File(sessionDirectory, partition.bucketStartTimestamp + FILE_EXTENSION);
+            // Only append to files that have already been written by this export, not those of a previous one.
+            final boolean append = !partition.writtenBuckets.add(partition.bucketStartTimestamp);
+            try (FileOutputStream out = new FileOutputStream(file, append))
+            {
+                out.write(blockBuffer.byteArray(), 0, blockLength);
+            }
+            catch (final IOException e)
+            {
+                LangUtil.rethrowUnchecked(e);
+            }
+            finally
+            {
+                // The rows are dropped even if they couldn't be written, the error fails the export.
+                partition.reset();
+            }
+        }
+
+        public void onClose()
+        {
+            // Carry on writing the other partitions if one fails, so that as much as possible is exported.
+            Throwable error = null;
+            for (final Partition partition : sessionIdToPartition.values())
+            {
+                try
+                {
+                    writeBlock(partition);
+                }
+                catch (final Throwable throwable)
+                {
+                    if (error == null)
+                    {
+                        error = throwable;
+                    }
+                    else
+                    {
+                        error.addSuppressed(throwable);
+                    }
+                }
+            }
+            deflater.end();
+
+            if (error != null)
+            {
+                LangUtil.rethrowUnchecked(error);
+            }
+        }
+
+        public String roleName()
+        {
+            return roleName;
+        }
+    }
+
+    static final class Partition
+    {
+        final ExpandableArrayBuffer[] columns = new ExpandableArrayBuffer[COLUMN_COUNT];
+        final int[] columnLengths = new int[COLUMN_COUNT];
+        final LongHashSet writtenBuckets = new LongHashSet();
+        final long sessionId;
+
+        long bucketStartTimestamp;
+        int rowCount;
+
+        Partition(final long sessionId)
+        {
+            this.sessionId = sessionId;
+            for (int i = 0; i < COLUMN_COUNT; i++)
+            {
+                columns[i] = new ExpandableArrayBuffer(1024);
+            }
+        }
+
+        void putLong(final int column, final long value)
+        {
+            final int offset = columnLengths[column];
+            columns[column].putLong(offset, value, LITTLE_ENDIAN);
+            columnLengths[column] = offset + SIZE_OF_LONG;
+        }
+
+        void putInt(final int column, final int value)
+        {
+            final int offset = columnLengths[column];
+            columns[column].putInt(offset, value, LITTLE_ENDIAN);
+            columnLengths[column] = offset + SIZE_OF_INT;
+        }
+
+        void putBytes(final int column, final byte[] value, final int length)
+        {
+            final int offset = columnLengths[column];
+            final ExpandableArrayBuffer buffer = columns[column];
+            buffer.putInt(offset, length, LITTLE_ENDIAN);
+            buffer.putBytes(offset + SIZE_OF_INT, value, 0, length);
+            columnLengths[column] = offset + SIZE_OF_INT + length;
+        }
+
+        void putBytes(final int column, final DirectBuffer value, final int valueOffset, final int length)
+        {
+            final int offset = columnLengths[column];
+            final ExpandableArrayBuffer buffer = columns[column];
+            buffer.putInt(offset, length, LITTLE_ENDIAN);
+            buffer.putBytes(offset + SIZE_OF_INT, value, valueOffset, length);
+            columnLengths[column] = offset + SIZE_OF_INT + length;
+        }
+
+        void putChars(final int column, final char[] value, final int length)
+        {
+            final int offset = columnLengths[column];
+            final ExpandableArrayBuffer buffer = columns[column];
+            buffer.putInt(offset, length, LITTLE_ENDIAN);
+            for (int i = 0; i < length; i++)
+            {
+                buffer.putByte(offset + SIZE_OF_INT + i, (byte)value[i]);
+            }
+            columnLengths[column] = offset + SIZE_OF_INT + length;
+        }
+
+        void reset()
+        {
+            rowCount = 0;
+            Arrays.fill(columnLengths, 0);
+        }
+    }
+}
@@ -25,7 +25,10 @@ import org.agrona.collections.IntHashSet;
 import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.decoder.SessionHeaderDecoder;
 import uk.co.real_logic.artio.dictionary.FixDictionary;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.engine.ReplayIndexLayout;
 import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageStatus;
 
 import java.util.function.Predicate;
 
@@ -54,10 +57,15 @@ public final class FixArchivePrinter
     private String aeronDirectoryName = null;
     private String aeronChannel = null;
     private String offlineArchiveDirectoryName = null;
+    private String logFileDir = null;
+    private ReplayIndexLayout replayIndexLayout = EngineConfiguration.DEFAULT_REPLAY_INDEX_LAYOUT;
     private int archiveScannerStreamId = DEFAULT_ARCHIVE_SCANNER_STREAM;
     private FixMessagePredicate predicate = FixMessagePredicates.alwaysTrue();
     private boolean follow = false;
     private boolean ilink = false;
+    private boolean readSegmentFiles = false;
+    private String exportDirectoryName = null;
+    private int exportThreads = FixArchiveExporter.Configuration.DEFAULT_WORKER_THREADS;
     private Class<? extends FixDictionary> fixDictionaryType = null;
     private Predicate<SessionHeaderDecoder> headerPredicate = null;
 
@@ -66,11 +74,38 @@ public final class FixArchivePrinter
         parseArgs(args);
         validateArgs();
 
+        if (exportDirectoryName == null)
+        {
+            scan(FixArchivePrinter::print);
+        }
+        else
+        {
+            final FixArchiveExporter.Configuration configuration = new FixArchiveExporter.Configuration()
+                .outputDirectoryName(exportDirectoryName)
+                .fixDictionaryType(fixDictionaryType)
+                .workerThreads(exportThreads);
+
+            try (FixArchiveExporter exporter = new FixArchiveExporter(configuration))
+            {
+                scan(exporter);
+            }
+        }
+    }
+
+    private void scan(final FixMessageConsumer consumer)
+    {
+        if (readSegmentFiles)
+        {
+            scanSegmentFiles(offlineArchiveDirectoryName, queryStreamIds, predicate, headerPredicate,
+                fixDictionaryType, consumer);
+            return;
+        }
+
         final ArchivingMediaDriver archivingMediaDriver = startArchiverIfNeeded();
         try
         {
             scanArchive(aeronDirectoryName, aeronChannel, queryStreamIds, predicate, follow, headerPredicate,
-                archiveScannerStreamId, fixDictionaryType);
+                archiveScannerStreamId, fixDictionaryType, logFileDir, replayIndexLayout, ilink, consumer);
         }
         finally
         {
@@ -113,6 +148,10 @@ public final class FixArchivePrinter
                     ilink = true;
                     break;
 
+                case "read-segment-files":
+                    readSegmentFiles = true;
+                    break;
+
                 default:
                     requiredArgument(eqIndex);
             }
@@ -129,6 +168,14 @@ public final class FixArchivePrinter
                     predicate = to(parseLong(optionValue)).and(predicate);
                     break;
 
+                case "session-id":
+                    predicate = sessionOf(parseLong(optionValue)).and(predicate);
+                    break;
+
+                case "message-status":
+                    predicate = statusOf(MessageStatus.valueOf(optionValue)).and(predicate);
+                    break;
+
                 case "message-types":
                     final String[] messageTypes = optionValue.split(",");
                     predicate = messageTypeOf(messageTypes).and(predicate);
@@ -181,13 +228,29 @@ public final class FixArchivePrinter
                 case "fix-dictionary":
                     fixDictionaryType = FixDictionary.find(optionValue);
                     break;
+
+                case "log-file-dir":
+                    logFileDir = optionValue;
+                    break;
+
+                case "replay-index-layout":
+                    replayIndexLayout = ReplayIndexLayout.valueOf(optionValue);
+                    break;
+
+                case "export-dir":
+                    exportDirectoryName = optionValue;
+                    break;
+
+                case "export-threads":
+                    exportThreads = Integer.parseInt(optionValue);
+                    break;
             }
         }
     }
 
     private void validateArgs()
     {
-        if (fixDictionaryType == null && !ilink)
+        if (fixDictionaryType == null && (!ilink || exportDirectoryName != null))
         {
             fixDictionaryType = FixDictionary.findDefault();
         }
@@ -197,6 +260,12 @@ public final class FixArchivePrinter
             queryStreamIds.add(DEFAULT_OUTBOUND_LIBRARY_STREAM);
         }
 
+        if (readSegmentFiles)
+        {
+            requiredArgument(offlineArchiveDirectoryName, "offline-archive-dir");
+            return;
+        }
+
         requiredArgument(aeronDirectoryName, "aeron-dir-name");
         requiredArgument(aeronChannel, "aeron-channel");
     }
@@ -205,7 +274,8 @@ public final class FixArchivePrinter
     {
         if (eqIndex == -1)
         {
-            System.err.println("--ilink, --help and --follow are the only options that don't take a value");
+            System.err.println(
+                "--ilink, --help, --follow and --read-segment-files are the only options that don't take a value");
             printHelp();
             System.exit(-1);
         }
@@ -219,7 +289,11 @@ public final class FixArchivePrinter
         final boolean follow,
         final Predicate<SessionHeaderDecoder> headerPredicate,
         final int archiveScannerStreamId,
-        final Class<? extends FixDictionary> fixDictionaryType)
+        final Class<? extends FixDictionary> fixDictionaryType,
+        final String logFileDir,
+        final ReplayIndexLayout replayIndexLayout,
+        final boolean ilink,
+        final FixMessageConsumer consumer)
     {
         final FixDictionary fixDictionary = fixDictionaryType == null ? null : FixDictionary.of(fixDictionaryType);
         FixMessagePredicate predicate = otherPredicate;
@@ -230,17 +304,61 @@ public final class FixArchivePrinter
 
         final FixArchiveScanner.Configuration configuration = new FixArchiveScanner.Configuration()
             .aeronDirectoryName(aeronDirectoryName)
-            .idleStrategy(CommonConfiguration.backoffIdleStrategy());
+            .idleStrategy(CommonConfiguration.backoffIdleStrategy())
+            .logFileDir(logFileDir)
+            .replayIndexLayout(replayIndexLayout);
 
         try (FixArchiveScanner scanner = new FixArchiveScanner(configuration))
+        {
+            if (ilink || logFileDir == null)
+            {
+                scanner.scan(
+                    aeronChannel,
+                    queryStreamIds,
+                    filterBy(consumer, predicate),
+                    new LazyILinkMessagePrinter(DEFAULT_INBOUND_LIBRARY_STREAM),
+                    follow,
+                    archiveScannerStreamId);
+            }
+            else
+            {
+                // Lets the scanner use the replay and time indices to only replay the parts of the archive that hold
+                // the queried sessions' messages and time range, the indices don't cover iLink3 messages.
+                scanner.scan(
+                    aeronChannel,
+                    queryStreamIds,
+                    predicate,
+                    consumer,
+                    follow,
+                    archiveScannerStreamId);
+            }
+        }
+    }
+
+    private static void scanSegmentFiles(
+        final String archiveDirectoryName,
+        final IntHashSet queryStreamIds,
+        final FixMessagePredicate otherPredicate,
+        final Predicate<SessionHeaderDecoder> headerPredicate,
+        final Class<? extends FixDictionary> fixDictionaryType,
+        final FixMessageConsumer consumer)
+    {
+        final FixDictionary fixDictionary = fixDictionaryType == null ? null : FixDictionary.of(fixDictionaryType);
+        FixMessagePredicate predicate = otherPredicate;
+        if (headerPredicate != null)
+        {
+            predicate = whereHeader(fixDictionary, headerPredicate).and(predicate);
+        }
+
+        final OfflineFixArchiveScanner.Configuration configuration = new OfflineFixArchiveScanner.Configuration()
+            .archiveDirectoryName(archiveDirectoryName);
+
+        try (OfflineFixArchiveScanner scanner = new OfflineFixArchiveScanner(configuration))
         {
             scanner.scan(
-                aeronChannel,
                 queryStreamIds,
-                filterBy(FixArchivePrinter::print, predicate),
-                new LazyILinkMessagePrinter(DEFAULT_INBOUND_LIBRARY_STREAM),
-                follow,
-                archiveScannerStreamId);
+                filterBy(consumer, predicate),
+                new LazyILinkMessagePrinter(DEFAULT_INBOUND_LIBRARY_STREAM));
         }
     }
 
@@ -275,6 +393,12 @@ public final class FixArchivePrinter
             " directory of a shutdown Artio instance. It starts a media driver and proceeds to inspect the provided " +
             "aeron archive directory",
             false);
+        printOption(
+            "read-segment-files",
+            "Used with --offline-archive-dir to read the archive's recording segment files directly, rather than " +
+            "starting a media driver and archive to replay them. Recordings are selected by --query-stream-id alone " +
+            "and --aeron-dir-name and --aeron-channel aren't needed",
+            false);
         printOption(
             "fix-dictionary",
             "The class name of the Fix Dictionary to use, default is used if this is not provided",
@@ -286,11 +410,42 @@ public final class FixArchivePrinter
             false);
         printOption(
             "from",
-            "Time in precision of CommonConfiguration.clock() that messages are not earlier than",
+            "Time in precision of CommonConfiguration.clock() that messages are not earlier than. If --log-file-dir " +
+            "is also provided then the time index is used to skip reading earlier parts of the archive",
             false);
         printOption(
             "to",
-            "Time in precision of CommonConfiguration.clock() that messages are not later than",
+            "Time in precision of CommonConfiguration.clock() that messages are not later than. If --log-file-dir " +
+            "is also provided then the time index is used to skip reading later parts of the archive",
+            false);
+        printOption(
+            "session-id",
+            "Only print messages of the session with this surrogate session id. If --log-file-dir and " +
+            "--message-status=OK are also provided then the replay index is used to only read the parts of the " +
+            "archive holding the session's messages. The replay index doesn't hold messages with other statuses",
+            false);
+        printOption(
+            "message-status",
+            "Only print messages with this MessageStatus, eg OK or INVALID",
+            false);
+        printOption(
+            "log-file-dir",
+            "The log file directory of the engine, used to find the replay and time index files",
+            false);
+        printOption(
+            "replay-index-layout",
+            "The ReplayIndexLayout that the engine was configured with, defaults to " +
+            EngineConfiguration.DEFAULT_REPLAY_INDEX_LAYOUT,
+            false);
+        printOption(
+            "export-dir",
+            "Rather than printing messages, export them to compressed column oriented files in this directory, " +
+            "partitioned by session and hour. The files can be read with FixArchiveExportReader",
+            false);
+        printOption(
+            "export-threads",
+            "The number of threads that export messages in parallel, defaults to " +
+            FixArchiveExporter.Configuration.DEFAULT_WORKER_THREADS,
             false);
         printOption(
             "message-types",
@@ -20,17 +20,25 @@ import io.aeron.FragmentAssembler;
 import io.aeron.Image;
 import io.aeron.Subscription;
 import io.aeron.archive.client.AeronArchive;
+import org.agrona.LangUtil;
 import org.agrona.collections.IntHashSet;
+import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.IdleStrategy;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.engine.ReplayIndexLayout;
 import uk.co.real_logic.artio.ilink.ILinkMessageConsumer;
 
 import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Comparator;
 import java.util.List;
 
 import static io.aeron.CommonContext.IPC_CHANNEL;
+import static io.aeron.archive.client.AeronArchive.NULL_LENGTH;
 import static io.aeron.archive.client.AeronArchive.NULL_POSITION;
 import static uk.co.real_logic.artio.engine.logger.FixMessageLogger.Configuration.DEFAULT_COMPACTION_SIZE;
+import static uk.co.real_logic.artio.engine.logger.FixMessagePredicates.filterBy;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.replayIndexFile;
 
 /**
  * Scan the archive for fix messages. Can be combined with predicates to create rich queries.
@@ -44,17 +52,24 @@ public class FixArchiveScanner implements AutoCloseable
     private static final int FRAGMENT_LIMIT = 10;
 
     private static final ReversePositionComparator BY_REVERSE_POSITION = new ReversePositionComparator();
+    private static final Comparator<RecordingRange> BY_RECORDING_AND_POSITION = Comparator
+        .comparingLong((RecordingRange range) -> range.recordingId)
+        .thenComparingLong(range -> range.position);
 
     private final Aeron aeron;
     private final AeronArchive aeronArchive;
     private final IdleStrategy idleStrategy;
     private final int compactionSize;
+    private final String logFileDir;
+    private final ReplayIndexLayout replayIndexLayout;
 
     public static class Configuration
     {
         private String aeronDirectoryName;
         private IdleStrategy idleStrategy;
         private int compactionSize = DEFAULT_COMPACTION_SIZE;
+        private String logFileDir;
+        private ReplayIndexLayout replayIndexLayout = EngineConfiguration.DEFAULT_REPLAY_INDEX_LAYOUT;
 
         public Configuration()
         {
@@ -92,12 +107,54 @@ public class FixArchiveScanner implements AutoCloseable
         {
             return compactionSize;
         }
+
+        /**
+         * Sets the log file directory of the engine that wrote the archive. When set, scans with a predicate that
+         * only matches messages of particular sessions use the engine's replay index files to only replay the parts
+         * of the archive that hold those sessions' messages, and scans with a predicate that only matches messages
+         * within a time range use the engine's time index files to skip the parts of the archive outside of it.
+         *
+         * @param logFileDir the log file directory of the engine that wrote the archive.
+         * @return this
+         * @see EngineConfiguration#logFileDir(String)
+         */
+        public Configuration logFileDir(final String logFileDir)
+        {
+            this.logFileDir = logFileDir;
+            return this;
+        }
+
+        public String logFileDir()
+        {
+            return logFileDir;
+        }
+
+        /**
+         * Sets the layout of the replay index files in the {@link #logFileDir(String)}, this should be the same as
+         * the engine was configured with.
+         *
+         * @param replayIndexLayout the layout of the replay index files.
+         * @return this
+         * @see EngineConfiguration#replayIndexLayout(ReplayIndexLayout)
+         */
+        public Configuration replayIndexLayout(final ReplayIndexLayout replayIndexLayout)
+        {
+            this.replayIndexLayout = replayIndexLayout;
+            return this;
+        }
+
+        public ReplayIndexLayout replayIndexLayout()
+        {
+            return replayIndexLayout;
+        }
     }
 
     public FixArchiveScanner(final Configuration configuration)
     {
         this.idleStrategy = configuration.idleStrategy();
         compactionSize = configuration.compactionSize;
+        logFileDir = configuration.logFileDir;
+        replayIndexLayout = configuration.replayIndexLayout;
 
         final Aeron.Context aeronContext = new Aeron.Context().aeronDirectoryName(configuration.aeronDirectoryName());
         aeron = Aeron.connect(aeronContext);
@@ -134,12 +191,85 @@ public class FixArchiveScanner implements AutoCloseable
         final ILinkMessageConsumer iLinkHandler,
         final boolean follow,
         final int archiveScannerStreamId)
+    {
+        scan(
+            aeronChannel,
+            queryStreamIds,
+            fixHandler,
+            iLinkHandler,
+            follow,
+            archiveScannerStreamId,
+            null,
+            Long.MIN_VALUE,
+            Long.MAX_VALUE);
+    }
+
+    /**
+     * Scan the archive for fix messages that match a predicate.
+     *
+     * If the predicate only matches messages of particular sessions, see {@link FixMessagePredicate#sessionIds()},
+     * and a {@link Configuration#logFileDir(String)} has been configured then the replay index is used to only replay
+     * the parts of the archive that hold those sessions' messages, rather than every recording. The replay index only
+     * holds messages whose status is {@link uk.co.real_logic.artio.messages.MessageStatus#OK}, so this is only done
+     * when the predicate can't match any other messages, see {@link FixMessagePredicate#okStatusOnly()}, for example
+     * by combining it with {@link FixMessagePredicates#statusOf}. This falls back to replaying every recording of a
+     * stream when following the archive or if the replay index no longer holds all of a session's messages.
+     *
+     * Similarly if the predicate only matches messages within a time range, see
+     * {@link FixMessagePredicate#beginTimestampInclusive()} and {@link FixMessagePredicate#endTimestampExclusive()},
+     * and a {@link Configuration#logFileDir(String)} has been configured then the time index is used to skip the parts
+     * of each recording that only hold messages outside of that range.
+     *
+     * @param aeronChannel the channel that the archive recorded.
+     * @param queryStreamIds the stream ids to scan.
+     * @param predicate the predicate to filter messages with.
+     * @param fixHandler the handler that receives the messages that match the predicate.
+     * @param follow true to keep following the archive once the existing messages have been scanned.
+     * @param archiveScannerStreamId the stream id to replay the archive to.
+     */
+    public void scan(
+        final String aeronChannel,
+        final IntHashSet queryStreamIds,
+        final FixMessagePredicate predicate,
+        final FixMessageConsumer fixHandler,
+        final boolean follow,
+        final int archiveScannerStreamId)
+    {
+        scan(
+            aeronChannel,
+            queryStreamIds,
+            filterBy(fixHandler, predicate),
+            null,
+            follow,
+            archiveScannerStreamId,
+            predicate.okStatusOnly() ? predicate.sessionIds() : null,
+            predicate.beginTimestampInclusive(),
+            predicate.endTimestampExclusive());
+    }
+
+    private void scan(
+        final String aeronChannel,
+        final IntHashSet queryStreamIds,
+        final FixMessageConsumer fixHandler,
+        final ILinkMessageConsumer iLinkHandler,
+        final boolean follow,
+        final int archiveScannerStreamId,
+        final LongHashSet sessionIds,
+        final long beginTimestampInclusive,
+        final long endTimestampExclusive)
     {
         try (Subscription replaySubscription = aeron.addSubscription(IPC_CHANNEL, archiveScannerStreamId))
         {
             final RecordingPoller[] pollers = queryStreamIds
                 .stream()
-                .map(id -> makePoller(id, replaySubscription, follow, aeronChannel))
+                .map(id -> makePoller(
+                    id,
+                    replaySubscription,
+                    follow,
+                    aeronChannel,
+                    sessionIds,
+                    beginTimestampInclusive,
+                    endTimestampExclusive))
                 .toArray(RecordingPoller[]::new);
 
             final StreamTimestampZipper timestampZipper = new StreamTimestampZipper(
@@ -182,8 +312,29 @@ public class FixArchiveScanner implements AutoCloseable
         final int queryStreamId,
         final Subscription replaySubscription,
         final boolean follow,
-        final String aeronChannel)
+        final String aeronChannel,
+        final LongHashSet sessionIds,
+        final long beginTimestampInclusive,
+        final long endTimestampExclusive)
     {
+        final boolean hasTimeRange = logFileDir != null &&
+            (beginTimestampInclusive != Long.MIN_VALUE || endTimestampExclusive != Long.MAX_VALUE);
+
+        if (sessionIds != null && !follow && logFileDir != null)
+        {
+            final List<ArchiveLocation> indexedLocations = indexedArchiveLocations(
+                queryStreamId, sessionIds, replaySubscription.streamId());
+            if (indexedLocations != null)
+            {
+                if (hasTimeRange)
+                {
+                    narrowToTimeRange(indexedLocations, queryStreamId, beginTimestampInclusive, endTimestampExclusive);
+                }
+
+                return new RecordingPoller(replaySubscription, queryStreamId, indexedLocations);
+            }
+        }
+
         final List<ArchiveLocation> archiveLocations = new ArrayList<>();
 
         aeronArchive.listRecordingsForUri(
@@ -222,11 +373,110 @@ public class FixArchiveScanner implements AutoCloseable
             }
         }
 
+        if (hasTimeRange)
+        {
+            narrowToTimeRange(archiveLocations, queryStreamId, beginTimestampInclusive, endTimestampExclusive);
+        }
+
         archiveLocations.sort(BY_REVERSE_POSITION);
 
         return new RecordingPoller(replaySubscription, queryStreamId, archiveLocations);
     }
 
+    private void narrowToTimeRange(
+        final List<ArchiveLocation> archiveLocations,
+        final int queryStreamId,
+        final long beginTimestampInclusive,
+        final long endTimestampExclusive)
+    {
+        final TimeIndexReader timeIndexReader = new TimeIndexReader(logFileDir, queryStreamId);
+        archiveLocations.removeIf(location ->
+        {
+            final long recordingId = location.recordingId;
+            if (beginTimestampInclusive != Long.MIN_VALUE)
+            {
+                final long startPosition = timeIndexReader.findStartPosition(recordingId, beginTimestampInclusive);
+                if (startPosition != NULL_POSITION && startPosition > location.startPosition)
+                {
+                    location.startPosition = startPosition;
+                }
+            }
+
+            if (endTimestampExclusive != Long.MAX_VALUE && location.stopPosition != NULL_POSITION)
+            {
+                final long stopPosition = timeIndexReader.findStopPosition(recordingId, endTimestampExclusive);
+                if (stopPosition != NULL_POSITION && stopPosition < location.stopPosition)
+                {
+                    location.stopPosition = stopPosition;
+                }
+            }
+
+            return location.stopPosition != NULL_POSITION && location.startPosition >= location.stopPosition;
+        });
+    }
+
+    // Returns null if the replay index doesn't hold all of the messages of the sessions in this stream.
+    private List<ArchiveLocation> indexedArchiveLocations(
+        final int queryStreamId, final LongHashSet sessionIds, final int archiveScannerStreamId)
+    {
+        final List<RecordingRange> ranges = new ArrayList<>();
+        try (ReplayQuery replayQuery = new ReplayQuery(
+            logFileDir,
+            1,
+            1,
+            LoggerUtil::mapExistingFile,
+            queryStreamId,
+            idleStrategy,
+            aeronArchive,
+            LangUtil::rethrowUnchecked,
+            archiveScannerStreamId,
+            replayIndexLayout))
+        {
+            final LongHashSet.LongIterator it = sessionIds.iterator();
+            while (it.hasNext())
+            {
+                final long sessionId = it.nextValue();
+                if (replayIndexLayout == ReplayIndexLayout.FILE_PER_SESSION &&
+                    !replayIndexFile(logFileDir, sessionId, queryStreamId).exists())
+                {
+                    // No messages with an OK status for this session on this stream
+                    continue;
+                }
+
+                final List<RecordingRange> sessionRanges = replayQuery.queryRecordingRanges(sessionId);
+                if (sessionRanges == null)
+                {
+                    return null;
+                }
+                ranges.addAll(sessionRanges);
+            }
+        }
+
+        // Merge the overlapping ranges of different sessions, so that no message is replayed twice.
+        ranges.sort(BY_RECORDING_AND_POSITION);
+        final List<ArchiveLocation> archiveLocations = new ArrayList<>();
+        ArchiveLocation lastLocation = null;
+        for (final RecordingRange range : ranges)
+        {
+            final long stopPosition = range.position + range.length;
+            if (lastLocation != null && lastLocation.recordingId == range.recordingId &&
+                range.position <= lastLocation.stopPosition)
+            {
+                lastLocation.stopPosition = Math.max(lastLocation.stopPosition, stopPosition);
+            }
+            else
+            {
+                lastLocation = new ArchiveLocation(range.recordingId, range.position, stopPosition);
+                archiveLocations.add(lastLocation);
+            }
+        }
+
+        // Locations are polled from the end of the list
+        Collections.reverse(archiveLocations);
+
+        return archiveLocations;
+    }
+
     static class ReversePositionComparator implements Comparator<ArchiveLocation>
     {
         public int compare(final ArchiveLocation archiveLocation1, final ArchiveLocation archiveLocation2)
@@ -244,8 +494,8 @@ public class FixArchiveScanner implements AutoCloseable
     static class ArchiveLocation
     {
         final long recordingId;
-        final long startPosition;
 
+        long startPosition;
         long stopPosition;
 
         ArchiveLocation(
@@ -263,7 +513,8 @@ public class FixArchiveScanner implements AutoCloseable
 
         public long length()
         {
-            return startPosition == NULL_POSITION ? NULL_POSITION : stopPosition - startPosition;
+            return startPosition == NULL_POSITION || stopPosition == NULL_POSITION ?
+                NULL_LENGTH : stopPosition - startPosition;
         }
 
         public String toString()
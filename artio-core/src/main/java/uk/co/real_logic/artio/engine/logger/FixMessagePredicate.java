@@ -15,7 +15,9 @@
  */
 package uk.co.real_logic.artio.engine.logger;
 
+import org.agrona.collections.LongHashSet;
 import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageStatus;
 
 /**
  * A criteria for filtering fix messages.
@@ -27,37 +29,131 @@ public interface FixMessagePredicate
 {
     boolean test(FixMessageDecoder message);
 
+    /**
+     * Get the surrogate session ids of the only sessions whose messages can match this predicate. This lets the
+     * {@link FixArchiveScanner} use the replay index to only read the parts of the archive that hold these sessions'
+     * messages, so long as the predicate also only matches messages whose status is OK, see {@link #okStatusOnly()}.
+     *
+     * @return the session ids, or null if messages of any session can match.
+     */
+    default LongHashSet sessionIds()
+    {
+        return null;
+    }
+
+    /**
+     * Check whether this predicate only matches messages whose status is {@link MessageStatus#OK}. The replay index
+     * doesn't hold messages with any other status, such as invalid messages or rejected logons, so the
+     * {@link FixArchiveScanner} only uses it to find the messages of the {@link #sessionIds()} when this is true.
+     *
+     * @return true if only messages whose status is OK can match, false otherwise.
+     */
+    default boolean okStatusOnly()
+    {
+        return false;
+    }
+
+    /**
+     * Get the earliest timestamp of a message that can match this predicate. This lets the {@link FixArchiveScanner}
+     * use the time index to skip the parts of the archive that only hold earlier messages.
+     *
+     * @return the timestamp, or {@link Long#MIN_VALUE} if messages of any time can match.
+     */
+    default long beginTimestampInclusive()
+    {
+        return Long.MIN_VALUE;
+    }
+
+    /**
+     * Get the timestamp that messages which can match this predicate are before. This lets the
+     * {@link FixArchiveScanner} use the time index to skip the parts of the archive that only hold later messages.
+     *
+     * @return the timestamp, or {@link Long#MAX_VALUE} if messages of any time can match.
+     */
+    default long endTimestampExclusive()
+    {
+        return Long.MAX_VALUE;
+    }
+
     default FixMessagePredicate and(final FixMessagePredicate other)
     {
-        return (message) ->
+        final FixMessagePredicate predicate = this;
+        return new FixMessagePredicate()
         {
-            final int limit = message.limit();
+            public boolean test(final FixMessageDecoder message)
+            {
+                final int limit = message.limit();
+
+                if (!predicate.test(message))
+                {
+                    return false;
+                }
+
+                message.limit(limit);
+
+                return other.test(message);
+            }
+
+            public LongHashSet sessionIds()
+            {
+                return FixMessagePredicates.intersectSessionIds(predicate.sessionIds(), other.sessionIds());
+            }
 
-            if (!test(message))
+            public boolean okStatusOnly()
             {
-                return false;
+                return predicate.okStatusOnly() || other.okStatusOnly();
             }
 
-            message.limit(limit);
+            public long beginTimestampInclusive()
+            {
+                return Math.max(predicate.beginTimestampInclusive(), other.beginTimestampInclusive());
+            }
 
-            return other.test(message);
+            public long endTimestampExclusive()
+            {
+                return Math.min(predicate.endTimestampExclusive(), other.endTimestampExclusive());
+            }
         };
     }
 
     default FixMessagePredicate or(final FixMessagePredicate other)
     {
-        return (message) ->
+        final FixMessagePredicate predicate = this;
+        return new FixMessagePredicate()
         {
-            final int limit = message.limit();
+            public boolean test(final FixMessageDecoder message)
+            {
+                final int limit = message.limit();
+
+                if (predicate.test(message))
+                {
+                    return true;
+                }
+
+                message.limit(limit);
 
-            if (test(message))
+                return other.test(message);
+            }
+
+            public LongHashSet sessionIds()
             {
-                return true;
+                return FixMessagePredicates.unionSessionIds(predicate.sessionIds(), other.sessionIds());
             }
 
-            message.limit(limit);
+            public boolean okStatusOnly()
+            {
+                return predicate.okStatusOnly() && other.okStatusOnly();
+            }
 
-            return other.test(message);
+            public long beginTimestampInclusive()
+            {
+                return Math.min(predicate.beginTimestampInclusive(), other.beginTimestampInclusive());
+            }
+
+            public long endTimestampExclusive()
+            {
+                return Math.max(predicate.endTimestampExclusive(), other.endTimestampExclusive());
+            }
         };
     }
 }
@@ -21,6 +21,8 @@ import uk.co.real_logic.artio.decoder.SessionHeaderDecoder;
 import uk.co.real_logic.artio.dictionary.FixDictionary;
 import uk.co.real_logic.artio.dictionary.generation.CodecUtil;
 import uk.co.real_logic.artio.engine.framer.MessageTypeExtractor;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageStatus;
 import uk.co.real_logic.artio.util.AsciiBuffer;
 import uk.co.real_logic.artio.util.BufferAsciiSequence;
 import uk.co.real_logic.artio.util.MessageTypeEncoding;
@@ -90,7 +92,18 @@ public final class FixMessagePredicates
      */
     public static FixMessagePredicate from(final long beginTimestampInclusive)
     {
-        return (message) -> message.timestamp() >= beginTimestampInclusive;
+        return new FixMessagePredicate()
+        {
+            public boolean test(final FixMessageDecoder message)
+            {
+                return message.timestamp() >= beginTimestampInclusive;
+            }
+
+            public long beginTimestampInclusive()
+            {
+                return beginTimestampInclusive;
+            }
+        };
     }
 
     /**
@@ -103,7 +116,18 @@ public final class FixMessagePredicates
      */
     public static FixMessagePredicate to(final long endTimestampExclusive)
     {
-        return (message) -> message.timestamp() < endTimestampExclusive;
+        return new FixMessagePredicate()
+        {
+            public boolean test(final FixMessageDecoder message)
+            {
+                return message.timestamp() < endTimestampExclusive;
+            }
+
+            public long endTimestampExclusive()
+            {
+                return endTimestampExclusive;
+            }
+        };
     }
 
     /**
@@ -239,7 +263,81 @@ public final class FixMessagePredicates
      */
     public static FixMessagePredicate sessionOf(final long sessionId)
     {
-        return (message) -> message.session() == sessionId;
+        final LongHashSet sessionIds = new LongHashSet();
+        sessionIds.add(sessionId);
+        return new FixMessagePredicate()
+        {
+            public boolean test(final FixMessageDecoder message)
+            {
+                return message.session() == sessionId;
+            }
+
+            public LongHashSet sessionIds()
+            {
+                return sessionIds;
+            }
+        };
+    }
+
+    /**
+     * Filter the fix message by checking its status is equal to the given parameter.
+     *
+     * @param status the status of the messages to match.
+     * @return the resulting predicate.
+     */
+    public static FixMessagePredicate statusOf(final MessageStatus status)
+    {
+        final boolean okStatusOnly = status == MessageStatus.OK;
+        return new FixMessagePredicate()
+        {
+            public boolean test(final FixMessageDecoder message)
+            {
+                return message.status() == status;
+            }
+
+            public boolean okStatusOnly()
+            {
+                return okStatusOnly;
+            }
+        };
+    }
+
+    static LongHashSet intersectSessionIds(final LongHashSet sessionIds, final LongHashSet otherSessionIds)
+    {
+        if (sessionIds == null)
+        {
+            return otherSessionIds;
+        }
+
+        if (otherSessionIds == null)
+        {
+            return sessionIds;
+        }
+
+        final LongHashSet intersection = new LongHashSet();
+        final LongHashSet.LongIterator it = sessionIds.iterator();
+        while (it.hasNext())
+        {
+            final long sessionId = it.nextValue();
+            if (otherSessionIds.contains(sessionId))
+            {
+                intersection.add(sessionId);
+            }
+        }
+        return intersection;
+    }
+
+    static LongHashSet unionSessionIds(final LongHashSet sessionIds, final LongHashSet otherSessionIds)
+    {
+        if (sessionIds == null || otherSessionIds == null)
+        {
+            return null;
+        }
+
+        final LongHashSet union = new LongHashSet();
+        union.addAll(sessionIds);
+        union.addAll(otherSessionIds);
+        return union;
     }
 
     public static FixMessagePredicate bodyMatches(final Pattern pattern)
@@ -50,6 +50,12 @@ class FixReplayerCodecs
     }
 
     GapFillEncoder makeGapFillEncoder()
+    {
+        return makeGapFillEncoder(timestampEncoder);
+    }
+
+    // The timestamp encoder is used when encoding so must be owned by the thread that encodes gap fills
+    GapFillEncoder makeGapFillEncoder(final UtcTimestampEncoder timestampEncoder)
     {
         return new GapFillEncoder(dictionary.makeSequenceResetEncoder(), timestampEncoder);
     }
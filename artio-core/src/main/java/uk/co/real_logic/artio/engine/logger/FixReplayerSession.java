@@ -21,6 +21,7 @@ import io.aeron.logbuffer.Header;
 import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
 import org.agrona.MutableDirectBuffer;
+import org.agrona.collections.IntHashSet;
 import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.EpochNanoClock;
 import org.agrona.concurrent.IdleStrategy;
@@ -44,6 +45,7 @@ import static uk.co.real_logic.artio.LogTag.REPLAY_ATTEMPT;
 import static uk.co.real_logic.artio.dictionary.SessionConstants.SEQUENCE_RESET_MESSAGE_TYPE;
 import static uk.co.real_logic.artio.engine.FixEngine.ENGINE_LIBRARY_ID;
 import static uk.co.real_logic.artio.engine.logger.Replayer.MESSAGE_FRAME_BLOCK_LENGTH;
+import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
 import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataHeaderLength;
 import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataSinceVersion;
 
@@ -59,17 +61,13 @@ class FixReplayerSession extends ReplayerSession
         SEND_COMPLETE_MESSAGE
     }
 
-    // Safe to share between multiple instances due to single threaded nature of the replayer
-    private static final FixMessageEncoder FIX_MESSAGE_ENCODER = new FixMessageEncoder();
-    private static final FixMessageDecoder FIX_MESSAGE = new FixMessageDecoder();
-    private static final AsciiBuffer ASCII_BUFFER = new MutableAsciiBuffer();
-
     private final GapFillEncoder gapFillEncoder;
 
     private final PossDupEnabler possDupEnabler;
     private final String message;
     private final ReplayHandler replayHandler;
     private final LongHashSet gapFillMessageTypes;
+    private final IntHashSet plannedGapFillMessageTypes;
     private final ErrorHandler errorHandler;
     private final SequenceNumberExtractor sequenceNumberExtractor;
     private final AtomicCounter bytesInBuffer;
@@ -87,6 +85,7 @@ class FixReplayerSession extends ReplayerSession
         final ReplayHandler replayHandler,
         final int maxClaimAttempts,
         final LongHashSet gapFillMessageTypes,
+        final IntHashSet plannedGapFillMessageTypes,
         final ExclusivePublication publication,
         final EpochNanoClock clock,
         final int beginSeqNo,
@@ -101,12 +100,13 @@ class FixReplayerSession extends ReplayerSession
         final AtomicCounter bytesInBuffer,
         final int maxBytesInBuffer,
         final UtcTimestampEncoder utcTimestampEncoder,
-        final Replayer replayer)
+        final ReplayerWorker replayer)
     {
         super(connectionId, bufferClaim, idleStrategy, maxClaimAttempts, publication, replayQuery, beginSeqNo, endSeqNo,
             sessionId, sequenceIndex, replayer);
         this.replayHandler = replayHandler;
         this.gapFillMessageTypes = gapFillMessageTypes;
+        this.plannedGapFillMessageTypes = plannedGapFillMessageTypes;
         this.message = message;
         this.errorHandler = errorHandler;
         this.gapFillEncoder = gapFillEncoder;
@@ -131,6 +131,27 @@ class FixReplayerSession extends ReplayerSession
         state = State.REPLAYING;
     }
 
+    // Plans the replay from the message types in the index, so that runs of messages that would be gap filled
+    // needn't be read from the archive at all.
+    void query()
+    {
+        if (plannedGapFillMessageTypes == null)
+        {
+            super.query();
+            return;
+        }
+
+        replayOperation = replayQuery.query(
+            sessionId,
+            beginSeqNo,
+            sequenceIndex,
+            endSeqNo,
+            sequenceIndex,
+            REPLAY,
+            messageTracker(),
+            plannedGapFillMessageTypes);
+    }
+
     MessageTracker messageTracker()
     {
         return new FixMessageTracker(REPLAY, this, sessionId);
@@ -139,7 +160,7 @@ class FixReplayerSession extends ReplayerSession
     private void onPreCommit(final MutableDirectBuffer buffer, final int offset)
     {
         final int frameOffset = offset + MessageHeaderEncoder.ENCODED_LENGTH;
-        FIX_MESSAGE_ENCODER
+        replayer.fixMessageEncoder
             .wrap(buffer, frameOffset)
             .connection(connectionId);
     }
@@ -164,29 +185,31 @@ class FixReplayerSession extends ReplayerSession
         final int offset = srcOffset + MessageHeaderDecoder.ENCODED_LENGTH;
         final int version = replayer.messageHeaderDecoder.version();
 
-        FIX_MESSAGE.wrap(
+        final FixMessageDecoder fixMessage = replayer.fixMessageDecoder;
+        fixMessage.wrap(
             srcBuffer,
             offset,
             actingBlockLength,
             version);
 
         final int metaDataAdjustment = version >= metaDataSinceVersion() ?
-            metaDataHeaderLength() + FIX_MESSAGE.metaDataLength() : 0;
+            metaDataHeaderLength() + fixMessage.metaDataLength() : 0;
         final int messageFrameBlockLength = MESSAGE_FRAME_BLOCK_LENGTH + metaDataAdjustment;
         final int messageOffset = srcOffset + messageFrameBlockLength;
         final int messageLength = srcLength - messageFrameBlockLength;
 
         final int msgSeqNum = sequenceNumberExtractor.extract(srcBuffer, messageOffset, messageLength);
-        final long messageType = MessageTypeExtractor.getMessageType(FIX_MESSAGE);
+        final long messageType = MessageTypeExtractor.getMessageType(fixMessage);
 
-        ASCII_BUFFER.wrap(srcBuffer);
+        final AsciiBuffer asciiBuffer = replayer.asciiBuffer;
+        asciiBuffer.wrap(srcBuffer);
         replayHandler.onReplayedMessage(
-            ASCII_BUFFER,
+            asciiBuffer,
             messageOffset,
             messageLength,
-            FIX_MESSAGE.libraryId(),
-            FIX_MESSAGE.session(),
-            FIX_MESSAGE.sequenceIndex(),
+            fixMessage.libraryId(),
+            fixMessage.session(),
+            fixMessage.sequenceIndex(),
             messageType);
 
         if (gapFillMessageTypes.contains(messageType))
@@ -201,6 +224,12 @@ class FixReplayerSession extends ReplayerSession
         }
         else
         {
+            // Messages that the query skipped are gap filled just like the ones that were replayed
+            if (beginGapFillSeqNum == NONE && plannedGapFillMessageTypes != null && msgSeqNum > lastSeqNo + 1)
+            {
+                beginGapFillSeqNum = lastSeqNo + 1;
+            }
+
             if (beginGapFillSeqNum != NONE)
             {
                 sendGapFill(beginGapFillSeqNum, msgSeqNum);
@@ -234,7 +263,7 @@ class FixReplayerSession extends ReplayerSession
             final MutableDirectBuffer destBuffer = bufferClaim.buffer();
             final MutableAsciiBuffer gapFillBuffer = gapFillEncoder.buffer();
 
-            FIX_MESSAGE_ENCODER
+            replayer.fixMessageEncoder
                 .wrapAndApplyHeader(destBuffer, destOffset, replayer.messageHeaderEncoder)
                 .libraryId(ENGINE_LIBRARY_ID)
                 .messageType(SEQUENCE_RESET_MESSAGE_TYPE)
@@ -304,7 +333,14 @@ class FixReplayerSession extends ReplayerSession
     private boolean completeReplay()
     {
         // Load state needed to complete the replay
-        final int replayedMessages = replayOperation.replayedMessages();
+        final int skippedMessages = replayOperation.skippedMessages();
+        final int replayedMessages = replayOperation.replayedMessages() + skippedMessages;
+
+        if (beginGapFillSeqNum == NONE && skippedMessages > 0 && endSeqNo != MOST_RECENT_MESSAGE &&
+            lastSeqNo < endSeqNo)
+        {
+            beginGapFillSeqNum = lastSeqNo + 1;
+        }
 
         // If the last N messages were admin messages then we need to send a gapfill
         // after the replay query has run.
@@ -363,6 +399,7 @@ class FixReplayerSession extends ReplayerSession
         return "FixReplayerSession{" +
             "message='" + message + '\'' +
             ", gapFillMessageTypes=" + gapFillMessageTypes +
+            ", plannedGapFillMessageTypes=" + plannedGapFillMessageTypes +
             ", bytesInBuffer=" + bytesInBuffer +
             ", maxBytesInBuffer=" + maxBytesInBuffer +
             ", lastSeqNo=" + lastSeqNo +
@@ -68,7 +68,7 @@ public class ILinkReplayerSession extends ReplayerSession
         final int beginSeqNo,
         final int endSeqNo,
         final long sessionId,
-        final Replayer replayer,
+        final ReplayerWorker replayer,
         final IntHashSet gapfillOnRetransmitILinkTemplateIds,
         final ILinkMessageEncoder iLinkMessageEncoder,
         final AbstractILink3Parser iLink3Parser,
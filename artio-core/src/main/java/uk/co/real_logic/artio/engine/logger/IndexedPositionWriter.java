@@ -172,6 +172,7 @@ class IndexedPositionWriter
     private void putPosition(final long position, final AtomicBuffer buffer, final int offset)
     {
         buffer.putLongVolatile(offset + POSITION_OFFSET, position);
+        checksumFramer.markDirty(offset);
     }
 
     public void trackPosition(final int aeronSessionId, final long endPosition)
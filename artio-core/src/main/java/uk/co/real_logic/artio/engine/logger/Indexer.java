@@ -25,9 +25,12 @@ import io.aeron.logbuffer.Header;
 import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
 import org.agrona.collections.CollectionUtil;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongArrayList;
 import org.agrona.concurrent.Agent;
 import org.agrona.concurrent.AgentInvoker;
 import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.status.AtomicCounter;
 import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.DebugLogger;
 import uk.co.real_logic.artio.LogTag;
@@ -35,6 +38,7 @@ import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.CompletionPosition;
 import uk.co.real_logic.artio.util.CharFormatter;
 
+import java.util.Arrays;
 import java.util.List;
 
 import static io.aeron.CommonContext.IPC_CHANNEL;
@@ -47,6 +51,7 @@ import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
 public class Indexer implements Agent, ControlledFragmentHandler
 {
     private static final int LIMIT = 20;
+    private static final long NOT_INDEXED = Long.MAX_VALUE;
 
     private final CharFormatter indexingFormatter = new CharFormatter(
         "Indexing @ %s from [%s, %s]");
@@ -68,7 +73,8 @@ public class Indexer implements Agent, ControlledFragmentHandler
         final AeronArchive aeronArchive,
         final ErrorHandler errorHandler,
         final int archiveReplayStream,
-        final boolean gracefulShutdown)
+        final boolean gracefulShutdown,
+        final AtomicCounter catchupTimeInNs)
     {
         this.indices = indices;
         this.subscription = subscription;
@@ -76,7 +82,10 @@ public class Indexer implements Agent, ControlledFragmentHandler
         this.completionPosition = completionPosition;
         this.archiveReplayStream = archiveReplayStream;
         this.gracefulShutdown = gracefulShutdown;
+
+        final long catchupStartInNs = System.nanoTime();
         catchIndexUp(aeronArchive, errorHandler);
+        catchupTimeInNs.setOrdered(System.nanoTime() - catchupStartInNs);
     }
 
     public int doWork()
@@ -89,56 +98,107 @@ public class Indexer implements Agent, ControlledFragmentHandler
         final IdleStrategy idleStrategy = CommonConfiguration.backoffIdleStrategy();
         final AgentInvoker aeronInvoker = aeronArchive.context().aeron().conductorAgentInvoker();
 
-        for (int i = 0, size = indices.size(); i < size; i++)
+        // Indices persist the position they have indexed each recording up to, so only the tail of a recording
+        // needs to be replayed and that tail is shared between all the indices of this stream.
+        final int indexCount = indices.size();
+        final LongArrayList recordingIds = new LongArrayList();
+        final Long2ObjectHashMap<long[]> recordingIdToIndexedPositions = new Long2ObjectHashMap<>();
+        for (int i = 0; i < indexCount; i++)
         {
-            final Index index = indices.get(i);
+            final int indexNumber = i;
+            indices.get(i).readLastPosition((aeronSessionId, recordingId, indexStoppedPosition) ->
+            {
+                long[] indexedPositions = recordingIdToIndexedPositions.get(recordingId);
+                if (indexedPositions == null)
+                {
+                    indexedPositions = new long[indexCount];
+                    Arrays.fill(indexedPositions, NOT_INDEXED);
+                    recordingIdToIndexedPositions.put(recordingId, indexedPositions);
+                    recordingIds.addLong(recordingId);
+                }
+                indexedPositions[indexNumber] = indexStoppedPosition;
+            });
+        }
+
+        for (int i = 0, size = recordingIds.size(); i < size; i++)
+        {
+            final long recordingId = recordingIds.getLong(i);
+            try
+            {
+                final long[] indexedPositions = recordingIdToIndexedPositions.get(recordingId);
+                catchUpRecording(aeronArchive, idleStrategy, aeronInvoker, recordingId, indexedPositions);
+            }
+            catch (final ArchiveException ex)
+            {
+                errorHandler.onError(ex);
+            }
+        }
+    }
+
+    private void catchUpRecording(
+        final AeronArchive aeronArchive,
+        final IdleStrategy idleStrategy,
+        final AgentInvoker aeronInvoker,
+        final long recordingId,
+        final long[] indexedPositions)
+    {
+        final long recordingStoppedPosition = aeronArchive.getStopPosition(recordingId);
+        long replayFromPosition = NOT_INDEXED;
+        for (int i = 0; i < indexedPositions.length; i++)
+        {
+            final long indexStoppedPosition = indexedPositions[i];
+            if (recordingStoppedPosition > indexStoppedPosition)
+            {
+                DebugLogger.log(
+                    LogTag.INDEX,
+                    catchupFormatter,
+                    indices.get(i).getName(),
+                    recordingId,
+                    recordingStoppedPosition,
+                    indexStoppedPosition);
 
-            index.readLastPosition((aeronSessionId, recordingId, indexStoppedPosition) ->
+                replayFromPosition = Math.min(replayFromPosition, indexStoppedPosition);
+            }
+        }
+
+        if (replayFromPosition == NOT_INDEXED)
+        {
+            return;
+        }
+
+        final long length = recordingStoppedPosition - replayFromPosition;
+        try (Subscription subscription = aeronArchive.replay(
+            recordingId, replayFromPosition, length, IPC_CHANNEL, archiveReplayStream))
+        {
+            // Only do 1 replay at a time
+            while (subscription.imageCount() != 1)
             {
-                try
+                idle(idleStrategy, aeronInvoker, 0);
+                aeronArchive.checkForErrorResponse();
+            }
+            idleStrategy.reset();
+
+            final Image replayImage = subscription.imageAtIndex(0);
+
+            // Each index only sees the fragments that end beyond the position it had already indexed
+            final FragmentHandler handler = (buffer, offset, srcLength, header) ->
+            {
+                final long endPosition = header.position();
+                for (int i = 0; i < indexedPositions.length; i++)
                 {
-                    final long recordingStoppedPosition = aeronArchive.getStopPosition(recordingId);
-                    if (recordingStoppedPosition > indexStoppedPosition)
+                    if (endPosition > indexedPositions[i])
                     {
-                        DebugLogger.log(
-                            LogTag.INDEX,
-                            catchupFormatter,
-                            index.getName(),
-                            recordingId,
-                            recordingStoppedPosition,
-                            indexStoppedPosition);
-
-                        final long length = recordingStoppedPosition - indexStoppedPosition;
-                        try (Subscription subscription = aeronArchive.replay(
-                            recordingId, indexStoppedPosition, length, IPC_CHANNEL, archiveReplayStream))
-                        {
-                            // Only do 1 replay at a time
-                            while (subscription.imageCount() != 1)
-                            {
-                                idle(idleStrategy, aeronInvoker, 0);
-                                aeronArchive.checkForErrorResponse();
-                            }
-                            idleStrategy.reset();
-
-                            final Image replayImage = subscription.imageAtIndex(0);
-
-                            final FragmentHandler handler = (buffer, offset, srcLength, header) ->
-                                index.onCatchup(buffer, offset, srcLength, header, recordingId);
-
-                            while (replayImage.position() < recordingStoppedPosition)
-                            {
-                                final int workCount = replayImage.poll(handler, LIMIT);
-                                idle(idleStrategy, aeronInvoker, workCount);
-                            }
-                            idleStrategy.reset();
-                        }
+                        indices.get(i).onCatchup(buffer, offset, srcLength, header, recordingId);
                     }
                 }
-                catch (final ArchiveException ex)
-                {
-                    errorHandler.onError(ex);
-                }
-            });
+            };
+
+            while (replayImage.position() < recordingStoppedPosition)
+            {
+                final int workCount = replayImage.poll(handler, LIMIT);
+                idle(idleStrategy, aeronInvoker, workCount);
+            }
+            idleStrategy.reset();
         }
     }
 
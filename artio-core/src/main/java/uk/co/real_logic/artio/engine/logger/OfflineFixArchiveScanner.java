@@ -0,0 +1,447 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.FragmentAssembler;
+import io.aeron.logbuffer.Header;
+import org.agrona.BitUtil;
+import org.agrona.CloseHelper;
+import org.agrona.IoUtil;
+import org.agrona.LangUtil;
+import org.agrona.collections.Int2ObjectHashMap;
+import org.agrona.collections.IntHashSet;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.CommonConfiguration;
+import uk.co.real_logic.artio.ilink.ILinkMessageConsumer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.regex.Matcher;
+import java.util.regex.Pattern;
+
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
+import static io.aeron.protocol.DataHeaderFlyweight.HEADER_LENGTH;
+import static io.aeron.protocol.DataHeaderFlyweight.STREAM_ID_FIELD_OFFSET;
+import static io.aeron.protocol.HeaderFlyweight.HDR_TYPE_DATA;
+import static io.aeron.protocol.HeaderFlyweight.TYPE_FIELD_OFFSET;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static uk.co.real_logic.artio.engine.logger.FixMessageLogger.Configuration.DEFAULT_COMPACTION_SIZE;
+
+/**
+ * Scan a copy of an archive directory for fix messages by reading its recording segment files directly, rather
+ * than replaying the recordings from a running Aeron archive. This doesn't need a media driver and isn't limited by
+ * replay throughput, so suits analysing an archive after the engine that wrote it has shutdown.
+ *
+ * Recordings are selected by the stream id of their frames, as the channel of a recording is held in the archive's
+ * catalog rather than its segment files. Each stream's recordings are read in recording id order and the streams
+ * are merged in timestamp order by a {@link StreamTimestampZipper}. The segment files are mapped and loaded into
+ * memory in parallel, ahead of being read, by a pool of {@link Configuration#loaderThreads(int)} threads.
+ *
+ * The {@link Header} given to the message consumers describes the frame's flags, session and stream ids, but not
+ * its position, as the term length of a recording is only held in the catalog.
+ *
+ * @see FixArchiveScanner
+ */
+public class OfflineFixArchiveScanner implements AutoCloseable
+{
+    private static final Pattern SEGMENT_FILE_NAME = Pattern.compile("(\\d+)-(\\d+)\\.rec");
+    private static final int FRAGMENT_LIMIT = 10;
+    private static final int NO_STREAM_ID = 0;
+    private static final int NO_FRAME = -1;
+
+    private final File archiveDirectory;
+    private final IdleStrategy idleStrategy;
+    private final int compactionSize;
+    private final ExecutorService loaderExecutor;
+
+    public static class Configuration
+    {
+        public static final int DEFAULT_LOADER_THREADS = 2;
+
+        private String archiveDirectoryName;
+        private IdleStrategy idleStrategy = CommonConfiguration.backoffIdleStrategy();
+        private int compactionSize = DEFAULT_COMPACTION_SIZE;
+        private int loaderThreads = DEFAULT_LOADER_THREADS;
+
+        public Configuration archiveDirectoryName(final String archiveDirectoryName)
+        {
+            this.archiveDirectoryName = archiveDirectoryName;
+            return this;
+        }
+
+        public String archiveDirectoryName()
+        {
+            return archiveDirectoryName;
+        }
+
+        public Configuration idleStrategy(final IdleStrategy idleStrategy)
+        {
+            this.idleStrategy = idleStrategy;
+            return this;
+        }
+
+        public IdleStrategy idleStrategy()
+        {
+            return idleStrategy;
+        }
+
+        public Configuration compactionSize(final int compactionSize)
+        {
+            this.compactionSize = compactionSize;
+            return this;
+        }
+
+        public int compactionSize()
+        {
+            return compactionSize;
+        }
+
+        /**
+         * Sets the number of threads that map and load the segment files into memory ahead of them being read. The
+         * messages themselves are always decoded and handed to the consumers on the thread that calls scan.
+         *
+         * @param loaderThreads the number of loader threads, 0 to map each segment file when it's read.
+         * @return this
+         */
+        public Configuration loaderThreads(final int loaderThreads)
+        {
+            this.loaderThreads = loaderThreads;
+            return this;
+        }
+
+        public int loaderThreads()
+        {
+            return loaderThreads;
+        }
+    }
+
+    public OfflineFixArchiveScanner(final Configuration configuration)
+    {
+        archiveDirectory = new File(configuration.archiveDirectoryName());
+        idleStrategy = configuration.idleStrategy();
+        compactionSize = configuration.compactionSize();
+
+        final int loaderThreads = configuration.loaderThreads();
+        loaderExecutor = loaderThreads > 0 ? Executors.newFixedThreadPool(loaderThreads, runnable ->
+        {
+            final Thread thread = new Thread(runnable, "offline-archive-loader");
+            thread.setDaemon(true);
+            return thread;
+        }) : null;
+    }
+
+    public void scan(final int queryStreamId, final FixMessageConsumer handler)
+    {
+        final IntHashSet queryStreamIds = new IntHashSet();
+        queryStreamIds.add(queryStreamId);
+        scan(queryStreamIds, handler, null);
+    }
+
+    public void scan(
+        final IntHashSet queryStreamIds,
+        final FixMessageConsumer fixHandler,
+        final ILinkMessageConsumer iLinkHandler)
+    {
+        final Int2ObjectHashMap<SegmentPoller> streamIdToPoller = new Int2ObjectHashMap<>();
+        queryStreamIds.forEach(streamId -> streamIdToPoller.put(streamId, new SegmentPoller(streamId)));
+
+        for (final List<File> recordingSegments : listRecordings())
+        {
+            final SegmentPoller poller = streamIdToPoller.get(readStreamId(recordingSegments.get(0)));
+            if (poller != null)
+            {
+                poller.segmentFiles.addAll(recordingSegments);
+            }
+        }
+
+        final SegmentPoller[] pollers = streamIdToPoller.values().toArray(new SegmentPoller[0]);
+        try
+        {
+            final StreamTimestampZipper timestampZipper = new StreamTimestampZipper(
+                fixHandler, iLinkHandler, compactionSize, pollers);
+
+            while (!isComplete(pollers))
+            {
+                idleStrategy.idle(timestampZipper.poll());
+            }
+
+            timestampZipper.onClose();
+            idleStrategy.reset();
+        }
+        finally
+        {
+            for (final SegmentPoller poller : pollers)
+            {
+                poller.close();
+            }
+        }
+    }
+
+    private static boolean isComplete(final SegmentPoller[] pollers)
+    {
+        for (final SegmentPoller poller : pollers)
+        {
+            if (!poller.isComplete())
+            {
+                return false;
+            }
+        }
+
+        return true;
+    }
+
+    // Returns the segment files of each recording, in recording id and then position order.
+    private List<List<File>> listRecordings()
+    {
+        final File[] files = archiveDirectory.listFiles();
+        if (files == null)
+        {
+            throw new IllegalArgumentException("Archive directory not found: " + archiveDirectory);
+        }
+
+        final Long2ObjectHashMap<List<Segment>> recordingIdToSegments = new Long2ObjectHashMap<>();
+        for (final File file : files)
+        {
+            final Matcher matcher = SEGMENT_FILE_NAME.matcher(file.getName());
+            if (matcher.matches())
+            {
+                final long recordingId = Long.parseLong(matcher.group(1));
+                final long basePosition = Long.parseLong(matcher.group(2));
+                recordingIdToSegments
+                    .computeIfAbsent(recordingId, ignore -> new ArrayList<>())
+                    .add(new Segment(file, basePosition));
+            }
+        }
+
+        final List<Long> recordingIds = new ArrayList<>(recordingIdToSegments.keySet());
+        recordingIds.sort(Comparator.naturalOrder());
+
+        final List<List<File>> recordings = new ArrayList<>();
+        for (final Long recordingId : recordingIds)
+        {
+            final List<Segment> segments = recordingIdToSegments.get(recordingId);
+            segments.sort(Comparator.comparingLong(segment -> segment.basePosition));
+
+            final List<File> segmentFiles = new ArrayList<>();
+            for (final Segment segment : segments)
+            {
+                segmentFiles.add(segment.file);
+            }
+            recordings.add(segmentFiles);
+        }
+
+        return recordings;
+    }
+
+    private static int readStreamId(final File segmentFile)
+    {
+        final MappedByteBuffer mappedBuffer = map(segmentFile);
+        try
+        {
+            final UnsafeBuffer buffer = new UnsafeBuffer(mappedBuffer);
+            final int offset = firstFrameOffset(buffer);
+            return offset == NO_FRAME ? NO_STREAM_ID : buffer.getInt(offset + STREAM_ID_FIELD_OFFSET, LITTLE_ENDIAN);
+        }
+        finally
+        {
+            IoUtil.unmap(mappedBuffer);
+        }
+    }
+
+    // The start of the first segment file of a recording is left unwritten if the recording doesn't begin at a
+    // segment boundary, eg because it was extended from a previous position.
+    private static int firstFrameOffset(final UnsafeBuffer buffer)
+    {
+        final int capacity = buffer.capacity();
+        for (int offset = 0; offset <= capacity - HEADER_LENGTH; offset += FRAME_ALIGNMENT)
+        {
+            if (buffer.getInt(offset, LITTLE_ENDIAN) > 0)
+            {
+                return offset;
+            }
+        }
+
+        return NO_FRAME;
+    }
+
+    private static MappedByteBuffer map(final File segmentFile)
+    {
+        return IoUtil.mapExistingFile(segmentFile, FileChannel.MapMode.READ_ONLY, segmentFile.getName());
+    }
+
+    private static MappedByteBuffer mapAndLoad(final File segmentFile)
+    {
+        final MappedByteBuffer mappedBuffer = map(segmentFile);
+        mappedBuffer.load();
+        return mappedBuffer;
+    }
+
+    public void close()
+    {
+        if (loaderExecutor != null)
+        {
+            loaderExecutor.shutdownNow();
+        }
+    }
+
+    static final class Segment
+    {
+        final File file;
+        final long basePosition;
+
+        Segment(final File file, final long basePosition)
+        {
+            this.file = file;
+            this.basePosition = basePosition;
+        }
+    }
+
+    class SegmentPoller implements StreamTimestampZipper.Poller, AutoCloseable
+    {
+        private final ArrayDeque<File> segmentFiles = new ArrayDeque<>();
+        private final UnsafeBuffer buffer = new UnsafeBuffer(0, 0);
+        private final Header header = new Header(0, 0);
+        private final int streamId;
+
+        private Future<MappedByteBuffer> nextSegment;
+        private MappedByteBuffer mappedBuffer;
+        private int offset;
+
+        SegmentPoller(final int streamId)
+        {
+            this.streamId = streamId;
+            header.buffer(buffer);
+        }
+
+        boolean isComplete()
+        {
+            return mappedBuffer == null && nextSegment == null && segmentFiles.isEmpty();
+        }
+
+        public int poll(final FragmentAssembler fragmentAssembler)
+        {
+            if (mappedBuffer == null)
+            {
+                return openNextSegment();
+            }
+
+            final UnsafeBuffer buffer = this.buffer;
+            final int capacity = buffer.capacity();
+            int fragments = 0;
+            while (fragments < FRAGMENT_LIMIT)
+            {
+                final int frameLength = offset <= capacity - HEADER_LENGTH ? buffer.getInt(offset, LITTLE_ENDIAN) : 0;
+                if (frameLength <= 0)
+                {
+                    // Reached either the end of the segment file or the end of the recording.
+                    closeSegment();
+                    return fragments + 1;
+                }
+
+                if (buffer.getShort(offset + TYPE_FIELD_OFFSET, LITTLE_ENDIAN) == HDR_TYPE_DATA &&
+                    buffer.getInt(offset + STREAM_ID_FIELD_OFFSET, LITTLE_ENDIAN) == streamId)
+                {
+                    header.offset(offset);
+                    fragmentAssembler.onFragment(buffer, offset + HEADER_LENGTH, frameLength - HEADER_LENGTH, header);
+                    fragments++;
+                }
+
+                offset += BitUtil.align(frameLength, FRAME_ALIGNMENT);
+            }
+
+            return fragments;
+        }
+
+        private int openNextSegment()
+        {
+            if (nextSegment == null && segmentFiles.isEmpty())
+            {
+                return 0;
+            }
+
+            mappedBuffer = nextSegment != null ? await(nextSegment) : map(segmentFiles.poll());
+            nextSegment = null;
+            buffer.wrap(mappedBuffer);
+            offset = firstFrameOffset(buffer);
+            if (offset == NO_FRAME)
+            {
+                offset = buffer.capacity();
+            }
+
+            if (loaderExecutor != null && !segmentFiles.isEmpty())
+            {
+                final File nextSegmentFile = segmentFiles.poll();
+                nextSegment = loaderExecutor.submit(() -> mapAndLoad(nextSegmentFile));
+            }
+
+            return 1;
+        }
+
+        private MappedByteBuffer await(final Future<MappedByteBuffer> segment)
+        {
+            try
+            {
+                return segment.get();
+            }
+            catch (final InterruptedException | ExecutionException e)
+            {
+                LangUtil.rethrowUnchecked(e);
+                return null;
+            }
+        }
+
+        private void closeSegment()
+        {
+            IoUtil.unmap(mappedBuffer);
+            mappedBuffer = null;
+            buffer.wrap(0, 0);
+        }
+
+        public int streamId()
+        {
+            return streamId;
+        }
+
+        public void close()
+        {
+            if (mappedBuffer != null)
+            {
+                closeSegment();
+            }
+
+            if (nextSegment != null)
+            {
+                final Future<MappedByteBuffer> nextSegment = this.nextSegment;
+                this.nextSegment = null;
+                if (!nextSegment.cancel(false))
+                {
+                    CloseHelper.quietClose(() -> IoUtil.unmap(await(nextSegment)));
+                }
+            }
+        }
+    }
+}
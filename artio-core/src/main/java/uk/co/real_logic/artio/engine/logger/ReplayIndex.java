@@ -17,6 +17,7 @@ package uk.co.real_logic.artio.engine.logger;
 
 import io.aeron.logbuffer.Header;
 import org.agrona.BitUtil;
+import org.agrona.CloseHelper;
 import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
 import org.agrona.IoUtil;
@@ -24,7 +25,9 @@ import org.agrona.collections.Long2LongHashMap;
 import org.agrona.collections.Long2ObjectCache;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.engine.ReplayIndexLayout;
 import uk.co.real_logic.artio.engine.SequenceNumberExtractor;
+import uk.co.real_logic.artio.engine.framer.MessageTypeExtractor;
 import uk.co.real_logic.artio.messages.*;
 import uk.co.real_logic.artio.storage.messages.ReplayIndexRecordEncoder;
 
@@ -52,6 +55,12 @@ import static uk.co.real_logic.artio.messages.MessageStatus.OK;
  * Head position counter
  * Tail position counter
  * Multiple ReplayIndexRecord entries
+ *
+ * Every {@link ReplayIndexDescriptor#CHECKPOINT_INTERVAL}-th record of a session is also summarised in a
+ * separate checkpoint file, which {@link ReplayQuery} binary searches to find where to start scanning from.
+ *
+ * With the {@link ReplayIndexLayout#SEGMENTED} layout the buffer and checkpoints of each session are a slot in a
+ * shared segment file, see {@link ReplayIndexSegments}, rather than files of their own.
  */
 public class ReplayIndex implements Index
 {
@@ -62,6 +71,8 @@ public class ReplayIndex implements Index
     private final RedactSequenceUpdateDecoder redactSequenceUpdateDecoder = new RedactSequenceUpdateDecoder();
     private final ReplayIndexRecordEncoder replayIndexRecord = new ReplayIndexRecordEncoder();
     private final MessageHeaderEncoder indexHeaderEncoder = new MessageHeaderEncoder();
+    private final AtomicBuffer resetIndexBuffer = new UnsafeBuffer(0, 0);
+    private final AtomicBuffer resetCheckpointBuffer = new UnsafeBuffer(0, 0);
 
     private final IndexedPositionWriter positionWriter;
     private final IndexedPositionReader positionReader;
@@ -78,6 +89,7 @@ public class ReplayIndex implements Index
     private final AtomicBuffer positionBuffer;
     private final ErrorHandler errorHandler;
     private final RecordingIdLookup recordingIdLookup;
+    private final ReplayIndexSegments segments;
 
     public ReplayIndex(
         final String logFileDir,
@@ -89,7 +101,9 @@ public class ReplayIndex implements Index
         final AtomicBuffer positionBuffer,
         final ErrorHandler errorHandler,
         final RecordingIdLookup recordingIdLookup,
-        final Long2LongHashMap connectionIdToILinkUuid)
+        final Long2LongHashMap connectionIdToILinkUuid,
+        final ReplayIndexLayout layout,
+        final int segmentSessions)
     {
         this.logFileDir = logFileDir;
         this.requiredStreamId = requiredStreamId;
@@ -103,9 +117,12 @@ public class ReplayIndex implements Index
             connectionIdToILinkUuid, errorHandler,
             (sequenceNumber, uuid, messageSize, endPosition, aeronSessionId, possRetrans) ->
                 sessionIndex(uuid)
-                .onRecord(endPosition, messageSize, sequenceNumber, 0, aeronSessionId, NULL_RECORDING_ID));
+                .onRecord(
+                    endPosition, messageSize, sequenceNumber, 0, NO_MESSAGE_TYPE, aeronSessionId, NULL_RECORDING_ID));
         sequenceNumberExtractor = new SequenceNumberExtractor(errorHandler);
         checkIndexFileSize(indexFileSize);
+        segments = layout == ReplayIndexLayout.SEGMENTED ?
+            new ReplayIndexSegments(logFileDir, requiredStreamId, indexFileSize, segmentSessions) : null;
         fixSessionIdToIndex = new Long2ObjectCache<>(cacheNumSets, cacheSetSize, SessionIndex::close);
         final String replayPositionPath = replayPositionPath(logFileDir, requiredStreamId);
         positionWriter = new IndexedPositionWriter(
@@ -116,6 +133,7 @@ public class ReplayIndex implements Index
     private long continuedFixSessionId;
     private int continuedSequenceNumber;
     private int continuedSequenceIndex;
+    private int continuedMessageType;
 
     public void onCatchup(
         final DirectBuffer buffer,
@@ -178,6 +196,7 @@ public class ReplayIndex implements Index
                     final int sequenceNumber = sequenceNumberExtractor.extract(
                         srcBuffer, offset, messageFrame.bodyLength());
                     final int sequenceIndex = messageFrame.sequenceIndex();
+                    final int messageType = indexedMessageType(MessageTypeExtractor.getMessageType(messageFrame));
 
                     if (sequenceNumber != NO_SEQUENCE_NUMBER)
                     {
@@ -186,10 +205,17 @@ public class ReplayIndex implements Index
                             continuedFixSessionId = fixSessionId;
                             continuedSequenceNumber = sequenceNumber;
                             continuedSequenceIndex = sequenceIndex;
+                            continuedMessageType = messageType;
                         }
 
                         sessionIndex(fixSessionId).onRecord(
-                            endPosition, length, sequenceNumber, sequenceIndex, header.sessionId(), recordingId);
+                            endPosition,
+                            length,
+                            sequenceNumber,
+                            sequenceIndex,
+                            messageType,
+                            header.sessionId(),
+                            recordingId);
                     }
                 }
             }
@@ -218,7 +244,13 @@ public class ReplayIndex implements Index
         else
         {
             sessionIndex(continuedFixSessionId).onRecord(
-                endPosition, length, continuedSequenceNumber, continuedSequenceIndex, header.sessionId(), recordingId);
+                endPosition,
+                length,
+                continuedSequenceNumber,
+                continuedSequenceIndex,
+                continuedMessageType,
+                header.sessionId(),
+                recordingId);
         }
 
         positionWriter.update(header.sessionId(), templateId, endPosition, recordingId);
@@ -233,6 +265,13 @@ public class ReplayIndex implements Index
         {
             index.reset();
         }
+        else if (segments != null)
+        {
+            if (segments.wrap(fixSessionId, resetIndexBuffer, resetCheckpointBuffer))
+            {
+                resetSlot(resetIndexBuffer, resetCheckpointBuffer);
+            }
+        }
         else
         {
             // File might be present but not within the cache.
@@ -241,6 +280,12 @@ public class ReplayIndex implements Index
             {
                 deleteFile(replayIndexFile);
             }
+
+            final File checkpointFile = checkpointFile(fixSessionId);
+            if (checkpointFile.exists())
+            {
+                deleteFile(checkpointFile);
+            }
         }
     }
 
@@ -259,6 +304,7 @@ public class ReplayIndex implements Index
     {
         positionWriter.close();
         fixSessionIdToIndex.clear();
+        CloseHelper.close(segments);
         IoUtil.unmap(positionBuffer.byteBuffer());
     }
 
@@ -267,29 +313,78 @@ public class ReplayIndex implements Index
         positionReader.readLastPosition(consumer);
     }
 
+    private void resetSlot(final AtomicBuffer buffer, final AtomicBuffer checkpointBuffer)
+    {
+        resetCheckpoints(checkpointBuffer);
+
+        // The reset is bracketed by the change positions like a record is, so a reader that is part way through a
+        // query retries any record that it read whilst the slot was being zeroed. It then sees records with a
+        // position of 0 and stops. The change positions then start from 0 again, as they do for a new index.
+        final long changePosition = beginChange(buffer) + RECORD_LENGTH;
+        beginChangeOrdered(buffer, changePosition);
+        UNSAFE.storeFence();
+
+        buffer.setMemory(INITIAL_RECORD_OFFSET, recordCapacity(buffer.capacity()), (byte)0);
+
+        endChangeOrdered(buffer, 0);
+        beginChangeOrdered(buffer, 0);
+    }
+
+    private void writeIndexHeader(final AtomicBuffer buffer)
+    {
+        indexHeaderEncoder
+            .wrap(buffer, 0)
+            .blockLength(replayIndexRecord.sbeBlockLength())
+            .templateId(replayIndexRecord.sbeTemplateId())
+            .schemaId(replayIndexRecord.sbeSchemaId())
+            .version(replayIndexRecord.sbeSchemaVersion());
+    }
+
     private final class SessionIndex implements AutoCloseable
     {
         private final ByteBuffer wrappedBuffer;
         private final AtomicBuffer buffer;
         private final int recordCapacity;
         private final File replayIndexFile;
+        private final ByteBuffer wrappedCheckpointBuffer;
+        private final AtomicBuffer checkpointBuffer;
+        private final int checkpointCapacity;
+        private final File checkpointFile;
 
         SessionIndex(final long fixSessionId)
         {
-            replayIndexFile = replayIndexFile(fixSessionId);
-            final boolean exists = replayIndexFile.exists();
-            this.wrappedBuffer = bufferFactory.map(replayIndexFile, indexFileSize);
-            this.buffer = new UnsafeBuffer(wrappedBuffer);
+            final boolean exists;
+            if (segments != null)
+            {
+                replayIndexFile = null;
+                checkpointFile = null;
+                wrappedBuffer = null;
+                wrappedCheckpointBuffer = null;
+                buffer = new UnsafeBuffer(0, 0);
+                checkpointBuffer = new UnsafeBuffer(0, 0);
+                exists = segments.wrap(fixSessionId, buffer, checkpointBuffer);
+                if (!exists)
+                {
+                    segments.allocate(fixSessionId, buffer, checkpointBuffer);
+                }
+            }
+            else
+            {
+                replayIndexFile = replayIndexFile(fixSessionId);
+                exists = replayIndexFile.exists();
+                wrappedBuffer = bufferFactory.map(replayIndexFile, indexFileSize);
+                buffer = new UnsafeBuffer(wrappedBuffer);
+
+                checkpointFile = checkpointFile(fixSessionId);
+                wrappedCheckpointBuffer = bufferFactory.map(checkpointFile, checkpointFileSize(indexFileSize));
+                checkpointBuffer = new UnsafeBuffer(wrappedCheckpointBuffer);
+            }
+            checkpointCapacity = checkpointCapacity(checkpointBuffer.capacity());
 
             recordCapacity = recordCapacity(buffer.capacity());
             if (!exists)
             {
-                indexHeaderEncoder
-                    .wrap(buffer, 0)
-                    .blockLength(replayIndexRecord.sbeBlockLength())
-                    .templateId(replayIndexRecord.sbeTemplateId())
-                    .schemaId(replayIndexRecord.sbeSchemaId())
-                    .version(replayIndexRecord.sbeSchemaVersion());
+                writeIndexHeader(buffer);
             }
             else
             {
@@ -304,6 +399,7 @@ public class ReplayIndex implements Index
             final int length,
             final int sequenceNumber,
             final int sequenceIndex,
+            final int messageType,
             final int aeronSessionId,
             final long knownRecordingId)
         {
@@ -324,20 +420,39 @@ public class ReplayIndex implements Index
                 .sequenceNumber(sequenceNumber)
                 .sequenceIndex(sequenceIndex)
                 .recordingId(recordingId)
-                .length(length);
+                .length(length)
+                .messageType(messageType);
 
             endChangeOrdered(buffer, changePosition);
+
+            if (isCheckpoint(beginChangePosition))
+            {
+                putCheckpoint(checkpointBuffer, checkpointCapacity, sequenceIndex, sequenceNumber, beginChangePosition);
+            }
         }
 
         void reset()
         {
-            close();
-            deleteFile(replayIndexFile);
+            if (segments != null)
+            {
+                resetSlot(buffer, checkpointBuffer);
+            }
+            else
+            {
+                close();
+                deleteFile(replayIndexFile);
+                deleteFile(checkpointFile);
+            }
         }
 
         public void close()
         {
-            IoUtil.unmap(wrappedBuffer);
+            // Slots of segments are unmapped along with the segments themselves.
+            if (wrappedBuffer != null)
+            {
+                IoUtil.unmap(wrappedBuffer);
+                IoUtil.unmap(wrappedCheckpointBuffer);
+            }
         }
     }
 
@@ -346,6 +461,11 @@ public class ReplayIndex implements Index
         return ReplayIndexDescriptor.replayIndexFile(logFileDir, fixSessionId, requiredStreamId);
     }
 
+    private File checkpointFile(final long fixSessionId)
+    {
+        return ReplayIndexDescriptor.checkpointFile(logFileDir, fixSessionId, requiredStreamId);
+    }
+
     private void deleteFile(final File replayIndexFile)
     {
         if (!replayIndexFile.delete())
@@ -25,6 +25,8 @@ import uk.co.real_logic.artio.storage.messages.ReplayIndexRecordDecoder;
 import java.io.File;
 import java.util.Objects;
 
+import static org.agrona.UnsafeAccess.UNSAFE;
+
 public final class ReplayIndexDescriptor
 {
     private static final int BEGIN_CHANGE_OFFSET = MessageHeaderEncoder.ENCODED_LENGTH;
@@ -42,11 +44,120 @@ public final class ReplayIndexDescriptor
         }
     }
 
+    // Records only have room for message types whose packed form fits into an int, ie up to 4 characters.
+    static final int NO_MESSAGE_TYPE = ReplayIndexRecordDecoder.messageTypeNullValue();
+
+    // Checkpoint files summarise the replay index of a session with the position of every CHECKPOINT_INTERVAL-th
+    // record, so that queries can binary search to the start of a range rather than scanning the whole index.
+    // Layout: begin change, end change, then a ring of (sequenceIndex, sequenceNumber, changePosition) entries.
+    static final int CHECKPOINT_INTERVAL = 64;
+    static final int CHECKPOINT_LENGTH = 16;
+
+    private static final int CHECKPOINT_BEGIN_CHANGE_OFFSET = 0;
+    private static final int CHECKPOINT_END_CHANGE_OFFSET = CHECKPOINT_BEGIN_CHANGE_OFFSET + BitUtil.SIZE_OF_LONG;
+    private static final int INITIAL_CHECKPOINT_OFFSET = CHECKPOINT_END_CHANGE_OFFSET + BitUtil.SIZE_OF_LONG;
+    private static final int CHECKPOINT_SEQUENCE_INDEX_OFFSET = 0;
+    private static final int CHECKPOINT_SEQUENCE_NUMBER_OFFSET = BitUtil.SIZE_OF_INT;
+    private static final int CHECKPOINT_CHANGE_POSITION_OFFSET = 2 * BitUtil.SIZE_OF_INT;
+
+    static int indexedMessageType(final long messageType)
+    {
+        final int indexedMessageType = (int)messageType;
+        return indexedMessageType == messageType ? indexedMessageType : NO_MESSAGE_TYPE;
+    }
+
     static File replayIndexFile(final String logFileDir, final long fixSessionId, final int streamId)
     {
         return new File(String.format(logFileDir + File.separator + "replay-index-%d-%d", fixSessionId, streamId));
     }
 
+    static File checkpointFile(final String logFileDir, final long fixSessionId, final int streamId)
+    {
+        return new File(
+            String.format(logFileDir + File.separator + "replay-checkpoints-%d-%d", fixSessionId, streamId));
+    }
+
+    static int checkpointFileSize(final int indexFileSize)
+    {
+        final int checkpointCount = Math.max(1, recordCapacity(indexFileSize) / (RECORD_LENGTH * CHECKPOINT_INTERVAL));
+        return INITIAL_CHECKPOINT_OFFSET + checkpointCount * CHECKPOINT_LENGTH;
+    }
+
+    static int checkpointCapacity(final int checkpointFileSize)
+    {
+        return checkpointFileSize - INITIAL_CHECKPOINT_OFFSET;
+    }
+
+    static boolean isCheckpoint(final long changePosition)
+    {
+        return ((changePosition / RECORD_LENGTH) % CHECKPOINT_INTERVAL) == 0;
+    }
+
+    static void putCheckpoint(
+        final AtomicBuffer buffer,
+        final int checkpointCapacity,
+        final int sequenceIndex,
+        final int sequenceNumber,
+        final long changePosition)
+    {
+        final long beginChange = buffer.getLong(CHECKPOINT_BEGIN_CHANGE_OFFSET);
+        final long nextChange = beginChange + CHECKPOINT_LENGTH;
+        buffer.putLongOrdered(CHECKPOINT_BEGIN_CHANGE_OFFSET, nextChange);
+        UNSAFE.storeFence();
+
+        final int offset = checkpointOffset(beginChange, checkpointCapacity);
+        buffer.putInt(offset + CHECKPOINT_SEQUENCE_INDEX_OFFSET, sequenceIndex);
+        buffer.putInt(offset + CHECKPOINT_SEQUENCE_NUMBER_OFFSET, sequenceNumber);
+        buffer.putLong(offset + CHECKPOINT_CHANGE_POSITION_OFFSET, changePosition);
+
+        buffer.putLongOrdered(CHECKPOINT_END_CHANGE_OFFSET, nextChange);
+    }
+
+    static void resetCheckpoints(final AtomicBuffer buffer)
+    {
+        // A begin change past the end of any search that is in progress makes it fall back to a full scan, and
+        // moving the change positions back to 0 afterwards does the same for a search that started before.
+        final long endChange = buffer.getLong(CHECKPOINT_END_CHANGE_OFFSET);
+        final int checkpointCapacity = checkpointCapacity(buffer.capacity());
+        buffer.putLongOrdered(CHECKPOINT_BEGIN_CHANGE_OFFSET, endChange + checkpointCapacity + CHECKPOINT_LENGTH);
+        UNSAFE.storeFence();
+
+        buffer.setMemory(INITIAL_CHECKPOINT_OFFSET, checkpointCapacity, (byte)0);
+
+        buffer.putLongOrdered(CHECKPOINT_END_CHANGE_OFFSET, 0);
+        buffer.putLongOrdered(CHECKPOINT_BEGIN_CHANGE_OFFSET, 0);
+    }
+
+    static long checkpointEndChangeVolatile(final AtomicBuffer buffer)
+    {
+        return buffer.getLongVolatile(CHECKPOINT_END_CHANGE_OFFSET);
+    }
+
+    static long checkpointBeginChangeVolatile(final AtomicBuffer buffer)
+    {
+        return buffer.getLongVolatile(CHECKPOINT_BEGIN_CHANGE_OFFSET);
+    }
+
+    static int checkpointOffset(final long checkpointPosition, final int checkpointCapacity)
+    {
+        return INITIAL_CHECKPOINT_OFFSET + ((int)checkpointPosition & (checkpointCapacity - 1));
+    }
+
+    static int checkpointSequenceIndex(final AtomicBuffer buffer, final int offset)
+    {
+        return buffer.getInt(offset + CHECKPOINT_SEQUENCE_INDEX_OFFSET);
+    }
+
+    static int checkpointSequenceNumber(final AtomicBuffer buffer, final int offset)
+    {
+        return buffer.getInt(offset + CHECKPOINT_SEQUENCE_NUMBER_OFFSET);
+    }
+
+    static long checkpointChangePosition(final AtomicBuffer buffer, final int offset)
+    {
+        return buffer.getLong(offset + CHECKPOINT_CHANGE_POSITION_OFFSET);
+    }
+
     static LongHashSet listReplayIndexSessionIds(final File logFileDir, final int streamId)
     {
         final String prefix = "replay-index-";
@@ -0,0 +1,292 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.BitUtil;
+import org.agrona.IoUtil;
+import org.agrona.collections.Long2LongHashMap;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.nio.MappedByteBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.checkpointFileSize;
+
+/**
+ * Stores the replay indices of many sessions in a small number of shared segment files rather than a file per
+ * session, so that the number of open files and memory mappings doesn't grow with every session.
+ *
+ * Each segment file consists of:
+ *
+ * Allocated slot count
+ * Sessions per segment
+ * Index file size
+ * Checkpoint file size
+ * Directory of the session id that owns each allocated slot
+ * Multiple slots, each of which is a session's replay index followed by its checkpoints.
+ *
+ * Slots are only ever appended to the last segment, a new segment file being created when it is full. There is a
+ * single writer, the {@link ReplayIndex}, and readers refresh their view of the directory when they miss a session.
+ */
+final class ReplayIndexSegments implements AutoCloseable
+{
+    private static final int SLOT_COUNT_OFFSET = 0;
+    private static final int SESSIONS_PER_SEGMENT_OFFSET = SLOT_COUNT_OFFSET + BitUtil.SIZE_OF_INT;
+    private static final int INDEX_FILE_SIZE_OFFSET = SESSIONS_PER_SEGMENT_OFFSET + BitUtil.SIZE_OF_INT;
+    private static final int CHECKPOINT_FILE_SIZE_OFFSET = INDEX_FILE_SIZE_OFFSET + BitUtil.SIZE_OF_INT;
+    private static final int DIRECTORY_OFFSET = CHECKPOINT_FILE_SIZE_OFFSET + BitUtil.SIZE_OF_INT;
+
+    private static final long MISSING_SLOT = -1;
+
+    private final Long2LongHashMap sessionIdToSlot = new Long2LongHashMap(MISSING_SLOT);
+    private final List<Segment> segments = new ArrayList<>();
+    private final String logFileDir;
+    private final int streamId;
+    private final int indexFileSize;
+    private final int sessionsPerSegment;
+
+    /**
+     * Create segments that are read from but not written to.
+     *
+     * @param logFileDir the directory that the segment files are stored in.
+     * @param streamId the stream that is indexed.
+     */
+    ReplayIndexSegments(final String logFileDir, final int streamId)
+    {
+        this(logFileDir, streamId, 0, 0);
+    }
+
+    ReplayIndexSegments(
+        final String logFileDir, final int streamId, final int indexFileSize, final int sessionsPerSegment)
+    {
+        this.logFileDir = logFileDir;
+        this.streamId = streamId;
+        this.indexFileSize = indexFileSize;
+        this.sessionsPerSegment = sessionsPerSegment;
+
+        refresh();
+    }
+
+    static File segmentFile(final String logFileDir, final int streamId, final int segmentIndex)
+    {
+        return new File(
+            String.format(logFileDir + File.separator + "replay-segment-%d-%d", streamId, segmentIndex));
+    }
+
+    /**
+     * Wrap the index and checkpoint buffers around the slot of a session.
+     *
+     * @param sessionId the session whose slot should be wrapped.
+     * @param indexBuffer the buffer to wrap around the session's replay index.
+     * @param checkpointBuffer the buffer to wrap around the session's checkpoints.
+     * @return true if the session has a slot, false otherwise.
+     */
+    boolean wrap(final long sessionId, final AtomicBuffer indexBuffer, final AtomicBuffer checkpointBuffer)
+    {
+        long slot = sessionIdToSlot.get(sessionId);
+        if (slot == MISSING_SLOT)
+        {
+            refresh();
+            slot = sessionIdToSlot.get(sessionId);
+            if (slot == MISSING_SLOT)
+            {
+                return false;
+            }
+        }
+
+        segments.get(segmentIndex(slot)).wrap(slotIndex(slot), indexBuffer, checkpointBuffer);
+        return true;
+    }
+
+    /**
+     * Allocate a new slot for a session that doesn't have one already and wrap the buffers around it.
+     *
+     * @param sessionId the session to allocate a slot for.
+     * @param indexBuffer the buffer to wrap around the session's replay index.
+     * @param checkpointBuffer the buffer to wrap around the session's checkpoints.
+     */
+    void allocate(final long sessionId, final AtomicBuffer indexBuffer, final AtomicBuffer checkpointBuffer)
+    {
+        final int lastSegmentIndex = segments.size() - 1;
+        Segment segment = lastSegmentIndex >= 0 ? segments.get(lastSegmentIndex) : null;
+        if (segment == null || segment.isFull())
+        {
+            segment = newSegment();
+        }
+
+        final int slotIndex = segment.allocate(sessionId);
+        sessionIdToSlot.put(sessionId, slot(segments.size() - 1, slotIndex));
+        segment.wrap(slotIndex, indexBuffer, checkpointBuffer);
+    }
+
+    LongHashSet sessionIds()
+    {
+        refresh();
+
+        final LongHashSet sessionIds = new LongHashSet();
+        final Long2LongHashMap.KeyIterator it = sessionIdToSlot.keySet().iterator();
+        while (it.hasNext())
+        {
+            sessionIds.add(it.nextValue());
+        }
+        return sessionIds;
+    }
+
+    public void close()
+    {
+        for (final Segment segment : segments)
+        {
+            IoUtil.unmap(segment.mappedBuffer);
+        }
+        segments.clear();
+        sessionIdToSlot.clear();
+    }
+
+    private void refresh()
+    {
+        final List<Segment> segments = this.segments;
+        for (int segmentIndex = 0, size = segments.size(); segmentIndex < size; segmentIndex++)
+        {
+            segments.get(segmentIndex).readDirectory(segmentIndex);
+        }
+
+        File file;
+        while ((file = segmentFile(logFileDir, streamId, segments.size())).exists())
+        {
+            final MappedByteBuffer mappedBuffer = LoggerUtil.mapExistingFile(file);
+            final UnsafeBuffer buffer = new UnsafeBuffer(mappedBuffer);
+            // The writer may not have finished creating the file yet, pick it up on the next refresh.
+            if (buffer.capacity() < DIRECTORY_OFFSET || buffer.getIntVolatile(CHECKPOINT_FILE_SIZE_OFFSET) == 0)
+            {
+                IoUtil.unmap(mappedBuffer);
+                return;
+            }
+
+            final Segment segment = new Segment(mappedBuffer, buffer);
+            segments.add(segment);
+            segment.readDirectory(segments.size() - 1);
+        }
+    }
+
+    private Segment newSegment()
+    {
+        final int checkpointFileSize = checkpointFileSize(indexFileSize);
+        final int slotLength = slotLength(indexFileSize, checkpointFileSize);
+        final int sessionsPerSegment = (int)Math.min(
+            this.sessionsPerSegment, (Integer.MAX_VALUE - headerLength(this.sessionsPerSegment)) / slotLength);
+        final int segmentLength = headerLength(sessionsPerSegment) + sessionsPerSegment * slotLength;
+
+        final File file = segmentFile(logFileDir, streamId, segments.size());
+        IoUtil.ensureDirectoryExists(file.getParentFile(), file.getParentFile().getAbsolutePath());
+        // Don't fill with zeros: slots are sparse until a session is allocated one and starts to index messages.
+        final MappedByteBuffer mappedBuffer = IoUtil.mapNewFile(file, segmentLength, false);
+        final UnsafeBuffer buffer = new UnsafeBuffer(mappedBuffer);
+        buffer.putInt(SESSIONS_PER_SEGMENT_OFFSET, sessionsPerSegment);
+        buffer.putInt(INDEX_FILE_SIZE_OFFSET, indexFileSize);
+        buffer.putIntOrdered(CHECKPOINT_FILE_SIZE_OFFSET, checkpointFileSize);
+
+        final Segment segment = new Segment(mappedBuffer, buffer);
+        segments.add(segment);
+        return segment;
+    }
+
+    private static int headerLength(final int sessionsPerSegment)
+    {
+        return BitUtil.align(DIRECTORY_OFFSET + sessionsPerSegment * BitUtil.SIZE_OF_LONG, BitUtil.CACHE_LINE_LENGTH);
+    }
+
+    private static int slotLength(final int indexFileSize, final int checkpointFileSize)
+    {
+        return BitUtil.align(indexFileSize, BitUtil.CACHE_LINE_LENGTH) +
+            BitUtil.align(checkpointFileSize, BitUtil.CACHE_LINE_LENGTH);
+    }
+
+    private static long slot(final int segmentIndex, final int slotIndex)
+    {
+        return ((long)segmentIndex << 32) | slotIndex;
+    }
+
+    private static int segmentIndex(final long slot)
+    {
+        return (int)(slot >>> 32);
+    }
+
+    private static int slotIndex(final long slot)
+    {
+        return (int)slot;
+    }
+
+    private final class Segment
+    {
+        private final MappedByteBuffer mappedBuffer;
+        private final UnsafeBuffer buffer;
+        private final int sessionsPerSegment;
+        private final int indexFileSize;
+        private final int checkpointFileSize;
+        private final int headerLength;
+        private final int slotLength;
+
+        private int knownSlots;
+
+        Segment(final MappedByteBuffer mappedBuffer, final UnsafeBuffer buffer)
+        {
+            this.mappedBuffer = mappedBuffer;
+            this.buffer = buffer;
+            checkpointFileSize = buffer.getIntVolatile(CHECKPOINT_FILE_SIZE_OFFSET);
+            sessionsPerSegment = buffer.getInt(SESSIONS_PER_SEGMENT_OFFSET);
+            indexFileSize = buffer.getInt(INDEX_FILE_SIZE_OFFSET);
+            headerLength = headerLength(sessionsPerSegment);
+            slotLength = slotLength(indexFileSize, checkpointFileSize);
+        }
+
+        boolean isFull()
+        {
+            return knownSlots == sessionsPerSegment;
+        }
+
+        int allocate(final long sessionId)
+        {
+            final int slotIndex = knownSlots;
+            buffer.putLong(DIRECTORY_OFFSET + slotIndex * BitUtil.SIZE_OF_LONG, sessionId);
+            knownSlots = slotIndex + 1;
+            buffer.putIntOrdered(SLOT_COUNT_OFFSET, knownSlots);
+            return slotIndex;
+        }
+
+        void readDirectory(final int segmentIndex)
+        {
+            final int slotCount = buffer.getIntVolatile(SLOT_COUNT_OFFSET);
+            for (int slotIndex = knownSlots; slotIndex < slotCount; slotIndex++)
+            {
+                final long sessionId = buffer.getLong(DIRECTORY_OFFSET + slotIndex * BitUtil.SIZE_OF_LONG);
+                sessionIdToSlot.put(sessionId, slot(segmentIndex, slotIndex));
+            }
+            knownSlots = slotCount;
+        }
+
+        void wrap(final int slotIndex, final AtomicBuffer indexBuffer, final AtomicBuffer checkpointBuffer)
+        {
+            final int slotOffset = headerLength + slotIndex * slotLength;
+            indexBuffer.wrap(buffer, slotOffset, indexFileSize);
+            checkpointBuffer.wrap(
+                buffer, slotOffset + BitUtil.align(indexFileSize, BitUtil.CACHE_LINE_LENGTH), checkpointFileSize);
+        }
+    }
+}
@@ -63,6 +63,7 @@ public class ReplayOperation
     private final ControlledFragmentAssembler assembler;
 
     private final List<RecordingRange> ranges;
+    private final int skippedMessages;
     private final AeronArchive aeronArchive;
     private final ErrorHandler errorHandler;
     private final int archiveReplayStream;
@@ -79,6 +80,7 @@ public class ReplayOperation
 
     ReplayOperation(
         final List<RecordingRange> ranges,
+        final int skippedMessages,
         final AeronArchive aeronArchive,
         final ErrorHandler errorHandler,
         final Subscription subscription,
@@ -90,6 +92,7 @@ public class ReplayOperation
         assembler = new ControlledFragmentAssembler(this.messageTracker);
 
         this.ranges = ranges;
+        this.skippedMessages = skippedMessages;
         this.aeronArchive = aeronArchive;
         this.errorHandler = errorHandler;
         this.archiveReplayStream = archiveReplayStream;
@@ -254,6 +257,11 @@ public class ReplayOperation
         return replayedMessages;
     }
 
+    int skippedMessages()
+    {
+        return skippedMessages;
+    }
+
     private boolean archivingNotComplete(final long endPosition, final long recordingId)
     {
         final int counterId = RecordingPos.findCounterIdByRecording(countersReader, recordingId);
@@ -20,12 +20,14 @@ import io.aeron.archive.client.AeronArchive;
 import org.agrona.CloseHelper;
 import org.agrona.ErrorHandler;
 import org.agrona.IoUtil;
+import org.agrona.collections.IntHashSet;
 import org.agrona.collections.Long2LongHashMap;
 import org.agrona.collections.Long2ObjectCache;
 import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.IdleStrategy;
 import org.agrona.concurrent.UnsafeBuffer;
 import uk.co.real_logic.artio.LogTag;
+import uk.co.real_logic.artio.engine.ReplayIndexLayout;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 import uk.co.real_logic.artio.storage.messages.ReplayIndexRecordDecoder;
 
@@ -50,6 +52,12 @@ import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
  */
 public class ReplayQuery implements AutoCloseable
 {
+    // Starting another archive replay costs a round trip to the archive, so runs of skipped messages that are
+    // shorter than this are replayed as part of the surrounding range instead.
+    static final int MIN_SKIPPED_LENGTH_TO_SPLIT_RANGE = 64 * 1024;
+
+    private static final long NO_CHECKPOINT = -1;
+
     private final MessageHeaderDecoder messageFrameHeader = new MessageHeaderDecoder();
     private final ReplayIndexRecordDecoder indexRecord = new ReplayIndexRecordDecoder();
 
@@ -63,6 +71,8 @@ public class ReplayQuery implements AutoCloseable
     private final AeronArchive aeronArchive;
     private final ErrorHandler errorHandler;
     private final int archiveReplayStream;
+    private final ReplayIndexSegments segments;
+    private final boolean ownsReplaySubscription;
 
     private Subscription replaySubscription;
 
@@ -75,7 +85,44 @@ public class ReplayQuery implements AutoCloseable
         final IdleStrategy idleStrategy,
         final AeronArchive aeronArchive,
         final ErrorHandler errorHandler,
-        final int archiveReplayStream)
+        final int archiveReplayStream,
+        final ReplayIndexLayout layout)
+    {
+        this(logFileDir, cacheNumSets, cacheSetSize, indexBufferFactory, requiredStreamId, idleStrategy, aeronArchive,
+            errorHandler, archiveReplayStream, layout, null);
+    }
+
+    /**
+     * Creates a query that replays from the archive over a subscription that may be shared with other queries.
+     *
+     * A shared subscription must be on the archive replay stream and isn't closed by this query. Each query only
+     * polls the images of the replays that it has started, so queries on different threads can share it.
+     *
+     * @param logFileDir the directory containing the replay index files.
+     * @param cacheNumSets the number of sets in the session query cache.
+     * @param cacheSetSize the size of each set in the session query cache.
+     * @param indexBufferFactory the factory used to map existing replay index files.
+     * @param requiredStreamId the stream id of the indexed stream.
+     * @param idleStrategy the idle strategy used whilst waiting on the archive.
+     * @param aeronArchive the archive client that replays are started on.
+     * @param errorHandler the error handler.
+     * @param archiveReplayStream the stream id that the archive replays to.
+     * @param layout the layout of the replay index files.
+     * @param sharedReplaySubscription the subscription to replay over, or null to lazily create one owned by this
+     *                                 query.
+     */
+    public ReplayQuery(
+        final String logFileDir,
+        final int cacheNumSets,
+        final int cacheSetSize,
+        final ExistingBufferFactory indexBufferFactory,
+        final int requiredStreamId,
+        final IdleStrategy idleStrategy,
+        final AeronArchive aeronArchive,
+        final ErrorHandler errorHandler,
+        final int archiveReplayStream,
+        final ReplayIndexLayout layout,
+        final Subscription sharedReplaySubscription)
     {
         this.logFileDir = logFileDir;
         this.indexBufferFactory = indexBufferFactory;
@@ -87,6 +134,9 @@ public class ReplayQuery implements AutoCloseable
 
         logFileDirFile = new File(logFileDir);
         fixSessionToIndex = new Long2ObjectCache<>(cacheNumSets, cacheSetSize, SessionQuery::close);
+        segments = layout == ReplayIndexLayout.SEGMENTED ? new ReplayIndexSegments(logFileDir, requiredStreamId) : null;
+        replaySubscription = sharedReplaySubscription;
+        ownsReplaySubscription = sharedReplaySubscription == null;
     }
 
     /**
@@ -109,13 +159,71 @@ public class ReplayQuery implements AutoCloseable
         final LogTag logTag,
         final MessageTracker tracker)
     {
-        return lookupSessionQuery(sessionId)
-            .query(beginSequenceNumber, beginSequenceIndex, endSequenceNumber, endSequenceIndex, logTag, tracker);
+        return query(
+            sessionId,
+            beginSequenceNumber,
+            beginSequenceIndex,
+            endSequenceNumber,
+            endSequenceIndex,
+            logTag,
+            tracker,
+            null);
+    }
+
+    /**
+     * Queries the index, leaving messages of the skipped message types out of the archive replay where that saves
+     * reading a long enough run of the archive. Skipped messages are counted by the returned operation rather than
+     * replayed, so the caller can gap fill over them.
+     *
+     * @param sessionId the FIX session id of the stream to replay.
+     * @param beginSequenceNumber sequence number to begin replay at (inclusive).
+     * @param beginSequenceIndex the sequence index to begin replay at (inclusive).
+     * @param endSequenceNumber sequence number to end replay at (inclusive).
+     * @param endSequenceIndex the sequence index to end replay at (inclusive).
+     * @param logTag the operation to tag log entries with
+     * @param tracker the tracker to which messages are replayed
+     * @param skippedMessageTypes the message types, in the form stored by the index, that needn't be replayed, or
+     *                            null to replay every message.
+     * @return number of messages replayed
+     */
+    public ReplayOperation query(
+        final long sessionId,
+        final int beginSequenceNumber,
+        final int beginSequenceIndex,
+        final int endSequenceNumber,
+        final int endSequenceIndex,
+        final LogTag logTag,
+        final MessageTracker tracker,
+        final IntHashSet skippedMessageTypes)
+    {
+        return lookupSessionQuery(sessionId).query(
+            beginSequenceNumber,
+            beginSequenceIndex,
+            endSequenceNumber,
+            endSequenceIndex,
+            logTag,
+            tracker,
+            skippedMessageTypes);
+    }
+
+    /**
+     * Looks up the ranges of the archive that hold all of a session's indexed messages. Messages that are close
+     * together in a recording are merged into a single range, as starting another archive replay costs more than
+     * reading a short run of other sessions' messages.
+     *
+     * @param sessionId the FIX session id of the stream to look up.
+     * @return the ranges in the order that they were indexed, or null if the index no longer holds all of the
+     * session's messages because its oldest records have been overwritten.
+     */
+    public List<RecordingRange> queryRecordingRanges(final long sessionId)
+    {
+        return lookupSessionQuery(sessionId).queryRecordingRanges();
     }
 
     public void queryStartPositions(final Long2LongHashMap newStartPositions)
     {
-        final LongHashSet allSessionIds = listReplayIndexSessionIds(logFileDirFile, requiredStreamId);
+        final LongHashSet allSessionIds = segments != null ?
+            segments.sessionIds() : listReplayIndexSessionIds(logFileDirFile, requiredStreamId);
 
         // Run over existing session queries first in order to minimise cache evictions then reloads.
         for (final SessionQuery query : fixSessionToIndex.values())
@@ -160,8 +268,12 @@ public class ReplayQuery implements AutoCloseable
     public void close()
     {
         fixSessionToIndex.clear();
+        CloseHelper.close(segments);
 
-        CloseHelper.close(replaySubscription);
+        if (ownsReplaySubscription)
+        {
+            CloseHelper.close(replaySubscription);
+        }
     }
 
     private final class SessionQuery implements AutoCloseable
@@ -169,17 +281,70 @@ public class ReplayQuery implements AutoCloseable
         private final ByteBuffer wrappedBuffer;
         private final long sessionId;
         private final UnsafeBuffer buffer;
-        private final int capacity;
-        private final int actingBlockLength;
-        private final int actingVersion;
+        private final ByteBuffer wrappedCheckpointBuffer;
+        private final UnsafeBuffer checkpointBuffer;
+
+        private boolean wrapped;
+        private int capacity;
+        private int checkpointCapacity;
+        private int actingBlockLength;
+        private int actingVersion;
 
         SessionQuery(final long sessionId)
         {
-            wrappedBuffer = indexBufferFactory.map(replayIndexFile(logFileDir, sessionId, requiredStreamId));
-            buffer = new UnsafeBuffer(wrappedBuffer);
-            capacity = recordCapacity(buffer.capacity());
             this.sessionId = sessionId;
 
+            if (segments != null)
+            {
+                wrappedBuffer = null;
+                wrappedCheckpointBuffer = null;
+                buffer = new UnsafeBuffer(0, 0);
+                checkpointBuffer = new UnsafeBuffer(0, 0);
+                wrapped = segments.wrap(sessionId, buffer, checkpointBuffer);
+            }
+            else
+            {
+                wrappedBuffer = indexBufferFactory.map(replayIndexFile(logFileDir, sessionId, requiredStreamId));
+                buffer = new UnsafeBuffer(wrappedBuffer);
+
+                // Indices written before checkpoints were introduced don't have a checkpoint file, just scan those.
+                final File checkpointFile = checkpointFile(logFileDir, sessionId, requiredStreamId);
+                if (checkpointFile.exists())
+                {
+                    wrappedCheckpointBuffer = indexBufferFactory.map(checkpointFile);
+                    checkpointBuffer = new UnsafeBuffer(wrappedCheckpointBuffer);
+                }
+                else
+                {
+                    wrappedCheckpointBuffer = null;
+                    checkpointBuffer = null;
+                }
+                wrapped = true;
+            }
+
+            if (wrapped)
+            {
+                onWrapped();
+            }
+        }
+
+        // A session may not have been allocated a segment slot yet when its query is created.
+        private boolean isWrapped()
+        {
+            if (!wrapped && segments.wrap(sessionId, buffer, checkpointBuffer))
+            {
+                wrapped = true;
+                onWrapped();
+            }
+
+            return wrapped;
+        }
+
+        private void onWrapped()
+        {
+            capacity = recordCapacity(buffer.capacity());
+            checkpointCapacity = checkpointBuffer == null ? 0 : checkpointCapacity(checkpointBuffer.capacity());
+
             messageFrameHeader.wrap(buffer, 0);
             actingBlockLength = messageFrameHeader.blockLength();
             actingVersion = messageFrameHeader.version();
@@ -190,8 +355,15 @@ public class ReplayQuery implements AutoCloseable
             final int beginSequenceIndex,
             final int endSequenceNumber,
             final int endSequenceIndex,
-            final LogTag logTag, final MessageTracker messageTracker)
+            final LogTag logTag,
+            final MessageTracker messageTracker,
+            final IntHashSet skippedMessageTypes)
         {
+            if (!isWrapped())
+            {
+                return newReplayOperation(new ArrayList<>(), 0, logTag, messageTracker);
+            }
+
             final int actingBlockLength = this.actingBlockLength;
             final int actingVersion = this.actingVersion;
             final boolean upToMostRecentMessage = endSequenceNumber == MOST_RECENT_MESSAGE;
@@ -201,10 +373,18 @@ public class ReplayQuery implements AutoCloseable
             final List<RecordingRange> ranges = new ArrayList<>();
             RecordingRange currentRange = null;
 
-            long iteratorPosition = getIteratorPosition();
-            long stopIteratingPosition = iteratorPosition + capacity;
+            final long oldestPosition = getIteratorPosition();
+            long iteratorPosition = startPosition(beginSequenceIndex, beginSequenceNumber, oldestPosition);
+            long stopIteratingPosition = oldestPosition + capacity;
 
             int lastSequenceNumber = -1;
+
+            // Skipped messages since the last record that was added to a range
+            int skippedMessages = 0;
+            int pendingSkippedMessages = 0;
+            int lastSkippedSequenceNumber = -1;
+            boolean pendingSkippedOtherRecording = false;
+
             while (iteratorPosition < stopIteratingPosition)
             {
                 final long changePosition = endChangeVolatile(buffer);
@@ -223,6 +403,7 @@ public class ReplayQuery implements AutoCloseable
                 final int sequenceNumber = indexRecord.sequenceNumber();
                 final long recordingId = indexRecord.recordingId();
                 final int readLength = indexRecord.length();
+                final int messageType = indexRecord.messageType();
 
                 UNSAFE.loadFence(); // LoadLoad required so previous loads don't move past version check below.
 
@@ -240,8 +421,41 @@ public class ReplayQuery implements AutoCloseable
 
                     final boolean withinQueryRange = sequenceIndex > beginSequenceIndex ||
                         (sequenceIndex == beginSequenceIndex && sequenceNumber >= beginSequenceNumber);
-                    if (withinQueryRange)
+                    if (withinQueryRange && skippedMessageTypes != null && skippedMessageTypes.contains(messageType))
                     {
+                        // FIX messages can be fragmented, so number of skipped records != count
+                        if (lastSkippedSequenceNumber != sequenceNumber)
+                        {
+                            pendingSkippedMessages++;
+                            lastSkippedSequenceNumber = sequenceNumber;
+                        }
+                        pendingSkippedOtherRecording |= currentRange == null || currentRange.recordingId != recordingId;
+                        iteratorPosition += RECORD_LENGTH;
+                    }
+                    else if (withinQueryRange)
+                    {
+                        if (pendingSkippedMessages > 0)
+                        {
+                            if (pendingSkippedOtherRecording || currentRange.recordingId != recordingId ||
+                                skippedLength(currentRange, beginPosition) >= MIN_SKIPPED_LENGTH_TO_SPLIT_RANGE)
+                            {
+                                if (currentRange != null)
+                                {
+                                    ranges.add(currentRange);
+                                    currentRange = null;
+                                }
+                                skippedMessages += pendingSkippedMessages;
+                            }
+                            else
+                            {
+                                // Too short to be worth skipping, the messages are replayed with the range.
+                                currentRange.count += pendingSkippedMessages;
+                            }
+
+                            pendingSkippedMessages = 0;
+                            pendingSkippedOtherRecording = false;
+                        }
+
                         currentRange = addRange(
                             ranges,
                             currentRange,
@@ -269,7 +483,15 @@ public class ReplayQuery implements AutoCloseable
                 ranges.add(currentRange);
             }
 
-            return newReplayOperation(ranges, logTag, messageTracker);
+            // Messages skipped at the end of the query are never within a range
+            skippedMessages += pendingSkippedMessages;
+
+            return newReplayOperation(ranges, skippedMessages, logTag, messageTracker);
+        }
+
+        private long skippedLength(final RecordingRange currentRange, final long beginPosition)
+        {
+            return trueBeginPosition(beginPosition) - (currentRange.position + currentRange.length);
         }
 
         private long skipToStart(final int beginSequenceNumber, final long iteratorPosition, final int sequenceNumber)
@@ -295,7 +517,10 @@ public class ReplayQuery implements AutoCloseable
         }
 
         private ReplayOperation newReplayOperation(
-            final List<RecordingRange> ranges, final LogTag logTag, final MessageTracker messageTracker)
+            final List<RecordingRange> ranges,
+            final int skippedMessages,
+            final LogTag logTag,
+            final MessageTracker messageTracker)
         {
             if (replaySubscription == null)
             {
@@ -305,6 +530,7 @@ public class ReplayQuery implements AutoCloseable
 
             return new ReplayOperation(
                 ranges,
+                skippedMessages,
                 aeronArchive,
                 errorHandler,
                 replaySubscription,
@@ -357,8 +583,155 @@ public class ReplayQuery implements AutoCloseable
             return iteratorPosition;
         }
 
+        /**
+         * Binary search the checkpoints for the last record strictly before the start of the query, so that the
+         * scan can begin near the start of the range rather than at the oldest record in the index.
+         *
+         * Checkpoints hold the position that a record was written at. Once the index has wrapped the iterator starts
+         * at the oldest record's slot one capacity later, see {@link #getIteratorPosition()}, so checkpoints are
+         * moved onto that scale and only used if their record hasn't been overwritten since.
+         */
+        private long startPosition(
+            final int beginSequenceIndex, final int beginSequenceNumber, final long iteratorPosition)
+        {
+            final UnsafeBuffer checkpointBuffer = this.checkpointBuffer;
+            if (checkpointBuffer == null)
+            {
+                return iteratorPosition;
+            }
+
+            final int checkpointCapacity = this.checkpointCapacity;
+            final long hi = checkpointEndChangeVolatile(checkpointBuffer) / CHECKPOINT_LENGTH;
+            final long lo = Math.max(0, hi - checkpointCapacity / CHECKPOINT_LENGTH);
+
+            long low = lo;
+            long high = hi - 1;
+            long checkpointPosition = NO_CHECKPOINT;
+            while (low <= high)
+            {
+                final long mid = (low + high) >>> 1;
+                final int offset = checkpointOffset(mid * CHECKPOINT_LENGTH, checkpointCapacity);
+                final int sequenceIndex = checkpointSequenceIndex(checkpointBuffer, offset);
+                final int sequenceNumber = checkpointSequenceNumber(checkpointBuffer, offset);
+
+                if (sequenceIndex < beginSequenceIndex ||
+                    (sequenceIndex == beginSequenceIndex && sequenceNumber < beginSequenceNumber))
+                {
+                    checkpointPosition = checkpointChangePosition(checkpointBuffer, offset);
+                    low = mid + 1;
+                }
+                else
+                {
+                    high = mid - 1;
+                }
+            }
+
+            UNSAFE.loadFence(); // LoadLoad required so previous loads don't move past version check below.
+
+            // Lapped by the checkpoint writer or reset whilst searching, or there's no earlier checkpoint.
+            final long checkpointBeginChange = checkpointBeginChangeVolatile(checkpointBuffer);
+            if (checkpointBeginChange > lo * CHECKPOINT_LENGTH + checkpointCapacity ||
+                checkpointBeginChange < hi * CHECKPOINT_LENGTH ||
+                checkpointPosition == NO_CHECKPOINT)
+            {
+                return iteratorPosition;
+            }
+
+            final long startPosition = iteratorPosition >= capacity ?
+                checkpointPosition + capacity : checkpointPosition;
+            // The checkpoint's record has been overwritten if it's older than the oldest record.
+            return Math.max(startPosition, iteratorPosition);
+        }
+
+        List<RecordingRange> queryRecordingRanges()
+        {
+            final List<RecordingRange> ranges = new ArrayList<>();
+            if (!isWrapped())
+            {
+                return ranges;
+            }
+
+            long iteratorPosition = getIteratorPosition();
+            if (iteratorPosition != 0)
+            {
+                return null;
+            }
+
+            final int actingBlockLength = this.actingBlockLength;
+            final int actingVersion = this.actingVersion;
+            final long stopIteratingPosition = iteratorPosition + capacity;
+
+            RecordingRange currentRange = null;
+            int lastSequenceNumber = -1;
+
+            while (iteratorPosition < stopIteratingPosition)
+            {
+                final long changePosition = endChangeVolatile(buffer);
+
+                // Lapped by writer, so the oldest records have been overwritten since we started.
+                if (changePosition > iteratorPosition && (iteratorPosition + capacity) <= beginChangeVolatile(buffer))
+                {
+                    return null;
+                }
+
+                final int offset = offset(iteratorPosition, capacity);
+                indexRecord.wrap(buffer, offset, actingBlockLength, actingVersion);
+                final long beginPosition = indexRecord.position();
+                final int sequenceNumber = indexRecord.sequenceNumber();
+                final long recordingId = indexRecord.recordingId();
+                final int readLength = indexRecord.length();
+
+                UNSAFE.loadFence(); // LoadLoad required so previous loads don't move past version check below.
+
+                // if the block was read atomically with no updates
+                if (changePosition == beginChangeVolatile(buffer))
+                {
+                    idleStrategy.reset();
+
+                    if (beginPosition == 0)
+                    {
+                        break;
+                    }
+
+                    if (currentRange != null && currentRange.recordingId == recordingId &&
+                        skippedLength(currentRange, beginPosition) >= MIN_SKIPPED_LENGTH_TO_SPLIT_RANGE)
+                    {
+                        ranges.add(currentRange);
+                        currentRange = null;
+                    }
+
+                    currentRange = addRange(
+                        ranges,
+                        currentRange,
+                        lastSequenceNumber,
+                        beginPosition,
+                        sequenceNumber,
+                        recordingId,
+                        readLength);
+                    lastSequenceNumber = sequenceNumber;
+                    iteratorPosition += RECORD_LENGTH;
+                }
+                else
+                {
+                    idleStrategy.idle();
+                }
+            }
+
+            if (currentRange != null)
+            {
+                ranges.add(currentRange);
+            }
+
+            return ranges;
+        }
+
         public Long2LongHashMap queryStartPositions()
         {
+            if (!isWrapped())
+            {
+                return new Long2LongHashMap(NULL_VALUE);
+            }
+
             final int actingBlockLength = this.actingBlockLength;
             final int actingVersion = this.actingVersion;
 
@@ -437,6 +810,11 @@ public class ReplayQuery implements AutoCloseable
             {
                 IoUtil.unmap((MappedByteBuffer)wrappedBuffer);
             }
+
+            if (wrappedCheckpointBuffer instanceof MappedByteBuffer)
+            {
+                IoUtil.unmap((MappedByteBuffer)wrappedCheckpointBuffer);
+            }
         }
     }
 
@@ -23,115 +23,70 @@ import io.aeron.logbuffer.Header;
 import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
 import org.agrona.collections.IntHashSet;
-import org.agrona.collections.Long2ObjectHashMap;
 import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.*;
 import org.agrona.concurrent.status.AtomicCounter;
 import uk.co.real_logic.artio.DebugLogger;
-import uk.co.real_logic.artio.FixGatewayException;
 import uk.co.real_logic.artio.decoder.AbstractResendRequestDecoder;
 import uk.co.real_logic.artio.engine.ILink3RetransmitHandler;
 import uk.co.real_logic.artio.engine.ReplayHandler;
 import uk.co.real_logic.artio.engine.ReplayerCommandQueue;
 import uk.co.real_logic.artio.engine.SenderSequenceNumbers;
 import uk.co.real_logic.artio.fields.EpochFractionFormat;
-import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
-import uk.co.real_logic.artio.ilink.AbstractILink3Offsets;
-import uk.co.real_logic.artio.ilink.AbstractILink3Parser;
-import uk.co.real_logic.artio.ilink.AbstractILink3Proxy;
 import uk.co.real_logic.artio.messages.*;
 import uk.co.real_logic.artio.util.AsciiBuffer;
 import uk.co.real_logic.artio.util.CharFormatter;
-import uk.co.real_logic.artio.util.Lazy;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
 import java.util.Set;
 
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.*;
-import static java.util.concurrent.TimeUnit.SECONDS;
 import static uk.co.real_logic.artio.LogTag.REPLAY;
 import static uk.co.real_logic.artio.messages.MessageHeaderDecoder.ENCODED_LENGTH;
-import static uk.co.real_logic.artio.util.MessageTypeEncoding.packMessageType;
 
 /**
  * The replayer responds to resend requests with data from the log of sent messages.
  *
  * This agent subscribes to the stream of incoming fix data messages. It parses
- * Resend Request messages and searches the log, using the replay index to find
- * relevant messages to resend.
+ * Resend Request messages and hands them to a {@link ReplayerWorker} that searches the log,
+ * using the replay index to find relevant messages to resend.
+ *
+ * The workers are either invoked on this agent's thread or, in pooled mode, run on their own threads.
+ * Each connection is always assigned to the same worker, see {@link #workerIndex(long, int)}.
  */
 public class Replayer implements Agent, ControlledFragmentHandler
 {
     public static final int MOST_RECENT_MESSAGE = 0;
 
-    private static final long TIMESTAMP_MESSAGE_INTERVAL = SECONDS.toNanos(2);
-
     static final int MESSAGE_FRAME_BLOCK_LENGTH =
         ENCODED_LENGTH + FixMessageDecoder.BLOCK_LENGTH + FixMessageDecoder.bodyHeaderLength();
     static final int SIZE_OF_LENGTH_FIELD = FixMessageDecoder.bodyHeaderLength();
     private static final int POLL_LIMIT = 10;
 
     private final AsciiBuffer asciiBuffer = new MutableAsciiBuffer();
-    private final BufferClaim bufferClaim;
-
-    // Safe to share between multiple ReplayerSession instances due to single threaded nature of the Replayer
-    final MessageHeaderDecoder messageHeaderDecoder = new MessageHeaderDecoder();
-    final MessageHeaderEncoder messageHeaderEncoder = new MessageHeaderEncoder();
-    final ReplayCompleteEncoder replayCompleteEncoder = new ReplayCompleteEncoder();
 
     // FIX specific state.
-    private final LongHashSet gapFillMessageTypes;
     private final FixSessionCodecsFactory fixSessionCodecsFactory;
-    private final CharFormatter receivedResendFormatter = new CharFormatter(
-        "Received Resend Request for inclusive range: [%s, %s]");
     private final CharFormatter alreadyDisconnectedFormatter = new CharFormatter(
         "Not processing Resend Request for %s because it has already disconnected");
 
-    // For FixReplayerSession, safe to share rather than allocate for each FixReplayerSession
-    final CharFormatter completeNotRecentFormatter = new CharFormatter(
-        "ReplayerSession: completeReplay-!upToMostRecent replayedMessages=%s " +
-        "endSeqNo=%s beginSeqNo=%s expectedCount=%s");
-    final CharFormatter completeReplayGapfillFormatter = new CharFormatter(
-        "ReplayerSession: completeReplay-sendGapFill action=%s, replayedMessages=%s, " +
-        "beginGapFillSeqNum=%s, newSequenceNumber=%s");
-
     // ILink specific state
-    private final IntHashSet gapfillOnRetransmitILinkTemplateIds;
-    private final Lazy<AbstractILink3Parser> iLink3Parser;
-    private final Lazy<AbstractILink3Proxy> iLink3Proxy;
-    private final Lazy<AbstractILink3Offsets> iLink3Offsets;
     private final LongHashSet iLinkConnectionIds = new LongHashSet();
     private final ILinkConnectDecoder iLinkConnect = new ILinkConnectDecoder();
-    private final ILinkMessageEncoder iLinkMessageEncoder = new ILinkMessageEncoder();
-
-    // Timestamp state
-    private final UnsafeBuffer timestampBuffer = new UnsafeBuffer(new byte[
-        ENCODED_LENGTH + ReplayerTimestampDecoder.BLOCK_LENGTH]);
-    private final ReplayerTimestampEncoder replayerTimestampEncoder = new ReplayerTimestampEncoder();
-    private long nextTimestampMessageInNs;
 
-    private final Long2ObjectHashMap<ReplayChannel> connectionIdToReplayerChannel = new Long2ObjectHashMap<>();
     private final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
     private final ValidResendRequestDecoder validResendRequest = new ValidResendRequestDecoder();
     private final RequestDisconnectDecoder requestDisconnect = new RequestDisconnectDecoder();
     private final DisconnectDecoder disconnect = new DisconnectDecoder();
 
-    private final int maxBytesInBuffer;
+    private final ReplayerWorker[] workers;
+    private final boolean pooled;
     private final ReplayerCommandQueue replayerCommandQueue;
     private final AtomicCounter currentReplayCount;
-    private final int maxConcurrentSessionReplays;
-    private final EpochNanoClock clock;
-    private final ReplayQuery outboundReplayQuery;
-    private final ExclusivePublication publication;
-    private final IdleStrategy idleStrategy;
     private final ErrorHandler errorHandler;
-    private final int maxClaimAttempts;
     private final Subscription inboundSubscription;
     private final String agentNamePrefix;
-    private final ReplayHandler replayHandler;
-    private final ILink3RetransmitHandler iLink3RetransmitHandler;
     private final SenderSequenceNumbers senderSequenceNumbers;
-    private final UtcTimestampEncoder utcTimestampEncoder;
 
     public Replayer(
         final ReplayQuery outboundReplayQuery,
@@ -155,37 +110,82 @@ public class Replayer implements Agent, ControlledFragmentHandler
         final int maxConcurrentSessionReplays,
         final EpochNanoClock clock)
     {
-        this.outboundReplayQuery = outboundReplayQuery;
-        this.publication = publication;
-        this.bufferClaim = bufferClaim;
-        this.idleStrategy = idleStrategy;
+        this(
+            new ReplayerWorker[]{ new ReplayerWorker(
+                0,
+                outboundReplayQuery,
+                publication,
+                bufferClaim,
+                idleStrategy,
+                errorHandler,
+                maxClaimAttempts,
+                agentNamePrefix,
+                gapfillOnReplayMessageTypes,
+                gapfillOnRetransmitILinkTemplateIds,
+                replayHandler,
+                iLink3RetransmitHandler,
+                maxBytesInBuffer,
+                epochFractionFormat,
+                currentReplayCount,
+                maxConcurrentSessionReplays,
+                clock,
+                null) },
+            false,
+            errorHandler,
+            inboundSubscription,
+            agentNamePrefix,
+            senderSequenceNumbers,
+            fixSessionCodecsFactory,
+            replayerCommandQueue,
+            currentReplayCount);
+    }
+
+    /**
+     * Create a replayer that hands replays to the given workers.
+     *
+     * @param workers the workers that replay messages, must not be empty.
+     * @param pooled true if the workers run as agents on their own threads and are passed replays through their
+     *               command queues, false if they're invoked on this agent's thread.
+     * @param errorHandler the error handler.
+     * @param inboundSubscription the subscription to the inbound library stream that resend requests are read from.
+     * @param agentNamePrefix the prefix of the role name of this agent.
+     * @param senderSequenceNumbers the sender sequence numbers of the connected sessions.
+     * @param fixSessionCodecsFactory the factory for the codecs of each FIX session.
+     * @param replayerCommandQueue the queue of commands that the Framer passes to this agent.
+     * @param currentReplayCount the counter of replays in progress, shared with the workers.
+     */
+    public Replayer(
+        final ReplayerWorker[] workers,
+        final boolean pooled,
+        final ErrorHandler errorHandler,
+        final Subscription inboundSubscription,
+        final String agentNamePrefix,
+        final SenderSequenceNumbers senderSequenceNumbers,
+        final FixSessionCodecsFactory fixSessionCodecsFactory,
+        final ReplayerCommandQueue replayerCommandQueue,
+        final AtomicCounter currentReplayCount)
+    {
+        this.workers = workers;
+        this.pooled = pooled;
         this.errorHandler = errorHandler;
-        this.maxClaimAttempts = maxClaimAttempts;
         this.inboundSubscription = inboundSubscription;
         this.agentNamePrefix = agentNamePrefix;
-        this.gapfillOnRetransmitILinkTemplateIds = gapfillOnRetransmitILinkTemplateIds;
-        this.replayHandler = replayHandler;
-        this.iLink3RetransmitHandler = iLink3RetransmitHandler;
         this.senderSequenceNumbers = senderSequenceNumbers;
         this.fixSessionCodecsFactory = fixSessionCodecsFactory;
-        this.maxBytesInBuffer = maxBytesInBuffer;
         this.replayerCommandQueue = replayerCommandQueue;
         this.currentReplayCount = currentReplayCount;
-        this.maxConcurrentSessionReplays = maxConcurrentSessionReplays;
-        this.clock = clock;
-
-        gapFillMessageTypes = new LongHashSet();
-        gapfillOnReplayMessageTypes.forEach(messageTypeAsString ->
-            gapFillMessageTypes.add(packMessageType(messageTypeAsString)));
-        utcTimestampEncoder = new UtcTimestampEncoder(epochFractionFormat);
-
-        iLink3Parser = new Lazy<>(() -> AbstractILink3Parser.make(null, errorHandler));
-        iLink3Proxy = new Lazy<>(() -> AbstractILink3Proxy.make(publication, errorHandler, clock));
-        iLink3Offsets = new Lazy<>(() -> AbstractILink3Offsets.make(errorHandler));
+    }
 
-        nextTimestampMessageInNs = clock.nanoTime() + TIMESTAMP_MESSAGE_INTERVAL;
-        replayerTimestampEncoder
-            .wrapAndApplyHeader(timestampBuffer, 0, messageHeaderEncoder);
+    /**
+     * Gets the index of the worker that replays the messages of a connection.
+     *
+     * @param connectionId the id of the connection.
+     * @param workerCount the number of workers.
+     * @return the index of the worker that replays the messages of the connection.
+     */
+    public static int workerIndex(final long connectionId, final int workerCount)
+    {
+        return (int)((connectionId & Long.MAX_VALUE) % workerCount);
     }
 
     public Action onFragment(
@@ -240,9 +240,7 @@ public class Replayer implements Agent, ControlledFragmentHandler
 
                 final long connectionId = requestDisconnect.connection();
 
-                onDisconnect(connectionId);
-
-                return CONTINUE;
+                return onDisconnect(connectionId);
             }
 
             case DisconnectDecoder.TEMPLATE_ID:
@@ -255,9 +253,7 @@ public class Replayer implements Agent, ControlledFragmentHandler
 
                 final long connectionId = disconnect.connection();
 
-                onDisconnect(connectionId);
-
-                return CONTINUE;
+                return onDisconnect(connectionId);
             }
 
             default:
@@ -267,17 +263,24 @@ public class Replayer implements Agent, ControlledFragmentHandler
         }
     }
 
-    private void onDisconnect(final long connectionId)
+    private Action onDisconnect(final long connectionId)
     {
-        iLinkConnectionIds.remove(connectionId);
-
-        final ReplayChannel replayChannel = connectionIdToReplayerChannel.remove(connectionId);
-        if (replayChannel != null)
+        final ReplayerWorker worker = worker(connectionId);
+        if (pooled)
         {
-            currentReplayCount.decrement();
-            // replay was in progress at the time of disconnect
-            replayChannel.close();
+            if (!worker.commandQueue().offer(() -> worker.onDisconnect(connectionId)))
+            {
+                return ABORT;
+            }
         }
+        else
+        {
+            worker.onDisconnect(connectionId);
+        }
+
+        iLinkConnectionIds.remove(connectionId);
+
+        return CONTINUE;
     }
 
     Action onResendRequest(
@@ -297,220 +300,79 @@ public class Replayer implements Agent, ControlledFragmentHandler
             return CONTINUE;
         }
 
-        final ReplayChannel replayChannel = connectionIdToReplayerChannel.get(connectionId);
-        if (replayChannel != null)
+        final ReplayerWorker worker = worker(connectionId);
+        final EnqueuedReplay replay;
+        final FixReplayerCodecs sessionCodecs = fixSessionCodecsFactory.get(sessionId);
+        if (sessionCodecs != null)
         {
-            final int enqueuedReplayCount = replayChannel.enqueuedReplayCount();
-            if (enqueuedReplayCount >= maxConcurrentSessionReplays)
+            final AtomicCounter bytesInBuffer = senderSequenceNumbers.bytesInBufferCounter(connectionId);
+            if (bytesInBuffer == null)
             {
-                errorHandler.onError(new FixGatewayException(String.format(
-                    "Ignore resend request for sessionId=%d,connectionId=%d as %d requests in flight",
-                    sessionId,
-                    connectionId,
-                    enqueuedReplayCount)));
-                return CONTINUE;
+                return ABORT;
             }
 
-            // Existing replay in progress
-            final int length = asciiBuffer.capacity();
-            final MutableAsciiBuffer copiedBuffer = new MutableAsciiBuffer(new byte[length]);
-            copiedBuffer.putBytes(0, asciiBuffer, 0, length);
+            final AbstractResendRequestDecoder resendRequest = sessionCodecs.resendRequest();
+            resendRequest.reset();
+            resendRequest.decode(asciiBuffer, 0, asciiBuffer.capacity());
 
-            replayChannel.enqueueReplay(
-                new EnqueuedReplay(sessionId, connectionId, beginSeqNo, endSeqNo, sequenceIndex, copiedBuffer));
+            final GapFillEncoder encoder = sessionCodecs.makeGapFillEncoder(worker.utcTimestampEncoder());
+            encoder.setupMessage(resendRequest.header());
 
-            return COMMIT;
+            final String message = asciiBuffer.getAscii(0, asciiBuffer.capacity());
+            replay = new EnqueuedReplay(
+                worker, sessionId, connectionId, beginSeqNo, endSeqNo, sequenceIndex, message, encoder, bytesInBuffer);
         }
-        else
+        else if (iLinkConnectionIds.contains(connectionId))
         {
-            // New replay
-            try
-            {
-                final ReplayerSession session = processResendRequest(
-                    sessionId, connectionId, beginSeqNo, endSeqNo, sequenceIndex, asciiBuffer);
-                if (session == null)
-                {
-                    return ABORT;
-                }
-
-                final ReplayChannel channel = new ReplayChannel(session);
-                connectionIdToReplayerChannel.put(connectionId, channel);
-                currentReplayCount.increment();
-
-                return COMMIT;
-            }
-            catch (final IllegalStateException e)
-            {
-                errorHandler.onError(e);
-                return CONTINUE;
-            }
+            replay = new EnqueuedReplay(
+                worker, sessionId, connectionId, beginSeqNo, endSeqNo, sequenceIndex, null, null, null);
         }
-    }
-
-    private ReplayerSession processResendRequest(
-        final long sessionId,
-        final long connectionId,
-        final long beginSeqNo,
-        final long endSeqNo,
-        final int sequenceIndex,
-        final AsciiBuffer asciiBuffer)
-    {
-        final FixReplayerCodecs sessionCodecs = fixSessionCodecsFactory.get(sessionId);
-        if (sessionCodecs != null)
+        else
         {
-            return processFixResendRequest(
-                sessionId, connectionId, (int)beginSeqNo, (int)endSeqNo, sequenceIndex, asciiBuffer, sessionCodecs);
+            errorHandler.onError(new IllegalStateException(
+                "Unknown session: sessionId=" + sessionId + ",connectionId=" + connectionId));
+            return CONTINUE;
         }
-        else if (iLinkConnectionIds.contains(connectionId))
-        {
-            DebugLogger.log(REPLAY,
-                receivedResendFormatter,
-                beginSeqNo,
-                endSeqNo);
-
-            final ILinkReplayerSession session = new ILinkReplayerSession(
-                connectionId, bufferClaim, idleStrategy, maxClaimAttempts, publication, outboundReplayQuery,
-                (int)beginSeqNo, (int)endSeqNo, sessionId, this, gapfillOnRetransmitILinkTemplateIds,
-                iLinkMessageEncoder, iLink3Parser.get(), iLink3Proxy.get(), iLink3Offsets.get(),
-                iLink3RetransmitHandler, clock);
-
-            session.query();
 
-            return session;
+        if (pooled)
+        {
+            return worker.commandQueue().offer(replay) ? COMMIT : ABORT;
         }
 
-        throw new IllegalStateException("Unknown session: sessionId=" + sessionId + ",connectionId=" + connectionId);
+        worker.onReplay(replay);
+        return COMMIT;
     }
 
-    private FixReplayerSession processFixResendRequest(
-        final long sessionId,
-        final long connectionId,
-        final int beginSeqNo,
-        final int endSeqNo,
-        final int sequenceIndex,
-        final AsciiBuffer asciiBuffer,
-        final FixReplayerCodecs sessionCodecs)
+    private ReplayerWorker worker(final long connectionId)
     {
-        final AtomicCounter bytesInBuffer = senderSequenceNumbers.bytesInBufferCounter(connectionId);
-        if (bytesInBuffer == null)
-        {
-            return null;
-        }
-
-        DebugLogger.log(REPLAY,
-            receivedResendFormatter,
-            beginSeqNo,
-            endSeqNo);
-
-        final AbstractResendRequestDecoder resendRequest = sessionCodecs.resendRequest();
-        resendRequest.reset();
-        resendRequest.decode(asciiBuffer, 0, asciiBuffer.capacity());
-
-        final GapFillEncoder encoder = sessionCodecs.makeGapFillEncoder();
-        encoder.setupMessage(resendRequest.header());
-
-        final String message = asciiBuffer.getAscii(0, asciiBuffer.capacity());
-        final FixReplayerSession fixReplayerSession = new FixReplayerSession(
-            bufferClaim,
-            idleStrategy,
-            replayHandler,
-            maxClaimAttempts,
-            gapFillMessageTypes,
-            publication,
-            clock,
-            beginSeqNo,
-            endSeqNo,
-            connectionId,
-            sessionId,
-            sequenceIndex,
-            outboundReplayQuery,
-            message,
-            errorHandler,
-            encoder,
-            bytesInBuffer,
-            maxBytesInBuffer,
-            utcTimestampEncoder,
-            this);
-
-        fixReplayerSession.query();
-
-        return fixReplayerSession;
+        final ReplayerWorker[] workers = this.workers;
+        return workers[workerIndex(connectionId, workers.length)];
     }
 
     public int doWork()
     {
-        sendTimestampMessage();
-
         int work = replayerCommandQueue.poll();
-        work += pollReplayerChannels();
-        return work + inboundSubscription.controlledPoll(this, POLL_LIMIT);
-    }
-
-    private void sendTimestampMessage()
-    {
-        final long timeInNs = clock.nanoTime();
-        if (timeInNs > nextTimestampMessageInNs)
+        if (!pooled)
         {
-            replayerTimestampEncoder.timestamp(timeInNs);
-            final long position = publication.offer(timestampBuffer);
-            if (position > 0)
+            for (final ReplayerWorker worker : workers)
             {
-                nextTimestampMessageInNs = timeInNs + TIMESTAMP_MESSAGE_INTERVAL;
+                work += worker.pollReplayerChannels();
             }
         }
+        return work + inboundSubscription.controlledPoll(this, POLL_LIMIT);
     }
 
-    private int pollReplayerChannels()
+    public void onClose()
     {
-        final Long2ObjectHashMap<ReplayChannel>.EntryIterator replayerChannels =
-            connectionIdToReplayerChannel.entrySet().iterator();
-        final int size = connectionIdToReplayerChannel.size();
-
-        while (replayerChannels.hasNext())
+        if (!pooled)
         {
-            final ReplayChannel channel = replayerChannels.next().getValue();
-            if (channel.attemptReplay())
+            for (final ReplayerWorker worker : workers)
             {
-                // Replay complete
-                final EnqueuedReplay enqueuedReplay = channel.pollReplay();
-                if (enqueuedReplay == null)
-                {
-                    currentReplayCount.decrementOrdered();
-                    replayerChannels.remove();
-                }
-                else
-                {
-                    try
-                    {
-                        final ReplayerSession session = processResendRequest(
-                            enqueuedReplay.sessionId(),
-                            enqueuedReplay.connectionId(),
-                            enqueuedReplay.beginSeqNo(),
-                            enqueuedReplay.endSeqNo(),
-                            enqueuedReplay.sequenceIndex(),
-                            enqueuedReplay.asciiBuffer());
-
-                        channel.startReplay(session);
-                    }
-                    catch (final IllegalStateException e)
-                    {
-                        errorHandler.onError(e);
-                    }
-                }
+                worker.onClose();
             }
         }
-
-        return size;
-    }
-
-    public void onClose()
-    {
-        connectionIdToReplayerChannel.values().forEach(ReplayChannel::close);
-        connectionIdToReplayerChannel.clear();
         currentReplayCount.set(0);
         currentReplayCount.close();
-        publication.close();
-        outboundReplayQuery.close();
     }
 
     public String roleName()
@@ -39,7 +39,7 @@ abstract class ReplayerSession implements ControlledFragmentHandler
     final int endSeqNo;
     final long sessionId;
     final int sequenceIndex;
-    final Replayer replayer;
+    final ReplayerWorker replayer;
 
     ReplayOperation replayOperation;
 
@@ -54,7 +54,7 @@ abstract class ReplayerSession implements ControlledFragmentHandler
         final int endSeqNo,
         final long sessionId,
         final int sequenceIndex,
-        final Replayer replayer)
+        final ReplayerWorker replayer)
     {
         this.connectionId = connectionId;
         this.bufferClaim = bufferClaim;
@@ -0,0 +1,392 @@
+/*
+ * Copyright 2015-2020 Real Logic Limited, Adaptive Financial Consulting Ltd., Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.ExclusivePublication;
+import io.aeron.logbuffer.BufferClaim;
+import org.agrona.ErrorHandler;
+import org.agrona.collections.IntHashSet;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.Agent;
+import org.agrona.concurrent.EpochNanoClock;
+import org.agrona.concurrent.IdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import uk.co.real_logic.artio.DebugLogger;
+import uk.co.real_logic.artio.FixGatewayException;
+import uk.co.real_logic.artio.engine.ILink3RetransmitHandler;
+import uk.co.real_logic.artio.engine.ReplayHandler;
+import uk.co.real_logic.artio.engine.ReplayerCommandQueue;
+import uk.co.real_logic.artio.fields.EpochFractionFormat;
+import uk.co.real_logic.artio.fields.UtcTimestampEncoder;
+import uk.co.real_logic.artio.ilink.AbstractILink3Offsets;
+import uk.co.real_logic.artio.ilink.AbstractILink3Parser;
+import uk.co.real_logic.artio.ilink.AbstractILink3Proxy;
+import uk.co.real_logic.artio.messages.*;
+import uk.co.real_logic.artio.util.AsciiBuffer;
+import uk.co.real_logic.artio.util.CharFormatter;
+import uk.co.real_logic.artio.util.Lazy;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.Set;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static uk.co.real_logic.artio.LogTag.REPLAY;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_REPLAY_HANDLER;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.NO_MESSAGE_TYPE;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.indexedMessageType;
+import static uk.co.real_logic.artio.messages.MessageHeaderDecoder.ENCODED_LENGTH;
+import static uk.co.real_logic.artio.util.MessageTypeEncoding.packMessageType;
+
+/**
+ * Replays the messages for the connections that the {@link Replayer} has assigned to it, over its own replay
+ * publication and with its own replay query.
+ *
+ * A worker can either be invoked directly by the {@link Replayer} on the archiving thread or run as an agent on its
+ * own thread, in which case the {@link Replayer} passes it replays through its command queue. Each connection is
+ * always assigned to the same worker so replays for a connection are sent in the order that they were requested.
+ */
+public class ReplayerWorker implements Agent
+{
+    private static final long TIMESTAMP_MESSAGE_INTERVAL = SECONDS.toNanos(2);
+
+    // Safe to share between multiple ReplayerSession instances due to single threaded nature of a worker
+    final MessageHeaderDecoder messageHeaderDecoder = new MessageHeaderDecoder();
+    final MessageHeaderEncoder messageHeaderEncoder = new MessageHeaderEncoder();
+    final ReplayCompleteEncoder replayCompleteEncoder = new ReplayCompleteEncoder();
+    final FixMessageEncoder fixMessageEncoder = new FixMessageEncoder();
+    final FixMessageDecoder fixMessageDecoder = new FixMessageDecoder();
+    final AsciiBuffer asciiBuffer = new MutableAsciiBuffer();
+
+    // For FixReplayerSession, safe to share rather than allocate for each FixReplayerSession
+    final CharFormatter completeNotRecentFormatter = new CharFormatter(
+        "ReplayerSession: completeReplay-!upToMostRecent replayedMessages=%s " +
+        "endSeqNo=%s beginSeqNo=%s expectedCount=%s");
+    final CharFormatter completeReplayGapfillFormatter = new CharFormatter(
+        "ReplayerSession: completeReplay-sendGapFill action=%s, replayedMessages=%s, " +
+        "beginGapFillSeqNum=%s, newSequenceNumber=%s");
+    private final CharFormatter receivedResendFormatter = new CharFormatter(
+        "Received Resend Request for inclusive range: [%s, %s]");
+
+    // FIX specific state.
+    private final LongHashSet gapFillMessageTypes;
+    // null when the replay handler needs to see the gap filled messages, so they can't be left out of replays
+    private final IntHashSet plannedGapFillMessageTypes;
+    private final UtcTimestampEncoder utcTimestampEncoder;
+
+    // ILink specific state
+    private final IntHashSet gapfillOnRetransmitILinkTemplateIds;
+    private final Lazy<AbstractILink3Parser> iLink3Parser;
+    private final Lazy<AbstractILink3Proxy> iLink3Proxy;
+    private final Lazy<AbstractILink3Offsets> iLink3Offsets;
+    private final ILinkMessageEncoder iLinkMessageEncoder = new ILinkMessageEncoder();
+
+    // Timestamp state
+    private final UnsafeBuffer timestampBuffer = new UnsafeBuffer(new byte[
+        ENCODED_LENGTH + ReplayerTimestampDecoder.BLOCK_LENGTH]);
+    private final ReplayerTimestampEncoder replayerTimestampEncoder = new ReplayerTimestampEncoder();
+    private long nextTimestampMessageInNs;
+
+    private final Long2ObjectHashMap<ReplayChannel> connectionIdToReplayerChannel = new Long2ObjectHashMap<>();
+
+    private final int index;
+    private final ReplayQuery outboundReplayQuery;
+    private final ExclusivePublication publication;
+    private final BufferClaim bufferClaim;
+    private final IdleStrategy idleStrategy;
+    private final ErrorHandler errorHandler;
+    private final int maxClaimAttempts;
+    private final String agentNamePrefix;
+    private final ReplayHandler replayHandler;
+    private final ILink3RetransmitHandler iLink3RetransmitHandler;
+    private final int maxBytesInBuffer;
+    private final AtomicCounter currentReplayCount;
+    private final int maxConcurrentSessionReplays;
+    private final EpochNanoClock clock;
+    private final ReplayerCommandQueue commandQueue;
+
+    /**
+     * Create a worker.
+     *
+     * @param index the index of this worker within the {@link Replayer}'s workers.
+     * @param outboundReplayQuery the query used to read replayed messages, owned by this worker.
+     * @param publication the publication that replayed messages are sent on, owned by this worker.
+     * @param bufferClaim the buffer claim used to write to the publication.
+     * @param idleStrategy the idle strategy used when back-pressured by the publication.
+     * @param errorHandler the error handler.
+     * @param maxClaimAttempts the maximum number of attempts to claim the publication.
+     * @param agentNamePrefix the prefix of the role name of this worker.
+     * @param gapfillOnReplayMessageTypes the FIX message types that are gap filled rather than replayed.
+     * @param gapfillOnRetransmitILinkTemplateIds the iLink3 template ids that are gap filled rather than replayed.
+     * @param replayHandler the handler that is notified of replayed FIX messages.
+     * @param iLink3RetransmitHandler the handler that is notified of replayed iLink3 messages.
+     * @param maxBytesInBuffer the maximum number of bytes that may be buffered for a connection before a replay is
+     *                         back-pressured.
+     * @param epochFractionFormat the precision of sending time fields in replayed messages.
+     * @param currentReplayCount the counter of replays in progress, shared between workers.
+     * @param maxConcurrentSessionReplays the maximum number of replays enqueued for a connection.
+     * @param clock the clock.
+     * @param commandQueue the queue that the {@link Replayer} passes replays through when this worker runs on its
+     *                     own thread, or null if the {@link Replayer} invokes it directly.
+     */
+    public ReplayerWorker(
+        final int index,
+        final ReplayQuery outboundReplayQuery,
+        final ExclusivePublication publication,
+        final BufferClaim bufferClaim,
+        final IdleStrategy idleStrategy,
+        final ErrorHandler errorHandler,
+        final int maxClaimAttempts,
+        final String agentNamePrefix,
+        final Set<String> gapfillOnReplayMessageTypes,
+        final IntHashSet gapfillOnRetransmitILinkTemplateIds,
+        final ReplayHandler replayHandler,
+        final ILink3RetransmitHandler iLink3RetransmitHandler,
+        final int maxBytesInBuffer,
+        final EpochFractionFormat epochFractionFormat,
+        final AtomicCounter currentReplayCount,
+        final int maxConcurrentSessionReplays,
+        final EpochNanoClock clock,
+        final ReplayerCommandQueue commandQueue)
+    {
+        this.index = index;
+        this.outboundReplayQuery = outboundReplayQuery;
+        this.publication = publication;
+        this.bufferClaim = bufferClaim;
+        this.idleStrategy = idleStrategy;
+        this.errorHandler = errorHandler;
+        this.maxClaimAttempts = maxClaimAttempts;
+        this.agentNamePrefix = agentNamePrefix;
+        this.gapfillOnRetransmitILinkTemplateIds = gapfillOnRetransmitILinkTemplateIds;
+        this.replayHandler = replayHandler;
+        this.iLink3RetransmitHandler = iLink3RetransmitHandler;
+        this.maxBytesInBuffer = maxBytesInBuffer;
+        this.currentReplayCount = currentReplayCount;
+        this.maxConcurrentSessionReplays = maxConcurrentSessionReplays;
+        this.clock = clock;
+        this.commandQueue = commandQueue;
+
+        gapFillMessageTypes = new LongHashSet();
+        gapfillOnReplayMessageTypes.forEach(messageTypeAsString ->
+            gapFillMessageTypes.add(packMessageType(messageTypeAsString)));
+        plannedGapFillMessageTypes = replayHandler == DEFAULT_REPLAY_HANDLER ?
+            plannedGapFillMessageTypes(gapFillMessageTypes) : null;
+        utcTimestampEncoder = new UtcTimestampEncoder(epochFractionFormat);
+
+        iLink3Parser = new Lazy<>(() -> AbstractILink3Parser.make(null, errorHandler));
+        iLink3Proxy = new Lazy<>(() -> AbstractILink3Proxy.make(publication, errorHandler, clock));
+        iLink3Offsets = new Lazy<>(() -> AbstractILink3Offsets.make(errorHandler));
+
+        nextTimestampMessageInNs = clock.nanoTime() + TIMESTAMP_MESSAGE_INTERVAL;
+        replayerTimestampEncoder
+            .wrapAndApplyHeader(timestampBuffer, 0, messageHeaderEncoder);
+    }
+
+    private static IntHashSet plannedGapFillMessageTypes(final LongHashSet gapFillMessageTypes)
+    {
+        final IntHashSet plannedGapFillMessageTypes = new IntHashSet();
+        final LongHashSet.LongIterator it = gapFillMessageTypes.iterator();
+        while (it.hasNext())
+        {
+            final int messageType = indexedMessageType(it.nextValue());
+            if (messageType != NO_MESSAGE_TYPE)
+            {
+                plannedGapFillMessageTypes.add(messageType);
+            }
+        }
+        return plannedGapFillMessageTypes;
+    }
+
+    UtcTimestampEncoder utcTimestampEncoder()
+    {
+        return utcTimestampEncoder;
+    }
+
+    ReplayerCommandQueue commandQueue()
+    {
+        return commandQueue;
+    }
+
+    void onReplay(final EnqueuedReplay replay)
+    {
+        final long connectionId = replay.connectionId();
+        final ReplayChannel replayChannel = connectionIdToReplayerChannel.get(connectionId);
+        if (replayChannel != null)
+        {
+            final int enqueuedReplayCount = replayChannel.enqueuedReplayCount();
+            if (enqueuedReplayCount >= maxConcurrentSessionReplays)
+            {
+                errorHandler.onError(new FixGatewayException(String.format(
+                    "Ignore resend request for sessionId=%d,connectionId=%d as %d requests in flight",
+                    replay.sessionId(),
+                    connectionId,
+                    enqueuedReplayCount)));
+                return;
+            }
+
+            // Existing replay in progress
+            replayChannel.enqueueReplay(replay);
+        }
+        else
+        {
+            // New replay
+            try
+            {
+                final ReplayChannel channel = new ReplayChannel(newReplayerSession(replay));
+                connectionIdToReplayerChannel.put(connectionId, channel);
+                currentReplayCount.increment();
+            }
+            catch (final IllegalStateException e)
+            {
+                errorHandler.onError(e);
+            }
+        }
+    }
+
+    void onDisconnect(final long connectionId)
+    {
+        final ReplayChannel replayChannel = connectionIdToReplayerChannel.remove(connectionId);
+        if (replayChannel != null)
+        {
+            currentReplayCount.decrement();
+            // replay was in progress at the time of disconnect
+            replayChannel.close();
+        }
+    }
+
+    private ReplayerSession newReplayerSession(final EnqueuedReplay replay)
+    {
+        final int beginSeqNo = (int)replay.beginSeqNo();
+        final int endSeqNo = (int)replay.endSeqNo();
+
+        DebugLogger.log(REPLAY,
+            receivedResendFormatter,
+            beginSeqNo,
+            endSeqNo);
+
+        final ReplayerSession session;
+        if (replay.isFix())
+        {
+            session = new FixReplayerSession(
+                bufferClaim,
+                idleStrategy,
+                replayHandler,
+                maxClaimAttempts,
+                gapFillMessageTypes,
+                plannedGapFillMessageTypes,
+                publication,
+                clock,
+                beginSeqNo,
+                endSeqNo,
+                replay.connectionId(),
+                replay.sessionId(),
+                replay.sequenceIndex(),
+                outboundReplayQuery,
+                replay.message(),
+                errorHandler,
+                replay.gapFillEncoder(),
+                replay.bytesInBuffer(),
+                maxBytesInBuffer,
+                utcTimestampEncoder,
+                this);
+        }
+        else
+        {
+            session = new ILinkReplayerSession(
+                replay.connectionId(), bufferClaim, idleStrategy, maxClaimAttempts, publication, outboundReplayQuery,
+                beginSeqNo, endSeqNo, replay.sessionId(), this, gapfillOnRetransmitILinkTemplateIds,
+                iLinkMessageEncoder, iLink3Parser.get(), iLink3Proxy.get(), iLink3Offsets.get(),
+                iLink3RetransmitHandler, clock);
+        }
+
+        session.query();
+
+        return session;
+    }
+
+    public int doWork()
+    {
+        int work = commandQueue == null ? 0 : commandQueue.poll();
+        work += pollReplayerChannels();
+        return work;
+    }
+
+    int pollReplayerChannels()
+    {
+        sendTimestampMessage();
+
+        final Long2ObjectHashMap<ReplayChannel>.EntryIterator replayerChannels =
+            connectionIdToReplayerChannel.entrySet().iterator();
+        final int size = connectionIdToReplayerChannel.size();
+
+        while (replayerChannels.hasNext())
+        {
+            final ReplayChannel channel = replayerChannels.next().getValue();
+            if (channel.attemptReplay())
+            {
+                // Replay complete
+                final EnqueuedReplay enqueuedReplay = channel.pollReplay();
+                if (enqueuedReplay == null)
+                {
+                    currentReplayCount.decrement();
+                    replayerChannels.remove();
+                }
+                else
+                {
+                    try
+                    {
+                        channel.startReplay(newReplayerSession(enqueuedReplay));
+                    }
+                    catch (final IllegalStateException e)
+                    {
+                        channel.startReplay(null);
+                        errorHandler.onError(e);
+                    }
+                }
+            }
+        }
+
+        return size;
+    }
+
+    private void sendTimestampMessage()
+    {
+        final long timeInNs = clock.nanoTime();
+        if (timeInNs > nextTimestampMessageInNs)
+        {
+            replayerTimestampEncoder.timestamp(timeInNs);
+            final long position = publication.offer(timestampBuffer);
+            if (position > 0)
+            {
+                nextTimestampMessageInNs = timeInNs + TIMESTAMP_MESSAGE_INTERVAL;
+            }
+        }
+    }
+
+    public void onClose()
+    {
+        connectionIdToReplayerChannel.values().forEach(ReplayChannel::close);
+        connectionIdToReplayerChannel.clear();
+        publication.close();
+        outboundReplayQuery.close();
+    }
+
+    public String roleName()
+    {
+        return agentNamePrefix + "ReplayerWorker-" + index;
+    }
+}
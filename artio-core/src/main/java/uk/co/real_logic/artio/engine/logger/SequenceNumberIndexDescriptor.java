@@ -15,6 +15,7 @@
  */
 package uk.co.real_logic.artio.engine.logger;
 
+import org.agrona.collections.Hashing;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.UnsafeBuffer;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
@@ -24,8 +25,7 @@ import java.io.File;
 
 import static org.agrona.BitUtil.SIZE_OF_INT;
 import static org.agrona.BitUtil.SIZE_OF_LONG;
-import static uk.co.real_logic.artio.engine.SectorFramer.SECTOR_SIZE;
-import static uk.co.real_logic.artio.engine.SectorFramer.nextSectorStart;
+import static uk.co.real_logic.artio.engine.SectorFramer.*;
 
 /**
  * Stores a cache of the last sent sequence number.
@@ -37,11 +37,36 @@ import static uk.co.real_logic.artio.engine.SectorFramer.nextSectorStart;
  * Series of LastKnownSequenceNumber records
  * ...
  * Positions Table
+ * <p>
+ * The record slots form an open addressing hash table keyed on session id: a session's record is in the first slot
+ * with its session id or an empty session id when linearly probing from the slot that its session id hashes to.
+ * Records are never removed individually, so an empty slot always ends a probe. The slots don't span the checksums
+ * at the end of each sector.
+ * <p>
+ * The spare bytes after the last slot of the first sector hold the layout of the records. Files that were written
+ * before records were hashed have a layout of 0 and their records in insertion order until a writer loads and rehashes
+ * them.
  */
 final class SequenceNumberIndexDescriptor
 {
     static final int HEADER_SIZE = MessageHeaderDecoder.ENCODED_LENGTH;
     static final int RECORD_SIZE = LastKnownSequenceNumberDecoder.BLOCK_LENGTH;
+    static final int SESSION_ID_OFFSET = LastKnownSequenceNumberDecoder.sessionIdEncodingOffset();
+    static final long NO_SESSION_ID = 0;
+
+    private static final int FIRST_SECTOR_SLOTS = (SECTOR_DATA_LENGTH - HEADER_SIZE) / RECORD_SIZE;
+    private static final int SECTOR_SLOTS = SECTOR_DATA_LENGTH / RECORD_SIZE;
+
+    static final int LAYOUT_OFFSET = HEADER_SIZE + FIRST_SECTOR_SLOTS * RECORD_SIZE;
+    private static final int HASHED_LAYOUT = 1;
+    static
+    {
+        // Safety check against changing the record size without finding somewhere else for the layout
+        if (LAYOUT_OFFSET + SIZE_OF_INT > SECTOR_DATA_LENGTH)
+        {
+            throw new IllegalStateException("No room for the layout of the records");
+        }
+    }
 
     static final int NO_META_DATA = -1;
     static final long META_DATA_MAGIC_NUMBER = 0xBEEF;
@@ -79,6 +104,105 @@ final class SequenceNumberIndexDescriptor
         return proposedCapacity;
     }
 
+    static int slotCount(final int positionTableOffset)
+    {
+        if (positionTableOffset < SECTOR_SIZE)
+        {
+            return 0;
+        }
+
+        return FIRST_SECTOR_SLOTS + (positionTableOffset / SECTOR_SIZE - 1) * SECTOR_SLOTS;
+    }
+
+    static int slotOffset(final int slot)
+    {
+        if (slot < FIRST_SECTOR_SLOTS)
+        {
+            return HEADER_SIZE + slot * RECORD_SIZE;
+        }
+
+        final int slotAfterFirstSector = slot - FIRST_SECTOR_SLOTS;
+        final int sector = 1 + slotAfterFirstSector / SECTOR_SLOTS;
+        return sector * SECTOR_SIZE + (slotAfterFirstSector % SECTOR_SLOTS) * RECORD_SIZE;
+    }
+
+    static int homeSlot(final long sessionId, final int slotCount)
+    {
+        return (Hashing.hash(sessionId) & Integer.MAX_VALUE) % slotCount;
+    }
+
+    /**
+     * Finds the record of a session without locking, so can be called whilst the single writer inserts records.
+     *
+     * @param buffer the buffer containing the index.
+     * @param sessionId the session id to look up.
+     * @param slotCount the number of record slots in the index.
+     * @return the offset of the session's record, the offset of the empty slot that it would be inserted into if it
+     *         has no record or {@code OUT_OF_SPACE} if it has no record and every slot is full.
+     */
+    static int probe(final AtomicBuffer buffer, final long sessionId, final int slotCount)
+    {
+        if (slotCount == 0)
+        {
+            return OUT_OF_SPACE;
+        }
+
+        int slot = homeSlot(sessionId, slotCount);
+        for (int i = 0; i < slotCount; i++)
+        {
+            final int recordOffset = slotOffset(slot);
+            final long recordSessionId = buffer.getLongVolatile(recordOffset + SESSION_ID_OFFSET);
+            if (recordSessionId == sessionId || recordSessionId == NO_SESSION_ID)
+            {
+                return recordOffset;
+            }
+
+            if (++slot == slotCount)
+            {
+                slot = 0;
+            }
+        }
+
+        return OUT_OF_SPACE;
+    }
+
+    static boolean isHashedLayout(final AtomicBuffer buffer, final int slotCount)
+    {
+        // Without any slots the first sector holds the positions table rather than the layout.
+        return slotCount > 0 && buffer.getIntVolatile(LAYOUT_OFFSET) == HASHED_LAYOUT;
+    }
+
+    static void putHashedLayout(final AtomicBuffer buffer, final int slotCount)
+    {
+        if (slotCount > 0)
+        {
+            buffer.putIntOrdered(LAYOUT_OFFSET, HASHED_LAYOUT);
+        }
+    }
+
+    /**
+     * Finds the record of a session by checking every slot, for index files whose records aren't in their probe
+     * sequence.
+     *
+     * @param buffer the buffer containing the index.
+     * @param sessionId the session id to look up.
+     * @param slotCount the number of record slots in the index.
+     * @return the offset of the session's record or {@code OUT_OF_SPACE} if it has no record.
+     */
+    static int scan(final AtomicBuffer buffer, final long sessionId, final int slotCount)
+    {
+        for (int slot = 0; slot < slotCount; slot++)
+        {
+            final int recordOffset = slotOffset(slot);
+            if (buffer.getLongVolatile(recordOffset + SESSION_ID_OFFSET) == sessionId)
+            {
+                return recordOffset;
+            }
+        }
+
+        return OUT_OF_SPACE;
+    }
+
     public static File passingFile(final String indexFilePath)
     {
         return new File(indexFilePath + "-passing");
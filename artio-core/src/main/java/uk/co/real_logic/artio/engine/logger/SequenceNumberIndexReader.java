@@ -20,7 +20,6 @@ import org.agrona.DirectBuffer;
 import org.agrona.ErrorHandler;
 import org.agrona.LangUtil;
 import org.agrona.concurrent.AtomicBuffer;
-import uk.co.real_logic.artio.engine.SectorFramer;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 import uk.co.real_logic.artio.messages.MetaDataStatus;
 import uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberDecoder;
@@ -44,7 +43,7 @@ public class SequenceNumberIndexReader implements AutoCloseable
     private final MessageHeaderDecoder fileHeaderDecoder = new MessageHeaderDecoder();
     private final LastKnownSequenceNumberDecoder lastKnownDecoder = new LastKnownSequenceNumberDecoder();
     private final AtomicBuffer inMemoryBuffer;
-    private final SectorFramer sectorFramer;
+    private final int slotCount;
     private final IndexedPositionReader positions;
     private final ErrorHandler errorHandler;
     private final RecordingIdLookup recordingIdLookup;
@@ -60,7 +59,7 @@ public class SequenceNumberIndexReader implements AutoCloseable
         this.errorHandler = errorHandler;
         this.recordingIdLookup = recordingIdLookup;
         final int positionTableOffset = positionTableOffset(inMemoryBuffer.capacity());
-        sectorFramer = new SectorFramer(positionTableOffset);
+        slotCount = slotCount(positionTableOffset);
         validateBuffer();
         positions = new IndexedPositionReader(positionsBuffer(inMemoryBuffer, positionTableOffset));
         metaDataFile = openMetaDataFile(metaDataDir);
@@ -86,24 +85,26 @@ public class SequenceNumberIndexReader implements AutoCloseable
 
     public int lastKnownSequenceNumber(final long sessionId)
     {
-        int position = SequenceNumberIndexDescriptor.HEADER_SIZE;
-        while (true)
+        int position = probe(inMemoryBuffer, sessionId, slotCount);
+        if (position == OUT_OF_SPACE || inMemoryBuffer.getLongVolatile(position + SESSION_ID_OFFSET) != sessionId)
         {
-            position = sectorFramer.claim(position, RECORD_SIZE);
-            if (position == OUT_OF_SPACE)
+            if (isHashedLayout(inMemoryBuffer, slotCount))
             {
                 return UNK_SESSION;
             }
 
-            lastKnownDecoder.wrap(inMemoryBuffer, position, BLOCK_LENGTH, SCHEMA_VERSION);
-
-            if (lastKnownDecoder.sessionId() == sessionId)
+            // Index files that were written before records were hashed, and haven't been loaded by a writer since,
+            // have their records in insertion order.
+            position = scan(inMemoryBuffer, sessionId, slotCount);
+            if (position == OUT_OF_SPACE)
             {
-                return lastKnownDecoder.sequenceNumber();
+                return UNK_SESSION;
             }
-
-            position += RECORD_SIZE;
         }
+
+        lastKnownDecoder.wrap(inMemoryBuffer, position, BLOCK_LENGTH, SCHEMA_VERSION);
+
+        return lastKnownDecoder.sequenceNumber();
     }
 
     public long indexedPosition(final int aeronSessionId)
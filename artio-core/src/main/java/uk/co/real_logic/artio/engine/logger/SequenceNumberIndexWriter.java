@@ -24,14 +24,15 @@ import org.agrona.LangUtil;
 import org.agrona.collections.*;
 import org.agrona.concurrent.AtomicBuffer;
 import org.agrona.concurrent.EpochClock;
+import org.agrona.concurrent.UnsafeBuffer;
 import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.ChecksumFramer;
+import uk.co.real_logic.artio.engine.FileSyncPolicy;
 import uk.co.real_logic.artio.engine.MappedFile;
 import uk.co.real_logic.artio.engine.SequenceNumberExtractor;
 import uk.co.real_logic.artio.engine.framer.FramerContext;
 import uk.co.real_logic.artio.engine.framer.WriteMetaDataResponse;
 import uk.co.real_logic.artio.messages.*;
-import uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberDecoder;
 import uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberEncoder;
 
 import java.io.File;
@@ -51,7 +52,6 @@ import static uk.co.real_logic.artio.engine.SectorFramer.*;
 import static uk.co.real_logic.artio.engine.SequenceNumberExtractor.NO_SEQUENCE_NUMBER;
 import static uk.co.real_logic.artio.engine.logger.SequenceNumberIndexDescriptor.*;
 import static uk.co.real_logic.artio.messages.FixMessageDecoder.metaDataSinceVersion;
-import static uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberEncoder.SCHEMA_VERSION;
 
 /**
  * Writes updates into an in-memory buffer. This buffer is then flushed down to disk. A passing place
@@ -59,7 +59,6 @@ import static uk.co.real_logic.artio.storage.messages.LastKnownSequenceNumberEnc
  */
 public class SequenceNumberIndexWriter implements Index
 {
-    private static final long MISSING_RECORD = -1L;
     private static final long UNINITIALISED = -1;
     public static final long NO_REQUIRED_POSITION = -1000;
 
@@ -77,8 +76,6 @@ public class SequenceNumberIndexWriter implements Index
     private final MessageHeaderDecoder fileHeaderDecoder = new MessageHeaderDecoder();
     private final MessageHeaderEncoder fileHeaderEncoder = new MessageHeaderEncoder();
     private final LastKnownSequenceNumberEncoder lastKnownEncoder = new LastKnownSequenceNumberEncoder();
-    private final LastKnownSequenceNumberDecoder lastKnownDecoder = new LastKnownSequenceNumberDecoder();
-    private final Long2LongHashMap recordOffsets = new Long2LongHashMap(MISSING_RECORD);
 
     // Meta data state
     private final File metaDataLocation;
@@ -99,6 +96,7 @@ public class SequenceNumberIndexWriter implements Index
     private final int fileCapacity;
     private final int streamId;
     private final int indexedPositionsOffset;
+    private final int slotCount;
     private final IndexedPositionWriter positionWriter;
     private final ILinkSequenceNumberExtractor iLinkSequenceNumberExtractor;
 
@@ -108,6 +106,7 @@ public class SequenceNumberIndexWriter implements Index
 
     private final EpochClock clock;
     private final long indexFileStateFlushTimeoutInMs;
+    private final FileSyncPolicy fileSyncPolicy;
     private long lastUpdatedFileTimeInMs;
     private boolean hasSavedRecordSinceFileUpdate = false;
 
@@ -120,7 +119,8 @@ public class SequenceNumberIndexWriter implements Index
         final long indexFileStateFlushTimeoutInMs,
         final EpochClock clock,
         final String metaDataDir,
-        final Long2LongHashMap connectionIdToILinkUuid)
+        final Long2LongHashMap connectionIdToILinkUuid,
+        final FileSyncPolicy fileSyncPolicy)
     {
         this.inMemoryBuffer = inMemoryBuffer;
         this.indexFile = indexFile;
@@ -129,6 +129,7 @@ public class SequenceNumberIndexWriter implements Index
         this.fileCapacity = indexFile.buffer().capacity();
         this.indexFileStateFlushTimeoutInMs = indexFileStateFlushTimeoutInMs;
         this.clock = clock;
+        this.fileSyncPolicy = fileSyncPolicy;
 
         iLinkSequenceNumberExtractor = new ILinkSequenceNumberExtractor(
             connectionIdToILinkUuid, errorHandler,
@@ -147,6 +148,7 @@ public class SequenceNumberIndexWriter implements Index
 
         // TODO: Fsync parent directory
         indexedPositionsOffset = positionTableOffset(fileCapacity);
+        slotCount = slotCount(indexedPositionsOffset);
         checksumFramer = new ChecksumFramer(
             inMemoryBuffer, indexedPositionsOffset, errorHandler, 0, "SequenceNumberIndex");
         try
@@ -169,6 +171,12 @@ public class SequenceNumberIndexWriter implements Index
                 metaDataLocation = null;
                 metaDataFile = null;
             }
+
+            // Records moved on load are saved straight away, readers of the index file probe for them.
+            if (hasSavedRecordSinceFileUpdate)
+            {
+                updateFile();
+            }
         }
         catch (final Exception e)
         {
@@ -412,8 +420,9 @@ public class SequenceNumberIndexWriter implements Index
             return;
         }
 
-        final int sequenceNumberIndexFilePosition = (int)recordOffsets.get(sessionId);
-        if (sequenceNumberIndexFilePosition == MISSING_RECORD)
+        final int sequenceNumberIndexFilePosition = probe(inMemoryBuffer, sessionId, slotCount);
+        if (sequenceNumberIndexFilePosition == OUT_OF_SPACE ||
+            inMemoryBuffer.getLong(sequenceNumberIndexFilePosition + SESSION_ID_OFFSET) != sessionId)
         {
             writeMetaDataResponse(libraryId, correlationId, MetaDataStatus.UNKNOWN_SESSION);
 
@@ -539,8 +548,8 @@ public class SequenceNumberIndexWriter implements Index
     void resetSequenceNumbers()
     {
         inMemoryBuffer.setMemory(0, indexedPositionsOffset, (byte)0);
+        checksumFramer.markAllDirty();
         initialiseBlankBuffer();
-        recordOffsets.clear();
         resetMetaDataFile();
     }
 
@@ -589,7 +598,12 @@ public class SequenceNumberIndexWriter implements Index
     private void saveFile()
     {
         writableFile.buffer().putBytes(0, inMemoryBuffer, 0, fileCapacity);
-        writableFile.force();
+        // The file is already only saved in batches and needs to be durable before it's renamed into place, so
+        // group commit syncs it straight away as well.
+        if (fileSyncPolicy != FileSyncPolicy.OS_MANAGED)
+        {
+            writableFile.sync();
+        }
         syncMetaDataFile();
     }
 
@@ -699,48 +713,30 @@ public class SequenceNumberIndexWriter implements Index
         final long requiredPosition,
         final boolean incrementRequired)
     {
-        int position = (int)recordOffsets.get(sessionId);
-        if (position == MISSING_RECORD)
+        final int position = probe(inMemoryBuffer, sessionId, slotCount);
+        if (position == OUT_OF_SPACE)
         {
-            position = SequenceNumberIndexDescriptor.HEADER_SIZE;
-            while (true)
-            {
-                position = checksumFramer.claim(position, RECORD_SIZE);
-                if (position == OUT_OF_SPACE)
-                {
-                    errorHandler.onError(new IllegalStateException(
-                        "Sequence Number Index out of space, can't claim slot for " + sessionId));
-                    return position;
-                }
-
-                lastKnownDecoder.wrap(inMemoryBuffer, position, RECORD_SIZE, SCHEMA_VERSION);
-                if (lastKnownDecoder.sessionId() == 0)
-                {
-                    // Don't redact if there's nothing to redact
-                    if (requiredPosition == NO_REQUIRED_POSITION)
-                    {
-                        createNewRecord(newSequenceNumber, sessionId, position, messagePosition);
-                        hasSavedRecordSinceFileUpdate = true;
-                    }
-                    return position;
-                }
-                else if (lastKnownDecoder.sessionId() == sessionId)
-                {
-                    recordOffsets.put(sessionId, position);
-                    updateSequenceNumber(
-                        newSequenceNumber, position, messagePosition, requiredPosition, incrementRequired, sessionId);
-                    return position;
-                }
+            errorHandler.onError(new IllegalStateException(
+                "Sequence Number Index out of space, can't claim slot for " + sessionId));
+            return position;
+        }
 
-                position += RECORD_SIZE;
+        if (inMemoryBuffer.getLong(position + SESSION_ID_OFFSET) == NO_SESSION_ID)
+        {
+            // Don't redact if there's nothing to redact
+            if (requiredPosition == NO_REQUIRED_POSITION)
+            {
+                createNewRecord(newSequenceNumber, sessionId, position, messagePosition);
+                hasSavedRecordSinceFileUpdate = true;
             }
         }
         else
         {
             updateSequenceNumber(
                 newSequenceNumber, position, messagePosition, requiredPosition, incrementRequired, sessionId);
-            return position;
         }
+
+        return position;
     }
 
     private void updateSequenceNumber(
@@ -813,13 +809,14 @@ public class SequenceNumberIndexWriter implements Index
         final long sessionId,
         final int position, final long messagePosition)
     {
-        recordOffsets.put(sessionId, position);
+        checksumFramer.markDirty(position);
         lastKnownEncoder
             .wrap(inMemoryBuffer, position)
-            .sessionId(sessionId)
             .messagePosition(messagePosition);
         putSequenceNumber(position, sequenceNumber);
         putMetaDataField(position, NO_META_DATA);
+        // Published last so that concurrent readers never probe into a partially written record
+        inMemoryBuffer.putLongOrdered(position + SESSION_ID_OFFSET, sessionId);
     }
 
     private void initialiseBuffer()
@@ -863,6 +860,7 @@ public class SequenceNumberIndexWriter implements Index
             lastKnownEncoder.sbeSchemaVersion(),
             lastKnownEncoder.sbeBlockLength(),
             errorHandler);
+        putHashedLayout(inMemoryBuffer, slotCount);
     }
 
     private boolean fileHasBeenInitialized(final AtomicBuffer fileBuffer)
@@ -895,11 +893,65 @@ public class SequenceNumberIndexWriter implements Index
     {
         loadBuffer(fileBuffer);
         checksumFramer.validateCheckSums();
+        rehashMisplacedRecords();
+    }
+
+    // Files written before the records were hashed have them in insertion order, move them to their probe sequence.
+    private void rehashMisplacedRecords()
+    {
+        final AtomicBuffer inMemoryBuffer = this.inMemoryBuffer;
+        final int slotCount = this.slotCount;
+        if (isHashedLayout(inMemoryBuffer, slotCount))
+        {
+            return;
+        }
+
+        boolean misplaced = false;
+        for (int slot = 0; slot < slotCount; slot++)
+        {
+            final long sessionId = inMemoryBuffer.getLong(slotOffset(slot) + SESSION_ID_OFFSET);
+            if (sessionId != NO_SESSION_ID && probe(inMemoryBuffer, sessionId, slotCount) != slotOffset(slot))
+            {
+                misplaced = true;
+                break;
+            }
+        }
+
+        if (misplaced)
+        {
+            rehashRecords();
+        }
+
+        putHashedLayout(inMemoryBuffer, slotCount);
+        checksumFramer.markAllDirty();
+        hasSavedRecordSinceFileUpdate = true;
+    }
+
+    private void rehashRecords()
+    {
+        final AtomicBuffer inMemoryBuffer = this.inMemoryBuffer;
+        final int slotCount = this.slotCount;
+        final int recordsLength = indexedPositionsOffset - HEADER_SIZE;
+        final byte[] records = new byte[recordsLength];
+        inMemoryBuffer.getBytes(HEADER_SIZE, records);
+        inMemoryBuffer.setMemory(HEADER_SIZE, recordsLength, (byte)0);
+        final UnsafeBuffer oldRecords = new UnsafeBuffer(records);
+        for (int slot = 0; slot < slotCount; slot++)
+        {
+            final int oldOffset = slotOffset(slot) - HEADER_SIZE;
+            final long sessionId = oldRecords.getLong(oldOffset + SESSION_ID_OFFSET);
+            if (sessionId != NO_SESSION_ID)
+            {
+                final int position = probe(inMemoryBuffer, sessionId, slotCount);
+                inMemoryBuffer.putBytes(position, oldRecords, oldOffset, RECORD_SIZE);
+            }
+        }
     }
 
     private void loadBuffer(final AtomicBuffer fileBuffer)
     {
         inMemoryBuffer.putBytes(0, fileBuffer, 0, fileCapacity);
+        checksumFramer.markAllDirty();
     }
 
     private void putMessagePosition(
@@ -907,6 +959,7 @@ public class SequenceNumberIndexWriter implements Index
         final long value)
     {
         inMemoryBuffer.putLongOrdered(recordOffset + MESSAGE_POSITION_OFFSET, value);
+        checksumFramer.markDirty(recordOffset);
     }
 
     private void putSequenceNumber(
@@ -914,6 +967,7 @@ public class SequenceNumberIndexWriter implements Index
         final int value)
     {
         inMemoryBuffer.putIntOrdered(recordOffset + SEQUENCE_NUMBER_OFFSET, value);
+        checksumFramer.markDirty(recordOffset);
     }
 
     private int getSequenceNumber(final int recordOffset)
@@ -931,6 +985,7 @@ public class SequenceNumberIndexWriter implements Index
         final int value)
     {
         inMemoryBuffer.putIntOrdered(recordOffset + META_DATA_OFFSET, value);
+        checksumFramer.markDirty(recordOffset);
     }
 
     private int getMetaData(
@@ -0,0 +1,98 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.BitUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+/**
+ * Describes the layout of the time index file of a stream, see {@link TimeIndexWriter} and {@link TimeIndexReader}.
+ *
+ * The file is a sequence of fixed length records, each of which is:
+ *
+ * Recording id
+ * Timestamp of the FIX message that begins at the position
+ * Position that the message begins at in the recording
+ * Aeron session id of the recording
+ */
+final class TimeIndexDescriptor
+{
+    static final int RECORDING_ID_OFFSET = 0;
+    static final int TIMESTAMP_OFFSET = RECORDING_ID_OFFSET + BitUtil.SIZE_OF_LONG;
+    static final int POSITION_OFFSET = TIMESTAMP_OFFSET + BitUtil.SIZE_OF_LONG;
+    static final int AERON_SESSION_ID_OFFSET = POSITION_OFFSET + BitUtil.SIZE_OF_LONG;
+    static final int RECORD_LENGTH = 32;
+
+    private static final int READ_BATCH_RECORDS = 1024;
+
+    static File timeIndexFile(final String logFileDir, final int streamId)
+    {
+        return new File(logFileDir + File.separator + "time-index-" + streamId);
+    }
+
+    /**
+     * Reads every complete record of the file in order, ignoring any record at the end that was only partially
+     * written.
+     *
+     * @param channel the channel of the time index file.
+     * @param consumer the callback for each record.
+     * @return the length of the complete records in bytes.
+     * @throws IOException if the file can't be read.
+     */
+    static long readRecords(final FileChannel channel, final TimeIndexRecordConsumer consumer) throws IOException
+    {
+        final long length = channel.size() - (channel.size() % RECORD_LENGTH);
+        final ByteBuffer byteBuffer = ByteBuffer.allocateDirect(READ_BATCH_RECORDS * RECORD_LENGTH);
+        final UnsafeBuffer buffer = new UnsafeBuffer(byteBuffer);
+
+        long filePosition = 0;
+        while (filePosition < length)
+        {
+            byteBuffer.clear().limit((int)Math.min(byteBuffer.capacity(), length - filePosition));
+            while (byteBuffer.hasRemaining())
+            {
+                if (channel.read(byteBuffer, filePosition + byteBuffer.position()) < 0)
+                {
+                    throw new IOException("Unexpected end of time index file at " + filePosition);
+                }
+            }
+
+            final int readLength = byteBuffer.position();
+            for (int offset = 0; offset < readLength; offset += RECORD_LENGTH)
+            {
+                consumer.onRecord(
+                    buffer.getLong(offset + RECORDING_ID_OFFSET),
+                    buffer.getLong(offset + TIMESTAMP_OFFSET),
+                    buffer.getLong(offset + POSITION_OFFSET),
+                    buffer.getInt(offset + AERON_SESSION_ID_OFFSET));
+            }
+            filePosition += readLength;
+        }
+
+        return length;
+    }
+
+    @FunctionalInterface
+    interface TimeIndexRecordConsumer
+    {
+        void onRecord(long recordingId, long timestamp, long position, int aeronSessionId);
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.LangUtil;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.collections.LongArrayList;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.channels.FileChannel;
+
+import static io.aeron.archive.client.AeronArchive.NULL_POSITION;
+import static java.nio.file.StandardOpenOption.READ;
+import static uk.co.real_logic.artio.engine.logger.TimeIndexDescriptor.readRecords;
+import static uk.co.real_logic.artio.engine.logger.TimeIndexDescriptor.timeIndexFile;
+
+/**
+ * Queries the time index of a stream, written by {@link TimeIndexWriter}, for the positions within a recording to
+ * replay from or to in order to find the messages within a time range. The records are read once when this is
+ * created, so records that are written afterwards aren't used.
+ *
+ * The returned positions allow for timestamps in the stream being out of order by up to the granularity of the index,
+ * for example from the clocks of different library processes.
+ */
+public class TimeIndexReader
+{
+    private final Long2ObjectHashMap<RecordingTimes> recordingIdToTimes = new Long2ObjectHashMap<>();
+
+    public TimeIndexReader(final String logFileDir, final int streamId)
+    {
+        final File file = timeIndexFile(logFileDir, streamId);
+        if (!file.exists())
+        {
+            return;
+        }
+
+        try (FileChannel channel = FileChannel.open(file.toPath(), READ))
+        {
+            readRecords(channel, (recordingId, timestamp, position, aeronSessionId) ->
+            {
+                RecordingTimes times = recordingIdToTimes.get(recordingId);
+                if (times == null)
+                {
+                    times = new RecordingTimes();
+                    recordingIdToTimes.put(recordingId, times);
+                }
+                times.timestamps.addLong(timestamp);
+                times.positions.addLong(position);
+            });
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+
+    /**
+     * Finds the position to replay a recording from in order to read every message with a timestamp that is at or
+     * after the given timestamp.
+     *
+     * @param recordingId the recording to look up.
+     * @param beginTimestampInclusive the earliest timestamp of a message to read.
+     * @return the position that a message begins at, or {@link io.aeron.archive.client.AeronArchive#NULL_POSITION}
+     * if the recording needs to be read from its start.
+     */
+    public long findStartPosition(final long recordingId, final long beginTimestampInclusive)
+    {
+        final RecordingTimes times = recordingIdToTimes.get(recordingId);
+        if (times == null)
+        {
+            return NULL_POSITION;
+        }
+
+        // Step back a record to cover messages whose timestamps are out of order.
+        final int index = times.lastIndexAtOrBefore(beginTimestampInclusive) - 1;
+        return index < 0 ? NULL_POSITION : times.positions.getLong(index);
+    }
+
+    /**
+     * Finds the position to stop replaying a recording at in order to read every message with a timestamp that is
+     * before the given timestamp.
+     *
+     * @param recordingId the recording to look up.
+     * @param endTimestampExclusive the timestamp that the messages read are before.
+     * @return the position that a message begins at, or {@link io.aeron.archive.client.AeronArchive#NULL_POSITION}
+     * if the recording needs to be read up to its end.
+     */
+    public long findStopPosition(final long recordingId, final long endTimestampExclusive)
+    {
+        final RecordingTimes times = recordingIdToTimes.get(recordingId);
+        if (times == null)
+        {
+            return NULL_POSITION;
+        }
+
+        // The first record at or after the end timestamp is the last index at or before it, plus one. Then step
+        // forward a record to cover messages whose timestamps are out of order.
+        final int index = times.lastIndexAtOrBefore(endTimestampExclusive - 1) + 2;
+        return index >= times.positions.size() ? NULL_POSITION : times.positions.getLong(index);
+    }
+
+    static final class RecordingTimes
+    {
+        final LongArrayList timestamps = new LongArrayList();
+        final LongArrayList positions = new LongArrayList();
+
+        // Returns -1 if every record is after the timestamp.
+        int lastIndexAtOrBefore(final long timestamp)
+        {
+            final LongArrayList timestamps = this.timestamps;
+            int low = 0;
+            int high = timestamps.size() - 1;
+            while (low <= high)
+            {
+                final int mid = (low + high) >>> 1;
+                if (timestamps.getLong(mid) <= timestamp)
+                {
+                    low = mid + 1;
+                }
+                else
+                {
+                    high = mid - 1;
+                }
+            }
+
+            return high;
+        }
+    }
+}
@@ -0,0 +1,216 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.Header;
+import org.agrona.BitUtil;
+import org.agrona.DirectBuffer;
+import org.agrona.ErrorHandler;
+import org.agrona.LangUtil;
+import org.agrona.collections.Long2ObjectHashMap;
+import org.agrona.concurrent.UnsafeBuffer;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+
+import static io.aeron.archive.status.RecordingPos.NULL_RECORDING_ID;
+import static io.aeron.logbuffer.FrameDescriptor.*;
+import static java.nio.file.StandardOpenOption.*;
+import static uk.co.real_logic.artio.engine.logger.TimeIndexDescriptor.*;
+
+/**
+ * Builds an index from the timestamps of the FIX messages in a stream to the position that they begin at in their
+ * recording. A record is only appended once a message's timestamp is at least the granularity after the last record
+ * of its recording, so the file stays small and is read with {@link TimeIndexReader}.
+ *
+ * The position of the last record of each recording is reported as its indexed position, so the messages since then
+ * are replayed on catchup and the records that they would have written are appended.
+ */
+public class TimeIndexWriter implements Index
+{
+    private final MessageHeaderDecoder frameHeaderDecoder = new MessageHeaderDecoder();
+    private final FixMessageDecoder messageFrame = new FixMessageDecoder();
+    private final Long2ObjectHashMap<LastRecord> recordingIdToLastRecord = new Long2ObjectHashMap<>();
+    private final ByteBuffer recordByteBuffer = ByteBuffer.allocateDirect(RECORD_LENGTH);
+    private final UnsafeBuffer recordBuffer = new UnsafeBuffer(recordByteBuffer);
+
+    private final int requiredStreamId;
+    private final long granularityInNs;
+    private final RecordingIdLookup recordingIdLookup;
+    private final ErrorHandler errorHandler;
+    private final FileChannel channel;
+
+    private long filePosition;
+
+    public TimeIndexWriter(
+        final String logFileDir,
+        final int requiredStreamId,
+        final long granularityInNs,
+        final RecordingIdLookup recordingIdLookup,
+        final ErrorHandler errorHandler)
+    {
+        this.requiredStreamId = requiredStreamId;
+        this.granularityInNs = granularityInNs;
+        this.recordingIdLookup = recordingIdLookup;
+        this.errorHandler = errorHandler;
+
+        FileChannel channel = null;
+        try
+        {
+            final File file = timeIndexFile(logFileDir, requiredStreamId);
+            final File parentDir = file.getParentFile();
+            if (parentDir != null)
+            {
+                parentDir.mkdirs();
+            }
+
+            channel = FileChannel.open(file.toPath(), CREATE, READ, WRITE);
+            filePosition = readRecords(channel, (recordingId, timestamp, position, aeronSessionId) ->
+                onRecord(recordingId, timestamp, position, aeronSessionId));
+            // Drop a record that was only partially written when the engine stopped.
+            channel.truncate(filePosition);
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+        this.channel = channel;
+    }
+
+    public void onFragment(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final Header header)
+    {
+        if (header.streamId() == requiredStreamId)
+        {
+            onFragment(buffer, offset, header, NULL_RECORDING_ID);
+        }
+    }
+
+    public void onCatchup(
+        final DirectBuffer buffer,
+        final int offset,
+        final int length,
+        final Header header,
+        final long recordingId)
+    {
+        onFragment(buffer, offset, header, recordingId);
+    }
+
+    private void onFragment(
+        final DirectBuffer buffer,
+        final int srcOffset,
+        final Header header,
+        final long knownRecordingId)
+    {
+        final byte flags = header.flags();
+        if ((flags & UNFRAGMENTED) != UNFRAGMENTED && (flags & BEGIN_FRAG_FLAG) != BEGIN_FRAG_FLAG)
+        {
+            return;
+        }
+
+        int offset = srcOffset;
+        frameHeaderDecoder.wrap(buffer, offset);
+        if (frameHeaderDecoder.templateId() != FixMessageDecoder.TEMPLATE_ID)
+        {
+            return;
+        }
+        offset += frameHeaderDecoder.encodedLength();
+
+        messageFrame.wrap(buffer, offset, frameHeaderDecoder.blockLength(), frameHeaderDecoder.version());
+        final long timestamp = messageFrame.timestamp();
+        final int aeronSessionId = header.sessionId();
+        final long recordingId = knownRecordingId == NULL_RECORDING_ID ?
+            recordingIdLookup.getRecordingId(aeronSessionId) : knownRecordingId;
+
+        final LastRecord lastRecord = recordingIdToLastRecord.get(recordingId);
+        if (lastRecord == null || timestamp - lastRecord.timestamp >= granularityInNs)
+        {
+            final long beginPosition = header.position() - BitUtil.align(header.frameLength(), FRAME_ALIGNMENT);
+            appendRecord(recordingId, timestamp, beginPosition, aeronSessionId);
+        }
+    }
+
+    private void appendRecord(
+        final long recordingId, final long timestamp, final long position, final int aeronSessionId)
+    {
+        recordBuffer.putLong(RECORDING_ID_OFFSET, recordingId);
+        recordBuffer.putLong(TIMESTAMP_OFFSET, timestamp);
+        recordBuffer.putLong(POSITION_OFFSET, position);
+        recordBuffer.putInt(AERON_SESSION_ID_OFFSET, aeronSessionId);
+
+        try
+        {
+            recordByteBuffer.clear();
+            while (recordByteBuffer.hasRemaining())
+            {
+                channel.write(recordByteBuffer, filePosition + recordByteBuffer.position());
+            }
+            filePosition += RECORD_LENGTH;
+
+            onRecord(recordingId, timestamp, position, aeronSessionId);
+        }
+        catch (final IOException e)
+        {
+            errorHandler.onError(e);
+        }
+    }
+
+    private void onRecord(final long recordingId, final long timestamp, final long position, final int aeronSessionId)
+    {
+        LastRecord lastRecord = recordingIdToLastRecord.get(recordingId);
+        if (lastRecord == null)
+        {
+            lastRecord = new LastRecord();
+            recordingIdToLastRecord.put(recordingId, lastRecord);
+        }
+
+        lastRecord.timestamp = timestamp;
+        lastRecord.position = position;
+        lastRecord.aeronSessionId = aeronSessionId;
+    }
+
+    public void readLastPosition(final IndexedPositionConsumer consumer)
+    {
+        recordingIdToLastRecord.forEach((recordingId, lastRecord) ->
+            consumer.accept(lastRecord.aeronSessionId, recordingId, lastRecord.position));
+    }
+
+    public void close()
+    {
+        try
+        {
+            channel.close();
+        }
+        catch (final IOException e)
+        {
+            errorHandler.onError(e);
+        }
+    }
+
+    static final class LastRecord
+    {
+        long timestamp;
+        long position;
+        int aeronSessionId;
+    }
+}
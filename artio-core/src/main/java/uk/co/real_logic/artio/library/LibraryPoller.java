@@ -138,6 +138,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
     private final LibraryConfiguration configuration;
     private final SessionIdStrategy sessionIdStrategy;
     private final Timer sessionTimer;
+    private final SessionTimerWheel sessionTimerWheel;
     private final Timer receiveTimer;
     private final SessionExistsHandler sessionExistsHandler;
     private final boolean enginesAreClustered;
@@ -213,6 +214,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
         this.sessionExistsHandler = configuration.sessionExistsHandler();
         this.epochClock = epochClock;
         epochNanoClock = configuration.epochNanoClock();
+        sessionTimerWheel = new SessionTimerWheel(epochNanoClock.nanoTime());
         this.enginesAreClustered = configuration.libraryAeronChannels().size() > 1;
         this.epochFractionClock = EpochFractionClocks.create(
             epochClock, configuration.epochNanoClock(), configuration.sessionEpochFractionFormat());
@@ -338,6 +340,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
     void disableSession(final InternalSession session)
     {
         sessions = ArrayUtil.remove(sessions, session);
+        sessionTimerWheel.remove(session);
         session.disable();
         cacheSession(session);
     }
@@ -743,14 +746,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
 
     private int pollSessions(final long timeInNs)
     {
-        final InternalSession[] sessions = this.sessions;
-        int total = 0;
-
-        for (int i = 0, size = sessions.length; i < size; i++)
-        {
-            final InternalSession session = sessions[i];
-            total += session.poll(timeInNs);
-        }
+        int total = sessionTimerWheel.poll(timeInNs);
 
         final ILink3Connection[] iLink3Connections = this.iLink3Connections;
         for (int i = 0, size = iLink3Connections.length; i < size; i++)
@@ -776,6 +772,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
                 this.pendingInitiatorSessions = pendingSessions = ArrayUtil.remove(pendingSessions, i);
                 size--;
                 sessions = ArrayUtil.add(sessions, session);
+                sessionTimerWheel.add(session);
             }
             else
             {
@@ -1130,6 +1127,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
         else
         {
             sessions = ArrayUtil.add(sessions, session);
+            sessionTimerWheel.add(session);
         }
     }
 
@@ -1213,6 +1211,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
                     // session will be in either pendingInitiatorSessions or sessions
                     pendingInitiatorSessions = ArrayUtil.remove(pendingInitiatorSessions, session);
                     sessions = ArrayUtil.remove(sessions, session);
+                    sessionTimerWheel.remove(session);
                     cacheSession(session);
                 }
 
@@ -1607,6 +1606,7 @@ final class LibraryPoller implements LibraryEndPointHandler, ProtocolHandler, Au
                 session.disable();
                 // TODO(Nick): Maybe we shouldn't be creating a lot of arrays and batch this up?
                 sessions = ArrayUtil.remove(sessions, i);
+                sessionTimerWheel.remove(session);
                 cacheSession(session);
                 size--;
             }
@@ -150,6 +150,7 @@ public class GatewayPublication extends ClaimablePublication
     private final int maxPayloadLength;
     private final int maxInitialBodyLength;
 
+
     public GatewayPublication(
         final ExclusivePublication dataPublication,
         final AtomicCounter fails,
@@ -368,6 +369,93 @@ public class GatewayPublication extends ClaimablePublication
         destBuffer.putInt(position, srcLength, LITTLE_ENDIAN);
     }
 
+    /**
+     * Claims a FixMessage frame whose body is exactly <code>bodyLength</code> bytes long, leaving the body to be
+     * written in place by the caller. The body starts at {@link #claimedBodyOffset(BufferClaim, int)} within the
+     * claim's buffer. Claimed messages must fit into a single Aeron frame, and the claim must be completed by calling
+     * either {@link #commitMessage(BufferClaim, int, int)} or {@link #abortMessage(BufferClaim)}.
+     * <p>
+     * The claim is held in the caller's <code>bufferClaim</code> rather than this publication's own, so other messages
+     * can be sent on this publication whilst the claimed message is being written.
+     *
+     * @return the position of the claimed message or a negative number indicating an error status.
+     * @throws IllegalArgumentException if the message would need to be fragmented.
+     */
+    public long claimMessage(
+        final BufferClaim bufferClaim,
+        final int bodyLength,
+        final int libraryId,
+        final long messageType,
+        final long sessionId,
+        final int sequenceIndex,
+        final long connectionId,
+        final MessageStatus status,
+        final int sequenceNumber,
+        final DirectBuffer srcMetaDataBuffer,
+        final int metaDataUpdateOffset)
+    {
+        final DirectBuffer metaDataBuffer = srcMetaDataBuffer == null ? NO_METADATA : srcMetaDataBuffer;
+        final int metaDataLength = metaDataBuffer.capacity();
+        final int framedLength = FRAMED_MESSAGE_SIZE + bodyLength + metaDataLength;
+        if (framedLength > maxPayloadLength)
+        {
+            throw new IllegalArgumentException(
+                "Unable to claim a message of " + bodyLength + " bytes, claimed messages must fit into a frame of " +
+                maxPayloadLength + " bytes");
+        }
+
+        final long position = claim(framedLength, bufferClaim);
+        if (position < 0)
+        {
+            return position;
+        }
+
+        int offset = bufferClaim.offset();
+        final MutableDirectBuffer destBuffer = bufferClaim.buffer();
+
+        header.wrap(destBuffer, offset)
+            .blockLength(fixMessage.sbeBlockLength())
+            .templateId(fixMessage.sbeTemplateId())
+            .schemaId(fixMessage.sbeSchemaId())
+            .version(fixMessage.sbeSchemaVersion());
+
+        offset += header.encodedLength();
+
+        fixMessage.wrap(destBuffer, offset)
+            .libraryId(libraryId)
+            .messageType(messageType)
+            .session(sessionId)
+            .sequenceIndex(sequenceIndex)
+            .connection(connectionId)
+            .timestamp(clock.nanoTime())
+            .status(status)
+            .sequenceNumber(sequenceNumber)
+            .metaDataUpdateOffset(metaDataUpdateOffset)
+            .putMetaData(metaDataBuffer, 0, metaDataLength);
+
+        putBodyLength(bodyLength, offset, metaDataLength, destBuffer);
+
+        return position;
+    }
+
+    public static int claimedBodyOffset(final BufferClaim bufferClaim, final DirectBuffer metaDataBuffer)
+    {
+        final int metaDataLength = metaDataBuffer == null ? 0 : metaDataBuffer.capacity();
+        return bufferClaim.offset() + MessageHeaderEncoder.ENCODED_LENGTH + FRAME_SIZE + metaDataLength;
+    }
+
+    public void commitMessage(final BufferClaim bufferClaim, final int bodyOffset, final int bodyLength)
+    {
+        DebugLogger.log(FIX_MESSAGE_FLOW, "Enqueued ", bufferClaim.buffer(), bodyOffset, bodyLength);
+
+        bufferClaim.commit();
+    }
+
+    public void abortMessage(final BufferClaim bufferClaim)
+    {
+        bufferClaim.abort();
+    }
+
     public long saveManageSession(
         final int libraryId,
         final long connection,
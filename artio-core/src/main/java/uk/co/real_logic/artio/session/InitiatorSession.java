@@ -111,4 +111,14 @@ public class InitiatorSession extends InternalSession
 
         return actions + super.poll(timeInNs);
     }
+
+    long nextPollTimeInNs()
+    {
+        if (state() == SessionState.CONNECTED && id() != UNKNOWN)
+        {
+            return POLL_IMMEDIATELY;
+        }
+
+        return super.nextPollTimeInNs();
+    }
 }
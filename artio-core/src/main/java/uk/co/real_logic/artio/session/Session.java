@@ -16,6 +16,7 @@
 package uk.co.real_logic.artio.session;
 
 import io.aeron.Publication;
+import io.aeron.logbuffer.BufferClaim;
 import io.aeron.logbuffer.ControlledFragmentHandler.Action;
 import org.agrona.DirectBuffer;
 import org.agrona.Verify;
@@ -61,6 +62,7 @@ import static uk.co.real_logic.artio.messages.MessageStatus.OK;
 import static uk.co.real_logic.artio.messages.SessionState.*;
 import static uk.co.real_logic.artio.session.DirectSessionProxy.NO_LAST_MSG_SEQ_NUM_PROCESSED;
 import static uk.co.real_logic.artio.session.InternalSession.*;
+import static uk.co.real_logic.artio.util.MutableAsciiBuffer.lengthInAscii;
 
 /**
  * Stores information about the current state of a session - no matter whether outbound or inbound.
@@ -81,6 +83,9 @@ public class Session
     static final short DISABLED_VALUE = 10;
 
     private static final long NO_OPERATION = MIN_VALUE;
+    private static final int MAX_BODY_LENGTH_DIGITS = 10;
+    // "8=" + SOH + "9=" + SOH + "10=nnn" + SOH
+    private static final int HEADER_AND_TRAILER_FIELDS_LENGTH = 13;
     static final long LIBRARY_DISCONNECTED = NO_OPERATION + 1;
     private static final int INITIAL_SEQUENCE_NUMBER = 1;
 
@@ -92,6 +97,8 @@ public class Session
     static final String TEST_REQ_ID = "TEST";
     private static final char[] TEST_REQ_ID_CHARS = TEST_REQ_ID.toCharArray();
     private static final int NO_LOGOUT_REJECT_REASON = -1;
+    static final long POLL_IMMEDIATELY = MIN_VALUE;
+    static final long NO_POLL_TIME = Long.MAX_VALUE;
 
     private final UtcTimestampEncoder timestampEncoder;
 
@@ -108,6 +115,8 @@ public class Session
     private final GatewayPublication inboundPublication;
     private final SessionCustomisationStrategy customisationStrategy;
     private final OnMessageInfo messageInfo;
+    private final MutableAsciiBuffer claimBuffer = new MutableAsciiBuffer();
+    private final BufferClaim bufferClaim = new BufferClaim();
 
     private CompositeKey sessionKey;
     private SessionState state;
@@ -126,6 +135,12 @@ public class Session
 
     private boolean awaitingHeartbeat = INITIAL_AWAITING_HEARTBEAT;
 
+    // State of a message claimed through tryClaim() that hasn't been committed or aborted yet
+    private int claimedSeqNum = MIN_VALUE;
+    private long claimedPosition;
+    private int claimedBodyOffset;
+    private int claimedBodyLength;
+
     private boolean enableLastMsgSeqNumProcessed;
 
     protected long connectionId;
@@ -142,6 +157,11 @@ public class Session
 
     private long awaitingLogoutTimeoutInNs;
 
+    // State of this session's timer, when its polling is scheduled by a SessionTimerWheel
+    SessionTimerWheel timerWheel;
+    long timerId = SessionTimerWheel.NO_TIMER;
+    long scheduledPollTimeInNs = NO_POLL_TIME;
+
     private String username;
     private String password;
     private String connectedHost;
@@ -483,9 +503,15 @@ public class Session
     public int prepare(final SessionHeaderEncoder header)
     {
         final int sentSeqNum = newSentSeqNum();
+        prepare(header, sentSeqNum, timestampEncoder.encode(epochFractionClock.epochFractionTime()));
+        return sentSeqNum;
+    }
+
+    private void prepare(final SessionHeaderEncoder header, final int sentSeqNum, final int sendingTimeLength)
+    {
         header
             .msgSeqNum(sentSeqNum)
-            .sendingTime(timestampEncoder.buffer(), timestampEncoder.encode(epochFractionClock.epochFractionTime()));
+            .sendingTime(timestampEncoder.buffer(), sendingTimeLength);
 
         if (enableLastMsgSeqNumProcessed)
         {
@@ -498,8 +524,6 @@ public class Session
         }
 
         customisationStrategy.configureHeader(header, id);
-
-        return sentSeqNum;
     }
 
     /**
@@ -564,6 +588,237 @@ public class Session
         return trySend(asciiBuffer, offset, length, sentSeqNum, type, metaDataBuffer, metaDataUpdateOffset);
     }
 
+    /**
+     * Tries to claim space for a message in the outbound publication and encodes it directly into that space,
+     * avoiding the copy that {@link #trySend(Encoder)} makes from the session's own buffer. This is the FIX
+     * equivalent of the iLink3 <code>tryClaim</code> API.
+     * <p>
+     * The length of the encoded message, from the BeginString field up to and including the CheckSum field, has to
+     * be known in advance. Order flow messages that differ only in the values of fixed width fields encode to the
+     * same length, so this can be captured once from an encoded message, for example from
+     * {@link Encoder#length(long)}. If the encoded message doesn't have the claimed length then the claim is aborted
+     * and an {@link IllegalArgumentException} is thrown.
+     * <p>
+     * If the claim succeeds, which is indicated by a positive return value, then the message must be sent by calling
+     * {@link #commit()} or discarded by calling {@link #abort()} before any other message is sent on this session.
+     * Only one message can be claimed on a session at a time. Other sessions and the library can still send messages
+     * whilst it is claimed.
+     *
+     * @param encoder       the encoder of the message to be sent
+     * @param messageLength the exact length of the encoded message.
+     * @return the position in the stream that corresponds to the end of this message or a negative
+     * number indicating an error status.
+     * @throws IllegalArgumentException if the message doesn't encode to <code>messageLength</code> bytes or
+     *                                  doesn't fit into a single frame of the outbound publication.
+     * @throws IllegalStateException if a message has already been claimed on this session and not yet committed or
+     *                               aborted.
+     * @throws NotConnectedException if the underlying Publication to the FixEngine has been closed or its max position
+     *                               exceeded.
+     */
+    public long tryClaim(final Encoder encoder, final int messageLength)
+    {
+        return tryClaim(encoder, messageLength, null, 0);
+    }
+
+    /**
+     * Tries to claim space for a message, see {@link #tryClaim(Encoder, int)} for details.
+     *
+     * @param encoder              the encoder of the message to be sent
+     * @param messageLength        the exact length of the encoded message.
+     * @param metaDataBuffer       the metadata to associate with this message.
+     * @param metaDataUpdateOffset the offset within the session's metadata buffer.
+     * @return the position in the stream that corresponds to the end of this message or a negative
+     * number indicating an error status.
+     * @throws IllegalArgumentException if the message doesn't encode to <code>messageLength</code> bytes or
+     *                                  doesn't fit into a single frame of the outbound publication.
+     * @throws IllegalStateException if a message has already been claimed on this session and not yet committed or
+     *                               aborted.
+     * @throws NotConnectedException if the underlying Publication to the FixEngine has been closed or its max position
+     *                               exceeded.
+     * @see uk.co.real_logic.artio.library.FixLibrary#writeMetaData(long, int, DirectBuffer, int, int)
+     */
+    public long tryClaim(
+        final Encoder encoder,
+        final int messageLength,
+        final DirectBuffer metaDataBuffer,
+        final int metaDataUpdateOffset)
+    {
+        if (claimedSeqNum != MIN_VALUE)
+        {
+            throw new IllegalStateException("A message has already been claimed on session " + id);
+        }
+
+        validateCanSendMessage();
+
+        final GatewayPublication outboundPublication = this.outboundPublication;
+        final BufferClaim bufferClaim = this.bufferClaim;
+        final int sentSeqNum = prepare(encoder.header());
+
+        final long position = outboundPublication.claimMessage(
+            bufferClaim, messageLength, libraryId, encoder.messageType(), id(), sequenceIndex(), connectionId, OK,
+            sentSeqNum, metaDataBuffer, metaDataUpdateOffset);
+        if (position < 0)
+        {
+            return position;
+        }
+
+        // Only the claimed message is visible to the encoder, so an overlong message can't overwrite the frames
+        // around it before it's detected.
+        final int bodyOffset = GatewayPublication.claimedBodyOffset(bufferClaim, metaDataBuffer);
+        final MutableAsciiBuffer claimBuffer = this.claimBuffer;
+        claimBuffer.wrap(bufferClaim.buffer(), bodyOffset, messageLength);
+
+        final long result;
+        try
+        {
+            // The encoder reserves MAX_BODY_LENGTH_DIGITS digits for the BodyLength in front of the body and writes
+            // the rest of the header backwards from the body, so the message starts as many bytes after the offset
+            // as the BodyLength is shorter than that.
+            final int bodyLengthDigits = bodyLengthDigits(messageLength, encoder.header().beginStringLength());
+            result = encoder.encode(claimBuffer, bodyLengthDigits - MAX_BODY_LENGTH_DIGITS);
+        }
+        catch (final IndexOutOfBoundsException e)
+        {
+            outboundPublication.abortMessage(bufferClaim);
+            throw new IllegalArgumentException(
+                "Encoded message is longer than the claimed length of " + messageLength, e);
+        }
+        catch (final Throwable e)
+        {
+            outboundPublication.abortMessage(bufferClaim);
+            throw e;
+        }
+
+        final int length = Encoder.length(result);
+        final int offset = Encoder.offset(result);
+        if (length != messageLength || offset != 0)
+        {
+            outboundPublication.abortMessage(bufferClaim);
+            throw new IllegalArgumentException(
+                "Encoded message length of " + length + " doesn't match the claimed length of " + messageLength);
+        }
+
+        claimedSeqNum = sentSeqNum;
+        claimedPosition = position;
+        claimedBodyOffset = bodyOffset;
+        claimedBodyLength = messageLength;
+
+        return position;
+    }
+
+    // The number of digits in the BodyLength of a message of messageLength bytes:
+    // 8=<BeginString>|9=<BodyLength>|<body>10=nnn|
+    static int bodyLengthDigits(final int messageLength, final int beginStringLength)
+    {
+        final int lengthExcludingBodyLength = messageLength - beginStringLength - HEADER_AND_TRAILER_FIELDS_LENGTH;
+        for (int digits = 1; digits < MAX_BODY_LENGTH_DIGITS; digits++)
+        {
+            if (lengthInAscii(lengthExcludingBodyLength - digits) == digits)
+            {
+                return digits;
+            }
+        }
+
+        // No BodyLength fits this length, the encoded message will be a different length and be rejected.
+        return MAX_BODY_LENGTH_DIGITS;
+    }
+
+    /**
+     * Commits the message that was claimed by {@link #tryClaim(Encoder, int)}, sending it.
+     */
+    public void commit()
+    {
+        final GatewayPublication outboundPublication = this.outboundPublication;
+        final int claimedSeqNum = this.claimedSeqNum;
+        if (claimedSeqNum == MIN_VALUE)
+        {
+            throw new IllegalStateException("No message has been claimed on session " + id);
+        }
+
+        final BufferClaim bufferClaim = this.bufferClaim;
+        DebugLogger.log(FIX_MESSAGE, "Sent ", bufferClaim.buffer(), claimedBodyOffset, claimedBodyLength);
+
+        outboundPublication.commitMessage(bufferClaim, claimedBodyOffset, claimedBodyLength);
+        this.claimedSeqNum = MIN_VALUE;
+        lastSentMsgSeqNum(claimedSeqNum, claimedPosition);
+    }
+
+    /**
+     * Aborts the message that was claimed by {@link #tryClaim(Encoder, int)}, it won't be sent and its sequence
+     * number will be used by the next message sent on this session.
+     */
+    public void abort()
+    {
+        if (claimedSeqNum == MIN_VALUE)
+        {
+            throw new IllegalStateException("No message has been claimed on session " + id);
+        }
+
+        outboundPublication.abortMessage(bufferClaim);
+        claimedSeqNum = MIN_VALUE;
+    }
+
+    /**
+     * Tries to send a batch of messages on this session. The messages are given contiguous sequence numbers, in the
+     * order of the encoders, and share a single sending time. The session's sent sequence number state is only
+     * updated once for the whole batch rather than once per message, which reduces the per message cost of sending
+     * many messages at once, for example a basket of orders.
+     * <p>
+     * If the outbound publication is back pressured part of the way through the batch then the messages before that
+     * point have been sent and the remaining messages haven't been. The number of messages that were sent is
+     * returned so that the remaining encoders can be retried later, they will be given new sequence numbers when
+     * they are.
+     *
+     * @param encoders the encoders of the messages to be sent.
+     * @param count    the number of encoders, from the start of <code>encoders</code>, to send.
+     * @return the number of messages that were sent, from the start of <code>encoders</code>.
+     * @throws IndexOutOfBoundsException if an encoded message is too large, if this happens consider
+     *                                   increasing {@link CommonConfiguration#sessionBufferSize(int)}
+     * @throws NotConnectedException if the underlying Publication to the FixEngine has been closed or its max position
+     *                               exceeded.
+     * @see #trySend(Encoder)
+     */
+    public int trySend(final Encoder[] encoders, final int count)
+    {
+        validateCanSendMessage();
+
+        final MutableAsciiBuffer asciiBuffer = this.asciiBuffer;
+        final GatewayPublication outboundPublication = this.outboundPublication;
+        final int sequenceIndex = sequenceIndex();
+        final int firstSeqNum = newSentSeqNum();
+        final int sendingTimeLength = timestampEncoder.encode(epochFractionClock.epochFractionTime());
+
+        int sent = 0;
+        while (sent < count)
+        {
+            final Encoder encoder = encoders[sent];
+            final int sentSeqNum = firstSeqNum + sent;
+            prepare(encoder.header(), sentSeqNum, sendingTimeLength);
+
+            final long result = encoder.encode(asciiBuffer, 0);
+            final int length = Encoder.length(result);
+            final int offset = Encoder.offset(result);
+
+            final long position = outboundPublication.saveMessage(
+                asciiBuffer, offset, length, libraryId, encoder.messageType(), id, sequenceIndex, connectionId, OK,
+                sentSeqNum, null, 0);
+            if (position < 0)
+            {
+                break;
+            }
+
+            DebugLogger.log(FIX_MESSAGE, "Sent ", asciiBuffer, offset, length);
+            sent++;
+        }
+
+        if (sent > 0)
+        {
+            lastSentMsgSeqNum(firstSeqNum + sent - 1);
+        }
+
+        return sent;
+    }
+
     /**
      * @param encoder              the encoder of the message to be sent
      * @param metaDataBuffer       the metadata to associate with this message.
@@ -1249,6 +1504,7 @@ public class Session
     private void incNextReceivedInboundMessageTime(final long timeInNs)
     {
         this.nextRequiredInboundMessageTimeInNs = timeInNs + heartbeatIntervalInNs + reasonableTransmissionTimeInNs;
+        onPollTimeChanged();
     }
 
     Action onLogon(
@@ -1806,6 +2062,7 @@ public class Session
     private void incNextHeartbeatTime()
     {
         nextRequiredHeartbeatTimeInNs = timeInNs() + sendingHeartbeatIntervalInNs;
+        onPollTimeChanged();
     }
 
     private long trySendLogout()
@@ -1832,17 +2089,64 @@ public class Session
         incNextReceivedInboundMessageTime(timeInNs);
         sendingHeartbeatIntervalInNs = (long)(heartbeatIntervalInNs * HEARTBEAT_PAUSE_FACTOR);
         nextRequiredHeartbeatTimeInNs = timeInNs + sendingHeartbeatIntervalInNs;
+        onPollTimeChanged();
     }
 
     protected Session state(final SessionState state)
     {
         this.state = state;
+        onPollTimeChanged();
         return this;
     }
 
     void id(final long id)
     {
         this.id = id;
+        onPollTimeChanged();
+    }
+
+    // Timers are only moved earlier eagerly, a timer that expires before the session has anything to do simply
+    // gets rescheduled when it's polled. This keeps the common case of sending or receiving a message, which pushes
+    // the heartbeat timeouts later, down to a comparison.
+    private void onPollTimeChanged()
+    {
+        final SessionTimerWheel timerWheel = this.timerWheel;
+        if (timerWheel != null && nextPollTimeInNs() < scheduledPollTimeInNs)
+        {
+            timerWheel.schedule(this);
+        }
+    }
+
+    /**
+     * Get the earliest time at which {@link #poll(long)} has work to do for this session.
+     *
+     * @return the earliest time at which this session needs to be polled, {@link #POLL_IMMEDIATELY} if it needs
+     * to be polled on the next duty cycle or {@link #NO_POLL_TIME} if it doesn't need to be polled at all.
+     */
+    long nextPollTimeInNs()
+    {
+        switch (state().value())
+        {
+            case DISCONNECTING_VALUE:
+            case LOGGING_OUT_VALUE:
+            case LOGGING_OUT_AND_DISCONNECTING_VALUE:
+                return POLL_IMMEDIATELY;
+
+            case AWAITING_LOGOUT_VALUE:
+                return awaitingLogoutTimeoutInNs;
+
+            case DISCONNECTED_VALUE:
+            case DISABLED_VALUE:
+                return NO_POLL_TIME;
+
+            default:
+            {
+                final long nextRequiredInboundMessageTimeInNs = this.nextRequiredInboundMessageTimeInNs;
+                return state == ACTIVE ?
+                    Math.min(nextRequiredHeartbeatTimeInNs, nextRequiredInboundMessageTimeInNs) :
+                    nextRequiredInboundMessageTimeInNs;
+            }
+        }
     }
 
     protected long timeInNs()
@@ -0,0 +1,161 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import org.agrona.DeadlineTimerWheel;
+import org.agrona.collections.Long2ObjectHashMap;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.concurrent.TimeUnit.NANOSECONDS;
+
+/**
+ * Polls sessions when their heartbeat, test request or logout timeouts are due rather than on every duty cycle, so
+ * that the cost of polling sessions is proportional to the number of expiring timeouts rather than the number of
+ * sessions.
+ * <p>
+ * Each session has at most one timer, for the earliest time at which it has work to do. Timeouts that move later,
+ * as they do whenever a message is sent or received, don't reschedule the timer: when it expires early the session
+ * is polled, finds nothing to do and is rescheduled for its new timeout.
+ * <p>
+ * Not thread safe, should be polled on the same thread that uses the sessions.
+ */
+public class SessionTimerWheel implements DeadlineTimerWheel.TimerHandler
+{
+    static final long NO_TIMER = -1;
+
+    // ~1ms ticks, timeouts are specified in seconds so this is plenty of precision
+    private static final long TICK_RESOLUTION_IN_NS = 1 << 20;
+    private static final int TICKS_PER_WHEEL = 4096;
+
+    private final Long2ObjectHashMap<Session> timerIdToSession = new Long2ObjectHashMap<>();
+    private final List<Session> expiredSessions = new ArrayList<>();
+    private final DeadlineTimerWheel timerWheel;
+
+    public SessionTimerWheel(final long startTimeInNs)
+    {
+        timerWheel = new DeadlineTimerWheel(NANOSECONDS, startTimeInNs, TICK_RESOLUTION_IN_NS, TICKS_PER_WHEEL);
+    }
+
+    /**
+     * Start polling a session through this timer wheel.
+     *
+     * @param session the session to poll.
+     */
+    public void add(final Session session)
+    {
+        session.timerWheel = this;
+        schedule(session);
+    }
+
+    /**
+     * Stop polling a session through this timer wheel, removing a session that hasn't been added is a no-op.
+     *
+     * @param session the session to stop polling.
+     */
+    public void remove(final Session session)
+    {
+        if (session.timerWheel == this)
+        {
+            cancel(session);
+            session.timerWheel = null;
+        }
+    }
+
+    /**
+     * Poll the sessions whose timers have expired.
+     *
+     * @param timeInNs the current time in nanoseconds, from the same clock as the sessions use.
+     * @return the amount of work done by the polled sessions.
+     */
+    public int poll(final long timeInNs)
+    {
+        final DeadlineTimerWheel timerWheel = this.timerWheel;
+        if (timerWheel.timerCount() == 0)
+        {
+            // Nothing to catch up on when timers are next scheduled
+            timerWheel.resetStartTime(timeInNs);
+            return 0;
+        }
+
+        // The wheel only advances a tick per poll, catch up with however many ticks have passed since we were
+        // last polled. Expired sessions are polled afterwards so that they can reschedule themselves.
+        do
+        {
+            timerWheel.poll(timeInNs, this, Integer.MAX_VALUE);
+        }
+        while (timeInNs >= timerWheel.currentTickTime() && timerWheel.timerCount() > 0);
+
+        final List<Session> expiredSessions = this.expiredSessions;
+        int work = 0;
+        for (int i = 0, size = expiredSessions.size(); i < size; i++)
+        {
+            final Session session = expiredSessions.get(i);
+            if (session.timerWheel == this)
+            {
+                work += session.poll(timeInNs);
+                if (session.timerWheel == this && session.timerId == NO_TIMER)
+                {
+                    schedule(session);
+                }
+            }
+        }
+        expiredSessions.clear();
+
+        return work;
+    }
+
+    public boolean onTimerExpiry(final TimeUnit timeUnit, final long now, final long timerId)
+    {
+        final Session session = timerIdToSession.remove(timerId);
+        if (session != null)
+        {
+            session.timerId = NO_TIMER;
+            session.scheduledPollTimeInNs = Session.NO_POLL_TIME;
+            expiredSessions.add(session);
+        }
+
+        return true;
+    }
+
+    void schedule(final Session session)
+    {
+        cancel(session);
+
+        final long pollTimeInNs = session.nextPollTimeInNs();
+        if (pollTimeInNs != Session.NO_POLL_TIME)
+        {
+            final long timerId = timerWheel.scheduleTimer(Math.max(pollTimeInNs, timerWheel.startTime()));
+            timerIdToSession.put(timerId, session);
+            session.timerId = timerId;
+            session.scheduledPollTimeInNs = pollTimeInNs;
+        }
+    }
+
+    private void cancel(final Session session)
+    {
+        final long timerId = session.timerId;
+        if (timerId != NO_TIMER)
+        {
+            timerWheel.cancelTimer(timerId);
+            timerIdToSession.remove(timerId);
+            session.timerId = NO_TIMER;
+            session.scheduledPollTimeInNs = Session.NO_POLL_TIME;
+        }
+    }
+}
@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.AtomicBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+import uk.co.real_logic.artio.FileSystemCorruptionException;
+
+import java.nio.ByteBuffer;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.assertEquals;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.engine.SectorFramer.*;
+
+public class ChecksumFramerTest
+{
+    private static final int SECTORS = 3;
+    private static final int CAPACITY = SECTORS * SECTOR_SIZE;
+
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final AtomicBuffer buffer = new UnsafeBuffer(ByteBuffer.allocateDirect(CAPACITY));
+    private final ChecksumFramer checksumFramer = new ChecksumFramer(
+        buffer, CAPACITY, errorHandler, 0, "test");
+
+    @Test
+    public void shouldUpdateChecksumsOfAllSectorsInitially()
+    {
+        buffer.putLong(0, 1);
+        buffer.putLong(SECTOR_SIZE + 8, 2);
+
+        checksumFramer.updateChecksums();
+
+        for (int sectorStart = 0; sectorStart < CAPACITY; sectorStart += SECTOR_SIZE)
+        {
+            assertEquals(fullChecksum(sectorStart), buffer.getInt(sectorStart + SECTOR_DATA_LENGTH));
+        }
+        validatesWithoutErrors();
+    }
+
+    @Test
+    public void shouldUpdateChecksumOfDirtySector()
+    {
+        checksumFramer.updateChecksums();
+
+        final int offset = 2 * SECTOR_SIZE + 16;
+        buffer.putLong(offset, 3);
+        checksumFramer.markDirty(offset);
+        checksumFramer.updateChecksums();
+
+        assertEquals(fullChecksum(2 * SECTOR_SIZE), buffer.getInt(2 * SECTOR_SIZE + SECTOR_DATA_LENGTH));
+        validatesWithoutErrors();
+    }
+
+    @Test
+    public void shouldOnlyUpdateChecksumsOfDirtySectors()
+    {
+        checksumFramer.updateChecksums();
+
+        buffer.putLong(16, 3);
+        buffer.putLong(SECTOR_SIZE + 16, 4);
+        checksumFramer.markDirty(16);
+        checksumFramer.updateChecksums();
+
+        checksumFramer.validateCheckSums();
+
+        verify(errorHandler, times(1)).onError(any(FileSystemCorruptionException.class));
+        verifyNoMoreInteractions(errorHandler);
+    }
+
+    @Test
+    public void shouldUpdateChecksumsOfAllSectorsWhenAllMarkedDirty()
+    {
+        checksumFramer.updateChecksums();
+
+        buffer.putLong(16, 3);
+        buffer.putLong(SECTOR_SIZE + 16, 4);
+        checksumFramer.markAllDirty();
+        checksumFramer.updateChecksums();
+
+        validatesWithoutErrors();
+    }
+
+    private void validatesWithoutErrors()
+    {
+        checksumFramer.validateCheckSums();
+        verifyNoMoreInteractions(errorHandler);
+    }
+
+    private int fullChecksum(final int sectorStart)
+    {
+        final byte[] data = new byte[SECTOR_DATA_LENGTH];
+        buffer.getBytes(sectorStart, data);
+        final CRC32 crc32 = new CRC32();
+        crc32.update(data);
+        return (int)crc32.getValue();
+    }
+}
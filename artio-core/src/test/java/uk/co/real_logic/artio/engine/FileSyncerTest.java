@@ -0,0 +1,114 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine;
+
+import org.agrona.concurrent.CachedEpochClock;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.junit.Test;
+
+import static org.agrona.concurrent.status.CountersReader.COUNTER_LENGTH;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class FileSyncerTest
+{
+    private static final long INTERVAL_IN_MS = 10;
+    private static final int MAX_WRITES = 3;
+
+    private final MappedFile mappedFile = mock(MappedFile.class);
+    private final AtomicCounter durablePosition = new AtomicCounter(new UnsafeBuffer(new byte[COUNTER_LENGTH]), 0);
+    private final CachedEpochClock clock = new CachedEpochClock();
+
+    @Test
+    public void shouldSyncEachWriteWhenPerWrite()
+    {
+        final FileSyncer fileSyncer = newFileSyncer(FileSyncPolicy.PER_WRITE);
+
+        fileSyncer.onWrite();
+        fileSyncer.onWrite();
+
+        verify(mappedFile, times(2)).sync();
+        assertEquals(2, durablePosition.get());
+    }
+
+    @Test
+    public void shouldNeverSyncWhenOsManaged()
+    {
+        final FileSyncer fileSyncer = newFileSyncer(FileSyncPolicy.OS_MANAGED);
+
+        fileSyncer.onWrite();
+        fileSyncer.close();
+
+        verify(mappedFile, never()).sync();
+        assertEquals(0, durablePosition.get());
+        assertEquals(1, fileSyncer.writePosition());
+    }
+
+    @Test
+    public void shouldGroupCommitAfterInterval()
+    {
+        final FileSyncer fileSyncer = newFileSyncer(FileSyncPolicy.GROUP_COMMIT);
+
+        fileSyncer.onWrite();
+        assertEquals(0, fileSyncer.doWork());
+        fileSyncer.onWrite();
+
+        clock.advance(INTERVAL_IN_MS - 1);
+        assertEquals(0, fileSyncer.doWork());
+        verify(mappedFile, never()).sync();
+
+        clock.advance(1);
+        assertEquals(1, fileSyncer.doWork());
+        verify(mappedFile).sync();
+        assertEquals(2, durablePosition.get());
+
+        assertEquals(0, fileSyncer.doWork());
+        verifyNoMoreInteractions(mappedFile);
+    }
+
+    @Test
+    public void shouldGroupCommitWhenMaxWritesPending()
+    {
+        final FileSyncer fileSyncer = newFileSyncer(FileSyncPolicy.GROUP_COMMIT);
+
+        for (int i = 0; i < MAX_WRITES; i++)
+        {
+            fileSyncer.onWrite();
+        }
+
+        assertEquals(1, fileSyncer.doWork());
+        verify(mappedFile).sync();
+        assertEquals(MAX_WRITES, durablePosition.get());
+    }
+
+    @Test
+    public void shouldSyncPendingWritesOnClose()
+    {
+        final FileSyncer fileSyncer = newFileSyncer(FileSyncPolicy.GROUP_COMMIT);
+
+        fileSyncer.onWrite();
+        fileSyncer.close();
+
+        verify(mappedFile).sync();
+        assertEquals(1, durablePosition.get());
+    }
+
+    private FileSyncer newFileSyncer(final FileSyncPolicy policy)
+    {
+        return new FileSyncer(mappedFile, policy, INTERVAL_IN_MS, MAX_WRITES, durablePosition, clock);
+    }
+}
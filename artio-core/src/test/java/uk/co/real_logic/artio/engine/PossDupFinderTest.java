@@ -1,9 +1,9 @@
 package uk.co.real_logic.artio.engine;
 
-import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.Test;
 import uk.co.real_logic.artio.dictionary.LongDictionary;
 import uk.co.real_logic.artio.otf.OtfParser;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
 import static java.nio.charset.StandardCharsets.US_ASCII;
 import static org.junit.Assert.assertEquals;
@@ -21,7 +21,8 @@ public class PossDupFinderTest
 
     private final PossDupFinder possDupFinder = new PossDupFinder();
     private final OtfParser parser = new OtfParser(possDupFinder, new LongDictionary());
-    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[FIRST_MESSAGE.length + SECOND_MESSAGE.length]);
+    private final MutableAsciiBuffer buffer =
+        new MutableAsciiBuffer(new byte[FIRST_MESSAGE.length + SECOND_MESSAGE.length]);
 
     @Test
     public void shouldOnlyReturnPossDupAtLength()
@@ -44,4 +45,47 @@ public class PossDupFinderTest
         assertEquals(12, possDupFinder.bodyLengthOffset());
         assertEquals(2, possDupFinder.lengthOfBodyLength());
     }
+
+    @Test
+    public void shouldOnlyReturnPossDupAtLengthWhenScanning()
+    {
+        buffer.putBytes(0, FIRST_MESSAGE);
+        buffer.putBytes(FIRST_MESSAGE.length, SECOND_MESSAGE);
+
+        possDupFinder.scan(buffer, 0, FIRST_MESSAGE.length);
+
+        assertEquals(PossDupFinder.NO_ENTRY, possDupFinder.possDupOffset());
+        assertEquals(FIRST_MESSAGE.length - "088\001".length(), possDupFinder.checksumOffset());
+    }
+
+    @Test
+    public void shouldFindTheSameFieldsWhenScanningAsWhenParsing()
+    {
+        buffer.putBytes(0, SECOND_MESSAGE);
+
+        parser.onMessage(buffer, 0, SECOND_MESSAGE.length);
+        final int possDupOffset = possDupFinder.possDupOffset();
+        final int sendingTimeOffset = possDupFinder.sendingTimeOffset();
+        final int sendingTimeLength = possDupFinder.sendingTimeLength();
+        final int bodyLength = possDupFinder.bodyLength();
+
+        possDupFinder.scan(buffer, 0, SECOND_MESSAGE.length);
+
+        assertEquals(possDupOffset, possDupFinder.possDupOffset());
+        assertEquals(sendingTimeOffset, possDupFinder.sendingTimeOffset());
+        assertEquals(sendingTimeLength, possDupFinder.sendingTimeLength());
+        assertEquals(bodyLength, possDupFinder.bodyLength());
+        assertEquals(SECOND_MESSAGE.length - "088\001".length(), possDupFinder.checksumOffset());
+    }
+
+    @Test
+    public void shouldFindLengthOfPossDupMessageWhenScanning()
+    {
+        buffer.putBytes(0, MESSAGE_REQUIRING_LONGER_BODY_LENGTH);
+
+        possDupFinder.scan(buffer, 0, MESSAGE_REQUIRING_LONGER_BODY_LENGTH.length);
+
+        assertEquals(12, possDupFinder.bodyLengthOffset());
+        assertEquals(2, possDupFinder.lengthOfBodyLength());
+    }
 }
@@ -0,0 +1,173 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.CloseHelper;
+import org.agrona.LangUtil;
+import org.junit.After;
+import org.junit.Test;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.engine.framer.TcpChannelSupplier.InitiatedChannelHandler;
+import uk.co.real_logic.artio.engine.framer.TcpChannelSupplier.NewChannelHandler;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.ArrayList;
+import java.util.List;
+
+import static java.net.StandardSocketOptions.TCP_NODELAY;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.TestFixtures.unusedPort;
+import static uk.co.real_logic.artio.Timing.assertEventuallyTrue;
+
+public class BusyPollTcpChannelSupplierTest
+{
+    private static final long TIME_IN_MS = 1;
+    private static final String HOST = "localhost";
+
+    private final NewChannelHandler newChannelHandler = mock(NewChannelHandler.class);
+    private final InitiatedChannelHandler initiatedChannelHandler = mock(InitiatedChannelHandler.class);
+    private final List<SocketChannel> supplierChannels = new ArrayList<>();
+    private final List<SocketChannel> otherChannels = new ArrayList<>();
+
+    private BusyPollTcpChannelSupplier channelSupplier;
+    private ServerSocketChannel serverChannel;
+    private int polledChannels;
+
+    @After
+    public void tearDown()
+    {
+        CloseHelper.closeAll(supplierChannels);
+        CloseHelper.closeAll(otherChannels);
+        CloseHelper.closeAll(channelSupplier, serverChannel);
+    }
+
+    @Test
+    public void shouldNotReturnChannelsWhenNothingIsPending() throws IOException
+    {
+        newChannelSupplier(new EngineConfiguration().bindTo(HOST, unusedPort()));
+
+        assertEquals(0, channelSupplier.pollSelector(TIME_IN_MS, newChannelHandler));
+        verifyNoInteractions(newChannelHandler);
+    }
+
+    @Test
+    public void shouldAcceptAndConfigureConnectedChannels() throws IOException
+    {
+        final int port = unusedPort();
+        newChannelSupplier(new EngineConfiguration().bindTo(HOST, port));
+
+        connectTo(new InetSocketAddress(HOST, port));
+        connectTo(new InetSocketAddress(HOST, port));
+
+        assertEventuallyTrue("Failed to accept channels", () ->
+        {
+            polledChannels += pollSelector();
+            return polledChannels >= 2;
+        });
+        assertEquals(2, polledChannels);
+
+        verify(newChannelHandler, times(2)).onNewChannel(eq(TIME_IN_MS), any(TcpChannel.class));
+        assertEquals(2, supplierChannels.size());
+        for (final SocketChannel channel : supplierChannels)
+        {
+            assertChannelConfigured(channel);
+        }
+    }
+
+    @Test
+    public void shouldCompleteAndConfigureInitiatedChannels() throws IOException
+    {
+        newChannelSupplier(new EngineConfiguration());
+        serverChannel = ServerSocketChannel.open();
+        serverChannel.bind(new InetSocketAddress(HOST, 0));
+
+        channelSupplier.open((InetSocketAddress)serverChannel.getLocalAddress(), initiatedChannelHandler);
+        otherChannels.add(serverChannel.accept());
+
+        assertEventuallyTrue("Failed to connect channel", () ->
+        {
+            polledChannels += pollSelector();
+            return polledChannels >= 1;
+        });
+        assertEquals(1, polledChannels);
+
+        verify(initiatedChannelHandler).onInitiatedChannel(any(TcpChannel.class), isNull());
+        assertEquals(1, supplierChannels.size());
+        final SocketChannel channel = supplierChannels.get(0);
+        assertTrue(channel.isConnected());
+        assertChannelConfigured(channel);
+
+        // Completed channels aren't polled again
+        assertEquals(0, pollSelector());
+    }
+
+    @Test
+    public void shouldNotifyFailedInitiatedChannels() throws IOException
+    {
+        newChannelSupplier(new EngineConfiguration());
+
+        channelSupplier.open(new InetSocketAddress(HOST, unusedPort()), initiatedChannelHandler);
+
+        assertEventuallyTrue("Failed to notice that the connection failed", () ->
+        {
+            polledChannels += pollSelector();
+            return polledChannels >= 1;
+        });
+
+        verify(initiatedChannelHandler).onInitiatedChannel(isNull(), any(IOException.class));
+        assertEquals(0, pollSelector());
+    }
+
+    private void newChannelSupplier(final EngineConfiguration configuration)
+    {
+        channelSupplier = new BusyPollTcpChannelSupplier(configuration)
+        {
+            protected TcpChannel newTcpChannel(final SocketChannel channel) throws IOException
+            {
+                supplierChannels.add(channel);
+                return super.newTcpChannel(channel);
+            }
+        };
+    }
+
+    private void connectTo(final InetSocketAddress address) throws IOException
+    {
+        otherChannels.add(SocketChannel.open(address));
+    }
+
+    private int pollSelector()
+    {
+        try
+        {
+            return channelSupplier.pollSelector(TIME_IN_MS, newChannelHandler);
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+            return 0;
+        }
+    }
+
+    private static void assertChannelConfigured(final SocketChannel channel) throws IOException
+    {
+        assertFalse("Channel is blocking", channel.isBlocking());
+        assertTrue("Channel hasn't disabled Nagle's algorithm", channel.getOption(TCP_NODELAY));
+    }
+}
@@ -0,0 +1,95 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.Test;
+
+import static java.nio.charset.StandardCharsets.US_ASCII;
+import static org.junit.Assert.assertEquals;
+import static uk.co.real_logic.artio.engine.framer.EncodedKeyIndex.MISSING_VALUE;
+
+public class EncodedKeyIndexTest
+{
+    private final EncodedKeyIndex index = new EncodedKeyIndex();
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[256]);
+
+    @Test
+    public void shouldLookupPutKeys()
+    {
+        assertEquals(MISSING_VALUE, put("SENDER|TARGET", 1));
+        assertEquals(MISSING_VALUE, put("TARGET|SENDER", 2));
+
+        assertEquals(1, get("SENDER|TARGET"));
+        assertEquals(2, get("TARGET|SENDER"));
+        assertEquals(MISSING_VALUE, get("SENDER|TARGE"));
+        assertEquals(MISSING_VALUE, get("SENDER|TARGET|X"));
+    }
+
+    @Test
+    public void shouldReplaceValueOfEqualKey()
+    {
+        put("SENDER|TARGET", 1);
+
+        assertEquals(1, put("SENDER|TARGET", 3));
+        assertEquals(3, get("SENDER|TARGET"));
+        assertEquals(1, index.size());
+    }
+
+    @Test
+    public void shouldLookupKeysAfterResizing()
+    {
+        final int count = 10_000;
+        for (int i = 0; i < count; i++)
+        {
+            put("SENDER-" + i + "|TARGET", i);
+        }
+
+        assertEquals(count, index.size());
+        for (int i = 0; i < count; i++)
+        {
+            assertEquals(i, get("SENDER-" + i + "|TARGET"));
+        }
+    }
+
+    @Test
+    public void shouldNotLookupKeysAfterClear()
+    {
+        put("SENDER|TARGET", 1);
+
+        index.clear();
+
+        assertEquals(MISSING_VALUE, get("SENDER|TARGET"));
+        assertEquals(0, index.size());
+
+        put("SENDER|TARGET", 2);
+        assertEquals(2, get("SENDER|TARGET"));
+    }
+
+    private long put(final String key, final long value)
+    {
+        final int length = buffer.putStringWithoutLengthAscii(0, key);
+        return index.put(buffer, 0, length, value);
+    }
+
+    private long get(final String key)
+    {
+        final byte[] bytes = key.getBytes(US_ASCII);
+        // Look up from a different offset to the one that was put
+        buffer.putBytes(7, bytes);
+        return index.get(buffer, 7, bytes.length);
+    }
+}
@@ -29,9 +29,14 @@ import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 
 import java.io.IOException;
 import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
 import java.util.concurrent.atomic.AtomicLong;
 
 import static io.aeron.logbuffer.ControlledFragmentHandler.Action.CONTINUE;
+import static java.util.Arrays.asList;
 import static org.junit.Assert.*;
 import static org.mockito.Mockito.*;
 import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_SLOW_CONSUMER_TIMEOUT_IN_MS;
@@ -51,6 +56,7 @@ public class FixSenderEndPointTest
     private static final int FRAGMENT_LENGTH = alignTerm(HEADER_LENGTH + FRAME_SIZE + BODY_LENGTH);
     private static final long BEGIN_POSITION = 8000;
     private static final int MAX_BYTES_IN_BUFFER = 3 * BODY_LENGTH;
+    private static final int MAX_MESSAGES_PER_WRITE = 4;
 
     private final TcpChannel tcpChannel = mock(TcpChannel.class);
     private final AtomicCounter bytesInBuffer = fakeCounter();
@@ -63,22 +69,33 @@ public class FixSenderEndPointTest
     private final BlockablePosition replayBlockablePosition = mock(BlockablePosition.class);
     private final SenderSequenceNumber senderSequenceNumber = mock(SenderSequenceNumber.class);
     private final MessageTimingHandler messageTimingHandler = mock(MessageTimingHandler.class);
+    private final AtomicCounter senderWrites = mock(AtomicCounter.class);
+    private final AtomicCounter senderMessagesWritten = mock(AtomicCounter.class);
 
-    private final FixSenderEndPoint endPoint = new FixSenderEndPoint(
-        CONNECTION_ID,
-        LIBRARY_ID,
-        libraryBlockablePosition,
-        replayBlockablePosition,
-        tcpChannel,
-        bytesInBuffer,
-        invalidLibraryAttempts,
-        errorHandler,
-        framer,
-        MAX_BYTES_IN_BUFFER,
-        DEFAULT_SLOW_CONSUMER_TIMEOUT_IN_MS,
-        0,
-        senderSequenceNumber,
-        messageTimingHandler);
+    private final FixSenderEndPoint endPoint = newEndPoint(1);
+    private final FixSenderEndPoint batchingEndPoint = newEndPoint(MAX_MESSAGES_PER_WRITE);
+
+    private FixSenderEndPoint newEndPoint(final int maxMessagesPerWrite)
+    {
+        return new FixSenderEndPoint(
+            CONNECTION_ID,
+            LIBRARY_ID,
+            libraryBlockablePosition,
+            replayBlockablePosition,
+            tcpChannel,
+            bytesInBuffer,
+            invalidLibraryAttempts,
+            errorHandler,
+            framer,
+            MAX_BYTES_IN_BUFFER,
+            DEFAULT_SLOW_CONSUMER_TIMEOUT_IN_MS,
+            0,
+            senderSequenceNumber,
+            messageTimingHandler,
+            maxMessagesPerWrite,
+            senderWrites,
+            senderMessagesWritten);
+    }
 
     @Test
     public void shouldRetrySlowConsumerMessage()
@@ -233,6 +250,23 @@ public class FixSenderEndPointTest
         assertBytesInBuffer(BODY_LENGTH);
     }
 
+    @Test
+    public void shouldCheckTimeoutsOfEndPointsThatFallBehindWhilstReplayPaused()
+    {
+        channelWillWrite(BODY_LENGTH);
+        onReplayMessage(0, 0);
+        assertReplayPaused();
+        assertBytesInBuffer(0);
+
+        onOutboundMessage(0, BEGIN_POSITION);
+        assertBytesInBuffer(BODY_LENGTH);
+        verify(framer).senderEndPointBehind(CONNECTION_ID);
+        verify(framer, never()).slowStatus(anyInt(), anyLong(), anyBoolean());
+
+        onOutboundMessage(0, BEGIN_POSITION + FRAGMENT_LENGTH);
+        verify(framer, times(1)).senderEndPointBehind(CONNECTION_ID);
+    }
+
     @Test
     public void shouldNotSendFurtherMessagesBeforeReplayRetry()
     {
@@ -418,6 +452,161 @@ public class FixSenderEndPointTest
         verifyNoMoreErrors();
     }
 
+    @Test
+    public void shouldWriteBatchedMessagesWithSingleGatheringWrite()
+    {
+        channelWillGatherWrite(2 * BODY_LENGTH);
+
+        onBatchedOutboundMessage(1, POSITION);
+        onBatchedOutboundMessage(2, POSITION + FRAGMENT_LENGTH);
+        byteBuffersWritten(never(), 2);
+        assertTrue(batchingEndPoint.hasBatchedMessages());
+
+        batchingEndPoint.flushBatch();
+
+        byteBuffersWritten(times(1), 2);
+        assertFalse(batchingEndPoint.hasBatchedMessages());
+        assertBytesInBuffer(0);
+        verify(senderWrites).incrementOrdered();
+        verify(senderMessagesWritten).getAndAddOrdered(2);
+        verify(messageTimingHandler).onMessage(1, CONNECTION_ID);
+        verify(messageTimingHandler).onMessage(2, CONNECTION_ID);
+        verifyNoMoreErrors();
+    }
+
+    @Test
+    public void shouldFlushBatchOnceFull()
+    {
+        channelWillGatherWrite(MAX_MESSAGES_PER_WRITE * BODY_LENGTH);
+
+        for (int i = 0; i < MAX_MESSAGES_PER_WRITE; i++)
+        {
+            onBatchedOutboundMessage(i, POSITION + i * FRAGMENT_LENGTH);
+        }
+
+        byteBuffersWritten(times(1), MAX_MESSAGES_PER_WRITE);
+        assertFalse(batchingEndPoint.hasBatchedMessages());
+        assertBytesInBuffer(0);
+    }
+
+    @Test
+    public void shouldBecomeSlowConsumerOnPartialGatheringWrite()
+    {
+        final int partiallyWritten = 10;
+        channelWillGatherWrite(BODY_LENGTH + partiallyWritten);
+
+        onBatchedOutboundMessage(1, POSITION);
+        onBatchedOutboundMessage(2, POSITION + FRAGMENT_LENGTH);
+        onBatchedOutboundMessage(3, POSITION + 2 * FRAGMENT_LENGTH);
+        batchingEndPoint.flushBatch();
+
+        assertBytesInBuffer((BODY_LENGTH - partiallyWritten) + BODY_LENGTH);
+        verify(framer).slowStatus(LIBRARY_ID, CONNECTION_ID, true);
+        verify(senderMessagesWritten).getAndAddOrdered(1);
+        verify(messageTimingHandler).onMessage(1, CONNECTION_ID);
+        verifyNoMoreInteractions(messageTimingHandler);
+        verifySlowConsumerDisconnect(never());
+    }
+
+    @Test
+    public void shouldWriteReassembledMessagesBeforeTheirBufferIsReused()
+    {
+        final List<String> written = new ArrayList<>();
+        channelRecordsWrites(written);
+        final UnsafeBuffer assemblerBuffer = new UnsafeBuffer(ByteBuffer.allocate(1024));
+
+        fillBody(buffer, 'T');
+        onBatchedOutboundMessage(1, POSITION);
+
+        // Two fragmented messages to the same connection in one poll share the assembler's buffer
+        fillBody(assemblerBuffer, 'A');
+        batchingEndPoint.onOutboundMessage(
+            LIBRARY_ID, assemblerBuffer, 0, BODY_LENGTH, 2, POSITION + FRAGMENT_LENGTH, 0, true);
+        fillBody(assemblerBuffer, 'B');
+        batchingEndPoint.onOutboundMessage(
+            LIBRARY_ID, assemblerBuffer, 0, BODY_LENGTH, 3, POSITION + 2 * FRAGMENT_LENGTH, 0, true);
+
+        onBatchedOutboundMessage(4, POSITION + 3 * FRAGMENT_LENGTH);
+        batchingEndPoint.flushBatch();
+
+        assertEquals(asList(body('T'), body('A'), body('B'), body('T')), written);
+        assertBytesInBuffer(0);
+        verifyNoMoreErrors();
+    }
+
+    private static void fillBody(final UnsafeBuffer buffer, final char value)
+    {
+        buffer.setMemory(0, BODY_LENGTH, (byte)value);
+    }
+
+    private static String body(final char value)
+    {
+        final char[] body = new char[BODY_LENGTH];
+        Arrays.fill(body, value);
+        return new String(body);
+    }
+
+    private void channelRecordsWrites(final List<String> written)
+    {
+        try
+        {
+            when(tcpChannel.write(any(ByteBuffer.class))).then(inv -> recordWrite(written, inv.getArgument(0)));
+            when(tcpChannel.write(any(ByteBuffer[].class), anyInt(), anyInt())).then(inv ->
+            {
+                final ByteBuffer[] buffers = inv.getArgument(0);
+                final int offset = inv.getArgument(1);
+                final int length = inv.getArgument(2);
+                long totalWritten = 0;
+                for (int i = offset; i < offset + length; i++)
+                {
+                    totalWritten += recordWrite(written, buffers[i]);
+                }
+                return totalWritten;
+            });
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+
+    private static int recordWrite(final List<String> written, final ByteBuffer buffer)
+    {
+        final byte[] bytes = new byte[buffer.remaining()];
+        buffer.get(bytes);
+        written.add(new String(bytes, StandardCharsets.US_ASCII));
+        return bytes.length;
+    }
+
+    private void onBatchedOutboundMessage(final int sequenceNumber, final long position)
+    {
+        batchingEndPoint.onOutboundMessage(LIBRARY_ID, buffer, 0, BODY_LENGTH, sequenceNumber, position, 0, false);
+    }
+
+    private void channelWillGatherWrite(final int bytesWritten)
+    {
+        try
+        {
+            when(tcpChannel.write(any(ByteBuffer[].class), anyInt(), anyInt())).thenReturn((long)bytesWritten);
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+
+    private void byteBuffersWritten(final VerificationMode times, final int messages)
+    {
+        try
+        {
+            verify(tcpChannel, times).write(any(ByteBuffer[].class), eq(0), eq(messages));
+        }
+        catch (final IOException e)
+        {
+            LangUtil.rethrowUnchecked(e);
+        }
+    }
+
     private void byteBufferNotWritten()
     {
         byteBufferWritten(never());
@@ -435,7 +624,7 @@ public class FixSenderEndPointTest
 
     private void onOutboundMessage(final long timeInMs, final long position)
     {
-        endPoint.onOutboundMessage(LIBRARY_ID, buffer, 0, BODY_LENGTH, 0, position, timeInMs);
+        endPoint.onOutboundMessage(LIBRARY_ID, buffer, 0, BODY_LENGTH, 0, position, timeInMs, false);
     }
 
     private void onReplayMessage(final long timeInMs, final long position)
@@ -178,8 +178,8 @@ public class FramerTest
             mockEndPointFactory,
             outboundLibrarySubscription,
             outboundSlowSubscription,
-            replayImage,
-            replaySlowImage,
+            new Image[]{ replayImage },
+            new Image[]{ replaySlowImage },
             replayQuery,
             mock(GatewayPublication.class),
             inboundPublication,
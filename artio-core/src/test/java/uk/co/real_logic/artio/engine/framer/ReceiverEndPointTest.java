@@ -477,6 +477,28 @@ public class ReceiverEndPointTest
         savesFramedMessages(1, OK, LOGON_LEN, LogonDecoder.MESSAGE_TYPE);
     }
 
+    @Test
+    public void shouldRetryBackPressuredLogonFromItsOwnOffsetAfterPasswordCleaning()
+    {
+        secondSaveAttemptIsBackPressured();
+
+        endpointBufferUpdatedWith(
+            (buffer) ->
+            {
+                buffer.put(EG_MESSAGE).put(LOGON_MESSAGE);
+                return MSG_LEN + LOGON_LEN;
+            });
+        polls(-(MSG_LEN + LOGON_LEN));
+
+        pollWithNoData(0);
+
+        savesAFramedMessage();
+        verify(publication, times(2)).saveMessage(
+            anyBuffer(), eq(0), anyInt(), eq(LIBRARY_ID),
+            eq(LogonDecoder.MESSAGE_TYPE), eq(SESSION_ID), anyInt(), eq(CONNECTION_ID),
+            eq(OK), eq(0), eq(TIMESTAMP));
+    }
+
     private void firstSaveAttemptIsBackPressured()
     {
         when(publication
@@ -495,6 +517,24 @@ public class ReceiverEndPointTest
             .thenReturn(BACK_PRESSURED, POSITION);
     }
 
+    private void secondSaveAttemptIsBackPressured()
+    {
+        when(publication
+            .saveMessage(
+                anyBuffer(),
+                anyInt(),
+                anyInt(),
+                anyInt(),
+                anyLong(),
+                anyLong(),
+                anyInt(),
+                anyLong(),
+                any(),
+                anyInt(),
+                anyLong()))
+            .thenReturn(POSITION, BACK_PRESSURED, POSITION);
+    }
+
     private DirectBuffer anyBuffer()
     {
         return any(DirectBuffer.class);
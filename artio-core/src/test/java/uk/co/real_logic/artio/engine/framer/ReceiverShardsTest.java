@@ -0,0 +1,320 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.DirectBuffer;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import org.mockito.InOrder;
+import org.mockito.verification.VerificationMode;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+
+import java.io.IOException;
+import java.nio.channels.Selector;
+
+import static io.aeron.Publication.BACK_PRESSURED;
+import static org.junit.Assert.*;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.messages.DisconnectReason.APPLICATION_DISCONNECT;
+import static uk.co.real_logic.artio.messages.DisconnectReason.REMOTE_DISCONNECT;
+import static uk.co.real_logic.artio.messages.MessageStatus.OK;
+
+public class ReceiverShardsTest
+{
+    private static final long CONNECTION_ID = 1L;
+    private static final long OTHER_CONNECTION_ID = 2L;
+    private static final long SESSION_ID = 3L;
+    private static final int SEQUENCE_INDEX = 4;
+    private static final long MESSAGE_TYPE = 'D';
+    private static final long TIMESTAMP = 1000L;
+    private static final long POSITION = 1024L;
+
+    private final DirectBuffer message = new UnsafeBuffer(new byte[]{ 'a', 'b', 'c' });
+    private final FixReceiverEndPoint endPoint = mock(FixReceiverEndPoint.class);
+    private final FixReceiverEndPoint otherEndPoint = mock(FixReceiverEndPoint.class);
+
+    private ReceiverShards receiverShards;
+    private ReceiverShard shard;
+
+    @Before
+    public void setUp()
+    {
+        receiverShards = new ReceiverShards(
+            new EngineConfiguration().framerReceiverShards(1), Throwable::printStackTrace);
+        shard = (ReceiverShard)receiverShards.agents()[0];
+
+        givenAnEndPoint(endPoint, CONNECTION_ID);
+        givenAnEndPoint(otherEndPoint, OTHER_CONNECTION_ID);
+    }
+
+    @After
+    public void tearDown()
+    {
+        shard.onClose();
+        receiverShards.close();
+    }
+
+    @Test
+    public void shouldHandOverEndPointWithItsSequenceIndex() throws IOException
+    {
+        receiverShards.add(endPoint);
+        verify(endPoint, never()).shard(any());
+
+        receiverShards.poll();
+        shard.doWork();
+
+        verify(endPoint).shard(shard);
+        verify(endPoint).sequenceIndex(SEQUENCE_INDEX);
+        verify(endPoint).register(any(Selector.class));
+        verify(endPoint, atLeastOnce()).poll();
+    }
+
+    @Test
+    public void shouldPublishFramedMessages()
+    {
+        handOver(endPoint);
+
+        framesMessage(CONNECTION_ID);
+        receiverShards.poll();
+
+        verifyPublished(endPoint, times(1));
+    }
+
+    @Test
+    public void shouldRetryBackPressuredMessages()
+    {
+        handOver(endPoint);
+        when(endPoint.publishFramedMessage(
+            any(), anyInt(), anyInt(), anyLong(), anyLong(), anyInt(), any(), anyLong()))
+            .thenReturn(BACK_PRESSURED, POSITION);
+
+        framesMessage(CONNECTION_ID);
+        receiverShards.poll();
+        receiverShards.poll();
+
+        verifyPublished(endPoint, times(2));
+    }
+
+    @Test
+    public void shouldHoldMessagesOfAPausedEndPointWithoutBlockingOtherEndPoints()
+    {
+        handOver(endPoint);
+        handOver(otherEndPoint);
+        when(endPoint.isPaused()).thenReturn(true);
+
+        framesMessage(CONNECTION_ID);
+        framesMessage(OTHER_CONNECTION_ID);
+        receiverShards.poll();
+
+        verifyPublished(endPoint, never());
+        verifyPublished(otherEndPoint, times(1));
+
+        framesMessage(OTHER_CONNECTION_ID);
+        receiverShards.poll();
+
+        verifyPublished(endPoint, never());
+        verifyPublished(otherEndPoint, times(2));
+    }
+
+    @Test
+    public void shouldPublishHeldMessagesInOrderWhenEndPointIsPlayed()
+    {
+        handOver(endPoint);
+        when(endPoint.isPaused()).thenReturn(true);
+
+        framesMessage(CONNECTION_ID, 1);
+        framesMessage(CONNECTION_ID, 2);
+        receiverShards.poll();
+        verifyPublished(endPoint, never());
+
+        when(endPoint.isPaused()).thenReturn(false);
+        framesMessage(CONNECTION_ID, 3);
+        receiverShards.poll();
+
+        final InOrder inOrder = inOrder(endPoint);
+        verifyPublished(inOrder, 1);
+        verifyPublished(inOrder, 2);
+        verifyPublished(inOrder, 3);
+    }
+
+    @Test
+    public void shouldRetryHeldMessagesWhenBackPressured()
+    {
+        handOver(endPoint);
+        when(endPoint.isPaused()).thenReturn(true);
+        when(endPoint.publishFramedMessage(
+            any(), anyInt(), anyInt(), anyLong(), anyLong(), anyInt(), any(), anyLong()))
+            .thenReturn(BACK_PRESSURED, POSITION);
+
+        framesMessage(CONNECTION_ID, 1);
+        framesMessage(CONNECTION_ID, 2);
+        receiverShards.poll();
+
+        when(endPoint.isPaused()).thenReturn(false);
+        receiverShards.poll();
+        receiverShards.poll();
+
+        final InOrder inOrder = inOrder(endPoint);
+        verifyPublished(inOrder, 1, times(2));
+        verifyPublished(inOrder, 2, times(1));
+        verifyPublished(endPoint, times(3));
+    }
+
+    @Test
+    public void shouldCompleteDisconnectDetectedByShard()
+    {
+        handOver(endPoint);
+
+        shard.onDisconnectDetected(endPoint);
+        shard.doWork();
+        receiverShards.poll();
+
+        verify(endPoint).completeDisconnect(REMOTE_DISCONNECT);
+        verify(endPoint, never()).closeResources();
+    }
+
+    @Test
+    public void shouldHoldDisconnectBehindHeldMessages()
+    {
+        handOver(endPoint);
+        when(endPoint.isPaused()).thenReturn(true);
+
+        framesMessage(CONNECTION_ID, 1);
+        shard.onDisconnectDetected(endPoint);
+        shard.doWork();
+        receiverShards.poll();
+
+        verify(endPoint, never()).completeDisconnect(any());
+
+        when(endPoint.isPaused()).thenReturn(false);
+        receiverShards.poll();
+
+        final InOrder inOrder = inOrder(endPoint);
+        verifyPublished(inOrder, 1);
+        inOrder.verify(endPoint).completeDisconnect(REMOTE_DISCONNECT);
+    }
+
+    @Test
+    public void shouldCloseRemovedEndPointOnTheShardThread()
+    {
+        handOver(endPoint);
+
+        assertTrue(receiverShards.removeConnection(CONNECTION_ID, APPLICATION_DISCONNECT));
+
+        verify(endPoint).disconnectEndpoint(APPLICATION_DISCONNECT);
+        verify(endPoint, never()).close(any());
+        verify(endPoint, never()).closeResources();
+
+        receiverShards.poll();
+        verify(endPoint, never()).closeResources();
+
+        shard.doWork();
+        verify(endPoint).closeResources();
+
+        // Not polled again once it has been closed.
+        reset(endPoint);
+        shard.doWork();
+        verify(endPoint, never()).poll();
+    }
+
+    @Test
+    public void shouldDropMessagesOfRemovedEndPoints()
+    {
+        handOver(endPoint);
+        when(endPoint.isPaused()).thenReturn(true);
+
+        framesMessage(CONNECTION_ID, 1);
+        receiverShards.poll();
+        receiverShards.removeConnection(CONNECTION_ID, APPLICATION_DISCONNECT);
+        framesMessage(CONNECTION_ID, 2);
+
+        when(endPoint.isPaused()).thenReturn(false);
+        receiverShards.poll();
+
+        verifyPublished(endPoint, never());
+    }
+
+    @Test
+    public void shouldCloseEndPointRemovedBeforeHandOver()
+    {
+        receiverShards.add(endPoint);
+
+        assertTrue(receiverShards.removeConnection(CONNECTION_ID, APPLICATION_DISCONNECT));
+        verify(endPoint).close(APPLICATION_DISCONNECT);
+
+        receiverShards.poll();
+        shard.doWork();
+
+        verify(endPoint, never()).shard(any());
+        verify(endPoint, never()).poll();
+    }
+
+    @Test
+    public void shouldNotRemoveConnectionsThatAreNotSharded()
+    {
+        assertFalse(receiverShards.removeConnection(CONNECTION_ID, APPLICATION_DISCONNECT));
+    }
+
+    private void givenAnEndPoint(final FixReceiverEndPoint endPoint, final long connectionId)
+    {
+        when(endPoint.connectionId()).thenReturn(connectionId);
+        when(endPoint.sequenceIndex()).thenReturn(SEQUENCE_INDEX);
+        when(endPoint.shard()).thenAnswer(inv -> shard);
+        when(endPoint.publishFramedMessage(
+            any(), anyInt(), anyInt(), anyLong(), anyLong(), anyInt(), any(), anyLong()))
+            .thenReturn(POSITION);
+    }
+
+    private void handOver(final FixReceiverEndPoint endPoint)
+    {
+        receiverShards.add(endPoint);
+        receiverShards.poll();
+        shard.doWork();
+    }
+
+    private void framesMessage(final long connectionId)
+    {
+        framesMessage(connectionId, TIMESTAMP);
+    }
+
+    // The timestamp identifies the message
+    private void framesMessage(final long connectionId, final long timestamp)
+    {
+        assertEquals(1, shard.onFramedMessage(
+            connectionId, message, 0, message.capacity(), MESSAGE_TYPE, SESSION_ID, SEQUENCE_INDEX, OK, timestamp));
+    }
+
+    private void verifyPublished(final FixReceiverEndPoint endPoint, final VerificationMode mode)
+    {
+        verify(endPoint, mode).publishFramedMessage(
+            any(), anyInt(), eq(message.capacity()), eq(MESSAGE_TYPE), eq(SESSION_ID), eq(SEQUENCE_INDEX), eq(OK),
+            anyLong());
+    }
+
+    private void verifyPublished(final InOrder inOrder, final long timestamp)
+    {
+        verifyPublished(inOrder, timestamp, times(1));
+    }
+
+    private void verifyPublished(final InOrder inOrder, final long timestamp, final VerificationMode mode)
+    {
+        inOrder.verify(endPoint, mode).publishFramedMessage(
+            any(), anyInt(), eq(message.capacity()), eq(MESSAGE_TYPE), eq(SESSION_ID), eq(SEQUENCE_INDEX), eq(OK),
+            eq(timestamp));
+    }
+}
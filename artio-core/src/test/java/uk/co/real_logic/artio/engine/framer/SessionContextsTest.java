@@ -24,6 +24,7 @@ import uk.co.real_logic.artio.FileSystemCorruptionException;
 import uk.co.real_logic.artio.builder.LogonEncoder;
 import uk.co.real_logic.artio.dictionary.FixDictionary;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.engine.FileSyncer;
 import uk.co.real_logic.artio.engine.MappedFile;
 import uk.co.real_logic.artio.fixt.FixDictionaryImpl;
 import uk.co.real_logic.artio.session.CompositeKey;
@@ -60,6 +61,7 @@ public class SessionContextsTest
     private final ErrorHandler errorHandler = mock(ErrorHandler.class);
     private final AtomicBuffer buffer = new UnsafeBuffer(ByteBuffer.allocate(BUFFER_SIZE));
     private final MappedFile mappedFile = mock(MappedFile.class);
+    private final FileSyncer fileSyncer = mock(FileSyncer.class);
     private final SessionIdStrategy idStrategy = SessionIdStrategy.senderAndTarget();
     private SessionContexts sessionContexts = newSessionContexts(buffer);
     private final MutableAsciiBuffer asciiBuffer = new MutableAsciiBuffer(ByteBuffer.allocate(BUFFER_SIZE));
@@ -87,6 +89,17 @@ public class SessionContextsTest
         assertEquals(SessionContexts.DUPLICATE_SESSION, sessionContexts.onLogon(aSession, fixDictionary));
     }
 
+    @Test
+    public void syncsFileOncePerNewSession()
+    {
+        reset(fileSyncer);
+
+        sessionContexts.onLogon(aSession, fixDictionary);
+        sessionContexts.onLogon(bSession, fixDictionary);
+
+        verify(fileSyncer, times(2)).onWrite();
+    }
+
     @Test
     public void handsOutSameSessionContextAfterDisconnect()
     {
@@ -287,7 +300,7 @@ public class SessionContextsTest
 
         // Restart with compaction
         sessionContexts = newSessionContexts(buffer);
-        final SessionContext reloadedAContext = sessionContexts.lookupById(sessionIdA).getValue();
+        final SessionContext reloadedAContext = sessionContexts.lookupById(sessionIdA);
         assertEquals(fixtDictionary.getClass(), reloadedAContext.lastFixDictionary().getClass());
         final int filePosition3 = sessionContexts.filePosition();
         assertThat(filePosition3, lessThan(filePosition2));
@@ -315,7 +328,7 @@ public class SessionContextsTest
         // Check that reloaded information is read
         final SessionContexts sessionContexts2 = newSessionContexts(oldBuffer);
         assertThat(sessionContexts2.allSessions(), hasSize(1));
-        final SessionContext newContext = sessionContexts2.lookupById(context.sessionId()).getValue();
+        final SessionContext newContext = sessionContexts2.lookupById(context.sessionId());
         assertEquals(fixtDictionary.getClass(), newContext.lastFixDictionary().getClass());
     }
 
@@ -352,7 +365,7 @@ public class SessionContextsTest
     private SessionContexts newSessionContexts(final AtomicBuffer buffer, final int initialSequenceIndex)
     {
         when(mappedFile.buffer()).thenReturn(buffer);
-        return new SessionContexts(mappedFile, idStrategy, initialSequenceIndex, errorHandler);
+        return new SessionContexts(mappedFile, fileSyncer, idStrategy, initialSequenceIndex, errorHandler);
     }
 
     private void assertValuesEqual(
@@ -0,0 +1,196 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.CopyOnWriteArrayList;
+
+import static java.util.concurrent.TimeUnit.HOURS;
+import static org.junit.Assert.*;
+
+public class FixArchiveExporterTest
+{
+    private static final long SESSION_ID = 1;
+    private static final long OTHER_SESSION_ID = 2;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[1024]);
+    private final FixMessageEncoder encoder = new FixMessageEncoder();
+    private final FixMessageDecoder decoder = new FixMessageDecoder();
+    private final List<String> rows = new ArrayList<>();
+
+    private File exportDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        exportDir = Files.createTempDirectory("fix-archive-export").toFile();
+    }
+
+    @After
+    public void tearDown()
+    {
+        IoUtil.delete(exportDir, true);
+    }
+
+    @Test
+    public void shouldExportMessagesPartitionedBySessionAndTime() throws IOException
+    {
+        try (FixArchiveExporter exporter = new FixArchiveExporter(new FixArchiveExporter.Configuration()
+            .outputDirectoryName(exportDir.getAbsolutePath())
+            .workerThreads(2)
+            .blockRows(2)))
+        {
+            export(exporter, SESSION_ID, 1, "D", "SENDER", "TARGET", 1);
+            export(exporter, OTHER_SESSION_ID, 2, "0", "OTHER", "TARGET", 1);
+            export(exporter, SESSION_ID, 3, "8", "TARGET", "SENDER", 2);
+            export(exporter, SESSION_ID, 4, "D", "SENDER", "TARGET", 3);
+            export(exporter, SESSION_ID, HOURS.toNanos(1) + 5, "0", "SENDER", "TARGET", 4);
+        }
+
+        read(SESSION_ID, 0);
+        assertRows(
+            "1 20201016-10:00:00.000 1 D SENDER TARGET",
+            "3 20201016-10:00:00.000 2 8 TARGET SENDER",
+            "4 20201016-10:00:00.000 3 D SENDER TARGET");
+
+        read(SESSION_ID, HOURS.toNanos(1));
+        assertRows("3600000000005 20201016-10:00:00.000 4 0 SENDER TARGET");
+
+        read(OTHER_SESSION_ID, 0);
+        assertRows("2 20201016-10:00:00.000 1 0 OTHER TARGET");
+    }
+
+    @Test
+    public void shouldReplaceThePartitionsOfAPreviousExport() throws IOException
+    {
+        for (int i = 0; i < 2; i++)
+        {
+            try (FixArchiveExporter exporter = newExporter())
+            {
+                export(exporter, SESSION_ID, 1, "D", "SENDER", "TARGET", 1);
+            }
+        }
+
+        read(SESSION_ID, 0);
+        assertRows("1 20201016-10:00:00.000 1 D SENDER TARGET");
+    }
+
+    @Test
+    public void shouldAppendToPartitionsWrittenEarlierInTheSameExport() throws IOException
+    {
+        try (FixArchiveExporter exporter = newExporter())
+        {
+            export(exporter, SESSION_ID, 1, "D", "SENDER", "TARGET", 1);
+            export(exporter, SESSION_ID, HOURS.toNanos(1) + 2, "0", "SENDER", "TARGET", 2);
+            export(exporter, SESSION_ID, 3, "8", "TARGET", "SENDER", 3);
+        }
+
+        read(SESSION_ID, 0);
+        assertRows(
+            "1 20201016-10:00:00.000 1 D SENDER TARGET",
+            "3 20201016-10:00:00.000 3 8 TARGET SENDER");
+    }
+
+    @Test
+    public void shouldRethrowWorkerErrorsWhenClosed() throws IOException
+    {
+        // The session's directory can't be created, so its partition can't be written
+        assertTrue(new File(exportDir, "session-" + SESSION_ID).createNewFile());
+
+        final List<Throwable> errors = new CopyOnWriteArrayList<>();
+        final FixArchiveExporter exporter = new FixArchiveExporter(new FixArchiveExporter.Configuration()
+            .outputDirectoryName(exportDir.getAbsolutePath())
+            .workerThreads(1)
+            .errorHandler(errors::add));
+
+        export(exporter, SESSION_ID, 1, "D", "SENDER", "TARGET", 1);
+
+        try
+        {
+            exporter.close();
+            fail("Expected the worker's error to be rethrown");
+        }
+        catch (final IllegalStateException e)
+        {
+            assertEquals(1, errors.size());
+            assertSame(errors.get(0), e.getCause());
+        }
+    }
+
+    private FixArchiveExporter newExporter()
+    {
+        return new FixArchiveExporter(new FixArchiveExporter.Configuration()
+            .outputDirectoryName(exportDir.getAbsolutePath())
+            .workerThreads(1)
+            .blockRows(1));
+    }
+
+    private void export(
+        final FixArchiveExporter exporter,
+        final long sessionId,
+        final long timestamp,
+        final String msgType,
+        final String senderCompId,
+        final String targetCompId,
+        final int msgSeqNum)
+    {
+        final String body = "8=FIX.4.4\0019=0\00135=" + msgType + "\00149=" + senderCompId +
+            "\00156=" + targetCompId + "\00134=" + msgSeqNum + "\00152=20201016-10:00:00.000\00110=000\001";
+        encoder
+            .wrap(buffer, 0)
+            .session(sessionId)
+            .timestamp(timestamp)
+            .putMetaData(new byte[0], 0, 0)
+            .body(body);
+        decoder.wrap(buffer, 0, encoder.sbeBlockLength(), encoder.sbeSchemaVersion());
+        decoder.skipMetaData();
+
+        exporter.onMessage(decoder, buffer, 0, encoder.encodedLength(), null);
+    }
+
+    private void read(final long sessionId, final long bucketStartTimestamp) throws IOException
+    {
+        rows.clear();
+        final File file = new File(
+            exportDir, "session-" + sessionId + File.separator + bucketStartTimestamp + ".fixc");
+        assertTrue(file + " not exported", file.exists());
+
+        FixArchiveExportReader.read(file, row ->
+        {
+            assertTrue(row.body().startsWith("8=FIX.4.4\001"));
+            rows.add(row.timestamp() + " " + row.sendingTime() + " " + row.msgSeqNum() + " " + row.msgType() +
+                " " + row.senderCompId() + " " + row.targetCompId());
+        });
+    }
+
+    private void assertRows(final String... expectedRows)
+    {
+        assertEquals(Arrays.asList(expectedRows), rows);
+    }
+}
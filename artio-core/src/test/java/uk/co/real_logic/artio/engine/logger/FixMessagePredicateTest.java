@@ -15,10 +15,12 @@
  */
 package uk.co.real_logic.artio.engine.logger;
 
+import org.agrona.collections.LongHashSet;
 import org.agrona.concurrent.UnsafeBuffer;
 import org.junit.Test;
 import uk.co.real_logic.artio.messages.FixMessageDecoder;
 import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageStatus;
 
 import java.util.regex.Pattern;
 
@@ -48,4 +50,93 @@ public class FixMessagePredicateTest
     {
         assertTrue(startsAbc.or(starts123).test(decoder));
     }
+
+    @Test
+    public void andShouldKeepTheSessionIdsOfASessionPredicate()
+    {
+        final LongHashSet sessionIds = FixMessagePredicates.sessionOf(1).and(middleAbc).sessionIds();
+
+        assertNotNull(sessionIds);
+        assertEquals(1, sessionIds.size());
+        assertTrue(sessionIds.contains(1));
+    }
+
+    @Test
+    public void andShouldIntersectTheSessionIdsOfSessionPredicates()
+    {
+        final LongHashSet sessionIds = FixMessagePredicates.sessionOf(1)
+            .and(FixMessagePredicates.sessionOf(2))
+            .sessionIds();
+
+        assertNotNull(sessionIds);
+        assertTrue(sessionIds.isEmpty());
+    }
+
+    @Test
+    public void orShouldUnionTheSessionIdsOfSessionPredicates()
+    {
+        final LongHashSet sessionIds = FixMessagePredicates.sessionOf(1)
+            .or(FixMessagePredicates.sessionOf(2))
+            .sessionIds();
+
+        assertNotNull(sessionIds);
+        assertEquals(2, sessionIds.size());
+    }
+
+    @Test
+    public void andShouldIntersectTimeRanges()
+    {
+        final FixMessagePredicate predicate = FixMessagePredicates.between(10, 20)
+            .and(FixMessagePredicates.from(15))
+            .and(middleAbc);
+
+        assertEquals(15, predicate.beginTimestampInclusive());
+        assertEquals(20, predicate.endTimestampExclusive());
+    }
+
+    @Test
+    public void orShouldCoverBothTimeRanges()
+    {
+        final FixMessagePredicate predicate = FixMessagePredicates.between(10, 20)
+            .or(FixMessagePredicates.between(30, 40));
+
+        assertEquals(10, predicate.beginTimestampInclusive());
+        assertEquals(40, predicate.endTimestampExclusive());
+        assertEquals(Long.MAX_VALUE, predicate.or(middleAbc).endTimestampExclusive());
+    }
+
+    @Test
+    public void orShouldNotRestrictSessionIdsWhenEitherPredicateDoesNot()
+    {
+        assertNull(FixMessagePredicates.sessionOf(1).or(middleAbc).sessionIds());
+    }
+
+    @Test
+    public void shouldMatchMessagesByStatus()
+    {
+        encoder.status(MessageStatus.INVALID);
+
+        assertTrue(FixMessagePredicates.statusOf(MessageStatus.INVALID).test(decoder));
+        assertFalse(FixMessagePredicates.statusOf(MessageStatus.OK).test(decoder));
+    }
+
+    @Test
+    public void shouldOnlyMatchOkStatusMessagesWhenEitherPredicateOfAnAndDoes()
+    {
+        final FixMessagePredicate okStatus = FixMessagePredicates.statusOf(MessageStatus.OK);
+
+        assertTrue(okStatus.okStatusOnly());
+        assertTrue(FixMessagePredicates.sessionOf(1).and(okStatus).okStatusOnly());
+        assertFalse(FixMessagePredicates.sessionOf(1).okStatusOnly());
+        assertFalse(FixMessagePredicates.statusOf(MessageStatus.INVALID).okStatusOnly());
+    }
+
+    @Test
+    public void shouldOnlyMatchOkStatusMessagesWhenBothPredicatesOfAnOrDo()
+    {
+        final FixMessagePredicate okStatus = FixMessagePredicates.statusOf(MessageStatus.OK);
+
+        assertTrue(okStatus.or(middleAbc.and(okStatus)).okStatusOnly());
+        assertFalse(okStatus.or(middleAbc).okStatusOnly());
+    }
 }
@@ -0,0 +1,158 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.Aeron;
+import io.aeron.Image;
+import io.aeron.Subscription;
+import io.aeron.archive.client.AeronArchive;
+import io.aeron.logbuffer.FragmentHandler;
+import io.aeron.logbuffer.Header;
+import org.agrona.ErrorHandler;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.engine.CompletionPosition;
+
+import java.util.Arrays;
+
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static org.mockito.Mockito.*;
+
+public class IndexerTest
+{
+    private static final int AERON_SESSION_ID = 1;
+    private static final long RECORDING_ID = 2;
+    private static final int ARCHIVE_REPLAY_STREAM = 3;
+    private static final int FRAGMENT_LENGTH = 256;
+    private static final long RECORDING_STOPPED_POSITION = 4 * FRAGMENT_LENGTH;
+
+    private final AeronArchive aeronArchive = mock(AeronArchive.class);
+    private final AeronArchive.Context archiveContext = mock(AeronArchive.Context.class);
+    private final Subscription replaySubscription = mock(Subscription.class);
+    private final Image replayImage = mock(Image.class);
+    private final Header header = mock(Header.class);
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[(int)RECORDING_STOPPED_POSITION]);
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final AtomicCounter catchupTimeInNs = mock(AtomicCounter.class);
+
+    private long imagePosition;
+
+    @Before
+    public void setUp()
+    {
+        when(aeronArchive.context()).thenReturn(archiveContext);
+        when(archiveContext.aeron()).thenReturn(mock(Aeron.class));
+        when(aeronArchive.getStopPosition(RECORDING_ID)).thenReturn(RECORDING_STOPPED_POSITION);
+        when(aeronArchive.replay(eq(RECORDING_ID), anyLong(), anyLong(), anyString(), anyInt())).then(inv ->
+        {
+            imagePosition = inv.getArgument(1);
+            return replaySubscription;
+        });
+
+        when(replaySubscription.imageCount()).thenReturn(1);
+        when(replaySubscription.imageAtIndex(0)).thenReturn(replayImage);
+        when(replayImage.position()).then(inv -> imagePosition);
+        when(header.position()).then(inv -> imagePosition);
+
+        // Each poll replays the next fragment, its offset in the buffer is the position that it starts at
+        when(replayImage.poll(any(), anyInt())).then(inv ->
+        {
+            final FragmentHandler handler = inv.getArgument(0);
+            final int offset = (int)imagePosition;
+            imagePosition += FRAGMENT_LENGTH;
+            handler.onFragment(buffer, offset, FRAGMENT_LENGTH, header);
+            return 1;
+        });
+    }
+
+    @Test
+    public void shouldCatchUpEachIndexFromItsOwnPositionWithOneReplay()
+    {
+        final Index behindIndex = indexedUpTo(FRAGMENT_LENGTH);
+        final Index aheadIndex = indexedUpTo(2 * FRAGMENT_LENGTH);
+
+        newIndexer(behindIndex, aheadIndex);
+
+        verify(aeronArchive).replay(
+            RECORDING_ID,
+            FRAGMENT_LENGTH,
+            RECORDING_STOPPED_POSITION - FRAGMENT_LENGTH,
+            IPC_CHANNEL,
+            ARCHIVE_REPLAY_STREAM);
+        verify(aeronArchive).replay(anyLong(), anyLong(), anyLong(), anyString(), anyInt());
+        verify(replaySubscription).close();
+
+        assertCaughtUpFrom(behindIndex, FRAGMENT_LENGTH);
+        assertCaughtUpFrom(aheadIndex, 2 * FRAGMENT_LENGTH);
+        verify(catchupTimeInNs).setOrdered(anyLong());
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    public void shouldNotReplayRecordingsThatAreFullyIndexed()
+    {
+        final Index index = indexedUpTo(RECORDING_STOPPED_POSITION);
+        final Index otherIndex = indexedUpTo(RECORDING_STOPPED_POSITION);
+
+        newIndexer(index, otherIndex);
+
+        verify(aeronArchive, never()).replay(anyLong(), anyLong(), anyLong(), anyString(), anyInt());
+        verify(index, never()).onCatchup(any(), anyInt(), anyInt(), any(), anyLong());
+        verify(otherIndex, never()).onCatchup(any(), anyInt(), anyInt(), any(), anyLong());
+        verify(catchupTimeInNs).setOrdered(anyLong());
+        verifyNoInteractions(errorHandler);
+    }
+
+    private void assertCaughtUpFrom(final Index index, final long indexedPosition)
+    {
+        int fragments = 0;
+        for (long position = indexedPosition; position < RECORDING_STOPPED_POSITION; position += FRAGMENT_LENGTH)
+        {
+            verify(index).onCatchup(buffer, (int)position, FRAGMENT_LENGTH, header, RECORDING_ID);
+            fragments++;
+        }
+
+        verify(index, times(fragments)).onCatchup(any(), anyInt(), anyInt(), any(), anyLong());
+    }
+
+    private Index indexedUpTo(final long indexedPosition)
+    {
+        final Index index = mock(Index.class);
+        doAnswer(inv ->
+        {
+            final IndexedPositionConsumer consumer = inv.getArgument(0);
+            consumer.accept(AERON_SESSION_ID, RECORDING_ID, indexedPosition);
+            return null;
+        }).when(index).readLastPosition(any());
+        return index;
+    }
+
+    private void newIndexer(final Index... indices)
+    {
+        new Indexer(
+            Arrays.asList(indices),
+            mock(Subscription.class),
+            "",
+            mock(CompletionPosition.class),
+            aeronArchive,
+            errorHandler,
+            ARCHIVE_REPLAY_STREAM,
+            false,
+            catchupTimeInNs);
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.BitUtil;
+import org.agrona.IoUtil;
+import org.agrona.collections.IntHashSet;
+import org.agrona.collections.LongArrayList;
+import org.agrona.concurrent.NoOpIdleStrategy;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static io.aeron.logbuffer.FrameDescriptor.FRAME_ALIGNMENT;
+import static io.aeron.logbuffer.FrameDescriptor.UNFRAGMENTED;
+import static io.aeron.protocol.DataHeaderFlyweight.*;
+import static java.nio.ByteOrder.LITTLE_ENDIAN;
+import static org.junit.Assert.assertEquals;
+
+public class OfflineFixArchiveScannerTest
+{
+    private static final int SEGMENT_FILE_LENGTH = 4096;
+    private static final int INBOUND_STREAM_ID = 1;
+    private static final int OUTBOUND_STREAM_ID = 2;
+    private static final int OTHER_STREAM_ID = 3;
+
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final FixMessageEncoder messageEncoder = new FixMessageEncoder();
+    private final LongArrayList timestamps = new LongArrayList();
+
+    private File archiveDir;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        archiveDir = Files.createTempDirectory("offline-archive").toFile();
+
+        writeSegmentFile("1-0.rec", OUTBOUND_STREAM_ID, 0, 1, 3);
+        writeSegmentFile("1-4096.rec", OUTBOUND_STREAM_ID, 0, 5);
+        // Leaves the start of the file unwritten, like a recording that doesn't start at a segment boundary.
+        writeSegmentFile("2-0.rec", INBOUND_STREAM_ID, 1024, 2, 4);
+        writeSegmentFile("3-0.rec", OTHER_STREAM_ID, 0, 6);
+    }
+
+    @After
+    public void tearDown()
+    {
+        IoUtil.delete(archiveDir, true);
+    }
+
+    @Test
+    public void shouldMergeTheRecordingsOfQueriedStreamsInTimestampOrder()
+    {
+        scan(0, INBOUND_STREAM_ID, OUTBOUND_STREAM_ID);
+
+        assertTimestamps(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void shouldReadSegmentFilesLoadedByLoaderThreads()
+    {
+        scan(2, INBOUND_STREAM_ID, OUTBOUND_STREAM_ID);
+
+        assertTimestamps(1, 2, 3, 4, 5);
+    }
+
+    @Test
+    public void shouldOnlyReadRecordingsOfTheQueriedStream()
+    {
+        scan(1, OUTBOUND_STREAM_ID);
+
+        assertTimestamps(1, 3, 5);
+    }
+
+    private void scan(final int loaderThreads, final int... streamIds)
+    {
+        final IntHashSet queryStreamIds = new IntHashSet();
+        for (final int streamId : streamIds)
+        {
+            queryStreamIds.add(streamId);
+        }
+
+        final OfflineFixArchiveScanner.Configuration configuration = new OfflineFixArchiveScanner.Configuration()
+            .archiveDirectoryName(archiveDir.getAbsolutePath())
+            .idleStrategy(new NoOpIdleStrategy())
+            .loaderThreads(loaderThreads);
+
+        try (OfflineFixArchiveScanner scanner = new OfflineFixArchiveScanner(configuration))
+        {
+            scanner.scan(
+                queryStreamIds,
+                (message, buffer, offset, length, header) -> timestamps.addLong(message.timestamp()),
+                null);
+        }
+    }
+
+    private void assertTimestamps(final long... expectedTimestamps)
+    {
+        final LongArrayList expected = new LongArrayList();
+        for (final long timestamp : expectedTimestamps)
+        {
+            expected.addLong(timestamp);
+        }
+
+        assertEquals(expected, timestamps);
+    }
+
+    private void writeSegmentFile(
+        final String fileName, final int streamId, final int firstFrameOffset, final long... messageTimestamps)
+        throws IOException
+    {
+        final UnsafeBuffer buffer = new UnsafeBuffer(new byte[SEGMENT_FILE_LENGTH]);
+        int offset = firstFrameOffset;
+        for (final long timestamp : messageTimestamps)
+        {
+            final int payloadOffset = offset + HEADER_LENGTH;
+            messageEncoder
+                .wrapAndApplyHeader(buffer, payloadOffset, headerEncoder)
+                .timestamp(timestamp)
+                .putMetaData(new byte[0], 0, 0)
+                .body("8=FIX.4.4\u00019=5\u000135=0\u0001");
+            final int frameLength = HEADER_LENGTH + MessageHeaderEncoder.ENCODED_LENGTH +
+                messageEncoder.encodedLength();
+
+            buffer.putInt(offset + FRAME_LENGTH_FIELD_OFFSET, frameLength, LITTLE_ENDIAN);
+            buffer.putByte(offset + FLAGS_FIELD_OFFSET, UNFRAGMENTED);
+            buffer.putShort(offset + TYPE_FIELD_OFFSET, (short)HDR_TYPE_DATA, LITTLE_ENDIAN);
+            buffer.putInt(offset + TERM_OFFSET_FIELD_OFFSET, offset, LITTLE_ENDIAN);
+            buffer.putInt(offset + STREAM_ID_FIELD_OFFSET, streamId, LITTLE_ENDIAN);
+
+            offset += BitUtil.align(frameLength, FRAME_ALIGNMENT);
+        }
+
+        Files.write(new File(archiveDir, fileName).toPath(), buffer.byteArray());
+    }
+}
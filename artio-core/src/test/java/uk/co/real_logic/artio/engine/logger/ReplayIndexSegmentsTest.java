@@ -0,0 +1,129 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import org.agrona.IoUtil;
+import org.agrona.collections.LongHashSet;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsInAnyOrder;
+import static org.junit.Assert.*;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.INITIAL_RECORD_OFFSET;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.checkpointFileSize;
+
+public class ReplayIndexSegmentsTest
+{
+    private static final int STREAM_ID = 1;
+    private static final int INDEX_FILE_SIZE = INITIAL_RECORD_OFFSET + 1024;
+    private static final int SESSIONS_PER_SEGMENT = 2;
+
+    private final UnsafeBuffer indexBuffer = new UnsafeBuffer(0, 0);
+    private final UnsafeBuffer checkpointBuffer = new UnsafeBuffer(0, 0);
+    private final UnsafeBuffer otherIndexBuffer = new UnsafeBuffer(0, 0);
+    private final UnsafeBuffer otherCheckpointBuffer = new UnsafeBuffer(0, 0);
+
+    private File logFileDir;
+    private ReplayIndexSegments writer;
+    private ReplayIndexSegments reader;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        logFileDir = Files.createTempDirectory("replay-index-segments").toFile();
+        writer = newWriter();
+        reader = new ReplayIndexSegments(logFileDir.getAbsolutePath(), STREAM_ID);
+    }
+
+    @After
+    public void tearDown()
+    {
+        writer.close();
+        reader.close();
+        IoUtil.delete(logFileDir, true);
+    }
+
+    @Test
+    public void shouldNotWrapUnallocatedSession()
+    {
+        assertFalse(writer.wrap(1, indexBuffer, checkpointBuffer));
+        assertFalse(reader.wrap(1, indexBuffer, checkpointBuffer));
+    }
+
+    @Test
+    public void shouldAllocateSessionsAcrossSegments()
+    {
+        for (long sessionId = 1; sessionId <= 5; sessionId++)
+        {
+            writer.allocate(sessionId, indexBuffer, checkpointBuffer);
+            assertEquals(INDEX_FILE_SIZE, indexBuffer.capacity());
+            assertEquals(checkpointFileSize(INDEX_FILE_SIZE), checkpointBuffer.capacity());
+            indexBuffer.putLong(INITIAL_RECORD_OFFSET, sessionId);
+        }
+
+        assertTrue(ReplayIndexSegments.segmentFile(logFileDir.getAbsolutePath(), STREAM_ID, 2).exists());
+        assertFalse(ReplayIndexSegments.segmentFile(logFileDir.getAbsolutePath(), STREAM_ID, 3).exists());
+
+        for (long sessionId = 1; sessionId <= 5; sessionId++)
+        {
+            assertTrue(reader.wrap(sessionId, indexBuffer, checkpointBuffer));
+            assertEquals(sessionId, indexBuffer.getLong(INITIAL_RECORD_OFFSET));
+        }
+
+        assertThat(reader.sessionIds(), containsInAnyOrder(1L, 2L, 3L, 4L, 5L));
+    }
+
+    @Test
+    public void shouldNotOverlapSlots()
+    {
+        writer.allocate(1, indexBuffer, checkpointBuffer);
+        writer.allocate(2, otherIndexBuffer, otherCheckpointBuffer);
+
+        final long indexEnd = indexBuffer.addressOffset() + indexBuffer.capacity();
+        assertTrue(checkpointBuffer.addressOffset() >= indexEnd);
+        assertTrue(otherIndexBuffer.addressOffset() >= checkpointBuffer.addressOffset() + checkpointBuffer.capacity());
+    }
+
+    @Test
+    public void shouldReloadSessionsWhenReopened()
+    {
+        writer.allocate(1, indexBuffer, checkpointBuffer);
+        writer.allocate(2, indexBuffer, checkpointBuffer);
+        writer.allocate(3, indexBuffer, checkpointBuffer);
+        writer.close();
+
+        writer = newWriter();
+        assertTrue(writer.wrap(3, indexBuffer, checkpointBuffer));
+        writer.allocate(4, indexBuffer, checkpointBuffer);
+
+        final LongHashSet sessionIds = writer.sessionIds();
+        assertThat(sessionIds, containsInAnyOrder(1L, 2L, 3L, 4L));
+        assertFalse(ReplayIndexSegments.segmentFile(logFileDir.getAbsolutePath(), STREAM_ID, 2).exists());
+    }
+
+    private ReplayIndexSegments newWriter()
+    {
+        return new ReplayIndexSegments(
+            logFileDir.getAbsolutePath(), STREAM_ID, INDEX_FILE_SIZE, SESSIONS_PER_SEGMENT);
+    }
+}
@@ -25,6 +25,7 @@ import io.aeron.archive.codecs.SourceLocation;
 import io.aeron.logbuffer.ControlledFragmentHandler;
 import org.agrona.ErrorHandler;
 import org.agrona.IoUtil;
+import org.agrona.collections.IntHashSet;
 import org.agrona.collections.Long2LongHashMap;
 import org.agrona.concurrent.*;
 import org.agrona.concurrent.status.AtomicCounter;
@@ -34,28 +35,40 @@ import org.junit.Test;
 import org.mockito.verification.VerificationMode;
 import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.TestFixtures;
+import uk.co.real_logic.artio.decoder.TestRequestDecoder;
 import uk.co.real_logic.artio.dictionary.generation.Exceptions;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.engine.ReplayIndexLayout;
 import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
 import uk.co.real_logic.artio.session.Session;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.util.List;
 import java.util.stream.IntStream;
 
 import static io.aeron.Aeron.NULL_VALUE;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.aMapWithSize;
 import static org.hamcrest.Matchers.greaterThan;
+import static org.hamcrest.Matchers.greaterThanOrEqualTo;
+import static org.hamcrest.Matchers.lessThanOrEqualTo;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.*;
 import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_INBOUND_MAX_CLAIM_ATTEMPTS;
 import static uk.co.real_logic.artio.LogTag.REPLAY;
 import static uk.co.real_logic.artio.TestFixtures.cleanupMediaDriver;
 import static uk.co.real_logic.artio.TestFixtures.largeTestReqId;
 import static uk.co.real_logic.artio.engine.EngineConfiguration.*;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.CHECKPOINT_INTERVAL;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.INITIAL_RECORD_OFFSET;
 import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.RECORD_LENGTH;
+import static uk.co.real_logic.artio.engine.logger.ReplayIndexDescriptor.indexedMessageType;
 import static uk.co.real_logic.artio.engine.logger.Replayer.MOST_RECENT_MESSAGE;
 
 public class ReplayIndexTest extends AbstractLogTest
@@ -95,18 +108,45 @@ public class ReplayIndexTest extends AbstractLogTest
     private RecordingIdLookup recordingIdLookup;
 
     private void newReplayIndex()
+    {
+        newReplayIndex(DEFAULT_REPLAY_INDEX_LAYOUT);
+    }
+
+    private void newReplayIndex(final ReplayIndexLayout layout)
+    {
+        newReplayIndex(layout, DEFAULT_REPLAY_INDEX_FILE_SIZE);
+    }
+
+    private void newReplayIndex(final ReplayIndexLayout layout, final int indexFileSize)
     {
         replayIndex = new ReplayIndex(
             DEFAULT_LOG_FILE_DIR,
             STREAM_ID,
-            DEFAULT_REPLAY_INDEX_FILE_SIZE,
+            indexFileSize,
             DEFAULT_LOGGER_CACHE_NUM_SETS,
             DEFAULT_LOGGER_CACHE_SET_SIZE,
             newBufferFactory,
             replayPositionBuffer,
             errorHandler,
             recordingIdLookup,
-            new Long2LongHashMap(Session.UNKNOWN));
+            new Long2LongHashMap(Session.UNKNOWN),
+            layout,
+            DEFAULT_REPLAY_INDEX_SEGMENT_SESSIONS);
+    }
+
+    private void newReplayQuery(final ReplayIndexLayout layout)
+    {
+        query = new ReplayQuery(
+            DEFAULT_LOG_FILE_DIR,
+            DEFAULT_LOGGER_CACHE_NUM_SETS,
+            DEFAULT_LOGGER_CACHE_SET_SIZE,
+            existingBufferFactory,
+            DEFAULT_OUTBOUND_LIBRARY_STREAM,
+            new NoOpIdleStrategy(),
+            aeronArchive,
+            errorHandler,
+            DEFAULT_ARCHIVE_REPLAY_STREAM,
+            layout);
     }
 
     private Aeron aeron()
@@ -132,18 +172,12 @@ public class ReplayIndexTest extends AbstractLogTest
 
         IoUtil.deleteIfExists(logFile(SESSION_ID));
         IoUtil.deleteIfExists(logFile(SESSION_ID_2));
+        IoUtil.deleteIfExists(checkpointFile(SESSION_ID));
+        IoUtil.deleteIfExists(checkpointFile(SESSION_ID_2));
+        IoUtil.deleteIfExists(ReplayIndexSegments.segmentFile(DEFAULT_LOG_FILE_DIR, STREAM_ID, 0));
 
         newReplayIndex();
-        query = new ReplayQuery(
-            DEFAULT_LOG_FILE_DIR,
-            DEFAULT_LOGGER_CACHE_NUM_SETS,
-            DEFAULT_LOGGER_CACHE_SET_SIZE,
-            existingBufferFactory,
-            DEFAULT_OUTBOUND_LIBRARY_STREAM,
-            new NoOpIdleStrategy(),
-            aeronArchive,
-            errorHandler,
-            DEFAULT_ARCHIVE_REPLAY_STREAM);
+        newReplayQuery(DEFAULT_REPLAY_INDEX_LAYOUT);
     }
 
     @After
@@ -283,6 +317,157 @@ public class ReplayIndexTest extends AbstractLogTest
         verifyMessagesRead(expectedMessages);
     }
 
+    @Test(timeout = 20_000L)
+    public void shouldQueryFromACheckpoint()
+    {
+        final int endSequenceNumber = 3 * CHECKPOINT_INTERVAL + 5;
+        final int beginSequenceNumber = 2 * CHECKPOINT_INTERVAL + 3;
+        final int queryEndSequenceNumber = beginSequenceNumber + 10;
+        // +1 because these are inclusive
+        final int expectedMessages = queryEndSequenceNumber - beginSequenceNumber + 1;
+
+        IntStream.rangeClosed(1, endSequenceNumber).forEach(
+            (seqNum) -> indexExampleMessage(SESSION_ID, seqNum, SEQUENCE_INDEX));
+
+        assertTrue(checkpointFile(SESSION_ID).exists());
+
+        // A scan from the oldest record stops at a record with a position of 0, so the query only finds its
+        // messages if it starts from a checkpoint after that record.
+        zeroRecord(SESSION_ID, 0);
+
+        final int msgCount = query(beginSequenceNumber, SEQUENCE_INDEX, queryEndSequenceNumber, SEQUENCE_INDEX);
+
+        assertEquals(expectedMessages, msgCount);
+        verifyMessagesRead(expectedMessages);
+        assertEquals(0, query(1, SEQUENCE_INDEX, queryEndSequenceNumber, SEQUENCE_INDEX));
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldQueryFromACheckpointOfAWrappedIndex()
+    {
+        final int recordCapacity = 4 * CHECKPOINT_INTERVAL;
+        Exceptions.closeAll(query, replayIndex);
+        newReplayIndex(DEFAULT_REPLAY_INDEX_LAYOUT, INITIAL_RECORD_OFFSET + recordCapacity * RECORD_LENGTH);
+        newReplayQuery(DEFAULT_REPLAY_INDEX_LAYOUT);
+
+        final int endSequenceNumber = recordCapacity + 2 * CHECKPOINT_INTERVAL + 16;
+        final int beginSequenceNumber = endSequenceNumber - 10;
+        final int queryEndSequenceNumber = endSequenceNumber - 5;
+        // +1 because these are inclusive
+        final int expectedMessages = queryEndSequenceNumber - beginSequenceNumber + 1;
+
+        IntStream.rangeClosed(1, endSequenceNumber).forEach(
+            (seqNum) -> indexExampleMessage(SESSION_ID, seqNum, SEQUENCE_INDEX));
+
+        // The oldest record of a wrapped index is in the slot that the next record is written to. A scan from it
+        // stops at once, so the query only finds its messages if it starts from a checkpoint.
+        zeroRecord(SESSION_ID, endSequenceNumber % recordCapacity);
+
+        final int msgCount = query(beginSequenceNumber, SEQUENCE_INDEX, queryEndSequenceNumber, SEQUENCE_INDEX);
+
+        assertEquals(expectedMessages, msgCount);
+        verifyMessagesRead(expectedMessages);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldQueryRecordsFromASegmentedIndex()
+    {
+        Exceptions.closeAll(query, replayIndex);
+        newReplayIndex(ReplayIndexLayout.SEGMENTED);
+        newReplayQuery(ReplayIndexLayout.SEGMENTED);
+
+        indexExampleMessage();
+        indexExampleMessage(SESSION_ID_2, SEQUENCE_NUMBER, SEQUENCE_INDEX);
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+
+        final int msgCount = query(SEQUENCE_NUMBER, SEQUENCE_INDEX, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+
+        assertEquals(2, msgCount);
+        verifyMessagesRead(2);
+        assertFalse(logFile(SESSION_ID).exists());
+        verify(newBufferFactory, never()).map(any(), anyInt());
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldQueryRecordsIndexedAfterASegmentedSessionIsReset()
+    {
+        Exceptions.closeAll(query, replayIndex);
+        newReplayIndex(ReplayIndexLayout.SEGMENTED);
+        newReplayQuery(ReplayIndexLayout.SEGMENTED);
+        final GatewayPublication gatewayPublication = newGatewayPublication(publication);
+        final int newSequenceIndex = SEQUENCE_INDEX + 1;
+
+        indexExampleMessage();
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+        assertThat(gatewayPublication.saveResetSequenceNumber(SESSION_ID), greaterThan(0L));
+        indexRecord();
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER, newSequenceIndex);
+
+        final int msgCount = query(SEQUENCE_NUMBER, SEQUENCE_INDEX, SEQUENCE_NUMBER, newSequenceIndex);
+
+        assertEquals(1, msgCount);
+        verifyMessagesRead(1);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldQueryRecordingRangesOfASession()
+    {
+        final long startPosition = indexExampleMessage();
+        indexExampleMessage(SESSION_ID_2, SEQUENCE_NUMBER, SEQUENCE_INDEX);
+        indexExampleMessage(SESSION_ID, SEQUENCE_NUMBER + 1, SEQUENCE_INDEX);
+        final long endPosition = publication.position();
+
+        final List<RecordingRange> ranges = query.queryRecordingRanges(SESSION_ID);
+
+        assertNotNull(ranges);
+        assertEquals(1, ranges.size());
+        final RecordingRange range = ranges.get(0);
+        assertEquals(recordingIdLookup.getRecordingId(publication.sessionId()), range.recordingId);
+        assertEquals(2, range.count);
+        assertThat(range.position, lessThanOrEqualTo(startPosition));
+        assertThat(range.position + range.length, greaterThanOrEqualTo(endPosition));
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldQueryNoRecordingRangesOfAnUnknownSession()
+    {
+        indexExampleMessage();
+
+        final List<RecordingRange> ranges = query.queryRecordingRanges(SESSION_ID_2);
+
+        assertNotNull(ranges);
+        assertTrue(ranges.isEmpty());
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldLeaveSkippedMessageTypesAtTheEndOutOfTheReplay()
+    {
+        indexExampleMessage();
+        final int endSequenceNumber = SEQUENCE_NUMBER + 1;
+        indexTestRequest(endSequenceNumber);
+
+        final ReplayOperation operation = query(SEQUENCE_NUMBER, endSequenceNumber, testRequestMessageTypes());
+
+        verifyMessagesRead(1);
+        assertEquals(1, operation.replayedMessages());
+        assertEquals(1, operation.skippedMessages());
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldReplayShortRunsOfSkippedMessageTypesWithinTheRange()
+    {
+        indexExampleMessage();
+        indexTestRequest(SEQUENCE_NUMBER + 1);
+        final int endSequenceNumber = SEQUENCE_NUMBER + 2;
+        indexExampleMessage(SESSION_ID, endSequenceNumber, SEQUENCE_INDEX);
+
+        final ReplayOperation operation = query(SEQUENCE_NUMBER, endSequenceNumber, testRequestMessageTypes());
+
+        verifyMessagesRead(3);
+        assertEquals(3, operation.replayedMessages());
+        assertEquals(0, operation.skippedMessages());
+    }
+
     @Test(timeout = 20_000L)
     public void shouldUpdatePositionForIndexedRecord()
     {
@@ -415,11 +600,30 @@ public class ReplayIndexTest extends AbstractLogTest
         verify(newBufferFactory).map(eq(logFile(sessionId)), anyInt());
     }
 
+    private void zeroRecord(final long sessionId, final int slot)
+    {
+        final MappedByteBuffer mappedBuffer = LoggerUtil.mapExistingFile(logFile(sessionId));
+        try
+        {
+            new UnsafeBuffer(mappedBuffer).setMemory(
+                INITIAL_RECORD_OFFSET + slot * RECORD_LENGTH, RECORD_LENGTH, (byte)0);
+        }
+        finally
+        {
+            IoUtil.unmap(mappedBuffer);
+        }
+    }
+
     private File logFile(final long sessionId)
     {
         return ReplayIndexDescriptor.replayIndexFile(DEFAULT_LOG_FILE_DIR, sessionId, STREAM_ID);
     }
 
+    private File checkpointFile(final long sessionId)
+    {
+        return ReplayIndexDescriptor.checkpointFile(DEFAULT_LOG_FILE_DIR, sessionId, STREAM_ID);
+    }
+
     private void indexRecord()
     {
         indexRecord(1);
@@ -459,6 +663,22 @@ public class ReplayIndexTest extends AbstractLogTest
         return position - alignedEndPosition();
     }
 
+    private void indexTestRequest(final int sequenceNumber)
+    {
+        bufferContainsTestRequest(sequenceNumber);
+
+        publishBuffer(publication);
+
+        indexRecord();
+    }
+
+    private IntHashSet testRequestMessageTypes()
+    {
+        final IntHashSet messageTypes = new IntHashSet();
+        messageTypes.add(indexedMessageType(TestRequestDecoder.MESSAGE_TYPE));
+        return messageTypes;
+    }
+
     private long publishBuffer(final ExclusivePublication publication)
     {
         long position;
@@ -499,14 +719,37 @@ public class ReplayIndexTest extends AbstractLogTest
             REPLAY,
             new FixMessageTracker(REPLAY, mockHandler, sessionId));
 
+        replay(operation);
+
+        return operation.replayedMessages();
+    }
+
+    private ReplayOperation query(
+        final int beginSequenceNumber, final int endSequenceNumber, final IntHashSet skippedMessageTypes)
+    {
+        final ReplayOperation operation = query.query(
+            SESSION_ID,
+            beginSequenceNumber,
+            SEQUENCE_INDEX,
+            endSequenceNumber,
+            SEQUENCE_INDEX,
+            REPLAY,
+            new FixMessageTracker(REPLAY, mockHandler, SESSION_ID),
+            skippedMessageTypes);
+
+        replay(operation);
+
+        return operation;
+    }
+
+    private void replay(final ReplayOperation operation)
+    {
         final IdleStrategy idleStrategy = CommonConfiguration.backoffIdleStrategy();
         while (!operation.attemptReplay())
         {
             idleStrategy.idle();
         }
         idleStrategy.reset();
-
-        return operation.replayedMessages();
     }
 
 }
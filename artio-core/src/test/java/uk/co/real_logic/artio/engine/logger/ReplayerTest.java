@@ -46,11 +46,13 @@ import uk.co.real_logic.artio.engine.SenderSequenceNumbers;
 import uk.co.real_logic.artio.fields.EpochFractionFormat;
 import uk.co.real_logic.artio.fields.RejectReason;
 import uk.co.real_logic.artio.fields.UtcTimestampDecoder;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
 import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
 import uk.co.real_logic.artio.messages.ReplayCompleteDecoder;
 import uk.co.real_logic.artio.util.AsciiBuffer;
 import uk.co.real_logic.artio.util.MutableAsciiBuffer;
 
+import java.util.ArrayList;
 import java.util.List;
 import java.util.regex.Matcher;
 import java.util.regex.Pattern;
@@ -77,7 +79,7 @@ public class ReplayerTest extends AbstractLogTest
 
     public static final byte[] MESSAGE_REQUIRING_LONGER_BODY_LENGTH =
         ("8=FIX.4.4\0019=99\00135=1\00134=1\00149=LEH_LZJ02\00152=" + ORIGINAL_SENDING_TIME + "\00156=CCG\001" +
-            "112=a12345678910123456789101234567891012345\00110=005\001").getBytes(US_ASCII);
+            "112=a12345678910123456789101234567891012345\00110=071\001").getBytes(US_ASCII);
 
     private static final int MAX_CLAIM_ATTEMPTS = 100;
 
@@ -112,7 +114,12 @@ public class ReplayerTest extends AbstractLogTest
 
         setReplayedMessages(1);
 
-        replayer = new Replayer(
+        replayer = newReplayer(replayHandler);
+    }
+
+    private Replayer newReplayer(final ReplayHandler replayHandler)
+    {
+        return new Replayer(
             replayQuery,
             publication,
             claim,
@@ -155,6 +162,65 @@ public class ReplayerTest extends AbstractLogTest
         verifyPublicationOnlyPayloadQueried();
     }
 
+    @Test
+    public void shouldReplayOnTheWorkerOfTheConnectionWhenPooled()
+    {
+        final ReplayQuery otherWorkerQuery = mock(ReplayQuery.class);
+        final ReplayQuery connectionWorkerQuery = mock(ReplayQuery.class);
+        when(connectionWorkerQuery.query(anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), any(), any()))
+            .thenReturn(replayOperation);
+        final ReplayerWorker[] workers = {
+            newPooledWorker(0, otherWorkerQuery),
+            newPooledWorker(1, connectionWorkerQuery)
+        };
+        assertEquals(1, Replayer.workerIndex(CONNECTION_ID, workers.length));
+
+        replayer = new Replayer(
+            workers,
+            true,
+            errorHandler,
+            subscription,
+            DEFAULT_NAME_PREFIX,
+            senderSequenceNumbers,
+            new FakeFixSessionCodecsFactory(),
+            mock(ReplayerCommandQueue.class),
+            currentReplayCounter);
+
+        final long result = bufferHasResendRequest(END_SEQ_NO);
+        onRequestResendMessage(result, END_SEQ_NO);
+        verifyNoInteractions(connectionWorkerQuery);
+
+        workers[0].doWork();
+        workers[1].doWork();
+
+        verify(connectionWorkerQuery).query(
+            eq(SESSION_ID), eq(BEGIN_SEQ_NO), anyInt(), eq(END_SEQ_NO), anyInt(), any(), any());
+        verifyNoInteractions(otherWorkerQuery);
+    }
+
+    private ReplayerWorker newPooledWorker(final int index, final ReplayQuery replayQuery)
+    {
+        return new ReplayerWorker(
+            index,
+            replayQuery,
+            publication,
+            claim,
+            idleStrategy,
+            errorHandler,
+            MAX_CLAIM_ATTEMPTS,
+            DEFAULT_NAME_PREFIX,
+            EngineConfiguration.DEFAULT_GAPFILL_ON_REPLAY_MESSAGE_TYPES,
+            new IntHashSet(),
+            replayHandler,
+            DEFAULT_ILINK3_RETRANSMIT_HANDLER,
+            DEFAULT_SENDER_MAX_BYTES_IN_BUFFER,
+            EpochFractionFormat.MILLISECONDS,
+            currentReplayCounter,
+            DEFAULT_MAX_CONCURRENT_SESSION_REPLAYS,
+            clock,
+            new ReplayerCommandQueue(idleStrategy));
+    }
+
     @Test
     public void shouldPublishMessagesWithSetPossDupFlag()
     {
@@ -578,6 +644,117 @@ public class ReplayerTest extends AbstractLogTest
         });
     }
 
+    @Test
+    public void shouldReplayMessageWithSetPossDupFlagAndValidChecksum()
+    {
+        onReplay(END_SEQ_NO, inv ->
+        {
+            bufferContainsExampleMessage(true);
+            final int srcLength = fragmentLength();
+            setupCapturingClaim();
+
+            onFragment(srcLength);
+
+            assertHasResentWithPossDupFlag(srcLength, times(1));
+
+            assertEndsWithValidChecksum(this.offset + 1);
+
+            return true;
+        });
+    }
+
+    @Test
+    public void shouldGapFillMessagesSkippedByThePlannedQueryBeforeAnAppMessage()
+    {
+        final int endSeqNo = BEGIN_SEQ_NO + 3;
+        final List<String> fixMessages = onPlannedReplay(3);
+
+        onReplay(endSeqNo, inv ->
+        {
+            onExampleMessage(endSeqNo);
+
+            return true;
+        });
+
+        replayer.doWork();
+
+        verifyPlannedQuery(endSeqNo);
+        assertEquals(fixMessages.toString(), 2, fixMessages.size());
+        assertGapFillMessage(fixMessages.get(0), BEGIN_SEQ_NO, endSeqNo);
+        assertThat(fixMessages.get(1), containsString("\00134=" + endSeqNo + "\001"));
+
+        replayer.doWork();
+
+        // The skipped messages make up the count, so there's no error or further gap fill
+        assertEquals(2, fixMessages.size());
+        verifyReplayCompleteMessageSent();
+    }
+
+    @Test
+    public void shouldGapFillMessagesSkippedByThePlannedQueryAtTheEndOfTheReplay()
+    {
+        final int endSeqNo = BEGIN_SEQ_NO + 3;
+        final List<String> fixMessages = onPlannedReplay(3);
+
+        onReplay(endSeqNo, inv ->
+        {
+            onExampleMessage(BEGIN_SEQ_NO);
+
+            return true;
+        });
+
+        replayer.doWork();
+
+        verifyPlannedQuery(endSeqNo);
+        assertEquals(fixMessages.toString(), 2, fixMessages.size());
+        assertThat(fixMessages.get(0), containsString("\00134=" + BEGIN_SEQ_NO + "\001"));
+        assertGapFillMessage(fixMessages.get(1), BEGIN_SEQ_NO + 1, endSeqNo + 1);
+
+        replayer.doWork();
+
+        assertEquals(2, fixMessages.size());
+        verifyReplayCompleteMessageSent();
+    }
+
+    // Without a replay handler the query leaves out runs of messages that would be gap filled
+    private List<String> onPlannedReplay(final int skippedMessages)
+    {
+        replayer = newReplayer(DEFAULT_REPLAY_HANDLER);
+        when(replayQuery.query(
+            anyLong(), anyInt(), anyInt(), anyInt(), anyInt(), any(), messageTracker.capture(), any()))
+            .thenReturn(replayOperation);
+        when(replayOperation.skippedMessages()).thenReturn(skippedMessages);
+        setReplayedMessages(1);
+        setupCapturingClaim();
+
+        final List<String> fixMessages = new ArrayList<>();
+        doAnswer(inv ->
+        {
+            final MessageHeaderDecoder messageHeader = new MessageHeaderDecoder();
+            messageHeader.wrap(resultBuffer, offset());
+            if (messageHeader.templateId() == FixMessageDecoder.TEMPLATE_ID)
+            {
+                final int messageOffset = offset() + MESSAGE_FRAME_BLOCK_LENGTH + metaDataHeaderLength();
+                fixMessages.add(resultAsciiBuffer.getAscii(messageOffset, resultBuffer.capacity() - messageOffset));
+            }
+            return null;
+        }).when(claim).commit();
+        return fixMessages;
+    }
+
+    private void verifyPlannedQuery(final int endSeqNo)
+    {
+        verify(replayQuery).query(
+            eq(SESSION_ID),
+            eq(BEGIN_SEQ_NO),
+            eq(SEQUENCE_INDEX),
+            eq(endSeqNo),
+            eq(SEQUENCE_INDEX),
+            any(),
+            any(),
+            any());
+    }
+
     @After
     public void shouldHaveNoMoreErrors()
     {
@@ -691,8 +868,17 @@ public class ReplayerTest extends AbstractLogTest
     private void assertEndsWithValidChecksum(final int afterOffset)
     {
         final String message = resultAsciiBuffer.getAscii(afterOffset, resultAsciiBuffer.capacity() - afterOffset);
-        final Matcher matcher = Pattern.compile("10=\\d+\001").matcher(message);
+        final Matcher matcher = Pattern.compile("\00110=(\\d{3})\001").matcher(message);
         assertTrue(message, matcher.find());
+
+        // The checksum is updated by the bytes that have changed, so must match summing the whole message again
+        final int checksumFieldOffset = afterOffset + matcher.start() + 1;
+        int expectedChecksum = 0;
+        for (int i = afterOffset; i < checksumFieldOffset; i++)
+        {
+            expectedChecksum += resultAsciiBuffer.getByte(i);
+        }
+        assertEquals(message, expectedChecksum & 0xFF, Integer.parseInt(matcher.group(1)));
     }
 
     private void hasNotOverwrittenSeperatorChar()
@@ -709,9 +895,13 @@ public class ReplayerTest extends AbstractLogTest
         final int messageFrameBlockLength = MESSAGE_FRAME_BLOCK_LENGTH + metaDataHeaderLength();
         final int offset = offset() + messageFrameBlockLength;
         final int length = claimedLength - messageFrameBlockLength;
-        final String message = resultAsciiBuffer.getAscii(offset, length);
+        assertGapFillMessage(resultAsciiBuffer.getAscii(offset, length), msgSeqNum, newSeqNo);
+    }
+
+    private void assertGapFillMessage(final String message, final int msgSeqNum, final int newSeqNo)
+    {
         final SequenceResetDecoder sequenceReset = new SequenceResetDecoder();
-        sequenceReset.decode(resultAsciiBuffer, offset, length);
+        sequenceReset.decode(new MutableAsciiBuffer(message.getBytes(US_ASCII)), 0, message.length());
         final HeaderDecoder header = sequenceReset.header();
 
         if (!sequenceReset.validate())
@@ -36,6 +36,7 @@ import org.junit.Test;
 import org.mockito.ArgumentCaptor;
 import org.mockito.Mockito;
 import uk.co.real_logic.artio.FileSystemCorruptionException;
+import uk.co.real_logic.artio.engine.ChecksumFramer;
 import uk.co.real_logic.artio.engine.MappedFile;
 import uk.co.real_logic.artio.engine.framer.FakeEpochClock;
 import uk.co.real_logic.artio.protocol.GatewayPublication;
@@ -46,6 +47,8 @@ import static io.aeron.CommonContext.IPC_CHANNEL;
 import static org.agrona.IoUtil.deleteIfExists;
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
 import static org.mockito.Mockito.any;
 import static org.mockito.Mockito.mock;
 import static org.mockito.Mockito.never;
@@ -53,6 +56,7 @@ import static org.mockito.Mockito.reset;
 import static org.mockito.Mockito.times;
 import static org.mockito.Mockito.verify;
 import static uk.co.real_logic.artio.TestFixtures.*;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_FILE_SYNC_POLICY;
 import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_INDEX_FILE_STATE_FLUSH_TIMEOUT_IN_MS;
 import static uk.co.real_logic.artio.engine.SectorFramer.SECTOR_SIZE;
 import static uk.co.real_logic.artio.engine.SessionInfo.UNK_SESSION;
@@ -366,6 +370,169 @@ public class SequenceNumberIndexTest extends AbstractLogTest
         }
     }
 
+    @Test
+    public void shouldStashSequenceNumbersForManySessions()
+    {
+        final int sessionCount = 2 * SECTOR_SIZE / RECORD_SIZE;
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            bufferContainsExampleMessage(true, sessionId, sessionId + 3, SEQUENCE_INDEX);
+            indexRecord();
+        }
+
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            assertLastKnownSequenceNumberIs(sessionId, sessionId + 3);
+        }
+        assertLastKnownSequenceNumberIs(sessionCount + 1, UNK_SESSION);
+    }
+
+    @Test
+    public void shouldFindRecordsWrittenInInsertionOrderAfterRestart()
+    {
+        final int sessionCount = 20;
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            bufferContainsExampleMessage(true, sessionId, sessionId + 3, SEQUENCE_INDEX);
+            indexRecord();
+        }
+
+        writer.close();
+        moveRecordsIntoInsertionOrder();
+
+        final SequenceNumberIndexReader newReader = newInstanceAfterRestart();
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            assertLastKnownSequenceNumberIs(sessionId, sessionId + 3, newReader);
+        }
+    }
+
+    @Test
+    public void shouldSaveRecordsMovedOutOfInsertionOrderWhenUpgrading()
+    {
+        final int sessionCount = 20;
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            bufferContainsExampleMessage(true, sessionId, sessionId + 3, SEQUENCE_INDEX);
+            indexRecord();
+        }
+
+        writer.close();
+        moveRecordsIntoInsertionOrder();
+
+        final SequenceNumberIndexWriter upgradedWriter = newWriter(newBuffer());
+        try (MappedFile indexFile = newIndexFile())
+        {
+            // Nothing has been indexed since the upgrade, so the file must have been saved on load
+            final AtomicBuffer fileBuffer = indexFile.buffer();
+            final int slotCount = slotCount(positionTableOffset(BUFFER_SIZE));
+            final SequenceNumberIndexReader fileReader = new SequenceNumberIndexReader(
+                fileBuffer, errorHandler, recordingIdLookup, null);
+            assertTrue(isHashedLayout(fileBuffer, slotCount));
+            for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+            {
+                final int position = probe(fileBuffer, sessionId, slotCount);
+                assertEquals(sessionId, fileBuffer.getLong(position + SESSION_ID_OFFSET));
+                assertLastKnownSequenceNumberIs(sessionId, sessionId + 3, fileReader);
+            }
+        }
+        finally
+        {
+            upgradedWriter.close();
+        }
+    }
+
+    @Test
+    public void shouldReadRecordsInInsertionOrderThatHaveNotBeenUpgraded()
+    {
+        final int sessionCount = 20;
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            bufferContainsExampleMessage(true, sessionId, sessionId + 3, SEQUENCE_INDEX);
+            indexRecord();
+        }
+
+        writer.close();
+        moveRecordsIntoInsertionOrder();
+
+        try (MappedFile indexFile = newIndexFile())
+        {
+            assertFalse(isHashedLayout(indexFile.buffer(), slotCount(positionTableOffset(BUFFER_SIZE))));
+            final SequenceNumberIndexReader fileReader = new SequenceNumberIndexReader(
+                indexFile.buffer(), errorHandler, recordingIdLookup, null);
+            for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+            {
+                assertLastKnownSequenceNumberIs(sessionId, sessionId + 3, fileReader);
+            }
+            assertLastKnownSequenceNumberIs(sessionCount + 1, UNK_SESSION, fileReader);
+        }
+    }
+
+    @Test
+    public void shouldOnlyProbeForRecordsOfHashedLayouts()
+    {
+        final int sessionCount = 20;
+        for (int sessionId = 1; sessionId <= sessionCount; sessionId++)
+        {
+            bufferContainsExampleMessage(true, sessionId, sessionId + 3, SEQUENCE_INDEX);
+            indexRecord();
+        }
+
+        writer.close();
+
+        try (MappedFile indexFile = newIndexFile())
+        {
+            final AtomicBuffer fileBuffer = indexFile.buffer();
+            final int slotCount = slotCount(positionTableOffset(BUFFER_SIZE));
+            assertTrue(isHashedLayout(fileBuffer, slotCount));
+
+            // A record outside of its probe sequence is only found by a scan, which hashed layouts never need
+            final long movedSessionId = sessionCount;
+            final int position = probe(fileBuffer, movedSessionId, slotCount);
+            final int emptyPosition = probe(fileBuffer, NO_SESSION_ID - 1, slotCount);
+            fileBuffer.putBytes(emptyPosition, fileBuffer, position, RECORD_SIZE);
+            fileBuffer.setMemory(position, RECORD_SIZE, (byte)0);
+
+            final SequenceNumberIndexReader fileReader = new SequenceNumberIndexReader(
+                fileBuffer, errorHandler, recordingIdLookup, null);
+            assertLastKnownSequenceNumberIs(movedSessionId, UNK_SESSION, fileReader);
+        }
+    }
+
+    // Lays the records out like index files that were written before records were hashed
+    private void moveRecordsIntoInsertionOrder()
+    {
+        final MappedFile indexFile = newIndexFile();
+        final AtomicBuffer fileBuffer = indexFile.buffer();
+        final int positionTableOffset = positionTableOffset(BUFFER_SIZE);
+        final int slotCount = slotCount(positionTableOffset);
+        final UnsafeBuffer records = new UnsafeBuffer(new byte[slotCount * RECORD_SIZE]);
+
+        int recordCount = 0;
+        for (int slot = 0; slot < slotCount; slot++)
+        {
+            final int offset = slotOffset(slot);
+            if (fileBuffer.getLong(offset + SESSION_ID_OFFSET) != NO_SESSION_ID)
+            {
+                records.putBytes(recordCount * RECORD_SIZE, fileBuffer, offset, RECORD_SIZE);
+                fileBuffer.setMemory(offset, RECORD_SIZE, (byte)0);
+                recordCount++;
+            }
+        }
+
+        for (int i = 0; i < recordCount; i++)
+        {
+            fileBuffer.putBytes(slotOffset(i), records, i * RECORD_SIZE, RECORD_SIZE);
+        }
+        fileBuffer.putInt(LAYOUT_OFFSET, 0);
+
+        final ChecksumFramer checksumFramer = new ChecksumFramer(
+            fileBuffer, positionTableOffset, errorHandler, 0, "SequenceNumberIndex");
+        checksumFramer.markAllDirty();
+        checksumFramer.updateChecksums();
+        indexFile.close();
+    }
+
     @Test
     public void shouldResetSequenceNumbers()
     {
@@ -420,7 +587,7 @@ public class SequenceNumberIndexTest extends AbstractLogTest
         final MappedFile indexFile = newIndexFile();
         return new SequenceNumberIndexWriter(inMemoryBuffer, indexFile, errorHandler, STREAM_ID, recordingIdLookup,
             DEFAULT_INDEX_FILE_STATE_FLUSH_TIMEOUT_IN_MS, clock, null,
-            new Long2LongHashMap(UNK_SESSION));
+            new Long2LongHashMap(UNK_SESSION), DEFAULT_FILE_SYNC_POLICY);
     }
 
     private MappedFile newIndexFile()
@@ -0,0 +1,163 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.logger;
+
+import io.aeron.logbuffer.Header;
+import org.agrona.ErrorHandler;
+import org.agrona.IoUtil;
+import org.agrona.concurrent.UnsafeBuffer;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.messages.FixMessageEncoder;
+import uk.co.real_logic.artio.messages.MessageHeaderEncoder;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static io.aeron.archive.client.AeronArchive.NULL_POSITION;
+import static io.aeron.logbuffer.FrameDescriptor.UNFRAGMENTED;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.mockito.Mockito.*;
+
+public class TimeIndexTest
+{
+    private static final int STREAM_ID = 1;
+    private static final int AERON_SESSION_ID = 2;
+    private static final long RECORDING_ID = 3;
+    private static final long OTHER_RECORDING_ID = 4;
+    private static final long GRANULARITY_IN_NS = SECONDS.toNanos(1);
+    private static final int FRAME_LENGTH = 1024;
+
+    private final UnsafeBuffer buffer = new UnsafeBuffer(new byte[FRAME_LENGTH]);
+    private final MessageHeaderEncoder headerEncoder = new MessageHeaderEncoder();
+    private final FixMessageEncoder messageEncoder = new FixMessageEncoder();
+    private final Header header = mock(Header.class);
+    private final ErrorHandler errorHandler = mock(ErrorHandler.class);
+    private final IndexedPositionConsumer positionConsumer = mock(IndexedPositionConsumer.class);
+
+    private File logFileDir;
+    private TimeIndexWriter writer;
+
+    @Before
+    public void setUp() throws IOException
+    {
+        logFileDir = Files.createTempDirectory("time-index").toFile();
+        writer = newWriter();
+
+        when(header.flags()).thenReturn(UNFRAGMENTED);
+        when(header.sessionId()).thenReturn(AERON_SESSION_ID);
+        when(header.frameLength()).thenReturn(FRAME_LENGTH);
+    }
+
+    @After
+    public void tearDown()
+    {
+        writer.close();
+        IoUtil.delete(logFileDir, true);
+        verifyNoInteractions(errorHandler);
+    }
+
+    @Test
+    public void shouldFindPositionsAroundATimeRange()
+    {
+        indexMessagesEverySecond(10);
+
+        final TimeIndexReader reader = newReader();
+
+        // Stepped back a record from the message at 5s to allow for timestamps being out of order.
+        assertEquals(beginPosition(4), reader.findStartPosition(RECORDING_ID, SECONDS.toNanos(5)));
+        // Stepped forward a record from the message at 7s to allow for timestamps being out of order.
+        assertEquals(beginPosition(8), reader.findStopPosition(RECORDING_ID, SECONDS.toNanos(7)));
+    }
+
+    @Test
+    public void shouldNotNarrowATimeRangeOutsideOfTheIndexedMessages()
+    {
+        indexMessagesEverySecond(10);
+
+        final TimeIndexReader reader = newReader();
+
+        assertEquals(NULL_POSITION, reader.findStartPosition(RECORDING_ID, 0));
+        assertEquals(NULL_POSITION, reader.findStopPosition(RECORDING_ID, SECONDS.toNanos(9)));
+        assertEquals(NULL_POSITION, reader.findStartPosition(OTHER_RECORDING_ID, SECONDS.toNanos(5)));
+        assertEquals(NULL_POSITION, reader.findStopPosition(OTHER_RECORDING_ID, SECONDS.toNanos(5)));
+    }
+
+    @Test
+    public void shouldOnlyRecordAMessageOncePerGranularity()
+    {
+        indexMessage(0, 0);
+        indexMessage(1, GRANULARITY_IN_NS / 2);
+        indexMessage(2, GRANULARITY_IN_NS);
+        indexMessage(3, GRANULARITY_IN_NS + 1);
+
+        writer.readLastPosition(positionConsumer);
+
+        verify(positionConsumer).accept(AERON_SESSION_ID, RECORDING_ID, beginPosition(2));
+        verifyNoMoreInteractions(positionConsumer);
+    }
+
+    @Test
+    public void shouldReloadLastPositionsOnRestart()
+    {
+        indexMessagesEverySecond(3);
+
+        writer.close();
+        writer = newWriter();
+        indexMessage(3, SECONDS.toNanos(2) + 1);
+        writer.readLastPosition(positionConsumer);
+
+        verify(positionConsumer).accept(AERON_SESSION_ID, RECORDING_ID, beginPosition(2));
+        verifyNoMoreInteractions(positionConsumer);
+        assertEquals(beginPosition(1), newReader().findStartPosition(RECORDING_ID, SECONDS.toNanos(2)));
+    }
+
+    private void indexMessagesEverySecond(final int count)
+    {
+        for (int i = 0; i < count; i++)
+        {
+            indexMessage(i, SECONDS.toNanos(i));
+        }
+    }
+
+    private void indexMessage(final int messageNumber, final long timestamp)
+    {
+        messageEncoder
+            .wrapAndApplyHeader(buffer, 0, headerEncoder)
+            .timestamp(timestamp);
+        when(header.position()).thenReturn(beginPosition(messageNumber) + FRAME_LENGTH);
+
+        writer.onCatchup(buffer, 0, FRAME_LENGTH, header, RECORDING_ID);
+    }
+
+    private long beginPosition(final int messageNumber)
+    {
+        return (long)messageNumber * FRAME_LENGTH;
+    }
+
+    private TimeIndexWriter newWriter()
+    {
+        return new TimeIndexWriter(logFileDir.getAbsolutePath(), STREAM_ID, GRANULARITY_IN_NS, null, errorHandler);
+    }
+
+    private TimeIndexReader newReader()
+    {
+        return new TimeIndexReader(logFileDir.getAbsolutePath(), STREAM_ID);
+    }
+}
@@ -917,6 +917,78 @@ public abstract class AbstractSessionTest
         assertThat(secondMessage, containsString(":01.000\001"));
     }
 
+    @Test
+    public void shouldOnlyPollSessionFromTimerWheelWhenATimeoutIsDue()
+    {
+        givenActive();
+        final SessionTimerWheel timerWheel = new SessionTimerWheel(nanoClock.nanoTime());
+        timerWheel.add(session());
+
+        fakeClock.advanceMilliSeconds(SECONDS.toMillis(HEARTBEAT_INTERVAL_IN_S) / 2);
+        assertEquals(0, timerWheel.poll(nanoClock.nanoTime()));
+        verify(sessionProxy, never()).sendHeartbeat(anyInt(), anyInt(), anyInt());
+
+        fakeClock.advanceSeconds(HEARTBEAT_INTERVAL_IN_S);
+        timerWheel.poll(nanoClock.nanoTime());
+        verify(sessionProxy).sendHeartbeat(anyInt(), eq(SEQUENCE_INDEX), anyInt());
+    }
+
+    @Test
+    public void shouldSendABatchOfMessagesWithContiguousSequenceNumbers()
+    {
+        givenActive();
+        final int lastSentMsgSeqNum = session().lastSentMsgSeqNum();
+
+        final Encoder[] batch = testRequestBatch(3);
+        assertEquals(3, session().trySend(batch, batch.length));
+
+        for (int seqNum = lastSentMsgSeqNum + 1; seqNum <= lastSentMsgSeqNum + 3; seqNum++)
+        {
+            verifySavedMessage(seqNum);
+        }
+        assertEquals(lastSentMsgSeqNum + 3, session().lastSentMsgSeqNum());
+        assertThat(getSentMessage(), containsString("\00134=" + (lastSentMsgSeqNum + 3) + "\001"));
+    }
+
+    @Test
+    public void shouldOnlyCountMessagesBeforeBackPressureAsSentInABatch()
+    {
+        givenActive();
+        final int lastSentMsgSeqNum = session().lastSentMsgSeqNum();
+        when(mockPublication.saveMessage(
+            any(), anyInt(), anyInt(), anyInt(), anyLong(), anyLong(), anyInt(), anyLong(), any(),
+            eq(lastSentMsgSeqNum + 2), eq(null), eq(0))).thenReturn(BACK_PRESSURED);
+
+        final Encoder[] batch = testRequestBatch(3);
+        assertEquals(1, session().trySend(batch, batch.length));
+
+        verifySavedMessage(lastSentMsgSeqNum + 1);
+        verifySavedMessage(lastSentMsgSeqNum + 2);
+        verify(mockPublication, never()).saveMessage(
+            any(), anyInt(), anyInt(), anyInt(), anyLong(), anyLong(), anyInt(), anyLong(), any(),
+            eq(lastSentMsgSeqNum + 3), eq(null), eq(0));
+        assertEquals(lastSentMsgSeqNum + 1, session().lastSentMsgSeqNum());
+    }
+
+    private Encoder[] testRequestBatch(final int size)
+    {
+        final Encoder[] batch = new Encoder[size];
+        for (int i = 0; i < size; i++)
+        {
+            final TestRequestEncoder testRequest = new TestRequestEncoder();
+            testRequest.testReqID("testReqID" + i);
+            batch[i] = testRequest;
+        }
+        return batch;
+    }
+
+    private void verifySavedMessage(final int seqNum)
+    {
+        verify(mockPublication).saveMessage(
+            any(), anyInt(), anyInt(), anyInt(), anyLong(), anyLong(), anyInt(), anyLong(), any(),
+            eq(seqNum), eq(null), eq(0));
+    }
+
     // See http://www.fixtradingcommunity.org/pg/discussions/topicpost/164720/fix-4x-sessionlevel-protocol-tests
     // 1d_InvalidLogonBadSendingTime.def
     @Test
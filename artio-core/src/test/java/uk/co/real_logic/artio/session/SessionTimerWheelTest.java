@@ -0,0 +1,208 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import org.junit.Test;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.mockito.Mockito.*;
+import static uk.co.real_logic.artio.session.Session.NO_POLL_TIME;
+import static uk.co.real_logic.artio.session.Session.POLL_IMMEDIATELY;
+import static uk.co.real_logic.artio.session.SessionTimerWheel.NO_TIMER;
+
+public class SessionTimerWheelTest
+{
+    private static final long START_TIME_IN_NS = SECONDS.toNanos(1);
+    private static final long TICK_IN_NS = MILLISECONDS.toNanos(2);
+
+    private final SessionTimerWheel timerWheel = new SessionTimerWheel(START_TIME_IN_NS);
+    private final Session session = newSession();
+    private final Session otherSession = newSession();
+
+    @Test
+    public void shouldPollSessionOnlyWhenItsTimerExpires()
+    {
+        final long pollTimeInNs = START_TIME_IN_NS + MILLISECONDS.toNanos(10);
+        givenNextPollTimes(session, pollTimeInNs, NO_POLL_TIME);
+
+        timerWheel.add(session);
+
+        assertEquals(0, timerWheel.poll(pollTimeInNs - TICK_IN_NS));
+        verify(session, never()).poll(anyLong());
+
+        assertEquals(1, timerWheel.poll(pollTimeInNs + TICK_IN_NS));
+        verify(session).poll(pollTimeInNs + TICK_IN_NS);
+    }
+
+    @Test
+    public void shouldRescheduleSessionAfterPollingIt()
+    {
+        final long firstPollTimeInNs = START_TIME_IN_NS + MILLISECONDS.toNanos(10);
+        final long secondPollTimeInNs = START_TIME_IN_NS + MILLISECONDS.toNanos(50);
+        givenNextPollTimes(session, firstPollTimeInNs, secondPollTimeInNs, NO_POLL_TIME);
+
+        timerWheel.add(session);
+
+        timerWheel.poll(firstPollTimeInNs + TICK_IN_NS);
+        verify(session, times(1)).poll(anyLong());
+        assertEquals(secondPollTimeInNs, session.scheduledPollTimeInNs);
+
+        timerWheel.poll(secondPollTimeInNs - TICK_IN_NS);
+        verify(session, times(1)).poll(anyLong());
+
+        timerWheel.poll(secondPollTimeInNs + TICK_IN_NS);
+        verify(session, times(2)).poll(anyLong());
+        assertEquals(NO_TIMER, session.timerId);
+    }
+
+    @Test
+    public void shouldRescheduleSessionWhenItsPollTimeMovesEarlier()
+    {
+        final long earlierPollTimeInNs = START_TIME_IN_NS + MILLISECONDS.toNanos(10);
+        final long laterPollTimeInNs = START_TIME_IN_NS + MILLISECONDS.toNanos(100);
+        givenNextPollTimes(session, laterPollTimeInNs, earlierPollTimeInNs, NO_POLL_TIME);
+
+        timerWheel.add(session);
+        timerWheel.schedule(session);
+
+        assertEquals(earlierPollTimeInNs, session.scheduledPollTimeInNs);
+
+        timerWheel.poll(earlierPollTimeInNs + TICK_IN_NS);
+        verify(session, times(1)).poll(anyLong());
+
+        // The cancelled timer for the later time doesn't poll the session a second time.
+        timerWheel.poll(laterPollTimeInNs + TICK_IN_NS);
+        verify(session, times(1)).poll(anyLong());
+        assertEquals(NO_TIMER, session.timerId);
+    }
+
+    @Test
+    public void shouldPollSessionsThatNeedPollingImmediatelyOnTheNextTick()
+    {
+        givenNextPollTimes(session, POLL_IMMEDIATELY, NO_POLL_TIME);
+
+        timerWheel.add(session);
+
+        assertEquals(1, timerWheel.poll(START_TIME_IN_NS + TICK_IN_NS));
+    }
+
+    @Test
+    public void shouldNotScheduleSessionsWithNothingToPoll()
+    {
+        givenNextPollTimes(session, NO_POLL_TIME);
+
+        timerWheel.add(session);
+
+        assertEquals(NO_TIMER, session.timerId);
+        assertEquals(0, timerWheel.poll(START_TIME_IN_NS + SECONDS.toNanos(100)));
+        verify(session, never()).poll(anyLong());
+    }
+
+    @Test
+    public void shouldCancelTimerWhenSessionRemoved()
+    {
+        final long pollTimeInNs = START_TIME_IN_NS + MILLISECONDS.toNanos(10);
+        givenNextPollTimes(session, pollTimeInNs);
+        givenNextPollTimes(otherSession, pollTimeInNs, NO_POLL_TIME);
+
+        timerWheel.add(session);
+        timerWheel.add(otherSession);
+        timerWheel.remove(session);
+
+        assertEquals(NO_TIMER, session.timerId);
+        assertEquals(NO_POLL_TIME, session.scheduledPollTimeInNs);
+        assertNull(session.timerWheel);
+
+        timerWheel.poll(pollTimeInNs + TICK_IN_NS);
+        verify(session, never()).poll(anyLong());
+        verify(otherSession).poll(anyLong());
+    }
+
+    @Test
+    public void shouldNotPollSessionRemovedByAnotherSessionsPoll()
+    {
+        final long pollTimeInNs = START_TIME_IN_NS + MILLISECONDS.toNanos(10);
+        givenNextPollTimes(session, pollTimeInNs, NO_POLL_TIME);
+        givenNextPollTimes(otherSession, pollTimeInNs, NO_POLL_TIME);
+        when(session.poll(anyLong())).thenAnswer(inv ->
+        {
+            timerWheel.remove(otherSession);
+            return 1;
+        });
+        when(otherSession.poll(anyLong())).thenAnswer(inv ->
+        {
+            timerWheel.remove(session);
+            return 1;
+        });
+
+        timerWheel.add(session);
+        timerWheel.add(otherSession);
+
+        assertEquals(1, timerWheel.poll(pollTimeInNs + TICK_IN_NS));
+    }
+
+    @Test
+    public void shouldPollSessionsScheduledBeyondOneRotationOfTheWheel()
+    {
+        // Longer than the wheel's 4096 ticks of ~1ms
+        final long pollTimeInNs = START_TIME_IN_NS + SECONDS.toNanos(30);
+        givenNextPollTimes(session, pollTimeInNs, NO_POLL_TIME);
+
+        timerWheel.add(session);
+
+        for (long timeInNs = START_TIME_IN_NS; timeInNs < pollTimeInNs; timeInNs += MILLISECONDS.toNanos(100))
+        {
+            timerWheel.poll(timeInNs);
+        }
+        verify(session, never()).poll(anyLong());
+
+        timerWheel.poll(pollTimeInNs + TICK_IN_NS);
+        verify(session, times(1)).poll(anyLong());
+    }
+
+    @Test
+    public void shouldPollSessionsScheduledBeyondOneRotationOfTheWheelWithoutIntermediatePolls()
+    {
+        final long pollTimeInNs = START_TIME_IN_NS + SECONDS.toNanos(30);
+        givenNextPollTimes(session, pollTimeInNs, NO_POLL_TIME);
+
+        timerWheel.add(session);
+
+        timerWheel.poll(pollTimeInNs - SECONDS.toNanos(1));
+        verify(session, never()).poll(anyLong());
+
+        timerWheel.poll(pollTimeInNs + TICK_IN_NS);
+        verify(session, times(1)).poll(anyLong());
+    }
+
+    private void givenNextPollTimes(final Session session, final long pollTimeInNs, final Long... pollTimesInNs)
+    {
+        when(session.nextPollTimeInNs()).thenReturn(pollTimeInNs, pollTimesInNs);
+    }
+
+    private static Session newSession()
+    {
+        // Mocks don't run field initialisers, so start with the same timer state as a constructed session
+        final Session session = mock(Session.class);
+        session.timerId = NO_TIMER;
+        session.scheduledPollTimeInNs = NO_POLL_TIME;
+        when(session.poll(anyLong())).thenReturn(1);
+        return session;
+    }
+}
@@ -0,0 +1,325 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.session;
+
+import io.aeron.Aeron;
+import io.aeron.ExclusivePublication;
+import io.aeron.Subscription;
+import io.aeron.driver.MediaDriver;
+import io.aeron.logbuffer.FragmentHandler;
+import org.agrona.concurrent.status.AtomicCounter;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+import uk.co.real_logic.artio.CommonConfiguration;
+import uk.co.real_logic.artio.TestFixtures;
+import uk.co.real_logic.artio.builder.HeaderEncoder;
+import uk.co.real_logic.artio.builder.TestRequestEncoder;
+import uk.co.real_logic.artio.dictionary.FixDictionary;
+import uk.co.real_logic.artio.dictionary.generation.Exceptions;
+import uk.co.real_logic.artio.engine.framer.FakeEpochClock;
+import uk.co.real_logic.artio.library.OnMessageInfo;
+import uk.co.real_logic.artio.messages.FixMessageDecoder;
+import uk.co.real_logic.artio.messages.MessageHeaderDecoder;
+import uk.co.real_logic.artio.protocol.GatewayPublication;
+import uk.co.real_logic.artio.util.EpochFractionClocks;
+import uk.co.real_logic.artio.util.MutableAsciiBuffer;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static io.aeron.CommonContext.IPC_CHANNEL;
+import static org.hamcrest.MatcherAssert.assertThat;
+import static org.hamcrest.Matchers.containsString;
+import static org.hamcrest.Matchers.startsWith;
+import static org.junit.Assert.*;
+import static org.mockito.ArgumentMatchers.any;
+import static org.mockito.ArgumentMatchers.anyInt;
+import static org.mockito.Mockito.doAnswer;
+import static org.mockito.Mockito.doThrow;
+import static org.mockito.Mockito.mock;
+import static org.mockito.Mockito.spy;
+import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_OUTBOUND_LIBRARY_STREAM;
+import static uk.co.real_logic.artio.CommonConfiguration.DEFAULT_SESSION_BUFFER_SIZE;
+import static uk.co.real_logic.artio.Timing.assertEventuallyTrue;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_REASONABLE_TRANSMISSION_TIME_IN_MS;
+import static uk.co.real_logic.artio.library.SessionConfiguration.DEFAULT_ENABLE_LAST_MSG_SEQ_NUM_PROCESSED;
+import static uk.co.real_logic.artio.messages.SessionState.ACTIVE;
+import static uk.co.real_logic.artio.messages.SessionState.CONNECTED;
+
+public class SessionTryClaimTest
+{
+    private static final int HEARTBEAT_INTERVAL_IN_S = 2;
+    private static final long SENDING_TIME_WINDOW = 2000;
+    private static final long CONNECTION_ID = 3L;
+    private static final int LIBRARY_ID = 4;
+    private static final int SEQUENCE_INDEX = 0;
+
+    // 8=FIX.4.4|9=88|...|10=nnn| has a three digit length but a two digit BodyLength
+    private static final int MESSAGE_LENGTH = 110;
+    private static final int BODY_LENGTH = 88;
+
+    private final FakeEpochClock fakeClock = new FakeEpochClock();
+    private final SessionIdStrategy idStrategy = mock(SessionIdStrategy.class);
+    private final TestRequestEncoder testRequest = new TestRequestEncoder();
+    private final MessageHeaderDecoder header = new MessageHeaderDecoder();
+    private final FixMessageDecoder fixMessage = new FixMessageDecoder();
+    private final List<String> messages = new ArrayList<>();
+    private final FragmentHandler fragmentHandler = (buffer, offset, length, aeronHeader) ->
+    {
+        header.wrap(buffer, offset);
+        if (header.templateId() == FixMessageDecoder.TEMPLATE_ID)
+        {
+            fixMessage.wrap(buffer, offset + header.encodedLength(), header.blockLength(), header.version());
+            fixMessage.skipMetaData();
+            messages.add(fixMessage.body());
+        }
+    };
+
+    private MediaDriver mediaDriver;
+    private Aeron aeron;
+    private Subscription subscription;
+    private GatewayPublication outboundPublication;
+    private AcceptorSession session;
+
+    @Before
+    public void setUp()
+    {
+        mediaDriver = TestFixtures.launchJustMediaDriver();
+        aeron = Aeron.connect();
+
+        subscription = aeron.addSubscription(IPC_CHANNEL, DEFAULT_OUTBOUND_LIBRARY_STREAM);
+        final ExclusivePublication publication = aeron.addExclusivePublication(
+            IPC_CHANNEL, DEFAULT_OUTBOUND_LIBRARY_STREAM);
+        assertEventuallyTrue("publication never connected", publication::isConnected);
+
+        outboundPublication = new GatewayPublication(
+            publication,
+            mock(AtomicCounter.class),
+            CommonConfiguration.backoffIdleStrategy(),
+            fakeClock.nanoClockView(),
+            1);
+
+        doAnswer(
+            (inv) ->
+            {
+                final HeaderEncoder encoder = (HeaderEncoder)inv.getArguments()[1];
+                encoder.senderCompID("senderCompID").targetCompID("targetCompID");
+                return null;
+            }).when(idStrategy).setupSession(any(), any());
+
+        session = new AcceptorSession(
+            HEARTBEAT_INTERVAL_IN_S,
+            CONNECTION_ID,
+            fakeClock,
+            fakeClock.nanoClockView(),
+            mock(DirectSessionProxy.class),
+            mock(GatewayPublication.class),
+            outboundPublication,
+            idStrategy,
+            SENDING_TIME_WINDOW,
+            mock(AtomicCounter.class),
+            mock(AtomicCounter.class),
+            LIBRARY_ID,
+            1,
+            SEQUENCE_INDEX,
+            CONNECTED,
+            DEFAULT_REASONABLE_TRANSMISSION_TIME_IN_MS,
+            new MutableAsciiBuffer(new byte[DEFAULT_SESSION_BUFFER_SIZE]),
+            DEFAULT_ENABLE_LAST_MSG_SEQ_NUM_PROCESSED,
+            SessionCustomisationStrategy.none(),
+            mock(OnMessageInfo.class),
+            EpochFractionClocks.millisClock(fakeClock.nanoClockView()));
+        session.fixDictionary(FixDictionary.of(FixDictionary.findDefault()));
+        session.state(ACTIVE);
+    }
+
+    @After
+    public void tearDown()
+    {
+        Exceptions.closeAll(aeron, mediaDriver);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldEncodeClaimedMessageWhoseBodyLengthIsShorterThanItsLengthIntoThePublication()
+    {
+        final String testReqID = testReqIdForLength(MESSAGE_LENGTH);
+        final int lastSentMsgSeqNum = session.lastSentMsgSeqNum();
+
+        assertTrue(session.tryClaim(testRequest.testReqID(testReqID), MESSAGE_LENGTH) > 0);
+        assertEquals(lastSentMsgSeqNum, session.lastSentMsgSeqNum());
+        session.commit();
+        assertEquals(lastSentMsgSeqNum + 1, session.lastSentMsgSeqNum());
+
+        assertTrue(session.trySend(testRequest.testReqID("next")) > 0);
+
+        final String claimedMessage = pollMessage();
+        assertEquals(MESSAGE_LENGTH, claimedMessage.length());
+        assertThat(claimedMessage, startsWith("8=FIX.4.4\0019=" + BODY_LENGTH + "\001"));
+        assertThat(claimedMessage, containsString("\00134=" + (lastSentMsgSeqNum + 1) + "\001"));
+        assertThat(claimedMessage, containsString("\001112=" + testReqID + "\001"));
+        assertValidChecksum(claimedMessage);
+
+        final String nextMessage = pollMessage();
+        assertThat(nextMessage, startsWith("8=FIX.4.4\001"));
+        assertThat(nextMessage, containsString("\00134=" + (lastSentMsgSeqNum + 2) + "\001"));
+        assertThat(nextMessage, containsString("\001112=next\001"));
+        assertValidChecksum(nextMessage);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldAbortClaimWhenMessageHasADifferentLength()
+    {
+        final String testReqID = testReqIdForLength(MESSAGE_LENGTH);
+        final int lastSentMsgSeqNum = session.lastSentMsgSeqNum();
+
+        for (final int claimedLength : new int[]{ MESSAGE_LENGTH - 1, MESSAGE_LENGTH + 1 })
+        {
+            try
+            {
+                session.tryClaim(testRequest.testReqID(testReqID), claimedLength);
+                fail("Claimed a message with the wrong length");
+            }
+            catch (final IllegalArgumentException e)
+            {
+                assertEquals(lastSentMsgSeqNum, session.lastSentMsgSeqNum());
+            }
+        }
+
+        assertTrue(session.trySend(testRequest.testReqID("next")) > 0);
+
+        final String nextMessage = pollMessage();
+        assertThat(nextMessage, containsString("\00134=" + (lastSentMsgSeqNum + 1) + "\001"));
+        assertThat(nextMessage, containsString("\001112=next\001"));
+        assertValidChecksum(nextMessage);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldCommitClaimedMessageWhenOtherMessagesAreSentOnThePublicationBeforeTheCommit()
+    {
+        final String testReqID = testReqIdForLength(MESSAGE_LENGTH);
+        final int lastSentMsgSeqNum = session.lastSentMsgSeqNum();
+
+        assertTrue(session.tryClaim(testRequest.testReqID(testReqID), MESSAGE_LENGTH) > 0);
+        assertTrue(outboundPublication.saveApplicationHeartbeat(LIBRARY_ID) > 0);
+        session.commit();
+
+        final String claimedMessage = pollMessage();
+        assertEquals(MESSAGE_LENGTH, claimedMessage.length());
+        assertThat(claimedMessage, containsString("\00134=" + (lastSentMsgSeqNum + 1) + "\001"));
+        assertThat(claimedMessage, containsString("\001112=" + testReqID + "\001"));
+        assertValidChecksum(claimedMessage);
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldNotClaimASecondMessageBeforeTheFirstIsCommitted()
+    {
+        final String testReqID = testReqIdForLength(MESSAGE_LENGTH);
+        final int lastSentMsgSeqNum = session.lastSentMsgSeqNum();
+
+        assertTrue(session.tryClaim(testRequest.testReqID(testReqID), MESSAGE_LENGTH) > 0);
+        try
+        {
+            session.tryClaim(testRequest.testReqID(testReqID), MESSAGE_LENGTH);
+            fail("Claimed a second message before the first was committed");
+        }
+        catch (final IllegalStateException e)
+        {
+            assertEquals(lastSentMsgSeqNum, session.lastSentMsgSeqNum());
+        }
+        session.commit();
+
+        final String claimedMessage = pollMessage();
+        assertThat(claimedMessage, containsString("\00134=" + (lastSentMsgSeqNum + 1) + "\001"));
+        assertThat(claimedMessage, containsString("\001112=" + testReqID + "\001"));
+    }
+
+    @Test(timeout = 20_000L)
+    public void shouldAbortClaimWhenEncodingFails()
+    {
+        final String testReqID = testReqIdForLength(MESSAGE_LENGTH);
+        final int lastSentMsgSeqNum = session.lastSentMsgSeqNum();
+        final TestRequestEncoder failingEncoder = spy(new TestRequestEncoder().testReqID(testReqID));
+        doThrow(new IllegalStateException("encoding failed")).when(failingEncoder).encode(any(), anyInt());
+
+        try
+        {
+            session.tryClaim(failingEncoder, MESSAGE_LENGTH);
+            fail("Claimed a message whose encoding failed");
+        }
+        catch (final IllegalStateException e)
+        {
+            assertEquals("encoding failed", e.getMessage());
+        }
+
+        assertTrue(session.trySend(testRequest.testReqID("next")) > 0);
+
+        final String nextMessage = pollMessage();
+        assertThat(nextMessage, containsString("\00134=" + (lastSentMsgSeqNum + 1) + "\001"));
+        assertThat(nextMessage, containsString("\001112=next\001"));
+    }
+
+    @Test
+    public void shouldCalculateBodyLengthDigits()
+    {
+        final int beginStringLength = "FIX.4.4".length();
+        assertEquals(2, Session.bodyLengthDigits(MESSAGE_LENGTH, beginStringLength));
+        assertEquals(2, Session.bodyLengthDigits(99 + beginStringLength + 15, beginStringLength));
+        assertEquals(3, Session.bodyLengthDigits(100 + beginStringLength + 16, beginStringLength));
+        assertEquals(1, Session.bodyLengthDigits(9 + beginStringLength + 14, beginStringLength));
+    }
+
+    // Sends a message to measure the length of a TestRequest and returns a TestReqID that gives a message of length
+    private String testReqIdForLength(final int length)
+    {
+        assertTrue(session.trySend(testRequest.testReqID("x")) > 0);
+        final String probeMessage = pollMessage();
+
+        final StringBuilder testReqID = new StringBuilder("x");
+        for (int i = probeMessage.length(); i < length; i++)
+        {
+            testReqID.append('x');
+        }
+        return testReqID.toString();
+    }
+
+    private String pollMessage()
+    {
+        while (messages.isEmpty())
+        {
+            if (subscription.poll(fragmentHandler, 1) == 0)
+            {
+                Thread.yield();
+            }
+        }
+
+        return messages.remove(0);
+    }
+
+    private static void assertValidChecksum(final String message)
+    {
+        final int checksumStart = message.lastIndexOf("\00110=") + 1;
+        int checksum = 0;
+        for (int i = 0; i < checksumStart; i++)
+        {
+            checksum += message.charAt(i);
+        }
+
+        final int encodedChecksum = Integer.parseInt(message.substring(checksumStart + 3, checksumStart + 6));
+        assertEquals(message, checksum & 0xFF, encodedChecksum);
+        assertEquals(message, checksumStart + 7, message.length());
+    }
+}
@@ -0,0 +1,115 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.dictionary.generation;
+
+import org.agrona.collections.IntHashSet;
+import org.openjdk.jmh.annotations.*;
+
+import java.util.Arrays;
+import java.util.concurrent.TimeUnit;
+
+import static java.util.stream.Collectors.toList;
+import static uk.co.real_logic.artio.dictionary.generation.CodecUtil.*;
+
+/**
+ * Compares the hash set based tracking of visited and missing required fields that decoders used to generate with
+ * the perfect hash and bitset based tracking, for the fields of a FIX 4.4 header. See StubValidatingDecoderBenchmark
+ * for the end to end cost of decoding with validation.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class FieldTrackingBenchmark
+{
+    private static final int[] HEADER_TAGS = {
+        8, 9, 35, 49, 56, 115, 128, 90, 91, 34, 50, 142, 57, 143, 116, 144, 129, 145, 43, 97, 52, 122, 212, 213,
+        347, 369, 627, 628, 629, 630 };
+    private static final int[] REQUIRED_TAGS = { 8, 9, 35, 49, 56, 34, 52 };
+    private static final int[] DECODED_TAGS = { 8, 9, 35, 49, 56, 34, 52, 369, 122, 43 };
+
+    private final IntHashSet requiredFields = new IntHashSet();
+    private final IntHashSet alreadyVisitedFields = new IntHashSet(2 * HEADER_TAGS.length);
+    private final IntHashSet missingRequiredFields = new IntHashSet();
+
+    private final FieldIndexTable fieldIndexTable = new FieldIndexTable(HEADER_TAGS);
+    private final long[] requiredFieldBits = fieldIndexTable.fieldBits(
+        Arrays.stream(REQUIRED_TAGS).boxed().collect(toList()));
+    private final long[] alreadyVisitedFieldBits = new long[fieldIndexTable.wordCount()];
+    private final long[] missingRequiredFieldBits = new long[fieldIndexTable.wordCount()];
+
+    @Setup
+    public void setup()
+    {
+        for (final int tag : REQUIRED_TAGS)
+        {
+            requiredFields.add(tag);
+        }
+    }
+
+    @Benchmark
+    public int intHashSets()
+    {
+        final IntHashSet alreadyVisitedFields = this.alreadyVisitedFields;
+        final IntHashSet missingRequiredFields = this.missingRequiredFields;
+
+        missingRequiredFields.copy(requiredFields);
+        alreadyVisitedFields.clear();
+
+        int invalidTagId = NO_FIELD_INDEX;
+        for (final int tag : DECODED_TAGS)
+        {
+            if (!alreadyVisitedFields.add(tag))
+            {
+                invalidTagId = tag;
+            }
+            missingRequiredFields.remove(tag);
+        }
+
+        final IntHashSet.IntIterator missingFieldsIterator = missingRequiredFields.iterator();
+        return missingFieldsIterator.hasNext() ? missingFieldsIterator.nextValue() : invalidTagId;
+    }
+
+    @Benchmark
+    public int perfectHashBitsets()
+    {
+        final FieldIndexTable fieldIndexTable = this.fieldIndexTable;
+        final long[] alreadyVisitedFieldBits = this.alreadyVisitedFieldBits;
+        final long[] missingRequiredFieldBits = this.missingRequiredFieldBits;
+
+        System.arraycopy(requiredFieldBits, 0, missingRequiredFieldBits, 0, missingRequiredFieldBits.length);
+        Arrays.fill(alreadyVisitedFieldBits, 0L);
+
+        int invalidTagId = NO_FIELD_INDEX;
+        for (final int tag : DECODED_TAGS)
+        {
+            final int fieldIndex = fieldIndexTable.fieldIndex(tag);
+            if (fieldIndex != NO_FIELD_INDEX)
+            {
+                if (!setFieldBit(alreadyVisitedFieldBits, fieldIndex))
+                {
+                    invalidTagId = tag;
+                }
+                clearFieldBit(missingRequiredFieldBits, fieldIndex);
+            }
+        }
+
+        final int missingFieldIndex = firstFieldBit(missingRequiredFieldBits);
+        return missingFieldIndex != NO_FIELD_INDEX ? fieldIndexTable.tags()[missingFieldIndex] : invalidTagId;
+    }
+}
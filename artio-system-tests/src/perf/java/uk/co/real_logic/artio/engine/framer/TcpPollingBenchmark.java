@@ -0,0 +1,174 @@
+/*
+ * Copyright 2020 Monotonic Ltd.
+ *
+ * Licensed under the Apache License, Version 2.0 (the "License");
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at
+ *
+ * https://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS,
+ * WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ * See the License for the specific language governing permissions and
+ * limitations under the License.
+ */
+package uk.co.real_logic.artio.engine.framer;
+
+import org.agrona.CloseHelper;
+import org.agrona.nio.TransportPoller;
+import org.openjdk.jmh.annotations.*;
+import uk.co.real_logic.artio.engine.EngineConfiguration;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.SelectionKey;
+import java.nio.channels.ServerSocketChannel;
+import java.nio.channels.SocketChannel;
+import java.util.concurrent.TimeUnit;
+
+import static java.nio.channels.SelectionKey.OP_READ;
+
+/**
+ * Compares the cost of polling for inbound data by reading every connection directly against selecting the ready
+ * connections, as ReceiverEndPoints does either side of its polling threshold, and the idle cost of polling the
+ * {@link DefaultTcpChannelSupplier} against the {@link BusyPollTcpChannelSupplier}.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5)
+@Measurement(iterations = 10)
+@Fork(1)
+public class TcpPollingBenchmark
+{
+    private static final TcpChannelSupplier.NewChannelHandler NO_NEW_CHANNELS =
+        (timeInMs, socketChannel) -> socketChannel.close();
+
+    @Param({"1", "4", "16", "64", "256"})
+    int connections;
+
+    private final ByteBuffer writeBuffer = ByteBuffer.allocateDirect(1);
+    private final ByteBuffer readBuffer = ByteBuffer.allocateDirect(1024);
+
+    private SocketChannel[] clientChannels;
+    private SocketChannel[] serverChannels;
+    private SelectingPoller selectingPoller;
+    private DefaultTcpChannelSupplier defaultTcpChannelSupplier;
+    private BusyPollTcpChannelSupplier busyPollTcpChannelSupplier;
+    private int nextClient;
+
+    @Setup
+    public void setup() throws IOException
+    {
+        clientChannels = new SocketChannel[connections];
+        serverChannels = new SocketChannel[connections];
+        selectingPoller = new SelectingPoller();
+
+        try (ServerSocketChannel listeningChannel = ServerSocketChannel.open())
+        {
+            listeningChannel.bind(new InetSocketAddress("localhost", 0));
+            for (int i = 0; i < connections; i++)
+            {
+                final SocketChannel clientChannel = SocketChannel.open(listeningChannel.getLocalAddress());
+                final SocketChannel serverChannel = listeningChannel.accept();
+                serverChannel.configureBlocking(false);
+                selectingPoller.register(serverChannel);
+
+                clientChannels[i] = clientChannel;
+                serverChannels[i] = serverChannel;
+            }
+        }
+
+        defaultTcpChannelSupplier = new DefaultTcpChannelSupplier(new EngineConfiguration().bindTo("localhost", 0));
+        busyPollTcpChannelSupplier = new BusyPollTcpChannelSupplier(new EngineConfiguration().bindTo("localhost", 0));
+    }
+
+    @TearDown
+    public void tearDown()
+    {
+        CloseHelper.closeAll(clientChannels);
+        CloseHelper.closeAll(serverChannels);
+        CloseHelper.closeAll(selectingPoller, defaultTcpChannelSupplier, busyPollTcpChannelSupplier);
+    }
+
+    @Benchmark
+    public int readAllConnections() throws IOException
+    {
+        writeToNextClient();
+
+        int bytesRead = 0;
+        while (bytesRead == 0)
+        {
+            final ByteBuffer readBuffer = this.readBuffer;
+            for (final SocketChannel serverChannel : serverChannels)
+            {
+                readBuffer.clear();
+                bytesRead += serverChannel.read(readBuffer);
+            }
+        }
+
+        return bytesRead;
+    }
+
+    @Benchmark
+    public int selectReadyConnections() throws IOException
+    {
+        writeToNextClient();
+
+        int bytesRead = 0;
+        while (bytesRead == 0)
+        {
+            bytesRead = selectingPoller.poll(readBuffer);
+        }
+
+        return bytesRead;
+    }
+
+    @Benchmark
+    public int idleDefaultChannelSupplier() throws IOException
+    {
+        return defaultTcpChannelSupplier.pollSelector(0, NO_NEW_CHANNELS);
+    }
+
+    @Benchmark
+    public int idleBusyPollChannelSupplier() throws IOException
+    {
+        return busyPollTcpChannelSupplier.pollSelector(0, NO_NEW_CHANNELS);
+    }
+
+    private void writeToNextClient() throws IOException
+    {
+        final ByteBuffer writeBuffer = this.writeBuffer;
+        writeBuffer.clear();
+        clientChannels[nextClient].write(writeBuffer);
+        nextClient = (nextClient + 1) % connections;
+    }
+
+    // Mirrors the selector path of ReceiverEndPoints, without requiring a publication.
+    static final class SelectingPoller extends TransportPoller
+    {
+        void register(final SocketChannel channel) throws IOException
+        {
+            channel.register(selector, OP_READ, channel);
+        }
+
+        int poll(final ByteBuffer readBuffer) throws IOException
+        {
+            selector.selectNow();
+
+            int bytesRead = 0;
+            final SelectionKey[] keys = selectedKeySet.keys();
+            final int size = selectedKeySet.size();
+            for (int i = 0; i < size; i++)
+            {
+                readBuffer.clear();
+                bytesRead += ((SocketChannel)keys[i].attachment()).read(readBuffer);
+            }
+            selectedKeySet.reset();
+
+            return bytesRead;
+        }
+    }
+}
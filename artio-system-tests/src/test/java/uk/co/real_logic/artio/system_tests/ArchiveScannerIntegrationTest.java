@@ -19,15 +19,24 @@ import org.agrona.CloseHelper;
 import org.agrona.collections.IntHashSet;
 import org.junit.Before;
 import org.junit.Test;
+import uk.co.real_logic.artio.CommonConfiguration;
 import uk.co.real_logic.artio.engine.EngineConfiguration;
+import uk.co.real_logic.artio.engine.logger.FixArchiveScanner;
+import uk.co.real_logic.artio.engine.logger.FixMessagePredicate;
 import uk.co.real_logic.artio.library.LibraryConfiguration;
+import uk.co.real_logic.artio.messages.MessageStatus;
 
+import java.util.ArrayList;
 import java.util.List;
 
 import static org.hamcrest.MatcherAssert.assertThat;
 import static org.hamcrest.Matchers.*;
+import static org.junit.Assert.assertEquals;
 import static uk.co.real_logic.artio.TestFixtures.largeTestReqId;
 import static uk.co.real_logic.artio.TestFixtures.launchMediaDriver;
+import static uk.co.real_logic.artio.engine.EngineConfiguration.DEFAULT_ARCHIVE_SCANNER_STREAM;
+import static uk.co.real_logic.artio.engine.logger.FixMessagePredicates.sessionOf;
+import static uk.co.real_logic.artio.engine.logger.FixMessagePredicates.statusOf;
 import static uk.co.real_logic.artio.system_tests.SystemTestUtil.*;
 
 public class ArchiveScannerIntegrationTest extends AbstractGatewayToGatewaySystemTest
@@ -105,6 +114,68 @@ public class ArchiveScannerIntegrationTest extends AbstractGatewayToGatewaySyste
         assertArchiveContainsBothMessages("hi");
     }
 
+    @Test
+    public void shouldScanTheSameMessagesOfASessionWithTheReplayIndexAsWithAFullScan()
+    {
+        acquireAcceptingSession();
+        setupAndExchangeMessages();
+        final long sessionId = acceptingSession.id();
+
+        closeLibrariesAndEngines();
+
+        final FixMessagePredicate predicate = sessionOf(sessionId).and(statusOf(MessageStatus.OK));
+        final List<String> fullScanMessages = getSessionMessagesFromArchive(predicate, null);
+        final List<String> indexedMessages = getSessionMessagesFromArchive(predicate, ACCEPTOR_LOGS);
+
+        assertThat(fullScanMessages, hasItem(containsString("\001112=hi")));
+        assertEquals(fullScanMessages, indexedMessages);
+    }
+
+    @Test
+    public void shouldScanAllMessagesOfASessionWhenThePredicateMatchesMessagesWithoutAnOkStatus()
+    {
+        acquireAcceptingSession();
+        setupAndExchangeMessages();
+        final long sessionId = acceptingSession.id();
+
+        closeLibrariesAndEngines();
+
+        final FixMessagePredicate predicate = sessionOf(sessionId);
+        final List<String> fullScanMessages = getSessionMessagesFromArchive(predicate, null);
+        final List<String> messages = getSessionMessagesFromArchive(predicate, ACCEPTOR_LOGS);
+
+        assertThat(fullScanMessages, hasItem(containsString("\001112=hi")));
+        assertEquals(fullScanMessages, messages);
+    }
+
+    private List<String> getSessionMessagesFromArchive(
+        final FixMessagePredicate predicate, final String logFileDir)
+    {
+        final EngineConfiguration configuration = acceptingEngine.configuration();
+        final IntHashSet queryStreamIds = new IntHashSet();
+        queryStreamIds.add(configuration.outboundLibraryStream());
+        queryStreamIds.add(configuration.inboundLibraryStream());
+
+        final List<String> messages = new ArrayList<>();
+        final FixArchiveScanner.Configuration context = new FixArchiveScanner.Configuration()
+            .aeronDirectoryName(configuration.aeronContext().aeronDirectoryName())
+            .idleStrategy(CommonConfiguration.backoffIdleStrategy())
+            .logFileDir(logFileDir)
+            .replayIndexLayout(configuration.replayIndexLayout());
+
+        try (FixArchiveScanner scanner = new FixArchiveScanner(context))
+        {
+            scanner.scan(
+                configuration.libraryAeronChannel(),
+                queryStreamIds,
+                predicate,
+                (message, buffer, offset, length, header) -> messages.add(message.body()),
+                false,
+                DEFAULT_ARCHIVE_SCANNER_STREAM);
+        }
+        return messages;
+    }
+
     private void closeLibrariesAndEngines()
     {
         CloseHelper.close(initiatingLibrary);